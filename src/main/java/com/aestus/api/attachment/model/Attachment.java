@@ -19,7 +19,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity()
-@Table(name = "attachments")
+@Table(
+    name = "attachments",
+    indexes = {@Index(name = "idx_documentId", columnList = "documentId")})
 public class Attachment {
 
   /** The auto-generated Id. */
@@ -9,14 +9,15 @@ import com.aestus.api.blockchain.model.swagger.ResponseMessageWithBalance;
 import com.aestus.api.blockchain.model.swagger.ResponseMessageWithDeposit;
 import com.aestus.api.blockchain.model.swagger.ResponseMessageWithQuote;
 import com.aestus.api.blockchain.model.swagger.ResponseMessageWithTransfer;
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.common.model.AestusPrincipal;
 import com.aestus.api.common.model.ResponseMessage;
 import com.aestus.api.common.util.JWTUtils;
 import com.aestus.api.profile.model.UserProfile;
 import com.aestus.api.profile.model.swagger.ResponseMessageWithUserProfile;
+import com.aestus.api.transaction.gateway.TransactionGateway;
 import com.aestus.api.transaction.model.Transaction;
-import com.aestus.api.transaction.model.swagger.ResponseMessageWithTransaction;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.util.StdDateFormat;
@@ -57,6 +58,9 @@ public class BlockchainController {
   /** The jwt utilities. */
   @Autowired JWTUtils jwtUtils;
 
+  /** The transaction gateway. */
+  @Autowired TransactionGateway transactionGateway;
+
   @Value("${com.aestus.solana.base.server}")
   private final String bcServer = null;
 
@@ -101,12 +105,6 @@ public class BlockchainController {
   @Value("${com.aestus.profile.get.email.url}")
   private final String urlProfileGetByEmail = null;
 
-  @Value("${com.aestus.profile.get.token.url}")
-  private final String urlProfileGetByToken = null;
-
-  @Value("${com.aestus.transaction.create.url}")
-  private final String urlTransactionCreate = null;
-
   public BlockchainController() {}
 
   protected String getUrlBlockchainBase() {
@@ -362,27 +360,6 @@ public class BlockchainController {
     return ResponseEntity.ok().body(msg);
   }
 
-  /**
-   * Retrieves the user profile associated with the jwt token
-   *
-   * @param request the http request
-   * @return the response message with the user profile
-   */
-  protected ResponseMessage getUserProfile(HttpServletRequest request) {
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(request));
-
-    // Retrieve user profile from the jwt token
-    ResponseEntity<ResponseMessageWithUserProfile> response =
-        restTemplate.exchange(
-            urlBase + urlProfileGetByToken,
-            HttpMethod.GET,
-            entity,
-            ResponseMessageWithUserProfile.class);
-
-    return response.getBody();
-  }
-
   /**
    * Retrieves the user profile associated with the email address
    *
@@ -407,6 +384,7 @@ public class BlockchainController {
    * Checks and returns the balance of the wallet address of the user profile associated with the
    * jwt token
    *
+   * @param principal the principal of the jwt token
    * @param request the http request
    * @return the balance of the wallet address
    */
@@ -443,14 +421,9 @@ public class BlockchainController {
                                     + "}"))),
         @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
       })
-  public ResponseEntity<ResponseMessage> getWalletBalance(HttpServletRequest request) {
-    ResponseMessage msg = getUserProfile(request);
-
-    if (msg.isOk()) {
-      UserProfile profile = (UserProfile) msg.getData();
-
-      return getWalletBalance(profile.getWalletId(), request);
-    } else return ResponseEntity.internalServerError().body(msg);
+  public ResponseEntity<ResponseMessage> getWalletBalance(
+      AestusPrincipal principal, HttpServletRequest request) {
+    return getWalletBalance(principal.getWalletId(), request);
   }
 
   /**
@@ -458,6 +431,7 @@ public class BlockchainController {
    *
    * @param walletId the wallet address
    * @param amount the quantity of Lamports to airdrop
+   * @param principal the principal of the jwt token
    * @param request the http request
    * @return the balance of the wallet address
    */
@@ -540,19 +514,14 @@ public class BlockchainController {
   public ResponseEntity<ResponseMessage> deposit(
       @RequestParam(required = false) @Size(min = 32, max = 44) String walletId,
       @RequestParam @Min(1) long amount,
+      AestusPrincipal principal,
       HttpServletRequest request) {
 
     String uri = request.getRequestURI();
     ResponseMessage msg;
 
     // If not provided, get wallet id of user profile from jwt token
-    if (walletId == null) {
-      msg = getUserProfile(request);
-
-      if (msg.isOk()) {
-        walletId = ((UserProfile) msg.getData()).getWalletId();
-      } else return ResponseEntity.internalServerError().body(msg);
-    }
+    if (walletId == null) walletId = principal.getWalletId();
 
     // Perform airdrop using blockchain api
     String url = getUrlBlockchainBase() + String.format(urlDeposit, walletId, amount);
@@ -583,7 +552,8 @@ public class BlockchainController {
    * @param toWalletId the receiver wallet address
    * @param amount the quantity of Lamports to transfer
    * @param request the http request
-   * @return the response message with the embedded {@code Transaction} object
+   * @return the response message with the embedded {@code Transaction} object, submitted without
+   *     its {@code id} yet
    */
   protected ResponseMessage createTransaction(
       String type,
@@ -606,22 +576,13 @@ public class BlockchainController {
         new Transaction(
             type, fromWalletId, amount * -1, fromBalance, toWalletId, amount, toBalance);
 
+    // The record is written behind, the response does not wait for the database
     try {
-      String jsonTransaction = objectMapper.writeValueAsString(transaction);
-
-      String url =
-          urlBase + String.format(urlTransactionCreate, type, fromWalletId, toWalletId, amount);
-
-      // Duplicate authorization headers from request
-      HttpEntity entity = new HttpEntity<String>(jsonTransaction, getHttpHeaders(request));
+      transactionGateway.submitTransaction(transaction);
 
-      // Create transaction
-      ResponseEntity<ResponseMessageWithTransaction> response =
-          restTemplate.exchange(url, HttpMethod.POST, entity, ResponseMessageWithTransaction.class);
-
-      return response.getBody();
-    } catch (JsonProcessingException jpEx) {
-      return new ResponseMessage(HttpStatus.INTERNAL_SERVER_ERROR, jpEx, request.getRequestURI());
+      return new ResponseMessage(HttpStatus.OK.value(), transaction, request.getRequestURI());
+    } catch (GatewayException ex) {
+      return new ResponseMessage(HttpStatus.INTERNAL_SERVER_ERROR, ex, request.getRequestURI());
     }
   }
 
@@ -631,6 +592,7 @@ public class BlockchainController {
    * @param fromWalletId the sender wallet address
    * @param toWalletId the receiver wallet address
    * @param amount the quantity of Lamports to transfer
+   * @param principal the principal of the jwt token
    * @param request the http request
    * @return the {@code Transfer} response embedded in a {@code ResponseMessage} instance
    */
@@ -730,19 +692,14 @@ public class BlockchainController {
               message = "toWalletId must not contain special characters")
           String toWalletId,
       @RequestParam @NotNull @Min(1) long amount,
+      AestusPrincipal principal,
       HttpServletRequest request) {
 
     String uri = request.getRequestURI();
     ResponseMessage msg;
 
     // If not provided, get fromWalletId of user profile from jwt token
-    if (fromWalletId == null) {
-      msg = getUserProfile(request);
-
-      if (msg.isOk()) {
-        fromWalletId = ((UserProfile) msg.getData()).getWalletId();
-      } else return ResponseEntity.internalServerError().body(msg);
-    }
+    if (fromWalletId == null) fromWalletId = principal.getWalletId();
 
     String url = getUrlBlockchainBase() + String.format(urlTransfer, fromWalletId, toWalletId, amount);
 
@@ -772,6 +729,7 @@ public class BlockchainController {
    *
    * @param email the receiver email address
    * @param amount the quantity of Lamports to transfer
+   * @param principal the principal of the jwt token
    * @param request the http request
    * @return the {@code Transfer} response embedded in a {@code ResponseMessage} instance
    */
@@ -861,26 +819,21 @@ public class BlockchainController {
           @Email(message = "email must be a valid format")
           String email,
       @RequestParam @NotNull @Min(1) int amount,
+      AestusPrincipal principal,
       HttpServletRequest request) {
 
-    String fromWalletId;
-    String toWalletId;
-
     // Retrieve fromWalletId from jwt token
-    ResponseMessage msg = getUserProfile(request);
-
-    if (msg.isOk()) {
-      fromWalletId = ((UserProfile) msg.getData()).getWalletId();
-    } else return ResponseEntity.internalServerError().body(msg);
+    String fromWalletId = principal.getWalletId();
+    String toWalletId;
 
     // Retrieve toWalletId from email
-    msg = getUserProfile(email, request);
+    ResponseMessage msg = getUserProfile(email, request);
 
     if (msg.isOk()) {
       toWalletId = ((UserProfile) msg.getData()).getWalletId();
     } else return ResponseEntity.internalServerError().body(msg);
 
-    return transfer(fromWalletId, toWalletId, amount, request);
+    return transfer(fromWalletId, toWalletId, amount, principal, request);
   }
 
   /**
@@ -0,0 +1,324 @@
+package com.aestus.api.common.cache;
+
+import com.aestus.api.common.model.CacheInvalidation;
+import com.aestus.api.common.model.CacheInvalidationStats;
+import com.aestus.api.common.repository.CacheInvalidationRepository;
+
+import com.google.common.collect.Iterables;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Keeps the caches of the nodes sharing the database consistent. A change invalidates its keys in
+ * the caches of its node, and writes the invalidations into the {@code cache_invalidations} table,
+ * in the transaction of the change. Every node reads the invalidations of the other nodes by
+ * sequence number, and applies them to its caches.
+ *
+ * <p>The sequence numbers are allocated on insert but become visible on commit, so a number may be
+ * read after greater ones. The numbers read after a gap are kept pending, and the gap is waited for
+ * up to the gap timeout. The sequence number then moves past the gap, so that a long transaction
+ * does not hold back the invalidations after it, and the number skipped is read again on every
+ * poll until it is committed and applied. A number left by a rollback is never committed, it is
+ * given up on after the retention, as the invalidations of a transaction open for longer would be
+ * deleted on commit anyway. Until its invalidation is committed, neither is the change, so nothing
+ * is stale meanwhile. When the invalidations cannot be read for longer than the lag bound, all
+ * caches are flushed on every poll until they can, so that a node never serves an entry staler
+ * than the bound.
+ *
+ * <p>The lag of an invalidation is measured from its creation on the other node, so it includes
+ * the clock skew of the nodes.
+ */
+@Slf4j
+public class CacheInvalidator {
+
+  private final CacheInvalidationRepository repository;
+  private final String node;
+  private final int batchSize;
+  private final long gapTimeoutMs;
+  private final long maxLagMs;
+  private final long retentionMs;
+
+  private final Map<String, Listener> listeners = new ConcurrentHashMap<>();
+
+  /** The sequence number up to which all invalidations are applied, guarded by this invalidator. */
+  private long sequence;
+
+  /** The sequence numbers applied after {@link #sequence}. */
+  private final TreeSet<Long> pending = new TreeSet<>();
+
+  /** The times the gaps after {@link #sequence} were found, in epoch milliseconds. */
+  private final Map<Long, Long> gaps = new HashMap<>();
+
+  /** The times the sequence numbers skipped were given up on, in epoch milliseconds. */
+  private final TreeMap<Long, Long> skippedIds = new TreeMap<>();
+
+  private long lastPolledMillis;
+  private long lastPurgedMillis;
+  private long applied;
+  private long skipped;
+  private long late;
+  private long flushes;
+  private long lastLagMs;
+  private long maxLagSeenMs;
+
+  /**
+   * Creates an invalidator, call {@link #start()} before polling.
+   *
+   * @param repository the repository of the invalidations
+   * @param node the id of the node
+   * @param batchSize the maximum number of invalidations read at a time
+   * @param gapTimeoutMs the time a gap in the sequence numbers is waited for
+   * @param maxLagMs the time the invalidations may not be read for before the caches are flushed
+   * @param retentionMs the time the invalidations are kept for
+   */
+  public CacheInvalidator(
+      CacheInvalidationRepository repository,
+      String node,
+      int batchSize,
+      long gapTimeoutMs,
+      long maxLagMs,
+      long retentionMs) {
+    this.repository = repository;
+    this.node = node;
+    this.batchSize = batchSize;
+    this.gapTimeoutMs = gapTimeoutMs;
+    this.maxLagMs = maxLagMs;
+    this.retentionMs = retentionMs;
+  }
+
+  /** Starts reading the invalidations after the last one, the caches of the node are empty. */
+  public synchronized void start() {
+    sequence = repository.findMaxId();
+    lastPolledMillis = System.currentTimeMillis();
+    lastPurgedMillis = lastPolledMillis;
+
+    log.info("Reading the cache invalidations of node {} after {}", node, sequence);
+  }
+
+  /**
+   * Registers the listener of a cache, invalidating its keys on the invalidations of the other
+   * nodes.
+   *
+   * @param cacheName the name of the cache
+   * @param listener the listener
+   */
+  public void register(String cacheName, Listener listener) {
+    listeners.put(cacheName, listener);
+  }
+
+  /**
+   * Writes the invalidation of a key for the other nodes, in the current transaction if there is
+   * one. The caller invalidates the key in the caches of this node.
+   *
+   * @param cacheName the name of the cache
+   * @param key the key, null for all the keys of the cache
+   */
+  public void publish(String cacheName, String key) {
+    repository.save(new CacheInvalidation(null, cacheName, key, node, LocalDateTime.now()));
+  }
+
+  /** Reads and applies the invalidations on schedule. */
+  @Scheduled(
+      initialDelayString = "${com.aestus.cache.invalidation.poll-interval-ms}",
+      fixedDelayString = "${com.aestus.cache.invalidation.poll-interval-ms}")
+  public void scheduledPoll() {
+    poll();
+  }
+
+  /**
+   * Reads and applies the invalidations of the other nodes created since the last poll.
+   *
+   * @return the number of invalidations applied
+   */
+  public synchronized int poll() {
+    long now = System.currentTimeMillis();
+    int count = 0;
+    List<CacheInvalidation> invalidations;
+
+    do {
+      try {
+        // Re-reads the pending invalidations, until the gap before them is filled
+        invalidations =
+            repository.findByIdGreaterThanOrderByIdAsc(sequence, PageRequest.of(0, batchSize));
+      } catch (DataAccessException ex) {
+        log.error("Cannot read the cache invalidations: {}", ex.getMessage());
+
+        if (now - lastPolledMillis > maxLagMs) flush();
+
+        return count;
+      }
+
+      for (CacheInvalidation invalidation : invalidations) {
+        if (pending.add(invalidation.getId()) && !node.equals(invalidation.getNode())) {
+          apply(invalidation);
+          count++;
+        }
+      }
+    } while (advance(now) && invalidations.size() == batchSize);
+
+    try {
+      count += readSkipped(now);
+    } catch (DataAccessException ex) {
+      log.error("Cannot read the cache invalidations skipped: {}", ex.getMessage());
+    }
+
+    lastPolledMillis = now;
+
+    if (now - lastPurgedMillis > retentionMs) purge(now);
+
+    return count;
+  }
+
+  /**
+   * Gets the statistics of the invalidations read by this node.
+   *
+   * @return the statistics
+   */
+  public synchronized CacheInvalidationStats getStats() {
+    return new CacheInvalidationStats(
+        node,
+        sequence,
+        pending.size(),
+        LocalDateTime.ofInstant(Instant.ofEpochMilli(lastPolledMillis), ZoneId.systemDefault()),
+        applied,
+        skipped,
+        skippedIds.size(),
+        late,
+        flushes,
+        lastLagMs,
+        maxLagSeenMs,
+        maxLagMs);
+  }
+
+  /**
+   * Moves the sequence number over the invalidations applied, and over the gaps timed out.
+   *
+   * @param now the time of the poll, in epoch milliseconds
+   * @return true if the sequence number moved
+   */
+  private boolean advance(long now) {
+    long start = sequence;
+
+    while (!pending.isEmpty()) {
+      long next = sequence + 1;
+
+      if (pending.remove(next)) {
+        sequence = next;
+      } else if (now - gaps.computeIfAbsent(next, id -> now) >= gapTimeoutMs) {
+        log.warn("Skipped the cache invalidation {}, not committed after a gap timeout", next);
+
+        sequence = next;
+        skipped++;
+        skippedIds.put(next, now);
+      } else break;
+
+      gaps.remove(next);
+    }
+
+    return sequence > start;
+  }
+
+  /**
+   * Reads the invalidations skipped again, and applies those committed since. The sequence numbers
+   * skipped for longer than the retention are given up on.
+   *
+   * @param now the time of the poll, in epoch milliseconds
+   * @return the number of invalidations applied
+   */
+  private int readSkipped(long now) {
+    skippedIds.values().removeIf(skippedAt -> now - skippedAt > retentionMs);
+
+    int count = 0;
+
+    for (List<Long> ids : Iterables.partition(new ArrayList<>(skippedIds.keySet()), batchSize)) {
+      for (CacheInvalidation invalidation : repository.findByIdIn(ids)) {
+        log.info("Read the cache invalidation {}, committed after a gap timeout", invalidation);
+
+        skippedIds.remove(invalidation.getId());
+        late++;
+
+        if (!node.equals(invalidation.getNode())) {
+          apply(invalidation);
+          count++;
+        }
+      }
+    }
+
+    return count;
+  }
+
+  private void apply(CacheInvalidation invalidation) {
+    Listener listener = listeners.get(invalidation.getCacheName());
+
+    if (listener != null) {
+      try {
+        listener.invalidate(invalidation.getCacheKey(), invalidation.getCreatedTimestamp());
+      } catch (RuntimeException ex) {
+        log.error("Cannot apply the cache invalidation {}", invalidation, ex);
+      }
+    }
+
+    Duration lag = Duration.between(invalidation.getCreatedTimestamp(), LocalDateTime.now());
+
+    applied++;
+    lastLagMs = Math.max(0, lag.toMillis());
+    maxLagSeenMs = Math.max(maxLagSeenMs, lastLagMs);
+  }
+
+  private void flush() {
+    flushes++;
+
+    for (Listener listener : listeners.values()) {
+      try {
+        listener.flush();
+      } catch (RuntimeException ex) {
+        log.error("Cannot flush a cache", ex);
+      }
+    }
+  }
+
+  private void purge(long now) {
+    try {
+      int deleted =
+          repository.deleteByCreatedTimestampBefore(
+              LocalDateTime.now().minus(Duration.ofMillis(retentionMs)));
+
+      if (deleted > 0) log.info("Deleted {} cache invalidations", deleted);
+
+      lastPurgedMillis = now;
+    } catch (DataAccessException ex) {
+      log.error("Cannot delete the cache invalidations: {}", ex.getMessage());
+    }
+  }
+
+  /** The listener of the invalidations of a cache. */
+  public interface Listener {
+
+    /**
+     * Invalidates a key of the cache of this node.
+     *
+     * @param key the key, null for all the keys of the cache
+     * @param timestamp the time the invalidation was created on the other node
+     */
+    void invalidate(String key, LocalDateTime timestamp);
+
+    /** Invalidates all the keys of the cache of this node, invalidations may have been missed. */
+    void flush();
+  }
+}
@@ -0,0 +1,36 @@
+package com.aestus.api.common.config;
+
+import com.aestus.api.common.cache.CacheInvalidator;
+import com.aestus.api.common.repository.CacheInvalidationRepository;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The cache configuration. The caches of the nodes are invalidated through the database, each node
+ * has a random id of its own, for it to skip its own invalidations.
+ */
+@Configuration
+public class CacheConfig {
+
+  @Value("${com.aestus.cache.invalidation.batch-size}")
+  private final Integer batchSize = 0;
+
+  @Value("${com.aestus.cache.invalidation.gap-timeout-ms}")
+  private final Long gapTimeoutMs = 0L;
+
+  @Value("${com.aestus.cache.invalidation.max-lag-ms}")
+  private final Long maxLagMs = 0L;
+
+  @Value("${com.aestus.cache.invalidation.retention-ms}")
+  private final Long retentionMs = 0L;
+
+  @Bean(initMethod = "start")
+  public CacheInvalidator cacheInvalidator(CacheInvalidationRepository repository) {
+    return new CacheInvalidator(
+        repository, UUID.randomUUID().toString(), batchSize, gapTimeoutMs, maxLagMs, retentionMs);
+  }
+}
@@ -0,0 +1,26 @@
+package com.aestus.api.common.config;
+
+import com.aestus.api.common.model.AestusPrincipal;
+import com.aestus.api.common.resolver.AestusPrincipalArgumentResolver;
+
+import java.util.List;
+
+import org.springdoc.core.SpringDocUtils;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/** The Web configuration to pass the principal of the requests to the controller methods. */
+@Configuration
+public class PrincipalConfig implements WebMvcConfigurer {
+
+  static {
+    // The principal is not a request parameter of the API documentation
+    SpringDocUtils.getConfig().addRequestWrapperToIgnore(AestusPrincipal.class);
+  }
+
+  @Override
+  public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+    resolvers.add(new AestusPrincipalArgumentResolver());
+  }
+}
@@ -0,0 +1,9 @@
+package com.aestus.api.common.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Enables the scheduled tasks of the modules. */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {}
@@ -1,5 +1,7 @@
 package com.aestus.api.common.controller;
 
+import com.aestus.api.common.cache.CacheInvalidator;
+import com.aestus.api.common.model.AestusUserDetails;
 import com.aestus.api.common.model.ResponseMessage;
 import com.aestus.api.common.request.AuthenticationRequestBody;
 import com.aestus.api.common.util.JWTUtils;
@@ -30,7 +32,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.ObjectError;
@@ -47,6 +48,7 @@ public class CommonController {
   @Autowired private ProfileRepository profileRepository;
   @Autowired private JWTUtils jwtUtils;
   @Autowired private AuthenticationManager authenticationManager;
+  @Autowired private CacheInvalidator cacheInvalidator;
 
   /**
    * Checks for validation errors and returns the HTTP Bad Request with a compiled list of error
@@ -354,11 +356,14 @@ public class CommonController {
               new UsernamePasswordAuthenticationToken(
                   rbAuthentication.getUsername(), rbAuthentication.getPassword()));
 
-      User user = (User) authenticate.getPrincipal();
+      AestusUserDetails user = (AestusUserDetails) authenticate.getPrincipal();
 
       Object jwtToken =
           jwtUtils.generateToken(
-              user.getUsername(), (Collection<GrantedAuthority>) authenticate.getAuthorities());
+              user.getProfileId(),
+              user.getUsername(),
+              user.getWalletId(),
+              (Collection<GrantedAuthority>) authenticate.getAuthorities());
 
       msg = new ResponseMessage(HttpStatus.OK.value(), jwtToken, request.getRequestURI());
 
@@ -411,4 +416,35 @@ public class CommonController {
 
     return ResponseEntity.ok(msg);
   }
+
+  /**
+   * Gets the lag and throughput statistics of the cache invalidations read by this node.
+   *
+   * @param request the http request
+   * @return the {@code ResponseMessage} containing the statistics of the invalidations
+   */
+  @GetMapping("/cache/invalidations/stats")
+  @PreAuthorize("hasAuthority('A')")
+  @Operation(
+      summary = "Retrieve the statistics of the cache invalidations of the node",
+      tags = {"Common"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Returns the sequence number and the lag of the invalidations applied in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessage.class))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> getCacheInvalidationStats(HttpServletRequest request) {
+
+    ResponseMessage msg =
+        new ResponseMessage(
+            HttpStatus.OK.value(), cacheInvalidator.getStats(), request.getRequestURI());
+
+    return ResponseEntity.ok(msg);
+  }
 }
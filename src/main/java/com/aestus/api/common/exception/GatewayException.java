@@ -0,0 +1,12 @@
+package com.aestus.api.common.exception;
+
+/** The type Gateway exception, thrown when a call to another module through its gateway fails. */
+public class GatewayException extends Exception {
+  public GatewayException(String message) {
+    super(message);
+  }
+
+  public GatewayException(Throwable cause) {
+    super(cause.getMessage(), cause);
+  }
+}
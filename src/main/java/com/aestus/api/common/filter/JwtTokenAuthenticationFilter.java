@@ -1,5 +1,7 @@
 package com.aestus.api.common.filter;
 
+import com.aestus.api.common.model.AestusPrincipal;
+import com.aestus.api.common.model.AestusUserDetails;
 import com.aestus.api.common.model.ResponseMessage;
 import com.aestus.api.common.util.JWTUtils;
 import com.aestus.api.common.service.impl.UserDetailsServiceImpl;
@@ -17,22 +19,39 @@ import java.util.Objects;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+/**
+ * Authenticates the requests bearing a valid JWT. In the {@code claims} authentication mode, the
+ * authentication is built from the verified claims of the token alone, without any query. In the
+ * {@code profile} mode, the authorities are loaded from the profile of the user on every request.
+ *
+ * <p>The principal of the authentication is an {@link AestusPrincipal}. The tokens issued without
+ * a profile id claim, before the claim was added, have their principal loaded from the profile in
+ * both modes, except the service token, whose principal has no profile.
+ */
 @Slf4j
 public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
+  public static final String AUTHENTICATION_CLAIMS = "claims";
+  public static final String AUTHENTICATION_PROFILE = "profile";
+
   @Autowired private UserDetailsServiceImpl userDetailsServiceImpl;
   @Autowired private JWTUtils jwtUtils;
 
+  @Value("${com.aestus.jwt.authentication:" + AUTHENTICATION_CLAIMS + "}")
+  private String authentication;
+
   private String getResponseMessageAsJson(Exception ex, String uri) throws JsonProcessingException {
 
     String reason;
@@ -50,6 +69,38 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
     return objectMapper.writeValueAsString(msg);
   }
 
+  /**
+   * Gets the principal of a token, from its claims or from the profile of the user.
+   *
+   * @param username the username claim
+   * @param claims the verified claims
+   * @return the principal
+   */
+  private AestusPrincipal getPrincipal(String username, Claims claims) {
+    // Issued to the modules for the calls made outside a request, there is no profile to load
+    if (jwtUtils.isServiceToken(claims))
+      return new AestusPrincipal(
+          null,
+          username,
+          jwtUtils.getUserType(claims),
+          null,
+          jwtUtils.getAuthorities(claims));
+
+    Integer profileId = jwtUtils.getProfileId(claims);
+
+    if (AUTHENTICATION_PROFILE.equals(authentication) || Objects.isNull(profileId))
+      return new AestusPrincipal(
+          (AestusUserDetails) userDetailsServiceImpl.loadUserByUsername(username));
+
+    // The claims were written from the profile when the token was issued
+    return new AestusPrincipal(
+        profileId,
+        username,
+        jwtUtils.getUserType(claims),
+        jwtUtils.getWalletId(claims),
+        jwtUtils.getAuthorities(claims));
+  }
+
   @Override
   protected void doFilterInternal(
       HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -62,16 +113,20 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
     if (!Objects.isNull(token)) {
       try {
 
-        String username = jwtUtils.getUsernameFromToken(token);
+        // Verified once, the claims are kept in the request for the controllers
+        Claims claims = jwtUtils.verifyToken(token);
+
+        request.setAttribute(JWTUtils.CLAIMS_ATTRIBUTE, claims);
+
+        String username = jwtUtils.getUsername(claims);
 
-        if (!Objects.isNull(username) && jwtUtils.isValidToken(token)) {
+        if (!Objects.isNull(username)) {
 
-          UserDetails userDetails = userDetailsServiceImpl.loadUserByUsername(username);
+          AestusPrincipal principal = getPrincipal(username, claims);
 
-          // Possibly remove password from the authentication token
           UsernamePasswordAuthenticationToken authentication =
               new UsernamePasswordAuthenticationToken(
-                  userDetails, null, userDetails.getAuthorities());
+                  principal, null, principal.getAuthorities());
 
           SecurityContextHolder.getContext().setAuthentication(authentication);
         }
@@ -79,6 +134,8 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
         log.error(jwtEx.getMessage());
       } catch (IllegalArgumentException iaEx) {
         log.error(iaEx.getMessage());
+      } catch (UsernameNotFoundException unfEx) {
+        log.error(unfEx.getMessage());
       }
     }
 
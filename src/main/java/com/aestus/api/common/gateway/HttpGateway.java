@@ -0,0 +1,115 @@
+package com.aestus.api.common.gateway;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.common.model.ResponseMessage;
+import com.aestus.api.common.util.JWTUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.google.common.collect.Iterables;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static com.aestus.api.common.controller.CommonController.getHttpHeaders;
+import static com.aestus.api.common.util.QueryUtils.MAX_IN_LIST_SIZE;
+
+/**
+ * Base class of the gateways that reach another module over its REST api. Used when the modules
+ * are deployed as separate services, the calls are made on behalf of the current http request by
+ * duplicating its headers. The calls made outside a request, by the workers and the scheduled jobs,
+ * are authenticated with the service token, see {@link JWTUtils#getServiceToken()}.
+ */
+public abstract class HttpGateway {
+
+  @Autowired protected RestTemplate restTemplate;
+  @Autowired protected ObjectMapper objectMapper;
+  @Autowired protected JWTUtils jwtUtils;
+
+  @Value("${com.aestus.base.url}")
+  protected final String urlBase = null;
+
+  /**
+   * Calls an endpoint of another module.
+   *
+   * @param url the url relative to {@code com.aestus.base.url}
+   * @param method the http method
+   * @param body the json request body, {@code null} if none
+   * @param responseType the type of the response message
+   * @param <T> the type of the response message
+   * @return the response message, if the returned status is OK
+   * @throws GatewayException if the returned status is not OK
+   */
+  protected <T extends ResponseMessage> T exchange(
+      String url, HttpMethod method, Object body, Class<T> responseType)
+      throws GatewayException {
+
+    HttpEntity<String> entity;
+
+    try {
+      entity =
+          new HttpEntity<String>(
+              body == null ? null : objectMapper.writeValueAsString(body), getHeaders());
+    } catch (JsonProcessingException ex) {
+      throw new GatewayException(ex);
+    }
+
+    T msg = restTemplate.exchange(urlBase + url, method, entity, responseType).getBody();
+
+    if (msg == null) throw new GatewayException(String.format("No response from %s", url));
+    else if (!msg.isOk()) throw new GatewayException(msg.getMessage());
+
+    return msg;
+  }
+
+  /**
+   * Splits a list of ids into comma separated chunks for the batch endpoints, so that the length of
+   * the urls stays bounded.
+   *
+   * @param ids the ids
+   * @return the comma separated chunks of at most {@code MAX_IN_LIST_SIZE} ids
+   */
+  protected static List<String> partitionIds(Collection<Integer> ids) {
+
+    List<String> chunks = new ArrayList<>();
+
+    for (List<Integer> chunk : Iterables.partition(ids, MAX_IN_LIST_SIZE))
+      chunks.add(chunk.stream().map(String::valueOf).collect(Collectors.joining(",")));
+
+    return chunks;
+  }
+
+  /**
+   * Gets the headers of a call: the authorization headers of the http request being served by the
+   * current thread, or the service token if the thread is not serving a request.
+   *
+   * @return the headers
+   */
+  protected HttpHeaders getHeaders() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+    if (attributes instanceof ServletRequestAttributes)
+      return getHttpHeaders(((ServletRequestAttributes) attributes).getRequest());
+
+    HttpHeaders headers = new HttpHeaders();
+
+    headers.setBearerAuth(jwtUtils.getServiceToken());
+    headers.setContentType(MediaType.APPLICATION_JSON);
+
+    return headers;
+  }
+}
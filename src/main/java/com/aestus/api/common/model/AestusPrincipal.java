@@ -0,0 +1,61 @@
+package com.aestus.api.common.model;
+
+import java.util.Collection;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * The principal of an authenticated request, with the profile id, user type and wallet id of the
+ * caller. It is put into the {@code SecurityContext} by the {@code JwtTokenAuthenticationFilter}
+ * and passed to the controller methods taking an {@code AestusPrincipal} argument, so that the
+ * caller is identified without loading its profile.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class AestusPrincipal extends User {
+
+  private final Integer profileId;
+
+  private final String userType;
+
+  private final String walletId;
+
+  /**
+   * Instantiates the principal of a profile.
+   *
+   * @param profileId the profile id
+   * @param username the username
+   * @param userType the user type
+   * @param walletId the wallet id, null if the profile has no wallet
+   * @param authorities the authorities of the profile
+   */
+  public AestusPrincipal(
+      Integer profileId,
+      String username,
+      String userType,
+      String walletId,
+      Collection<? extends GrantedAuthority> authorities) {
+    super(username, "", authorities);
+    this.profileId = profileId;
+    this.userType = userType;
+    this.walletId = walletId;
+  }
+
+  /**
+   * Instantiates the principal of the user details of a profile, without its password.
+   *
+   * @param userDetails the user details
+   */
+  public AestusPrincipal(AestusUserDetails userDetails) {
+    this(
+        userDetails.getProfileId(),
+        userDetails.getUsername(),
+        userDetails.getUserType(),
+        userDetails.getWalletId(),
+        userDetails.getAuthorities());
+  }
+}
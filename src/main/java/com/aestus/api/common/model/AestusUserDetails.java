@@ -0,0 +1,39 @@
+package com.aestus.api.common.model;
+
+import com.aestus.api.profile.model.UserProfile;
+
+import java.util.Collection;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * The user details of a profile, with the profile id, user type and wallet id that are written
+ * into the claims of the JWT issued on authentication.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class AestusUserDetails extends User {
+
+  private final Integer profileId;
+
+  private final String userType;
+
+  private final String walletId;
+
+  /**
+   * Instantiates the user details of a profile.
+   *
+   * @param profile the user profile
+   * @param authorities the authorities of the profile
+   */
+  public AestusUserDetails(UserProfile profile, Collection<? extends GrantedAuthority> authorities) {
+    super(profile.getUsername(), profile.getPassword(), authorities);
+    this.profileId = profile.getId();
+    this.userType = profile.getUserType();
+    this.walletId = profile.getWalletId();
+  }
+}
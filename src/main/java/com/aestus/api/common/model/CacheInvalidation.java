@@ -0,0 +1,44 @@
+package com.aestus.api.common.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The invalidation of a key of a cache kept by every node, e.g. a profile, written in the
+ * transaction of the change. The ids are the sequence numbers the nodes read the invalidations
+ * from, in order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+    name = "cache_invalidations",
+    indexes = {@Index(name = "idx_createdTimestamp", columnList = "createdTimestamp")})
+public class CacheInvalidation {
+
+  /** The auto-generated sequence number. */
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  /** The name of the cache, e.g. {@code profile}. */
+  @Column(nullable = false, length = 30)
+  private String cacheName;
+
+  /** The key invalidated, null if all the keys of the cache are. */
+  @Column(length = 100)
+  private String cacheKey;
+
+  /** The id of the node the change was made on, which has invalidated its cache already. */
+  @Column(nullable = false, length = 60)
+  private String node;
+
+  @Column(nullable = false)
+  private LocalDateTime createdTimestamp;
+}
@@ -0,0 +1,50 @@
+package com.aestus.api.common.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** The lag and throughput statistics of the cache invalidations read by a node. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationStats {
+
+  /** The id of the node. */
+  private String node;
+
+  /** The sequence number up to which all invalidations are applied. */
+  private long sequence;
+
+  /** The number of invalidations read after {@code sequence}, waiting for a gap to be filled. */
+  private int pending;
+
+  /** The time of the last successful read of the invalidations. */
+  private LocalDateTime lastPolledTimestamp;
+
+  /** The number of invalidations of the other nodes applied. */
+  private long applied;
+
+  /** The number of sequence numbers given up on, left by rollbacks or very long transactions. */
+  private long skipped;
+
+  /** The number of sequence numbers skipped, read again until they are committed. */
+  private int skippedPending;
+
+  /** The number of invalidations read after their sequence number was skipped. */
+  private long late;
+
+  /** The number of times all caches were invalidated, as invalidations may have been missed. */
+  private long flushes;
+
+  /** The time from the creation to the application of the last invalidation, in milliseconds. */
+  private long lastLagMs;
+
+  /** The maximum time from the creation to the application of an invalidation, in milliseconds. */
+  private long maxLagMs;
+
+  /** The bound of the lag, past which all caches are invalidated, in milliseconds. */
+  private long lagBoundMs;
+}
@@ -0,0 +1,57 @@
+package com.aestus.api.common.repository;
+
+import com.aestus.api.common.model.CacheInvalidation;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The CacheInvalidationRepository extends the {@code CrudRepository} for basic CRUD operations on a
+ * RDBMS via Hibernate, and adds the reads of the invalidations by sequence number.
+ */
+public interface CacheInvalidationRepository extends CrudRepository<CacheInvalidation, Long> {
+
+  /**
+   * Finds the invalidations after a sequence number, with a range read of the primary key.
+   *
+   * @param id the sequence number
+   * @param pageable the maximum number of invalidations
+   * @return the invalidations, in sequence
+   */
+  List<CacheInvalidation> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+  /**
+   * Finds the invalidations of sequence numbers, with point reads of the primary key.
+   *
+   * @param ids the sequence numbers
+   * @return the invalidations committed
+   */
+  List<CacheInvalidation> findByIdIn(Collection<Long> ids);
+
+  /**
+   * Finds the last sequence number.
+   *
+   * @return the last sequence number, 0 if there are no invalidations
+   */
+  @Query("SELECT COALESCE(MAX(i.id), 0) FROM CacheInvalidation i")
+  long findMaxId();
+
+  /**
+   * Deletes the invalidations created before a time, read by every node by then.
+   *
+   * @param before the time
+   * @return the number of invalidations deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM CacheInvalidation i WHERE i.createdTimestamp < :before")
+  int deleteByCreatedTimestampBefore(@Param("before") LocalDateTime before);
+}
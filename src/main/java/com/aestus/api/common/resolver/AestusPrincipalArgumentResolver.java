@@ -0,0 +1,39 @@
+package com.aestus.api.common.resolver;
+
+import com.aestus.api.common.model.AestusPrincipal;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves the controller method arguments of type {@link AestusPrincipal} to the principal of the
+ * authentication in the {@code SecurityContext}, as set by the {@code JwtTokenAuthenticationFilter}.
+ */
+public class AestusPrincipalArgumentResolver implements HandlerMethodArgumentResolver {
+
+  @Override
+  public boolean supportsParameter(MethodParameter parameter) {
+    return AestusPrincipal.class.equals(parameter.getParameterType());
+  }
+
+  @Override
+  public Object resolveArgument(
+      MethodParameter parameter,
+      ModelAndViewContainer mavContainer,
+      NativeWebRequest webRequest,
+      WebDataBinderFactory binderFactory) {
+
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+    if (authentication == null || !(authentication.getPrincipal() instanceof AestusPrincipal))
+      throw new AuthenticationCredentialsNotFoundException("Jwt token not found in request");
+
+    return authentication.getPrincipal();
+  }
+}
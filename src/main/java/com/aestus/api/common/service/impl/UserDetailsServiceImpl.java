@@ -1,14 +1,14 @@
 package com.aestus.api.common.service.impl;
 
+import com.aestus.api.common.model.AestusUserDetails;
 import com.aestus.api.profile.model.UserProfile;
-import com.aestus.api.profile.repository.ProfileRepository;
+import com.aestus.api.profile.service.ProfileService;
 
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -17,14 +17,14 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
-  @Autowired private ProfileRepository profileRepository;
+  @Autowired private ProfileService profileService;
 
   @Override
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
     UserProfile profile =
-        profileRepository
-            .findByUsername(username)
+        profileService
+            .getProfileByUsername(username)
             .orElseThrow(
                 () ->
                     new UsernameNotFoundException(
@@ -32,7 +32,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
     List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList(profile.getUserType());
 
-    UserDetails userDetails = new User(profile.getUsername(), profile.getPassword(), authorities);
+    UserDetails userDetails = new AestusUserDetails(profile, authorities);
 
     return userDetails;
   }
@@ -0,0 +1,94 @@
+package com.aestus.api.common.util;
+
+import java.util.Arrays;
+
+/** A collection of utility functions for the base58 encoding used by the wallet addresses. */
+public final class Base58Utils {
+
+  private static final char[] ALPHABET =
+      "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
+
+  private static final int[] INDEXES = new int[128];
+
+  static {
+    Arrays.fill(INDEXES, -1);
+
+    for (int i = 0; i < ALPHABET.length; i++) INDEXES[ALPHABET[i]] = i;
+  }
+
+  private Base58Utils() {}
+
+  /**
+   * Encodes bytes in base58, each leading zero byte is encoded as a leading {@code 1}.
+   *
+   * @param input the bytes
+   * @return the base58 string
+   */
+  public static String encode(byte[] input) {
+    int zeros = 0;
+
+    while (zeros < input.length && input[zeros] == 0) zeros++;
+
+    // Base 256 to base 58, the digits are produced in reverse order
+    byte[] number = Arrays.copyOf(input, input.length);
+    char[] encoded = new char[input.length * 2];
+    int out = encoded.length;
+
+    for (int start = zeros; start < number.length; ) {
+      int remainder = 0;
+
+      for (int i = start; i < number.length; i++) {
+        int digit = (remainder << 8) | (number[i] & 0xff);
+
+        number[i] = (byte) (digit / 58);
+        remainder = digit % 58;
+      }
+
+      encoded[--out] = ALPHABET[remainder];
+
+      while (start < number.length && number[start] == 0) start++;
+    }
+
+    for (int i = 0; i < zeros; i++) encoded[--out] = ALPHABET[0];
+
+    return new String(encoded, out, encoded.length - out);
+  }
+
+  /**
+   * Decodes a base58 string into a fixed number of bytes, e.g. 32 for a wallet address.
+   *
+   * @param input the base58 string
+   * @param length the number of bytes expected
+   * @return the bytes, {@code null} if the string is not base58 or does not decode to exactly
+   *     {@code length} bytes
+   */
+  public static byte[] decode(String input, int length) {
+    int zeros = 0;
+
+    while (zeros < input.length() && input.charAt(zeros) == ALPHABET[0]) zeros++;
+
+    // Base 58 to base 256, accumulated into the trailing bytes of the output
+    byte[] output = new byte[length];
+    int used = 0;
+
+    for (int c = zeros; c < input.length(); c++) {
+      char ch = input.charAt(c);
+      int carry = ch < 128 ? INDEXES[ch] : -1;
+
+      if (carry < 0) return null;
+
+      for (int i = length - 1, n = 0; n < used || carry != 0; i--, n++) {
+        if (i < 0) return null;
+
+        carry += 58 * (output[i] & 0xff);
+        output[i] = (byte) carry;
+        carry >>>= 8;
+
+        if (n >= used) used = n + 1;
+      }
+    }
+
+    // The leading 1s are the leading zero bytes
+    return zeros + used == length ? output : null;
+  }
+}
@@ -1,24 +1,66 @@
 package com.aestus.api.common.util;
 
+import com.aestus.api.common.cache.CacheInvalidator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
 import io.jsonwebtoken.*;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.stereotype.Component;
 
-/** A collection of utility functions for dealing with Java Web Tokens (JWT). */
+/**
+ * A collection of utility functions for dealing with Java Web Tokens (JWT).
+ *
+ * <p>A token is verified once per http request, its claims are kept in a request attribute for the
+ * rest of the request. The claims of the tokens verified are also cached by the SHA-256 digest of
+ * the token, up to the expiration of the token, so that a token reused for many requests has its
+ * signature verified only once.
+ *
+ * <p>The tokens of a user are revoked in memory, e.g. when the user type or wallet of the profile
+ * changes. A token issued before the revocation of its user is rejected even if its claims are
+ * cached. The standard issue time of a token is in whole seconds, so a token also carries its issue
+ * time in milliseconds, compared to the millisecond of the revocation: a token issued again right
+ * after a revocation is accepted, even within the same second. The tokens issued without it are
+ * taken as issued at the start of their second. A revocation is kept for the lifetime of a token,
+ * the tokens it applies to have expired by then. The revocations are written
+ * for the other nodes, which revoke the same tokens as of the time of the revocation.
+ *
+ * <p>The service token authenticates the calls a module makes to another one outside an http
+ * request, e.g. from a worker or a scheduled job. It is issued to {@link #SERVICE_USERNAME} with
+ * the admin authority and no profile, and issued again when half its lifetime is over or after a
+ * revocation of all tokens.
+ */
 @Slf4j
 @Component
 public class JWTUtils {
+
+  /** The name of the http request attribute holding the verified claims of the token. */
+  public static final String CLAIMS_ATTRIBUTE = JWTUtils.class.getName() + ".claims";
+
+  /** The name of the cache of the revocations, in the invalidations of the other nodes. */
+  public static final String REVOCATIONS_CACHE_NAME = "jwt-revocation";
+
   private final String AUTH_HEADER_PARAM_NAME = "Authorization";
   private final String AUTH_HEADER_TOKEN_PREFIX = "Bearer";
 
@@ -26,9 +68,66 @@ public class JWTUtils {
   private final String SIGNING_KEY = null;
   @Value("${com.aestus.jwt.expiration-ms}")
   private final Long EXPIRE_IN = 0L;
+  @Value("${com.aestus.jwt.cache-size}")
+  private final Long CACHE_SIZE = 0L;
+  /** The username of the service token. */
+  public static final String SERVICE_USERNAME = "aestus-service";
+
   private final String AUTH_HEADER_USERNAME = "username";
   private final String AUTH_HEADER_PASSWORD = "password";
   private final String AUTH_HEADER_ROLES = "roles";
+  private final String AUTH_HEADER_PROFILE_ID = "profileId";
+  private final String AUTH_HEADER_WALLET_ID = "walletId";
+  private final String AUTH_HEADER_SERVICE = "service";
+  private final String AUTH_HEADER_ISSUED_AT_MS = "iatMs";
+
+  @Autowired private CacheInvalidator cacheInvalidator;
+
+  /** The claims of the tokens verified, by token digest. */
+  private Cache<String, Claims> verified;
+
+  /** The times the tokens of the profiles were revoked in epoch milliseconds, by profile key. */
+  private Cache<String, Long> revocations;
+
+  /** The time all tokens were revoked, in epoch milliseconds. */
+  private volatile long revokedAll;
+
+  /** The service token, null until it is first used or after a revocation of all tokens. */
+  private String serviceToken;
+
+  /** The time the service token was issued, in epoch milliseconds. */
+  private long serviceTokenIssuedAt;
+
+  @PostConstruct
+  public void init() {
+    // The tokens issued expire after EXPIRE_IN, the expiration of each one is checked on read
+    verified =
+        CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE)
+            .expireAfterWrite(EXPIRE_IN, TimeUnit.MILLISECONDS)
+            .build();
+
+    // Not bounded by size, a revocation evicted early would let a revoked token through
+    revocations =
+        CacheBuilder.newBuilder().expireAfterWrite(EXPIRE_IN, TimeUnit.MILLISECONDS).build();
+
+    cacheInvalidator.register(
+        REVOCATIONS_CACHE_NAME,
+        new CacheInvalidator.Listener() {
+          @Override
+          public void invalidate(String key, LocalDateTime timestamp) {
+            long revokedAt = timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+            if (Objects.isNull(key)) revoke(revokedAt);
+            else revoke(key, revokedAt);
+          }
+
+          @Override
+          public void flush() {
+            // The revocations are not cached entries, there is nothing to reload them from
+          }
+        });
+  }
 
   /**
    * Checks the Http request for a JWT and returns it if found.
@@ -44,7 +143,176 @@ public class JWTUtils {
       return null;
     }
 
-    return authToken.substring(AUTH_HEADER_TOKEN_PREFIX.length());
+    return authToken.substring(AUTH_HEADER_TOKEN_PREFIX.length()).trim();
+  }
+
+  /**
+   * Verifies a JWT and returns its claims. The signature of a token is verified once, the claims
+   * are then served from a cache until the token expires.
+   *
+   * @param token the JWT token
+   * @return the claims of the token
+   * @throws JwtException the token is malformed, its signature is invalid, it has expired or it
+   *     has been revoked
+   * @throws IllegalArgumentException the token is null, empty or only whitespace
+   */
+  public Claims verifyToken(String token) throws JwtException, IllegalArgumentException {
+
+    if (Objects.isNull(token) || token.isBlank())
+      throw new IllegalArgumentException("Jwt token must not be null, empty or only whitespace");
+
+    String digest = Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+
+    Claims claims = verified.getIfPresent(digest);
+
+    if (claims == null || !isUnexpired(claims)) {
+      // Throws ExpiredJwtException if the token has expired
+      claims = Jwts.parser().setSigningKey(SIGNING_KEY.getBytes()).parseClaimsJws(token).getBody();
+
+      verified.put(digest, claims);
+    }
+
+    if (isRevoked(claims)) throw new JwtException("Jwt token has been revoked");
+
+    return claims;
+  }
+
+  /**
+   * Gets the verified claims of the token of an http request. The token is verified on the first
+   * call only, the claims are kept in the {@link #CLAIMS_ATTRIBUTE} attribute of the request.
+   *
+   * @param request the Http servlet request
+   * @return the claims of the token
+   * @throws JwtException the token is missing or invalid
+   * @throws IllegalArgumentException the token is empty or only whitespace
+   */
+  public Claims getClaims(HttpServletRequest request)
+      throws JwtException, IllegalArgumentException {
+
+    Object attribute = request.getAttribute(CLAIMS_ATTRIBUTE);
+
+    if (attribute instanceof Claims) return (Claims) attribute;
+
+    String token = getToken(request);
+
+    if (Objects.isNull(token)) throw new JwtException("Jwt token not found in request");
+
+    Claims claims = verifyToken(token);
+
+    request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+
+    return claims;
+  }
+
+  /**
+   * Gets the username from verified claims.
+   *
+   * @param claims the claims
+   * @return the username, null if there is no username claim
+   */
+  public String getUsername(Claims claims) {
+    Object username = claims.get(AUTH_HEADER_USERNAME);
+
+    return Objects.isNull(username) ? null : String.valueOf(username);
+  }
+
+  /**
+   * Gets the authorities from verified claims.
+   *
+   * @param claims the claims
+   * @return the authorities of the roles claim, empty if there is none
+   */
+  public List<GrantedAuthority> getAuthorities(Claims claims) {
+    Object roles = claims.get(AUTH_HEADER_ROLES);
+
+    return Objects.isNull(roles)
+        ? AuthorityUtils.NO_AUTHORITIES
+        : AuthorityUtils.commaSeparatedStringToAuthorityList(String.valueOf(roles));
+  }
+
+  /**
+   * Gets the user type from verified claims, the role of the profile the token was issued to.
+   *
+   * @param claims the claims
+   * @return the first role of the roles claim, null if there is none
+   */
+  public String getUserType(Claims claims) {
+    List<GrantedAuthority> authorities = getAuthorities(claims);
+
+    return authorities.isEmpty() ? null : authorities.get(0).getAuthority();
+  }
+
+  /**
+   * Gets the profile id from verified claims.
+   *
+   * @param claims the claims
+   * @return the profile id, null for the tokens issued without
+   */
+  public Integer getProfileId(Claims claims) {
+    return claims.get(AUTH_HEADER_PROFILE_ID, Integer.class);
+  }
+
+  /**
+   * Gets the wallet id from verified claims.
+   *
+   * @param claims the claims
+   * @return the wallet id, null for the tokens issued without or the profiles without a wallet
+   */
+  public String getWalletId(Claims claims) {
+    return claims.get(AUTH_HEADER_WALLET_ID, String.class);
+  }
+
+  /**
+   * Checks whether verified claims are those of the service token, which has no profile.
+   *
+   * @param claims the claims
+   * @return true if the claims are those of the service token
+   */
+  public boolean isServiceToken(Claims claims) {
+    return Boolean.TRUE.equals(claims.get(AUTH_HEADER_SERVICE, Boolean.class))
+        && SERVICE_USERNAME.equals(getUsername(claims));
+  }
+
+  /**
+   * Gets the service token, for the calls to the other modules made outside an http request.
+   *
+   * @return the service token
+   */
+  public synchronized String getServiceToken() {
+    long now = System.currentTimeMillis();
+
+    if (Objects.isNull(serviceToken) || now - serviceTokenIssuedAt > EXPIRE_IN / 2) {
+      Claims claims = Jwts.claims();
+
+      claims.put(AUTH_HEADER_USERNAME, SERVICE_USERNAME);
+      claims.put(AUTH_HEADER_ROLES, "A");
+      claims.put(AUTH_HEADER_SERVICE, true);
+
+      serviceToken = sign(claims, now);
+      serviceTokenIssuedAt = now;
+    }
+
+    return serviceToken;
+  }
+
+  /**
+   * Revokes the tokens issued to a profile so far, by profile id and by username, so that the
+   * tokens issued under a former username are revoked too.
+   *
+   * @param profileId the profile id
+   * @param username the username
+   */
+  public void revokeTokens(Integer profileId, String username) {
+    long now = System.currentTimeMillis();
+
+    if (!Objects.isNull(profileId)) revokeAndPublish(AUTH_HEADER_PROFILE_ID + ":" + profileId, now);
+    if (!Objects.isNull(username)) revokeAndPublish(AUTH_HEADER_USERNAME + ":" + username, now);
+  }
+
+  /** Revokes all tokens issued so far. */
+  public void revokeAllTokens() {
+    revoke(System.currentTimeMillis());
+    cacheInvalidator.publish(REVOCATIONS_CACHE_NAME, null);
   }
 
   /**
@@ -56,11 +324,7 @@ public class JWTUtils {
    * @throws IllegalArgumentException the illegal argument exception
    */
   public String getUsernameFromToken(String token) throws JwtException, IllegalArgumentException {
-
-    final Claims claims =
-        Jwts.parser().setSigningKey(SIGNING_KEY.getBytes()).parseClaimsJws(token).getBody();
-
-    return String.valueOf(claims.get(AUTH_HEADER_USERNAME));
+    return String.valueOf(verifyToken(token).get(AUTH_HEADER_USERNAME));
   }
 
   /**
@@ -75,9 +339,7 @@ public class JWTUtils {
     boolean isValid = true;
 
     try {
-      final Claims claims =
-          Jwts.parser().setSigningKey(SIGNING_KEY.getBytes()).parseClaimsJws(token).getBody();
-      isValid = !(claims.getExpiration().before(new Date()));
+      isValid = isUnexpired(verifyToken(token));
     } catch (JwtException jwtEx) {
       log.error(jwtEx.getMessage());
       throw jwtEx;
@@ -96,6 +358,24 @@ public class JWTUtils {
    * @return the string
    */
   public String generateToken(String username, Collection<GrantedAuthority> authorities) {
+    return generateToken(null, username, null, authorities);
+  }
+
+  /**
+   * Generate token string, with the claims needed to authenticate the requests without loading the
+   * profile.
+   *
+   * @param profileId the profile id
+   * @param username the username
+   * @param walletId the wallet id
+   * @param authorities the authorities
+   * @return the string
+   */
+  public String generateToken(
+      Integer profileId,
+      String username,
+      String walletId,
+      Collection<GrantedAuthority> authorities) {
 
     Claims claims = Jwts.claims();
 
@@ -105,16 +385,90 @@ public class JWTUtils {
     claims.put(AUTH_HEADER_USERNAME, username);
     claims.put(AUTH_HEADER_ROLES, roles);
 
-    Date expiration = Date.from(Instant.ofEpochMilli(new Date().getTime() + EXPIRE_IN));
+    if (!Objects.isNull(profileId)) claims.put(AUTH_HEADER_PROFILE_ID, profileId);
+    if (!Objects.isNull(walletId)) claims.put(AUTH_HEADER_WALLET_ID, walletId);
+
+    return sign(claims, System.currentTimeMillis());
+  }
+
+  private String sign(Claims claims, long issuedAt) {
+    Date expiration = Date.from(Instant.ofEpochMilli(issuedAt + EXPIRE_IN));
+
+    claims.put(AUTH_HEADER_ISSUED_AT_MS, issuedAt);
+
+    return Jwts.builder()
+        .setClaims(claims)
+        .setIssuedAt(new Date(issuedAt))
+        .setExpiration(expiration)
+        .signWith(SignatureAlgorithm.HS256, SIGNING_KEY.getBytes())
+        .compact();
+  }
+
+  /**
+   * Checks if claims have not expired yet.
+   *
+   * @param claims the claims
+   * @return true if the claims have no expiration, or it is in the future
+   */
+  private boolean isUnexpired(Claims claims) {
+    return Objects.isNull(claims.getExpiration()) || claims.getExpiration().after(new Date());
+  }
+
+  /**
+   * Checks if claims were issued before the revocation of all tokens or of the tokens of their
+   * profile.
+   *
+   * @param claims the claims
+   * @return true if the token of the claims is revoked
+   */
+  private boolean isRevoked(Claims claims) {
+    long issuedAt = getIssuedAt(claims);
+
+    if (issuedAt < revokedAll) return true;
+
+    Integer profileId = getProfileId(claims);
+    String username = getUsername(claims);
+
+    return isRevoked(AUTH_HEADER_PROFILE_ID + ":" + profileId, profileId, issuedAt)
+        || isRevoked(AUTH_HEADER_USERNAME + ":" + username, username, issuedAt);
+  }
+
+  private void revokeAndPublish(String key, long revokedAt) {
+    revoke(key, revokedAt);
+    cacheInvalidator.publish(REVOCATIONS_CACHE_NAME, key);
+  }
+
+  private void revoke(String key, long revokedAt) {
+    revocations.asMap().merge(key, revokedAt, Math::max);
+  }
+
+  private synchronized void revoke(long revokedAt) {
+    revokedAll = Math.max(revokedAll, revokedAt);
+
+    // Issued again on its next use, after the revocation
+    serviceToken = null;
+  }
+
+  private boolean isRevoked(String key, Object value, long issuedAt) {
+    if (Objects.isNull(value)) return false;
+
+    Long revokedAt = revocations.getIfPresent(key);
+
+    return !Objects.isNull(revokedAt) && issuedAt < revokedAt;
+  }
+
+  /**
+   * Gets the time claims were issued, in milliseconds if the token has it and at the start of the
+   * second of the standard issue time otherwise.
+   *
+   * @param claims the claims
+   * @return the issue time in epoch milliseconds, 0 if there is none
+   */
+  private long getIssuedAt(Claims claims) {
+    Number issuedAt = claims.get(AUTH_HEADER_ISSUED_AT_MS, Number.class);
 
-    String token =
-        Jwts.builder()
-            .setClaims(claims)
-            .setIssuedAt(new Date())
-            .setExpiration(expiration)
-            .signWith(SignatureAlgorithm.HS256, SIGNING_KEY.getBytes())
-            .compact();
+    if (!Objects.isNull(issuedAt)) return issuedAt.longValue();
 
-    return token;
+    return Objects.isNull(claims.getIssuedAt()) ? 0 : claims.getIssuedAt().getTime();
   }
 }
@@ -0,0 +1,43 @@
+package com.aestus.api.common.util;
+
+import com.google.common.collect.Iterables;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/** A collection of utility functions for building repository queries. */
+public final class QueryUtils {
+
+  /** The maximum number of values bound to a single {@code IN} list. */
+  public static final int MAX_IN_LIST_SIZE = 500;
+
+  private QueryUtils() {}
+
+  /**
+   * Runs an {@code IN} list query over a list of ids, splitting the ids in chunks of at most
+   * {@link #MAX_IN_LIST_SIZE} values so that the size of the statement stays bounded. Duplicate and
+   * {@code null} ids are dropped, no query is run if no ids remain.
+   *
+   * @param ids the ids
+   * @param finder the query, called once per chunk
+   * @param <T> the type of the entities returned
+   * @return the entities returned by all chunks
+   */
+  public static <T> List<T> findAllInChunks(
+      Iterable<Integer> ids, Function<List<Integer>, Iterable<T>> finder) {
+
+    Set<Integer> distinct = new LinkedHashSet<>();
+
+    for (Integer id : ids) if (id != null) distinct.add(id);
+
+    List<T> entities = new ArrayList<>();
+
+    for (List<Integer> chunk : Iterables.partition(distinct, MAX_IN_LIST_SIZE))
+      Iterables.addAll(entities, finder.apply(chunk));
+
+    return entities;
+  }
+}
@@ -0,0 +1,69 @@
+package com.aestus.api.contract.config;
+
+import com.aestus.api.contract.disbursement.ContractDisburser;
+import com.aestus.api.contract.disbursement.DisbursementJob;
+import com.aestus.api.contract.sequencer.FundingSequencer;
+import com.aestus.api.contract.service.ContractService;
+import com.aestus.api.funding.gateway.FundingGateway;
+import com.aestus.api.ledger.gateway.LedgerGateway;
+import com.aestus.api.profile.gateway.ProfileGateway;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The contract configuration. The funding sequencer is closed before the contract service, so the
+ * fundings queued are committed on shutdown, and the disbursement job before the disburser, so the
+ * disbursements in progress are done.
+ */
+@Configuration
+public class ContractConfig {
+
+  @Value("${com.aestus.contract.sequencer.capacity}")
+  private final Integer capacity = 0;
+
+  @Value("${com.aestus.contract.sequencer.max-batch-size}")
+  private final Integer maxBatchSize = 0;
+
+  @Value("${com.aestus.contract.sequencer.max-contracts}")
+  private final Integer maxContracts = 0;
+
+  @Value("${com.aestus.contract.sequencer.threads}")
+  private final Integer threads = 0;
+
+  @Value("${com.aestus.contract.sequencer.shutdown-timeout-ms}")
+  private final Long shutdownTimeoutMs = 0L;
+
+  @Value("${com.aestus.contract.disburse.chunk-size}")
+  private final Integer disburseChunkSize = 0;
+
+  @Value("${com.aestus.contract.disburse.job.threads}")
+  private final Integer disburseThreads = 0;
+
+  @Value("${com.aestus.contract.disburse.job.shutdown-timeout-ms}")
+  private final Long disburseShutdownTimeoutMs = 0L;
+
+  @Bean(initMethod = "start", destroyMethod = "close")
+  public FundingSequencer fundingSequencer(ContractService contractService) {
+    return new FundingSequencer(
+        contractService, capacity, maxBatchSize, maxContracts, threads, shutdownTimeoutMs);
+  }
+
+  @Bean
+  public ContractDisburser contractDisburser(
+      ContractService contractService,
+      FundingGateway fundingGateway,
+      ProfileGateway profileGateway,
+      LedgerGateway ledgerGateway) {
+    return new ContractDisburser(
+        contractService, fundingGateway, profileGateway, ledgerGateway, disburseChunkSize);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "close")
+  public DisbursementJob disbursementJob(
+      ContractService contractService, ContractDisburser contractDisburser) {
+    return new DisbursementJob(
+        contractService, contractDisburser, disburseThreads, disburseShutdownTimeoutMs);
+  }
+}
@@ -1,22 +1,23 @@
 package com.aestus.api.contract.controller;
 
 import com.aestus.api.common.exception.EntityNotFoundException;
+import com.aestus.api.common.exception.GatewayException;
 import com.aestus.api.common.model.ResponseMessage;
+import com.aestus.api.contract.disbursement.ContractDisburser;
+import com.aestus.api.contract.disbursement.DisbursementJob;
 import com.aestus.api.contract.exception.*;
 import com.aestus.api.contract.model.Contract;
 import com.aestus.api.contract.model.swagger.ResponseMessageWithContract;
+import com.aestus.api.contract.model.swagger.ResponseMessageWithPortfolio;
+import com.aestus.api.contract.model.swagger.ResponseMessageWithContractMap;
 import com.aestus.api.contract.model.swagger.ResponseMessageWithContracts;
+import com.aestus.api.contract.sequencer.FundingSequencer;
 import com.aestus.api.contract.service.ContractService;
+import com.aestus.api.funding.gateway.FundingGateway;
 import com.aestus.api.funding.model.Funding;
-import com.aestus.api.funding.model.swagger.ResponseMessageWithFunding;
-import com.aestus.api.funding.model.swagger.ResponseMessageWithFundings;
-
-import com.aestus.api.profile.model.swagger.ResponseMessageWithUserProfile;
-import com.aestus.api.request.exception.GetUserProfileException;
+import com.aestus.api.request.gateway.RequestGateway;
 import com.aestus.api.request.model.RequestForFunding;
-import com.aestus.api.request.model.swagger.ResponseMessageWithRequestForFunding;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -24,8 +25,10 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
@@ -36,18 +39,12 @@ import javax.validation.constraints.Positive;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
-
-import static com.aestus.api.common.controller.CommonController.getHttpHeaders;
 
 /** Provides the contract controller functionality. */
 @Slf4j
@@ -56,35 +53,11 @@ import static com.aestus.api.common.controller.CommonController.getHttpHeaders;
 @Validated
 public class ContractController {
   @Autowired private ContractService contractService;
-  @Autowired RestTemplate restTemplate;
-  @Autowired ObjectMapper objectMapper;
-
-  @Value("${com.aestus.base.url}")
-  private final String urlBase = null;
-
-  @Value("${com.aestus.funding.get.contractId.url}")
-  private final String urlFundingGetByContractId = null;
-
-  @Value("${com.aestus.funding.get.profileId.url}")
-  private final String urlFundingGetByProfileId = null;
-
-  @Value("${com.aestus.funding.create.url}")
-  private final String urlFundingCreate = null;
-
-  @Value("${com.aestus.funding.disburse.url}")
-  private final String urlFundingDisburse = null;
-
-  @Value("${com.aestus.request.update.status.url}")
-  private final String urlRequestUpdateStatus = null;
-
-  @Value("${com.aestus.request.get.id.url}")
-  private final String urlRequestGetId = null;
-
-  @Value("${com.aestus.ledger.transfer.url}")
-  private final String urlLedgerTransfer = null;
-
-  @Value("${com.aestus.profile.get.id.url}")
-  private final String urlProfileGetById = null;
+  @Autowired private FundingGateway fundingGateway;
+  @Autowired private RequestGateway requestGateway;
+  @Autowired private FundingSequencer fundingSequencer;
+  @Autowired private ContractDisburser contractDisburser;
+  @Autowired private DisbursementJob disbursementJob;
 
   /**
    * Pinging the controller.
@@ -701,7 +674,7 @@ public class ContractController {
 
     if (includeFundings)
       for (Contract contract : contracts)
-        contract.setFundings(getFundingsByContractId(contract.getId(), request));
+        contract.setFundings(getFundingsByContractId(contract.getId()));
 
     ResponseMessage msg =
         new ResponseMessage(HttpStatus.OK.value(), contracts, request.getRequestURI());
@@ -713,46 +686,28 @@ public class ContractController {
    * Gets fundings by {@code profileId}.
    *
    * @param profileId the profile id
-   * @param request the http request
    * @return the list of fundings
    */
-  protected List<Funding> getFundingsByProfileId(int profileId, HttpServletRequest request)
-      throws GetFundingsException {
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(request));
-
-    String url = urlBase + String.format(urlFundingGetByProfileId, profileId);
-
-    ResponseMessageWithFundings msg =
-        restTemplate
-            .exchange(url, HttpMethod.GET, entity, ResponseMessageWithFundings.class)
-            .getBody();
-
-    if (msg.isOk()) return Arrays.asList(msg.getData());
-    else throw new GetFundingsException(msg.getMessage());
+  protected List<Funding> getFundingsByProfileId(int profileId) throws GetFundingsException {
+    try {
+      return fundingGateway.getFundingsByProfileId(profileId);
+    } catch (GatewayException ex) {
+      throw new GetFundingsException(ex.getMessage());
+    }
   }
 
   /**
    * Gets request for funding using {@code requestId}.
    *
    * @param requestId the request id
-   * @param request the http request
    * @return the request for funding
    */
-  protected RequestForFunding getRequestForFunding(int requestId, HttpServletRequest request)
-      throws GetRequestException {
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(request));
-
-    String url = urlBase + String.format(urlRequestGetId, requestId, true, false);
-
-    ResponseMessageWithRequestForFunding msg =
-        restTemplate
-            .exchange(url, HttpMethod.GET, entity, ResponseMessageWithRequestForFunding.class)
-            .getBody();
-
-    if (msg.isOk()) return msg.getData();
-    else throw new GetRequestException(msg.getMessage());
+  protected RequestForFunding getRequestForFunding(int requestId) throws GetRequestException {
+    try {
+      return requestGateway.getRequestForFunding(requestId);
+    } catch (GatewayException ex) {
+      throw new GetRequestException(ex.getMessage());
+    }
   }
 
   /**
@@ -873,7 +828,7 @@ public class ContractController {
       throws ContractException, EntityNotFoundException {
 
     List<Integer> contractIds =
-        getFundingsByProfileId(profileId, request).stream()
+        getFundingsByProfileId(profileId).stream()
             .map(Funding::getContractId)
             .collect(Collectors.toList())
             .stream()
@@ -890,7 +845,7 @@ public class ContractController {
 
         Contract contract = (Contract) msg.getData();
 
-        if (includeRFF) contract.setRequest(getRequestForFunding(contract.getRequestId(), request));
+        if (includeRFF) contract.setRequest(getRequestForFunding(contract.getRequestId()));
 
         contracts.add(contract);
       } else throw new GetContractException(msg.getMessage());
@@ -902,26 +857,88 @@ public class ContractController {
   }
 
   /**
-   * Gets fundings by {@code contractId}.
+   * Gets the portfolio of the investor with {@code profileId}: the invested amount, expected
+   * returns, funding percentage and request for funding status of each contract funded, and their
+   * totals. The positions are read with one query, unlike the contracts of {@code
+   * /profileId/{profileId}}.
    *
-   * @param contractId the contract id
-   * @param request the http request
-   * @return the list of fundings
+   * @param profileId the profile id of the investor
+   * @param httpRequest the http request
+   * @return the {@code ResponseMessage} containing the portfolio
    */
-  protected List<Funding> getFundingsByContractId(int contractId, HttpServletRequest request)
-      throws GetFundingsException {
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(request));
+  @GetMapping("/portfolio/profileId/{profileId}")
+  @PreAuthorize("hasAuthority('U') or hasAuthority('I') or hasAuthority('A')")
+  @Operation(
+      summary = "Retrieve the portfolio of an investor",
+      tags = {"Contract"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Returns the positions of the investor by contract, and their totals, in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessageWithPortfolio.class),
+                    examples =
+                        @ExampleObject(
+                            value =
+                                "{\n"
+                                    + "  \"timestamp\": \"2022-07-18T16:56:19.2875473\",\n"
+                                    + "  \"status\": 200,\n"
+                                    + "  \"message\": \"\",\n"
+                                    + "  \"data\": {\n"
+                                    + "    \"profileId\": 5,\n"
+                                    + "    \"positions\": [\n"
+                                    + "      {\n"
+                                    + "        \"contractId\": 1,\n"
+                                    + "        \"requestId\": 3,\n"
+                                    + "        \"title\": \"Single Patient Dialysis Machine TR-8000\",\n"
+                                    + "        \"requestStatus\": \"PF\",\n"
+                                    + "        \"contractStatus\": \"PF\",\n"
+                                    + "        \"targetAmount\": 1200000,\n"
+                                    + "        \"raisedAmount\": 800000,\n"
+                                    + "        \"fundingCount\": 1,\n"
+                                    + "        \"investedAmount\": 800000,\n"
+                                    + "        \"expectedReturns\": 864000,\n"
+                                    + "        \"disbursedAmount\": 0,\n"
+                                    + "        \"fundingPercentage\": 66\n"
+                                    + "      }\n"
+                                    + "    ],\n"
+                                    + "    \"fundingCount\": 1,\n"
+                                    + "    \"investedAmount\": 800000,\n"
+                                    + "    \"expectedReturns\": 864000,\n"
+                                    + "    \"disbursedAmount\": 0\n"
+                                    + "  },\n"
+                                    + "  \"path\": \"/api/v1/contract/portfolio/profileId/5\",\n"
+                                    + "  \"ok\": true\n"
+                                    + "}"))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> getPortfolio(
+      @PathVariable Integer profileId, HttpServletRequest httpRequest) {
 
-    String url = urlBase + String.format(urlFundingGetByContractId, contractId);
+    ResponseMessage msg =
+        new ResponseMessage(
+            HttpStatus.OK.value(),
+            contractService.getPortfolio(profileId),
+            httpRequest.getRequestURI());
 
-    ResponseMessageWithFundings msg =
-        restTemplate
-            .exchange(url, HttpMethod.GET, entity, ResponseMessageWithFundings.class)
-            .getBody();
+    return ResponseEntity.ok(msg);
+  }
 
-    if (msg.isOk()) return Arrays.asList(msg.getData());
-    else throw new GetFundingsException(msg.getMessage());
+  /**
+   * Gets fundings by {@code contractId}.
+   *
+   * @param contractId the contract id
+   * @return the list of fundings
+   */
+  protected List<Funding> getFundingsByContractId(int contractId) throws GetFundingsException {
+    try {
+      return fundingGateway.getFundingsByContractId(contractId);
+    } catch (GatewayException ex) {
+      throw new GetFundingsException(ex.getMessage());
+    }
   }
 
   /**
@@ -1019,7 +1036,7 @@ public class ContractController {
     Contract contract = contractService.getContractById(id);
 
     if (includeFundings)
-      contract.setFundings(getFundingsByContractId(contract.getId(), httpRequest));
+      contract.setFundings(getFundingsByContractId(contract.getId()));
 
     ResponseMessage msg =
         new ResponseMessage(HttpStatus.OK.value(), contract, httpRequest.getRequestURI());
@@ -1106,7 +1123,7 @@ public class ContractController {
     Contract contract = contractService.getContractByRequestId(requestId);
 
     if (includeFundings)
-      contract.setFundings(getFundingsByContractId(contract.getId(), httpRequest));
+      contract.setFundings(getFundingsByContractId(contract.getId()));
 
     ResponseMessage msg =
         new ResponseMessage(HttpStatus.OK.value(), contract, httpRequest.getRequestURI());
@@ -1114,6 +1131,97 @@ public class ContractController {
     return ResponseEntity.ok(msg);
   }
 
+  /**
+   * Gets contracts by a list of {@code requestIds} in a single batch.
+   *
+   * @param requestIds the list of request for funding ids
+   * @param includeFundings when {@code true}, includes the fundings in the returned contracts
+   * @param httpRequest the http request
+   * @return the contracts keyed by request id, request ids without a contract are left out
+   */
+  @GetMapping("/requestIds")
+  @PreAuthorize("hasAuthority('U') or hasAuthority('I') or hasAuthority('A')")
+  @Operation(
+      summary = "Retrieve contracts by a list of request ids",
+      tags = {"Contract"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Returns the contracts keyed by request id in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessageWithContractMap.class),
+                    examples =
+                        @ExampleObject(
+                            externalValue =
+                                "http://localhost:8080/swagger/contract/contract-get-requestIds-200.json",
+                            value =
+                                "{\n"
+                                    + "  \"timestamp\": \"2022-07-13T11:30:23.2326168\",\n"
+                                    + "  \"status\": 200,\n"
+                                    + "  \"message\": \"\",\n"
+                                    + "  \"data\": {\n"
+                                    + "    \"3\": {\n"
+                                    + "      \"id\": 1,\n"
+                                    + "      \"requestId\": 3,\n"
+                                    + "      \"walletId\": \"GAyCywe7wYQ49XA92BrDBVvj2CMKeEGMmGjseQR3yFua\",\n"
+                                    + "      \"targetAmount\": 1000000,\n"
+                                    + "      \"repaymentAmount\": 1300000,\n"
+                                    + "      \"status\": \"O\",\n"
+                                    + "      \"createdTimestamp\": \"2022-07-06T20:48:28.4621798\",\n"
+                                    + "      \"fundings\": [],\n"
+                                    + "      \"outstandingAmount\": 1000000,\n"
+                                    + "      \"raisedAmount\": 0,\n"
+                                    + "      \"yield\": 30\n"
+                                    + "    }\n"
+                                    + "  },\n"
+                                    + "  \"path\": \"/api/v1/contract/requestIds\",\n"
+                                    + "  \"ok\": true\n"
+                                    + "}"))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> getByRequestIds(
+      @RequestParam List<Integer> requestIds,
+      @RequestParam(required = false, defaultValue = "false") Boolean includeFundings,
+      HttpServletRequest httpRequest)
+      throws GetFundingsException {
+
+    Map<Integer, Contract> contracts = new HashMap<>();
+
+    for (Contract contract : contractService.getContractsByRequestIds(requestIds))
+      contracts.put(contract.getRequestId(), contract);
+
+    if (includeFundings && !contracts.isEmpty()) {
+      Map<Integer, List<Funding>> fundings =
+          getFundingsByContractIds(
+              contracts.values().stream().map(Contract::getId).collect(Collectors.toList()));
+
+      for (Contract contract : contracts.values())
+        contract.setFundings(fundings.getOrDefault(contract.getId(), new ArrayList<>()));
+    }
+
+    ResponseMessage msg =
+        new ResponseMessage(HttpStatus.OK.value(), contracts, httpRequest.getRequestURI());
+
+    return ResponseEntity.ok(msg);
+  }
+
+  /**
+   * Gets fundings of a list of contracts in a single batch.
+   *
+   * @param contractIds the contract ids
+   * @return the lists of fundings keyed by contract id
+   */
+  protected Map<Integer, List<Funding>> getFundingsByContractIds(Collection<Integer> contractIds)
+      throws GetFundingsException {
+    try {
+      return fundingGateway.getFundingsByContractIds(contractIds);
+    } catch (GatewayException ex) {
+      throw new GetFundingsException(ex.getMessage());
+    }
+  }
+
   /**
    * Gets contract yield by id.
    *
@@ -1244,12 +1352,10 @@ public class ContractController {
       })
   public ResponseEntity<ResponseMessage> getRaisedAmount(
       @PathVariable Integer id, HttpServletRequest httpRequest)
-      throws GetFundingsException, EntityNotFoundException {
+      throws EntityNotFoundException {
 
     Contract contract = contractService.getContractById(id);
 
-    contract.setFundings(getFundingsByContractId(id, httpRequest));
-
     ResponseMessage msg =
         new ResponseMessage(
             HttpStatus.OK.value(), contract.getRaisedAmount(), httpRequest.getRequestURI());
@@ -1317,12 +1423,10 @@ public class ContractController {
       })
   public ResponseEntity<ResponseMessage> getOutstandingAmount(
       @PathVariable Integer id, HttpServletRequest httpRequest)
-      throws GetFundingsException, EntityNotFoundException {
+      throws EntityNotFoundException {
 
     Contract contract = contractService.getContractById(id);
 
-    contract.setFundings(getFundingsByContractId(id, httpRequest));
-
     ResponseMessage msg =
         new ResponseMessage(
             HttpStatus.OK.value(), contract.getOutstandingAmount(), httpRequest.getRequestURI());
@@ -1461,56 +1565,8 @@ public class ContractController {
   }
 
   /**
-   * Creates a funding.
-   *
-   * @param funding the funding to be created
-   * @param httpRequest the http request
-   * @throws CreateFundingException any exception thrown when creating the funding
-   * @throws JsonProcessingException any exception thrown when writing the funding as a json
-   */
-  protected Funding createFunding(Funding funding, HttpServletRequest httpRequest)
-      throws CreateFundingException, JsonProcessingException {
-    String jsonFunding = objectMapper.writeValueAsString(funding);
-
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(jsonFunding, getHttpHeaders(httpRequest));
-
-    ResponseMessageWithFunding msg =
-        restTemplate
-            .exchange(
-                urlBase + urlFundingCreate,
-                HttpMethod.POST,
-                entity,
-                ResponseMessageWithFunding.class)
-            .getBody();
-
-    if (msg.isOk()) return msg.getData();
-    else throw new CreateFundingException(msg.getMessage());
-  }
-
-  /**
-   * Updates the status of a request for funding.
-   *
-   * @param requestId the id of the request for funding
-   * @param status the status to be updated
-   * @param httpRequest the http request
-   * @throws UpdateRequestException any exception thrown when updating the status
-   */
-  protected void updateRequestForFundingStatus(
-      int requestId, String status, HttpServletRequest httpRequest) throws UpdateRequestException {
-
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(httpRequest));
-
-    String url = urlBase + String.format(urlRequestUpdateStatus, requestId, status);
-
-    ResponseMessage msg = restTemplate.patchForObject(url, entity, ResponseMessage.class);
-
-    if (!msg.isOk()) throw new UpdateRequestException(msg.getMessage());
-  }
-
-  /**
-   * Funds a contract.
+   * Funds a contract. The funding is created for the amount asked for, or rejected if it exceeds
+   * the outstanding amount, whether it is committed directly or batched with concurrent fundings.
    *
    * @param contractId the contract id
    * @param profileId the profile id of the investor funding the contract
@@ -1556,7 +1612,9 @@ public class ContractController {
                                     + "}"))),
         @ApiResponse(
             responseCode = "400",
-            description = "Unable to fund contract due to validation reasons.",
+            description =
+                "Unable to fund contract due to validation reasons, e.g. the amount exceeds the"
+                    + " outstanding amount. An amount is never cut down.",
             content =
                 @Content(
                     mediaType = "application/json",
@@ -1602,105 +1660,50 @@ public class ContractController {
   public ResponseEntity<ResponseMessage> fund(
       @PathVariable Integer contractId,
       @RequestParam Integer profileId,
-      @RequestParam Long fundingAmount,
+      @RequestParam @Positive Long fundingAmount,
       HttpServletRequest httpRequest)
-      throws ContractException, EntityNotFoundException, JsonProcessingException {
-
-    ResponseMessage msg = getById(contractId, true, httpRequest).getBody();
-
-    if (msg.isOk()) {
-      Contract contract = (Contract) msg.getData();
-
-      Funding funding = contractService.fundContract(contract, profileId, fundingAmount);
-
-      funding = createFunding(funding, httpRequest);
-
-      updateRequestForFundingStatus(contract.getRequestId(), contract.getStatus(), httpRequest);
-
-      return ResponseEntity.ok(
-          new ResponseMessage(HttpStatus.OK.value(), funding, httpRequest.getRequestURI()));
-    } else throw new ContractException(msg.getMessage());
-  }
-
-  /**
-   * Transfer funds between 2 wallet addresses.
-   *
-   * @param fromWalletId the from wallet address
-   * @param toWalletId the to wallet address
-   * @param amount the amount to transfer
-   * @throws TransferFundsException any exception thrown when transferring funds
-   */
-  protected void transferFunds(
-      String fromWalletId, String toWalletId, Long amount, HttpServletRequest httpRequest)
-      throws TransferFundsException {
-
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(httpRequest));
-
-    ResponseMessage msg =
-        restTemplate
-            .exchange(
-                urlBase + String.format(urlLedgerTransfer, fromWalletId, toWalletId, amount),
-                HttpMethod.POST,
-                entity,
-                ResponseMessage.class)
-            .getBody();
-
-    if (!msg.isOk()) throw new TransferFundsException(msg.getMessage());
-  }
-
-  /**
-   * Gets the wallet id of a user profile by {@code profileId}.
-   *
-   * @param profileId the profile id
-   * @param request the http request
-   * @return the wallet id of the user profile
-   * @throws GetUserProfileException any exception thrown when retrieving the user profile
-   */
-  protected String getWalletId(int profileId, HttpServletRequest request)
-      throws GetWalletIdException {
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(request));
-
-    String url = urlBase + String.format(urlProfileGetById, profileId);
+      throws ContractException, EntityNotFoundException {
 
-    ResponseMessageWithUserProfile msg =
-        restTemplate
-            .exchange(url, HttpMethod.GET, entity, ResponseMessageWithUserProfile.class)
-            .getBody();
+    Funding funding = fundingSequencer.fund(contractId, profileId, fundingAmount);
 
-    if (msg.isOk()) return msg.getData().getWalletId();
-    else throw new GetWalletIdException(msg.getMessage());
+    return ResponseEntity.ok(
+        new ResponseMessage(HttpStatus.OK.value(), funding, httpRequest.getRequestURI()));
   }
 
   /**
-   * Disburse fundings by a list of {@code fundingIds}.
+   * Gets the queue depth and batch statistics of the funding sequencer, by contract.
    *
-   * @param fundingIds the list of funding ids
-   * @param request the http request
-   * @throws GetUserProfileException any exception thrown when retrieving the user profile
+   * @param httpRequest the http request
+   * @return the {@code ResponseMessage} containing the statistics of the contracts funded recently
    */
-  protected void disburseFundings(List<Integer> fundingIds, HttpServletRequest request)
-      throws DisburseContractException {
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(request));
-
-    // Format list of funding ids
-    String strIds = fundingIds.toString();
-    strIds = strIds.substring(1, strIds.length() - 1);
-    strIds.replace(" ", "");
-    log.info("### " + strIds);
-
-    String url = urlBase + String.format(urlFundingDisburse, strIds);
+  @GetMapping("/sequencer/stats")
+  @PreAuthorize("hasAuthority('A')")
+  @Operation(
+      summary = "Retrieve the statistics of the funding sequencer",
+      tags = {"Contract"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Returns the queue depth and batch sizes of the contracts funded recently in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessage.class))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> getSequencerStats(HttpServletRequest httpRequest) {
 
     ResponseMessage msg =
-        restTemplate.exchange(url, HttpMethod.POST, entity, ResponseMessage.class).getBody();
+        new ResponseMessage(
+            HttpStatus.OK.value(), fundingSequencer.getStats(), httpRequest.getRequestURI());
 
-    if (!msg.isOk()) throw new DisburseContractException(msg.getMessage());
+    return ResponseEntity.ok(msg);
   }
 
   /**
-   * Disburse funds in a contract.
+   * Disburse funds in a contract. A disbursement that failed part way is resumed, the investors
+   * already paid are not paid again.
    *
    * @param contractId the contract id
    * @param httpRequest the http request
@@ -1808,39 +1811,77 @@ public class ContractController {
       @PathVariable Integer contractId, HttpServletRequest httpRequest)
       throws ContractException, EntityNotFoundException {
 
-    String uri = httpRequest.getRequestURI();
+    Contract contract = contractDisburser.disburse(contractId);
 
-    ResponseMessage msg = getById(contractId, true, httpRequest).getBody();
+    ResponseMessage msg =
+        new ResponseMessage(HttpStatus.OK.value(), contract, httpRequest.getRequestURI());
 
-    if (msg.isOk()) {
-      Contract contract = (Contract) msg.getData();
+    return ResponseEntity.ok(msg);
+  }
 
-      if (contract.getStatus().equals(Contract.STATUS_FUNDS_REPAID)) {
+  /**
+   * Gets the progress of the last run of the disbursement job.
+   *
+   * @param httpRequest the http request
+   * @return the {@code ResponseMessage} containing the status of the job
+   */
+  @GetMapping("/disburse/job")
+  @PreAuthorize("hasAuthority('A')")
+  @Operation(
+      summary = "Retrieve the progress of the disbursement job",
+      tags = {"Contract"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Returns the counts and the failures of the last run of the disbursement job in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessage.class))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> getDisbursementJobStatus(HttpServletRequest httpRequest) {
 
-        List<Funding> fundings = contract.getFundings();
+    ResponseMessage msg =
+        new ResponseMessage(
+            HttpStatus.OK.value(), disbursementJob.getStatus(), httpRequest.getRequestURI());
 
-        // Transfer funds to individual investors
-        for (Funding funding : fundings)
-          transferFunds(
-              contract.getWalletId(),
-              getWalletId(funding.getProfileId(), httpRequest),
-              funding.getRepaymentAmount(),
-              httpRequest);
+    return ResponseEntity.ok(msg);
+  }
 
-        // Disburse all fundings and update statuses
-        List<Integer> ids = fundings.stream().map(Funding::getId).collect(Collectors.toList());
-        disburseFundings(ids, httpRequest);
+  /**
+   * Starts a run of the disbursement job, unless one is running already.
+   *
+   * @param httpRequest the http request
+   * @return the {@code ResponseMessage} containing the status of the job
+   */
+  @PostMapping("/disburse/job")
+  @PreAuthorize("hasAuthority('A')")
+  @Operation(
+      summary = "Start the disbursement job",
+      tags = {"Contract"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Returns the status of the run started, or of the run in progress, in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessage.class))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> runDisbursementJob(HttpServletRequest httpRequest) {
 
-        // Update contract status
-        msg = updateStatus(contractId, Contract.STATUS_FUNDS_DISBURSED, httpRequest).getBody();
-        if (!msg.isOk()) throw new UpdateContractException(msg.getMessage());
+    boolean started = disbursementJob.run();
 
-        contract.disburse();
-        msg = new ResponseMessage(HttpStatus.OK.value(), contract, uri);
+    ResponseMessage msg =
+        new ResponseMessage(
+            HttpStatus.OK.value(), disbursementJob.getStatus(), httpRequest.getRequestURI());
 
-        return ResponseEntity.ok(msg);
+    if (!started) msg.setMessage("A disbursement run is in progress already");
 
-      } else throw new DisburseContractException(contract.getStatus());
-    } else throw new GetContractException(msg.getMessage());
+    return ResponseEntity.ok(msg);
   }
 }
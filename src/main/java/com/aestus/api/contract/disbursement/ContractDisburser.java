@@ -0,0 +1,246 @@
+package com.aestus.api.contract.disbursement;
+
+import com.aestus.api.common.exception.EntityNotFoundException;
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.contract.exception.ContractException;
+import com.aestus.api.contract.exception.DisburseContractException;
+import com.aestus.api.contract.exception.DisbursementInProgressException;
+import com.aestus.api.contract.exception.GetFundingsException;
+import com.aestus.api.contract.exception.GetWalletIdException;
+import com.aestus.api.contract.exception.TransferFundsException;
+import com.aestus.api.contract.model.Contract;
+import com.aestus.api.contract.service.ContractService;
+import com.aestus.api.funding.gateway.FundingGateway;
+import com.aestus.api.funding.model.Funding;
+import com.aestus.api.ledger.gateway.LedgerGateway;
+import com.aestus.api.ledger.model.TransferLeg;
+import com.aestus.api.profile.gateway.ProfileGateway;
+import com.aestus.api.profile.model.UserProfile;
+
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Disburses the repayment of a contract to its investors in bulk. The wallet ids of all investors
+ * are resolved with one query, then the fundings are paid in chunks, each one a single batch of
+ * ledger transfers.
+ *
+ * <p>The ledger is not part of the database transaction, so a chunk goes through 3 steps, each one
+ * durable before the next: its fundings are marked {@link Funding#STATUS_FUNDS_DISBURSING} with
+ * the id of a ledger batch, the batch is transferred, then the fundings are disbursed. The ledger
+ * applies a batch id once, so a chunk found marked by a run that stopped is resumed by sending its
+ * batch again: it is transferred if it was not yet, and nothing is transferred twice. A run that
+ * fails leaves the contract repaid, running it again pays the remaining fundings only.
+ *
+ * <p>A contract is disbursed by one thread at a time, a second disbursement of a contract in
+ * progress is refused rather than queued. Across nodes, the mark keeps a funding in a single chunk,
+ * and the batch id keeps a chunk from being paid twice.
+ */
+@Slf4j
+public class ContractDisburser {
+
+  /** The id of the ledger batch of a chunk, by contract id and id of its first funding. */
+  private static final String BATCH_ID_FORMAT = "contract-%d-funding-%d";
+
+  private final ContractService contractService;
+  private final FundingGateway fundingGateway;
+  private final ProfileGateway profileGateway;
+  private final LedgerGateway ledgerGateway;
+  private final int chunkSize;
+
+  /** The ids of the contracts being disbursed. */
+  private final Set<Integer> inProgress = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Creates a disburser.
+   *
+   * @param contractService the contract service
+   * @param fundingGateway the gateway the fundings are read and disbursed with
+   * @param profileGateway the gateway the wallet ids of the investors are read with
+   * @param ledgerGateway the gateway the funds are transferred with
+   * @param chunkSize the maximum number of fundings paid per chunk
+   */
+  public ContractDisburser(
+      ContractService contractService,
+      FundingGateway fundingGateway,
+      ProfileGateway profileGateway,
+      LedgerGateway ledgerGateway,
+      int chunkSize) {
+    this.contractService = contractService;
+    this.fundingGateway = fundingGateway;
+    this.profileGateway = profileGateway;
+    this.ledgerGateway = ledgerGateway;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Disburses a repaid contract, or resumes a disbursement that failed.
+   *
+   * @param contractId the contract id
+   * @return the contract disbursed, with its fundings
+   * @throws ContractException if the contract is not repaid, is being disbursed already, or the
+   *     fundings cannot be paid, the chunks paid before the failure stay disbursed
+   * @throws EntityNotFoundException if the contract is not found
+   */
+  public Contract disburse(int contractId) throws ContractException, EntityNotFoundException {
+
+    if (!inProgress.add(contractId)) throw new DisbursementInProgressException(contractId);
+
+    try {
+      return disburseExclusively(contractId);
+    } finally {
+      inProgress.remove(contractId);
+    }
+  }
+
+  /**
+   * Checks whether a contract is being disbursed.
+   *
+   * @param contractId the contract id
+   * @return true if a disbursement of the contract is in progress
+   */
+  public boolean isDisbursing(int contractId) {
+    return inProgress.contains(contractId);
+  }
+
+  private Contract disburseExclusively(int contractId)
+      throws ContractException, EntityNotFoundException {
+
+    Contract contract = contractService.getContractById(contractId);
+
+    if (!contract.getStatus().equals(Contract.STATUS_FUNDS_REPAID))
+      throw new DisburseContractException(contract.getStatus());
+
+    List<Funding> fundings = getFundings(contractId);
+
+    // The fundings disbursed by a previous run are not paid again
+    List<Funding> pending =
+        fundings.stream()
+            .filter(funding -> !funding.getStatus().equals(Funding.STATUS_FUNDS_DISBURSED))
+            .collect(Collectors.toList());
+
+    Map<Integer, UserProfile> profiles = getProfiles(pending);
+
+    // The chunks marked by a previous run are resumed with their batch, the others are new chunks
+    Map<String, List<Funding>> marked = new LinkedHashMap<>();
+    List<Funding> unmarked = new ArrayList<>();
+
+    for (Funding funding : pending) {
+      if (funding.getStatus().equals(Funding.STATUS_FUNDS_DISBURSING))
+        marked
+            .computeIfAbsent(funding.getDisbursementBatchId(), batchId -> new ArrayList<>())
+            .add(funding);
+      else unmarked.add(funding);
+    }
+
+    for (Map.Entry<String, List<Funding>> chunk : marked.entrySet()) {
+      log.info("Contract {} resuming ledger batch {}", contractId, chunk.getKey());
+      disburse(contract, chunk.getKey(), chunk.getValue(), profiles);
+    }
+
+    for (List<Funding> chunk : Lists.partition(unmarked, chunkSize)) {
+      String batchId = String.format(BATCH_ID_FORMAT, contractId, chunk.get(0).getId());
+
+      mark(chunk, batchId);
+      disburse(contract, batchId, chunk, profiles);
+    }
+
+    contractService.updateContractStatus(contractId, Contract.STATUS_FUNDS_DISBURSED);
+
+    log.info(
+        "Contract {} disbursed, {} of {} fundings paid",
+        contractId,
+        pending.size(),
+        fundings.size());
+
+    contract.setFundings(fundings);
+    contract.disburse();
+
+    return contract;
+  }
+
+  /** Marks the fundings of a new chunk with its batch id, before anything is transferred. */
+  private void mark(List<Funding> chunk, String batchId) throws TransferFundsException {
+    try {
+      // Fails if a funding was marked or disbursed meanwhile, none of them is marked then
+      fundingGateway.markFundingsDisbursing(ids(chunk), batchId);
+    } catch (GatewayException ex) {
+      throw new TransferFundsException(ex.getMessage());
+    }
+
+    for (Funding funding : chunk) {
+      funding.setStatus(Funding.STATUS_FUNDS_DISBURSING);
+      funding.setDisbursementBatchId(batchId);
+    }
+  }
+
+  /** Transfers the batch of a marked chunk, unless it was already, then disburses its fundings. */
+  private void disburse(
+      Contract contract, String batchId, List<Funding> chunk, Map<Integer, UserProfile> profiles)
+      throws TransferFundsException {
+
+    List<Integer> ids = ids(chunk);
+    List<TransferLeg> legs =
+        chunk.stream()
+            .map(
+                funding ->
+                    new TransferLeg(
+                        contract.getWalletId(),
+                        profiles.get(funding.getProfileId()).getWalletId(),
+                        funding.getRepaymentAmount()))
+            .collect(Collectors.toList());
+
+    try {
+      ledgerGateway.transfer(batchId, legs);
+      fundingGateway.disburseFundings(ids);
+    } catch (GatewayException ex) {
+      throw new TransferFundsException(ex.getMessage());
+    }
+  }
+
+  private static List<Integer> ids(List<Funding> chunk) {
+    return chunk.stream().map(Funding::getId).collect(Collectors.toList());
+  }
+
+  private List<Funding> getFundings(int contractId) throws GetFundingsException {
+    try {
+      return fundingGateway.getFundingsByContractId(contractId);
+    } catch (GatewayException ex) {
+      throw new GetFundingsException(ex.getMessage());
+    }
+  }
+
+  /** Gets the profiles of the investors of the fundings, all of them must have a wallet id. */
+  private Map<Integer, UserProfile> getProfiles(List<Funding> fundings)
+      throws GetWalletIdException {
+
+    Map<Integer, UserProfile> profiles;
+
+    try {
+      profiles =
+          profileGateway.getProfilesByIds(
+              fundings.stream().map(Funding::getProfileId).collect(Collectors.toSet()));
+    } catch (GatewayException ex) {
+      throw new GetWalletIdException(ex.getMessage());
+    }
+
+    for (Funding funding : fundings) {
+      UserProfile profile = profiles.get(funding.getProfileId());
+
+      if (profile == null || profile.getWalletId() == null)
+        throw new GetWalletIdException(
+            String.format("No wallet id for profile id=%d", funding.getProfileId()));
+    }
+
+    return profiles;
+  }
+}
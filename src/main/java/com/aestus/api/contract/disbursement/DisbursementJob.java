@@ -0,0 +1,217 @@
+package com.aestus.api.contract.disbursement;
+
+import com.aestus.api.common.exception.EntityNotFoundException;
+import com.aestus.api.contract.exception.ContractException;
+import com.aestus.api.contract.exception.DisburseContractException;
+import com.aestus.api.contract.exception.DisbursementInProgressException;
+import com.aestus.api.contract.model.Contract;
+import com.aestus.api.contract.model.DisbursementJobStatus;
+import com.aestus.api.contract.service.ContractService;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Disburses every repaid contract in the background. A run lists the ids of the contracts in
+ * {@link Contract#STATUS_FUNDS_REPAID} and disburses each of them with the {@link
+ * ContractDisburser}, as a task of its own on a fixed pool of workers, so that independent
+ * contracts are disbursed in parallel while the ledger and the database see at most {@code threads}
+ * disbursements at a time.
+ *
+ * <p>The failure of a contract is recorded and does not stop the run, the contract is still repaid
+ * and the next run resumes it. A contract being disbursed by a request is skipped, the disburser
+ * never runs 2 disbursements of the same contract. A run starts only once the previous one is done,
+ * and the scheduler thread only submits the tasks, it does not wait for them.
+ */
+@Slf4j
+public class DisbursementJob implements Closeable {
+
+  private final ContractService contractService;
+  private final ContractDisburser contractDisburser;
+  private final int threads;
+  private final long shutdownTimeoutMs;
+
+  private ExecutorService workers;
+
+  private volatile Run lastRun;
+
+  private volatile boolean closed;
+
+  /**
+   * Creates a job, call {@link #start()} before running it.
+   *
+   * @param contractService the service the repaid contracts are listed with
+   * @param contractDisburser the disburser of a contract
+   * @param threads the maximum number of contracts disbursed at a time
+   * @param shutdownTimeoutMs the maximum time {@link #close()} waits for the disbursements in
+   *     progress
+   */
+  public DisbursementJob(
+      ContractService contractService,
+      ContractDisburser contractDisburser,
+      int threads,
+      long shutdownTimeoutMs) {
+    this.contractService = contractService;
+    this.contractDisburser = contractDisburser;
+    this.threads = threads;
+    this.shutdownTimeoutMs = shutdownTimeoutMs;
+  }
+
+  /** Starts the workers. */
+  public void start() {
+    workers =
+        Executors.newFixedThreadPool(
+            threads, new ThreadFactoryBuilder().setNameFormat("disbursement-%d").build());
+  }
+
+  /** Starts a run on schedule, skipped while the previous one is running. */
+  @Scheduled(
+      initialDelayString = "${com.aestus.contract.disburse.job.interval-ms}",
+      fixedDelayString = "${com.aestus.contract.disburse.job.interval-ms}")
+  public void scheduledRun() {
+    run();
+  }
+
+  /**
+   * Starts a run, unless the previous one is still running.
+   *
+   * @return true if a run is started
+   */
+  public synchronized boolean run() {
+    if (closed || (lastRun != null && lastRun.isRunning())) return false;
+
+    List<Integer> contractIds =
+        contractService.getContractIdsByStatus(Contract.STATUS_FUNDS_REPAID);
+    Run run = new Run(contractIds.size());
+
+    lastRun = run;
+
+    if (!contractIds.isEmpty()) log.info("Disbursing {} repaid contracts", contractIds.size());
+
+    for (Integer contractId : contractIds) {
+      try {
+        workers.execute(() -> disburse(run, contractId));
+      } catch (RejectedExecutionException ex) {
+        // The workers are stopped, the contract is left for the next start
+        run.cancelled.incrementAndGet();
+        run.done();
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Gets the progress of the last run.
+   *
+   * @return the status, not running and empty if the job has not run yet
+   */
+  public DisbursementJobStatus getStatus() {
+    Run run = lastRun;
+
+    if (run == null)
+      return new DisbursementJobStatus(false, null, null, 0, 0, 0, 0, 0, 0, new HashMap<>());
+
+    return run.getStatus();
+  }
+
+  /** Stops starting disbursements and waits until the disbursements in progress are done. */
+  public void close() {
+    closed = true;
+
+    if (workers == null) return;
+
+    workers.shutdown();
+
+    try {
+      if (!workers.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS))
+        log.error("Disbursement job stopped with contracts being disbursed");
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Disburses a contract of a run, any failure is recorded on the run. */
+  private void disburse(Run run, int contractId) {
+    try {
+      if (closed) run.cancelled.incrementAndGet();
+      else {
+        contractDisburser.disburse(contractId);
+        run.disbursed.incrementAndGet();
+      }
+    } catch (DisbursementInProgressException | DisburseContractException ex) {
+      // Disbursed by a request meanwhile, or being disbursed right now
+      run.skipped.incrementAndGet();
+    } catch (ContractException | EntityNotFoundException ex) {
+      log.warn("Cannot disburse contract {}: {}", contractId, ex.getMessage());
+      run.fail(contractId, ex.getMessage());
+    } catch (RuntimeException ex) {
+      log.error("Cannot disburse contract {}", contractId, ex);
+      run.fail(contractId, ex.toString());
+    } finally {
+      run.done();
+    }
+  }
+
+  /** The counters of a run, updated by the workers. */
+  private static class Run {
+
+    private final int total;
+    private final LocalDateTime startedTimestamp = LocalDateTime.now();
+
+    private final AtomicInteger disbursed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+    private final AtomicInteger done = new AtomicInteger();
+    private final Map<Integer, String> failures = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime finishedTimestamp;
+
+    private Run(int total) {
+      this.total = total;
+
+      if (total == 0) finishedTimestamp = startedTimestamp;
+    }
+
+    private void fail(int contractId, String message) {
+      failures.put(contractId, String.valueOf(message));
+    }
+
+    private void done() {
+      if (done.incrementAndGet() == total) finishedTimestamp = LocalDateTime.now();
+    }
+
+    private boolean isRunning() {
+      return finishedTimestamp == null;
+    }
+
+    private DisbursementJobStatus getStatus() {
+      return new DisbursementJobStatus(
+          isRunning(),
+          startedTimestamp,
+          finishedTimestamp,
+          total,
+          disbursed.get(),
+          skipped.get(),
+          cancelled.get(),
+          failures.size(),
+          total - done.get(),
+          new HashMap<>(failures));
+    }
+  }
+}
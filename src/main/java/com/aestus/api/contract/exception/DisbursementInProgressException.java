@@ -0,0 +1,7 @@
+package com.aestus.api.contract.exception;
+
+public class DisbursementInProgressException extends ContractException {
+  public DisbursementInProgressException(int contractId) {
+    super(String.format("Contract with id=%d is already being disbursed", contractId));
+  }
+}
@@ -0,0 +1,10 @@
+package com.aestus.api.contract.exception;
+
+public class FundingAllocationException extends ContractException {
+  public FundingAllocationException(int contractId, long fundingAmount) {
+    super(
+        String.format(
+            "Funding amount of %d, exceeds outstanding amount of contract %d",
+            fundingAmount, contractId));
+  }
+}
@@ -0,0 +1,39 @@
+package com.aestus.api.contract.gateway;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.contract.model.Contract;
+
+import java.util.Collection;
+import java.util.Map;
+
+/** Provides access to the contract module from the other modules. */
+public interface ContractGateway {
+
+  /**
+   * Gets a contract, including its fundings, by {@code requestId}.
+   *
+   * @param requestId the id of the request for funding the contract is derived from
+   * @return the contract
+   * @throws GatewayException if the contract cannot be retrieved
+   */
+  Contract getContractByRequestId(int requestId) throws GatewayException;
+
+  /**
+   * Gets contracts, including their fundings, by a list of {@code requestIds}.
+   *
+   * @param requestIds the ids of the request for fundings the contracts are derived from
+   * @return the contracts keyed by request id, request ids without a contract are left out
+   * @throws GatewayException if the contracts cannot be retrieved
+   */
+  Map<Integer, Contract> getContractsByRequestIds(Collection<Integer> requestIds)
+      throws GatewayException;
+
+  /**
+   * Creates a contract.
+   *
+   * @param contract the contract
+   * @return the contract created with the auto-generated {@code id}
+   * @throws GatewayException if the contract cannot be created
+   */
+  Contract createContract(Contract contract) throws GatewayException;
+}
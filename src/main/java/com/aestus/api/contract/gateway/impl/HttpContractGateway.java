@@ -0,0 +1,63 @@
+package com.aestus.api.contract.gateway.impl;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.common.gateway.HttpGateway;
+import com.aestus.api.contract.gateway.ContractGateway;
+import com.aestus.api.contract.model.Contract;
+import com.aestus.api.contract.model.swagger.ResponseMessageWithContract;
+import com.aestus.api.contract.model.swagger.ResponseMessageWithContractMap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+/** The http implementation of the contract gateway, for split deployments. */
+@Component
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "http")
+public class HttpContractGateway extends HttpGateway implements ContractGateway {
+
+  @Value("${com.aestus.contract.create.url}")
+  private final String urlContractCreate = null;
+
+  @Value("${com.aestus.contract.get.requestId.url}")
+  private final String urlContractGetByRequestId = null;
+
+  @Value("${com.aestus.contract.get.requestIds.url}")
+  private final String urlContractGetByRequestIds = null;
+
+  public Contract getContractByRequestId(int requestId) throws GatewayException {
+    return exchange(
+            String.format(urlContractGetByRequestId, requestId),
+            HttpMethod.GET,
+            null,
+            ResponseMessageWithContract.class)
+        .getData();
+  }
+
+  public Map<Integer, Contract> getContractsByRequestIds(Collection<Integer> requestIds)
+      throws GatewayException {
+
+    Map<Integer, Contract> contracts = new HashMap<>();
+
+    for (String strIds : partitionIds(requestIds))
+      contracts.putAll(
+          exchange(
+                  String.format(urlContractGetByRequestIds, strIds),
+                  HttpMethod.GET,
+                  null,
+                  ResponseMessageWithContractMap.class)
+              .getData());
+
+    return contracts;
+  }
+
+  public Contract createContract(Contract contract) throws GatewayException {
+    return exchange(urlContractCreate, HttpMethod.POST, contract, ResponseMessageWithContract.class)
+        .getData();
+  }
+}
@@ -0,0 +1,82 @@
+package com.aestus.api.contract.gateway.impl;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.contract.exception.ContractException;
+import com.aestus.api.contract.gateway.ContractGateway;
+import com.aestus.api.contract.model.Contract;
+import com.aestus.api.contract.service.ContractService;
+import com.aestus.api.funding.model.Funding;
+import com.aestus.api.funding.service.FundingService;
+
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import lombok.AllArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** The in-process implementation of the contract gateway, calls the contract service directly. */
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "local", matchIfMissing = true)
+public class LocalContractGateway implements ContractGateway {
+
+  private final ContractService contractService;
+  private final FundingService fundingService;
+
+  public Contract getContractByRequestId(int requestId) throws GatewayException {
+    try {
+      Contract contract = contractService.getContractByRequestId(requestId);
+
+      contract.setFundings(
+          Lists.newArrayList(fundingService.getFundingsByContractId(contract.getId())));
+
+      return contract;
+    } catch (ContractException ex) {
+      throw new GatewayException(ex);
+    }
+  }
+
+  public Map<Integer, Contract> getContractsByRequestIds(Collection<Integer> requestIds) {
+
+    Map<Integer, Contract> contracts = new HashMap<>();
+
+    for (Contract contract : contractService.getContractsByRequestIds(requestIds))
+      contracts.put(contract.getRequestId(), contract);
+
+    if (contracts.isEmpty()) return contracts;
+
+    // Load the fundings of all contracts in a single query
+    Map<Integer, List<Funding>> fundings =
+        StreamSupport.stream(
+                fundingService
+                    .getFundingsByContractIds(
+                        contracts.values().stream()
+                            .map(Contract::getId)
+                            .collect(Collectors.toList()))
+                    .spliterator(),
+                false)
+            .collect(Collectors.groupingBy(Funding::getContractId));
+
+    for (Contract contract : contracts.values())
+      contract.setFundings(fundings.getOrDefault(contract.getId(), new ArrayList<>()));
+
+    return contracts;
+  }
+
+  public Contract createContract(Contract contract) throws GatewayException {
+    try {
+      return contractService.createContract(contract);
+    } catch (ContractException ex) {
+      throw new GatewayException(ex);
+    }
+  }
+}
@@ -25,7 +25,7 @@ import lombok.extern.slf4j.Slf4j;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "contracts")
+@Table(name = "contracts", indexes = @Index(name = "idx_status", columnList = "status"))
 public class Contract {
 
   /** The constant STATUS_NF. */
@@ -85,6 +85,15 @@ public class Contract {
   @Column(nullable = false)
   LocalDateTime createdTimestamp;
 
+  /**
+   * The amount raised from all fundings, maintained by the conditional update that funds the
+   * contract so that it never exceeds the target amount.
+   */
+  @PositiveOrZero(message = "raisedAmount must not be negative")
+  @Column(nullable = false)
+  @Builder.Default
+  Long raisedAmount = 0L;
+
   /** The Fundings. */
   @Transient List<Funding> fundings = new ArrayList<>();
 
@@ -114,6 +123,7 @@ public class Contract {
     this.repaymentAmount = repaymentAmount;
     this.status = STATUS_NOT_FUNDED;
     this.createdTimestamp = createdTimestamp;
+    this.raisedAmount = 0L;
     this.fundings = new ArrayList<Funding>();
   }
 
@@ -141,25 +151,13 @@ public class Contract {
     return decimal.longValue();
   }
 
-  /**
-   * Gets the contract raised amount from all fundings.
-   *
-   * @return the raised amount
-   */
-  public Long getRaisedAmount() {
-    if (fundings == null || fundings.isEmpty()) return 0L;
-    else
-      return fundings.stream()
-          .reduce(0L, (subtotal, funding) -> subtotal + funding.getFundingAmount(), Long::sum);
-  }
-
   /**
    * Gets the contract outstanding amount from target.
    *
    * @return the outstanding amount
    */
   public long getOutstandingAmount() {
-    return targetAmount - getRaisedAmount();
+    return targetAmount - raisedAmount;
   }
 
   /**
@@ -170,7 +168,18 @@ public class Contract {
    * @return the funding percentage
    */
   public static int getFundingPercentage(Contract contract, long amount) {
-    return BigDecimal.valueOf(amount / contract.getTargetAmount().doubleValue() * 100).intValue();
+    return getFundingPercentage(contract.getTargetAmount(), amount);
+  }
+
+  /**
+   * Gets the funding percentage of an amount of a target amount.
+   *
+   * @param targetAmount the target amount of the contract
+   * @param amount the amount of funding
+   * @return the funding percentage
+   */
+  public static int getFundingPercentage(long targetAmount, long amount) {
+    return BigDecimal.valueOf(amount / (double) targetAmount * 100).intValue();
   }
 
   /**
@@ -209,15 +218,47 @@ public class Contract {
       fundings.add(funding);
 
       setFundings(fundings);
-
-      if (fundingAmount == outstandingAmt) setStatus(STATUS_FULLY_FUNDED);
-      else setStatus(STATUS_PARTIALLY_FUNDED);
+      setRaisedAmount(raisedAmount + fundingAmount);
+      setStatus(getFundedStatus(raisedAmount, targetAmount));
 
       return funding;
 
     } else throw new FundingAmountException(fundingAmount, outstandingAmt);
   }
 
+  /**
+   * Gets the status of a contract having raised an amount.
+   *
+   * @param raisedAmount the raised amount
+   * @param targetAmount the target amount
+   * @return the fully funded status if the target is reached, the partially funded status if not
+   */
+  public static String getFundedStatus(long raisedAmount, long targetAmount) {
+    return raisedAmount >= targetAmount ? STATUS_FULLY_FUNDED : STATUS_PARTIALLY_FUNDED;
+  }
+
+  /**
+   * Allocates an outstanding amount to funding orders, in arrival order. An order is allocated in
+   * full if it fits in what the earlier orders left, and nothing otherwise, so a batch is allocated
+   * as if its orders had been funded one by one.
+   *
+   * @param outstandingAmount the outstanding amount of the contract
+   * @param amounts the amounts asked for, in arrival order
+   * @return the amounts allocated, 0 for an order rejected
+   */
+  public static long[] allocate(long outstandingAmount, long[] amounts) {
+    long[] allocated = new long[amounts.length];
+    long remaining = Math.max(0, outstandingAmount);
+
+    for (int i = 0; i < amounts.length; i++)
+      if (amounts[i] <= remaining) {
+        allocated[i] = amounts[i];
+        remaining -= amounts[i];
+      }
+
+    return allocated;
+  }
+
   public void disburse() {
 
     if (this.status.equals(STATUS_FUNDS_REPAID)) {
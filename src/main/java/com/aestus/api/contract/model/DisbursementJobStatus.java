@@ -0,0 +1,45 @@
+package com.aestus.api.contract.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** The progress of the last run of the disbursement job. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DisbursementJobStatus {
+
+  /** Whether contracts of the run are still being disbursed. */
+  private boolean running;
+
+  /** When the run started, null if the job has not run yet. */
+  private LocalDateTime startedTimestamp;
+
+  /** When the last contract of the run was done, null while running. */
+  private LocalDateTime finishedTimestamp;
+
+  /** The number of repaid contracts found by the run. */
+  private int total;
+
+  /** The number of contracts disbursed. */
+  private int disbursed;
+
+  /** The number of contracts disbursed meanwhile or being disbursed by another request. */
+  private int skipped;
+
+  /** The number of contracts not attempted because the job was stopped. */
+  private int cancelled;
+
+  /** The number of contracts that failed, they are retried by the next run. */
+  private int failed;
+
+  /** The number of contracts not done yet. */
+  private int pending;
+
+  /** The failure messages, by contract id. */
+  private Map<Integer, String> failures;
+}
@@ -0,0 +1,18 @@
+package com.aestus.api.contract.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** An amount an investor asks to fund a contract with, allocated as part of a batch. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FundingOrder {
+
+  /** The profile id of the investor. */
+  private int profileId;
+
+  /** The amount asked for. */
+  private long amount;
+}
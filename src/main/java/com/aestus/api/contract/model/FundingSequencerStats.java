@@ -0,0 +1,39 @@
+package com.aestus.api.contract.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** The queue depth and batch statistics of the funding sequencer of a contract. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FundingSequencerStats {
+
+  /** The contract id. */
+  private int contractId;
+
+  /** The number of fundings queued, not committed yet. */
+  private int depth;
+
+  /** The number of fundings committed one at a time, while the contract was not contended. */
+  private long direct;
+
+  /** The number of fundings committed in batches. */
+  private long batched;
+
+  /** The number of batches committed. */
+  private long batches;
+
+  /** The number of fundings of the last batch. */
+  private int lastBatchSize;
+
+  /** The average number of fundings of a batch. */
+  private long averageBatchSize;
+
+  /** The maximum number of fundings of a batch. */
+  private int maxBatchSize;
+
+  /** The duration of the last batch commit in microseconds. */
+  private long lastCommitMicros;
+}
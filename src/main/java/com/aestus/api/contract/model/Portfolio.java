@@ -0,0 +1,50 @@
+package com.aestus.api.contract.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** The portfolio of an investor, the positions in the contracts funded and their totals. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Portfolio {
+
+  /** The profile id of the investor. */
+  private Integer profileId;
+
+  /** The positions, by ascending contract id. */
+  private List<PortfolioPosition> positions;
+
+  /** The number of fundings of all positions. */
+  private long fundingCount;
+
+  /** The amount invested in all positions. */
+  private long investedAmount;
+
+  /** The amount expected to be returned on all positions. */
+  private long expectedReturns;
+
+  /** The amount disbursed on all positions so far. */
+  private long disbursedAmount;
+
+  /**
+   * Instantiates the portfolio of the positions of an investor, summing up their totals.
+   *
+   * @param profileId the profile id of the investor
+   * @param positions the positions
+   */
+  public Portfolio(Integer profileId, List<PortfolioPosition> positions) {
+    this.profileId = profileId;
+    this.positions = positions;
+
+    for (PortfolioPosition position : positions) {
+      fundingCount += position.getFundingCount();
+      investedAmount += position.getInvestedAmount();
+      expectedReturns += position.getExpectedReturns();
+      disbursedAmount += position.getDisbursedAmount();
+    }
+  }
+}
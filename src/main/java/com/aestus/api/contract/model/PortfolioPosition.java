@@ -0,0 +1,93 @@
+package com.aestus.api.contract.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The position of an investor in a contract, the sum of the fundings of the investor in the
+ * contract along with the contract and its request for funding.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioPosition {
+
+  /** The contract id. */
+  private Integer contractId;
+
+  /** The id of the request for funding of the contract. */
+  private Integer requestId;
+
+  /** The title of the request for funding, null if the request is not found. */
+  private String title;
+
+  /** The status of the request for funding, null if the request is not found. */
+  private String requestStatus;
+
+  /** The status of the contract. */
+  private String contractStatus;
+
+  /** The target funding amount of the contract. */
+  private Long targetAmount;
+
+  /** The amount raised by the contract from all investors. */
+  private Long raisedAmount;
+
+  /** The number of fundings of the investor in the contract. */
+  private Long fundingCount;
+
+  /** The amount invested in the contract. */
+  private Long investedAmount;
+
+  /** The amount expected to be returned on the fundings. */
+  private Long expectedReturns;
+
+  /** The amount disbursed on the fundings so far. */
+  private Long disbursedAmount;
+
+  /** The percentage of the target amount of the contract invested, rounded down. */
+  private Integer fundingPercentage;
+
+  /**
+   * Instantiates a position from the aggregates of the fundings of the investor in a contract.
+   *
+   * @param contractId the contract id
+   * @param requestId the id of the request for funding
+   * @param title the title of the request for funding
+   * @param requestStatus the status of the request for funding
+   * @param contractStatus the status of the contract
+   * @param targetAmount the target amount of the contract
+   * @param raisedAmount the raised amount of the contract
+   * @param fundingCount the number of fundings
+   * @param investedAmount the sum of the funding amounts
+   * @param expectedReturns the sum of the repayment amounts
+   * @param disbursedAmount the sum of the disbursed amounts
+   */
+  public PortfolioPosition(
+      Integer contractId,
+      Integer requestId,
+      String title,
+      String requestStatus,
+      String contractStatus,
+      Long targetAmount,
+      Long raisedAmount,
+      Long fundingCount,
+      Long investedAmount,
+      Long expectedReturns,
+      Long disbursedAmount) {
+    this(
+        contractId,
+        requestId,
+        title,
+        requestStatus,
+        contractStatus,
+        targetAmount,
+        raisedAmount,
+        fundingCount,
+        investedAmount,
+        expectedReturns,
+        disbursedAmount,
+        Contract.getFundingPercentage(targetAmount, investedAmount));
+  }
+}
@@ -0,0 +1,30 @@
+package com.aestus.api.contract.model.swagger;
+
+import com.aestus.api.common.model.ResponseMessage;
+import com.aestus.api.contract.model.Contract;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * An extended ResponseMessage with a map of contracts keyed by request id as the payload. Used for
+ * schema documentation in Swagger.
+ */
+@Data
+@AllArgsConstructor
+public class ResponseMessageWithContractMap extends ResponseMessage {
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<Integer, Contract> getData() {
+    return (Map<Integer, Contract>) super.getData();
+  }
+
+  /**
+   * Sets data payload.
+   *
+   * @param contracts the map of contracts keyed by request id
+   */
+  public void setData(Map<Integer, Contract> contracts) {
+    super.setData(contracts);
+  }
+}
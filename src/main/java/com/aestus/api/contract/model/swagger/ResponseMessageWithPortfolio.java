@@ -0,0 +1,21 @@
+package com.aestus.api.contract.model.swagger;
+
+import com.aestus.api.common.model.ResponseMessage;
+import com.aestus.api.contract.model.Portfolio;
+
+public class ResponseMessageWithPortfolio extends ResponseMessage {
+
+    @Override
+    public Portfolio getData() {
+        return (Portfolio) super.getData();
+    }
+
+    /**
+     * Sets data payload.
+     *
+     * @param portfolio the portfolio
+     */
+    public void setData(Portfolio portfolio) {
+        super.setData(portfolio);
+    }
+}
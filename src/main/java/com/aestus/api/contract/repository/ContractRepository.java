@@ -1,12 +1,19 @@
 package com.aestus.api.contract.repository;
 
 import com.aestus.api.contract.model.Contract;
+import com.aestus.api.contract.model.PortfolioPosition;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -19,5 +26,69 @@ public interface ContractRepository extends CrudRepository<Contract, Integer> {
   @Transactional
   @Query("UPDATE FROM Contract c SET c.status = :status WHERE c.id = :id")
   void updateStatus(Integer id, String status);
+
+  /**
+   * Funds a contract by adding an amount to its raised amount, only if the target amount is not
+   * exceeded. The check and the update are a single statement on the locked row, so concurrent
+   * fundings cannot oversubscribe the contract. The status is evaluated first, on the raised amount
+   * before the update.
+   *
+   * @param id the contract id
+   * @param amount the funding amount
+   * @return 1 if the contract is funded, 0 if it is not found or the amount is not positive or
+   *     exceeds the outstanding amount
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      "UPDATE FROM Contract c SET"
+          + " c.status = CASE WHEN c.raisedAmount + :amount >= c.targetAmount"
+          + " THEN '"
+          + Contract.STATUS_FULLY_FUNDED
+          + "' ELSE '"
+          + Contract.STATUS_PARTIALLY_FUNDED
+          + "' END,"
+          + " c.raisedAmount = c.raisedAmount + :amount"
+          + " WHERE c.id = :id AND :amount > 0 AND c.raisedAmount + :amount <= c.targetAmount")
+  int fund(@Param("id") Integer id, @Param("amount") long amount);
+
+  /**
+   * Finds a contract and locks its row until the end of the transaction.
+   *
+   * @param id the contract id
+   * @return the contract if found
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT c FROM Contract c WHERE c.id = :id")
+  Optional<Contract> findByIdForUpdate(@Param("id") Integer id);
+
+  /**
+   * Finds the ids of the contracts in a status, the contracts themselves are not loaded.
+   *
+   * @param status the contract status
+   * @return the contract ids, ascending
+   */
+  @Query("SELECT c.id FROM Contract c WHERE c.status = :status ORDER BY c.id")
+  List<Integer> findIdsByStatus(@Param("status") String status);
+
+  /**
+   * Finds the positions of an investor, the fundings of {@code profileId} summed by contract,
+   * joined to their contracts and requests for funding in one query.
+   *
+   * @param profileId the profile id of the investor
+   * @return the positions, by ascending contract id
+   */
+  @Query(
+      "SELECT new com.aestus.api.contract.model.PortfolioPosition(c.id, c.requestId, r.title,"
+          + " r.status, c.status, c.targetAmount, c.raisedAmount, COUNT(f),"
+          + " SUM(f.fundingAmount), SUM(f.repaymentAmount), SUM(f.disbursedAmount))"
+          + " FROM Funding f JOIN Contract c ON c.id = f.contractId"
+          + " LEFT JOIN Request r ON r.id = c.requestId"
+          + " WHERE f.profileId = :profileId"
+          + " GROUP BY c.id, c.requestId, r.title, r.status, c.status, c.targetAmount,"
+          + " c.raisedAmount ORDER BY c.id")
+  List<PortfolioPosition> findPortfolioPositions(@Param("profileId") Integer profileId);
+
   Optional<Contract> findByRequestId(Integer requestId);
+
+  List<Contract> findByRequestIdIn(Collection<Integer> requestIds);
 }
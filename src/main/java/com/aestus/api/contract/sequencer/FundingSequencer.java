@@ -0,0 +1,331 @@
+package com.aestus.api.contract.sequencer;
+
+import com.aestus.api.common.exception.EntityNotFoundException;
+import com.aestus.api.contract.exception.ContractException;
+import com.aestus.api.contract.exception.FundingAllocationException;
+import com.aestus.api.contract.model.FundingOrder;
+import com.aestus.api.contract.model.FundingSequencerStats;
+import com.aestus.api.contract.service.ContractService;
+import com.aestus.api.funding.model.Funding;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sequences the fundings of each contract through a single writer, so that the investors of a hot
+ * contract do not all contend on its row.
+ *
+ * <p>A funding of a contract with nothing in flight is committed directly in the caller thread, see
+ * {@link ContractService#fundContract(int, int, long)}. The fundings arriving while it is committed
+ * are queued on the contract and drained by a worker in batches, each committed with one contract
+ * update and one batch insert of the fundings, see {@link ContractService#fundContract(int, List)}.
+ * A funding is either created for the amount asked for or rejected when it exceeds the outstanding
+ * amount, in both modes, so the outcome does not depend on the load. Each caller waits for its own
+ * funding on a future. A contract goes back to direct mode once its queue is empty.
+ */
+@Slf4j
+public class FundingSequencer implements Closeable {
+
+  private final ContractService contractService;
+  private final int capacity;
+  private final int maxBatchSize;
+  private final int maxContracts;
+  private final int threads;
+  private final long shutdownTimeoutMs;
+
+  private final Map<Integer, Lane> lanes = new ConcurrentHashMap<>();
+
+  private ExecutorService workers;
+
+  private volatile boolean closed;
+
+  /**
+   * Creates a sequencer, call {@link #start()} before funding.
+   *
+   * @param contractService the service the fundings are committed with
+   * @param capacity the maximum number of fundings queued per contract
+   * @param maxBatchSize the maximum number of fundings per batch
+   * @param maxContracts the number of contracts above which idle contracts are forgotten
+   * @param threads the number of workers draining the contracts
+   * @param shutdownTimeoutMs the maximum time {@link #close()} waits for the queues to be drained
+   */
+  public FundingSequencer(
+      ContractService contractService,
+      int capacity,
+      int maxBatchSize,
+      int maxContracts,
+      int threads,
+      long shutdownTimeoutMs) {
+    this.contractService = contractService;
+    this.capacity = capacity;
+    this.maxBatchSize = maxBatchSize;
+    this.maxContracts = maxContracts;
+    this.threads = threads;
+    this.shutdownTimeoutMs = shutdownTimeoutMs;
+  }
+
+  /** Starts the workers. */
+  public void start() {
+    workers = Executors.newFixedThreadPool(threads);
+  }
+
+  /**
+   * Funds a contract and waits for the allocation.
+   *
+   * @param contractId the contract id
+   * @param profileId the profile id of the investor
+   * @param amount the amount of the funding
+   * @return the funding created, for the amount asked for
+   * @throws ContractException if the amount exceeds the outstanding amount, the contract queue is
+   *     full or the funding cannot be saved
+   * @throws EntityNotFoundException if the contract is not found
+   */
+  public Funding fund(int contractId, int profileId, long amount)
+      throws ContractException, EntityNotFoundException {
+
+    try {
+      return submit(contractId, profileId, amount).get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ContractException("Interrupted while funding contract " + contractId);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+
+      if (cause instanceof ContractException) throw (ContractException) cause;
+      if (cause instanceof EntityNotFoundException) throw (EntityNotFoundException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Submits a funding of a contract.
+   *
+   * @param contractId the contract id
+   * @param profileId the profile id of the investor
+   * @param amount the amount of the funding
+   * @return the future of the funding created, completed once it is committed
+   */
+  public CompletableFuture<Funding> submit(int contractId, int profileId, long amount) {
+    Order order = new Order(new FundingOrder(profileId, amount));
+
+    if (closed) {
+      order.future.completeExceptionally(new ContractException("Funding sequencer closed"));
+      return order.future;
+    }
+
+    if (lanes.size() > maxContracts) forgetIdle();
+
+    while (true) {
+      Lane lane = lanes.computeIfAbsent(contractId, Lane::new);
+
+      synchronized (lane) {
+        if (lane.forgotten) continue;
+
+        if (lane.busy) {
+          if (lane.queue.size() >= capacity)
+            order.future.completeExceptionally(
+                new ContractException(
+                    String.format("Too many fundings queued for contract %d", contractId)));
+          else lane.queue.add(order);
+
+          return order.future;
+        }
+
+        lane.busy = true;
+        lane.direct++;
+      }
+
+      // Nothing in flight for the contract, no need to queue
+      commit(lane, List.of(order), true);
+      release(lane);
+
+      return order.future;
+    }
+  }
+
+  /**
+   * Gets the queue depth and batch statistics of the contracts funded recently.
+   *
+   * @return the statistics, by contract id
+   */
+  public List<FundingSequencerStats> getStats() {
+    return lanes.values().stream().map(Lane::getStats).collect(Collectors.toList());
+  }
+
+  /** Stops accepting fundings and waits until the fundings queued are committed. */
+  public void close() {
+    closed = true;
+
+    if (workers == null) return;
+
+    workers.shutdown();
+
+    try {
+      if (!workers.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS))
+        log.error("Funding sequencer stopped with fundings not committed");
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Commits a batch and completes the futures of its orders. */
+  private void commit(Lane lane, List<Order> batch, boolean direct) {
+    long start = System.nanoTime();
+
+    try {
+      // Both are checked against the outstanding amount, an order is never cut down
+      List<Funding> fundings =
+          direct
+              ? List.of(
+                  contractService.fundContract(
+                      lane.contractId,
+                      batch.get(0).fundingOrder.getProfileId(),
+                      batch.get(0).fundingOrder.getAmount()))
+              : contractService.fundContract(
+                  lane.contractId,
+                  batch.stream().map(order -> order.fundingOrder).collect(Collectors.toList()));
+
+      for (int i = 0; i < batch.size(); i++) {
+        Order order = batch.get(i);
+
+        if (fundings.get(i) != null) order.future.complete(fundings.get(i));
+        else
+          order.future.completeExceptionally(
+              new FundingAllocationException(lane.contractId, order.fundingOrder.getAmount()));
+      }
+    } catch (ContractException | EntityNotFoundException ex) {
+      for (Order order : batch) order.future.completeExceptionally(ex);
+    } catch (RuntimeException ex) {
+      log.error("Cannot fund contract {} with {} fundings", lane.contractId, batch.size(), ex);
+
+      for (Order order : batch) order.future.completeExceptionally(ex);
+    }
+
+    synchronized (lane) {
+      lane.record(direct, batch.size(), System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Hands a contract over to a worker if fundings were queued while its last batch was committed,
+   * or back to direct mode. Each worker task commits one batch, so that hot contracts take turns.
+   */
+  private void release(Lane lane) {
+    while (true) {
+      synchronized (lane) {
+        if (lane.queue.isEmpty()) {
+          lane.busy = false;
+          return;
+        }
+      }
+
+      try {
+        workers.execute(() -> drain(lane));
+        return;
+      } catch (RejectedExecutionException ex) {
+        // The workers are stopped, the fundings queued are committed by this thread
+        commit(lane, poll(lane), false);
+      }
+    }
+  }
+
+  private void drain(Lane lane) {
+    commit(lane, poll(lane), false);
+    release(lane);
+  }
+
+  private List<Order> poll(Lane lane) {
+    List<Order> batch = new ArrayList<>(maxBatchSize);
+
+    synchronized (lane) {
+      while (batch.size() < maxBatchSize && !lane.queue.isEmpty()) batch.add(lane.queue.poll());
+    }
+
+    return batch;
+  }
+
+  /** Forgets the contracts with nothing in flight, they are created again on their next funding. */
+  private void forgetIdle() {
+    for (Lane lane : lanes.values())
+      synchronized (lane) {
+        if (!lane.busy) {
+          lane.forgotten = true;
+          lanes.remove(lane.contractId, lane);
+        }
+      }
+  }
+
+  /** A funding waiting for its allocation. */
+  private static class Order {
+
+    private final FundingOrder fundingOrder;
+    private final CompletableFuture<Funding> future = new CompletableFuture<>();
+
+    private Order(FundingOrder fundingOrder) {
+      this.fundingOrder = fundingOrder;
+    }
+  }
+
+  /** The queue and the statistics of a contract, guarded by its monitor. */
+  private static class Lane {
+
+    private final int contractId;
+    private final Queue<Order> queue = new ArrayDeque<>();
+
+    /** Whether a batch of the contract is being committed. */
+    private boolean busy;
+
+    private boolean forgotten;
+
+    private long direct;
+    private long batched;
+    private long batches;
+    private int lastBatchSize;
+    private int maxBatchSize;
+    private long lastCommitNanos;
+
+    private Lane(int contractId) {
+      this.contractId = contractId;
+    }
+
+    private void record(boolean direct, int size, long elapsed) {
+      lastCommitNanos = elapsed;
+
+      if (direct) return;
+
+      batched += size;
+      batches++;
+      lastBatchSize = size;
+      maxBatchSize = Math.max(maxBatchSize, size);
+    }
+
+    private synchronized FundingSequencerStats getStats() {
+      return new FundingSequencerStats(
+          contractId,
+          queue.size(),
+          direct,
+          batched,
+          batches,
+          lastBatchSize,
+          batches == 0 ? 0 : batched / batches,
+          maxBatchSize,
+          TimeUnit.NANOSECONDS.toMicros(lastCommitNanos));
+    }
+  }
+}
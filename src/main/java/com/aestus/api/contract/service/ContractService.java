@@ -3,9 +3,14 @@ package com.aestus.api.contract.service;
 import com.aestus.api.common.exception.EntityNotFoundException;
 import com.aestus.api.contract.exception.RequestIdNotFoundException;
 import com.aestus.api.contract.model.Contract;
+import com.aestus.api.contract.model.FundingOrder;
+import com.aestus.api.contract.model.Portfolio;
 import com.aestus.api.contract.exception.ContractException;
 import com.aestus.api.funding.model.Funding;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * The ContractService interface provides access to application functionality and features for
  * contracts. It acts as a proxy or endpoint to the service. The specific implementation can be
@@ -38,6 +43,31 @@ public interface ContractService {
    */
   Contract getContractByRequestId(int requestId) throws RequestIdNotFoundException;
 
+  /**
+   * Gets contracts by a list of {@code requestIds}.
+   *
+   * @param requestIds the request ids
+   * @return the contracts found, request ids without a contract are left out
+   */
+  Iterable<Contract> getContractsByRequestIds(Collection<Integer> requestIds);
+
+  /**
+   * Gets the portfolio of the investor {@code profileId}, the fundings summed by contract along
+   * with the contracts and their requests for funding, with one query.
+   *
+   * @param profileId the profile id of the investor
+   * @return the portfolio, without positions if the investor has no fundings
+   */
+  Portfolio getPortfolio(int profileId);
+
+  /**
+   * Gets the ids of the contracts in a {@code status}.
+   *
+   * @param status the contract status
+   * @return the contract ids, ascending
+   */
+  List<Integer> getContractIdsByStatus(String status);
+
   /**
    * Creates a contract.
    *
@@ -66,15 +96,34 @@ public interface ContractService {
   void updateContractStatus(Integer id, String status) throws EntityNotFoundException;
 
   /**
-   * Funds the contract identified by {@code contractId}.
+   * Funds the contract identified by {@code contractId}. The raised amount is checked and updated
+   * atomically, and the funding is created and the request for funding status updated in the same
+   * transaction, so concurrent fundings can never exceed the target amount.
    *
-   * @param contract the contract to be funded
+   * @param contractId the id of the contract to be funded
    * @param profileId the profile id of the user providing the funding
    * @param fundingAmount the amount of the funding
-   * @return the funding instance
+   * @return the funding created
+   * @throws ContractException the amount exceeds the outstanding amount, or the funding or the
+   *     request for funding status cannot be saved
+   * @throws EntityNotFoundException the contract with {@code contractId} is not found
+   */
+  Funding fundContract(int contractId, int profileId, long fundingAmount)
+      throws ContractException, EntityNotFoundException;
+
+  /**
+   * Funds the contract identified by {@code contractId} with a batch of orders, see {@link
+   * Contract#allocate(long, long[])}. The contract is locked, updated once and the fundings are
+   * created with one batch insert, all in one transaction.
+   *
+   * @param contractId the id of the contract to be funded
+   * @param orders the funding orders, in arrival order
+   * @return the fundings created, in the order of the orders, {@code null} for an order that
+   *     exceeds what the earlier orders left of the outstanding amount
+   * @throws ContractException the fundings or the request for funding status cannot be saved
    * @throws EntityNotFoundException the contract with {@code contractId} is not found
    */
-  Funding fundContract(Contract contract, int profileId, long fundingAmount)
+  List<Funding> fundContract(int contractId, List<FundingOrder> orders)
       throws ContractException, EntityNotFoundException;
 
   /**
@@ -1,29 +1,46 @@
 package com.aestus.api.contract.service.impl;
 
 import com.aestus.api.common.exception.EntityNotFoundException;
+import com.aestus.api.common.exception.GatewayException;
 import com.aestus.api.contract.exception.ContractAmountsException;
+import com.aestus.api.contract.exception.CreateFundingException;
+import com.aestus.api.contract.exception.FundingAmountException;
 import com.aestus.api.contract.exception.RequestIdNotFoundException;
+import com.aestus.api.contract.exception.UpdateRequestException;
 import com.aestus.api.contract.model.Contract;
+import com.aestus.api.contract.model.FundingOrder;
+import com.aestus.api.contract.model.Portfolio;
 import com.aestus.api.contract.service.ContractService;
 import com.aestus.api.contract.exception.ContractException;
 import com.aestus.api.contract.repository.ContractRepository;
+import com.aestus.api.funding.gateway.FundingGateway;
 import com.aestus.api.funding.model.Funding;
+import com.aestus.api.request.gateway.RequestGateway;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import lombok.AllArgsConstructor;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.aestus.api.common.util.QueryUtils.findAllInChunks;
 
 /**
  * The implementation of the Contract service. This implementation uses a {@code CrudRepository} for
- * persistence to a RDBMS via Hibernate.
+ * persistence to a RDBMS via Hibernate. Fundings and request statuses are saved through their
+ * gateways, in process they join the transaction of the contract.
  */
 @Service
 @AllArgsConstructor
 public class ContractServiceImpl implements ContractService {
 
   private final ContractRepository contractRepository;
+  private final FundingGateway fundingGateway;
+  private final RequestGateway requestGateway;
 
   public Iterable<Contract> getAllContracts() {
     return contractRepository.findAll();
@@ -47,8 +64,22 @@ public class ContractServiceImpl implements ContractService {
     } else throw new RequestIdNotFoundException(requestId);
   }
 
+  public Iterable<Contract> getContractsByRequestIds(Collection<Integer> requestIds) {
+    return findAllInChunks(requestIds, contractRepository::findByRequestIdIn);
+  }
+
+  public Portfolio getPortfolio(int profileId) {
+    return new Portfolio(profileId, contractRepository.findPortfolioPositions(profileId));
+  }
+
+  public List<Integer> getContractIdsByStatus(String status) {
+    return contractRepository.findIdsByStatus(status);
+  }
+
   public Contract createContract(Contract contract) throws ContractException {
 
+    contract.setRaisedAmount(0L);
+
     if (contract.getTargetAmount() >= contract.getRepaymentAmount())
       throw new ContractAmountsException(contract.getTargetAmount(), contract.getRepaymentAmount());
 
@@ -56,21 +87,108 @@ public class ContractServiceImpl implements ContractService {
   }
 
   public Contract updateContract(Contract contract) throws EntityNotFoundException {
-    getContractById(contract.getId());
+    Contract existing = getContractById(contract.getId());
+
+    // The raised amount is only changed by fundings
+    contract.setRaisedAmount(existing.getRaisedAmount());
 
     return contractRepository.save(contract);
   }
 
-  public Funding fundContract(Contract contract, int profileId, long fundingAmount)
+  @Transactional(rollbackFor = {ContractException.class, EntityNotFoundException.class})
+  public Funding fundContract(int contractId, int profileId, long fundingAmount)
       throws ContractException, EntityNotFoundException {
 
-    Funding funding = contract.fund(profileId, fundingAmount);
+    boolean funded = contractRepository.fund(contractId, fundingAmount) == 1;
 
-    updateContractStatus(contract.getId(), contract.getStatus());
+    // Read after the update, the row stays locked until the commit
+    Contract contract = getContractById(contractId);
+
+    if (!funded) throw new FundingAmountException(fundingAmount, contract.getOutstandingAmount());
+
+    Funding funding;
+
+    try {
+      funding =
+          fundingGateway.createFunding(
+              new Funding(
+                  contractId, profileId, fundingAmount, contract.getFundingReturns(fundingAmount)));
+    } catch (GatewayException ex) {
+      throw new CreateFundingException(ex.getMessage());
+    }
+
+    try {
+      requestGateway.updateRequestStatus(contract.getRequestId(), contract.getStatus());
+    } catch (GatewayException ex) {
+      throw new UpdateRequestException(ex.getMessage());
+    }
 
     return funding;
   }
 
+  @Transactional(rollbackFor = {ContractException.class, EntityNotFoundException.class})
+  public List<Funding> fundContract(int contractId, List<FundingOrder> orders)
+      throws ContractException, EntityNotFoundException {
+
+    Contract contract =
+        contractRepository
+            .findByIdForUpdate(contractId)
+            .orElseThrow(() -> new EntityNotFoundException(Contract.class, contractId));
+
+    long[] allocated =
+        Contract.allocate(
+            contract.getOutstandingAmount(),
+            orders.stream().mapToLong(FundingOrder::getAmount).toArray());
+
+    List<Funding> fundings = new ArrayList<>(orders.size());
+    List<Funding> created = new ArrayList<>(orders.size());
+    long total = 0;
+
+    for (int i = 0; i < orders.size(); i++) {
+      if (allocated[i] <= 0) {
+        fundings.add(null);
+        continue;
+      }
+
+      Funding funding =
+          new Funding(
+              contractId,
+              orders.get(i).getProfileId(),
+              allocated[i],
+              contract.getFundingReturns(allocated[i]));
+
+      fundings.add(funding);
+      created.add(funding);
+      total += allocated[i];
+    }
+
+    if (created.isEmpty()) return fundings;
+
+    // The row is locked, the allocation fits the outstanding amount
+    if (contractRepository.fund(contractId, total) != 1)
+      throw new FundingAmountException(total, contract.getOutstandingAmount());
+
+    try {
+      created = fundingGateway.createFundings(created);
+    } catch (GatewayException ex) {
+      throw new CreateFundingException(ex.getMessage());
+    }
+
+    try {
+      requestGateway.updateRequestStatus(
+          contract.getRequestId(),
+          Contract.getFundedStatus(contract.getRaisedAmount() + total, contract.getTargetAmount()));
+    } catch (GatewayException ex) {
+      throw new UpdateRequestException(ex.getMessage());
+    }
+
+    // The fundings created come back in order, with their ids
+    for (int i = 0, j = 0; i < fundings.size(); i++)
+      if (fundings.get(i) != null) fundings.set(i, created.get(j++));
+
+    return fundings;
+  }
+
   public void updateContractStatus(Integer id, String status) throws EntityNotFoundException {
     getContractById(id);
     contractRepository.updateStatus(id, status);
@@ -4,6 +4,7 @@ import com.aestus.api.common.exception.EntityNotFoundException;
 import com.aestus.api.common.model.ResponseMessage;
 import com.aestus.api.funding.model.Funding;
 import com.aestus.api.funding.model.swagger.ResponseMessageWithFunding;
+import com.aestus.api.funding.model.swagger.ResponseMessageWithFundingMap;
 import com.aestus.api.funding.model.swagger.ResponseMessageWithFundings;
 import com.aestus.api.funding.service.FundingService;
 
@@ -29,6 +30,9 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 /** Provides the funding controller functionality. */
 @Slf4j
@@ -177,6 +181,57 @@ public class FundingController {
     return ResponseEntity.ok(msg);
   }
 
+  /**
+   * Creates fundings in one batch via a list of {@code Funding} objects in the request body.
+   *
+   * @param fundings the fundings
+   * @param httpRequest the http request
+   * @return the {@code ResponseMessage} containing the fundings created with the auto-generated
+   *     {@code id}, in the same order
+   */
+  @PostMapping(value = "/batch", consumes = "application/json", produces = "application/json")
+  @PreAuthorize("hasAuthority('U') or hasAuthority('I') or hasAuthority('A')")
+  @Operation(
+      summary = "Creates fundings in one batch via a json array of fundings",
+      tags = {"Funding"},
+      requestBody =
+          @io.swagger.v3.oas.annotations.parameters.RequestBody(
+              required = true,
+              description =
+                  "Requires a json array of fundings, the <code>id</code> fields (if specified) will be ignored"),
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Returns the fundings (with the auto-generated <code>id</code>) in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessageWithFundings.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description =
+                "Unable to create the fundings due to validation reasons.  Refer to schema of Funding for details.",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessage.class))),
+        @ApiResponse(
+            responseCode = "403",
+            description = "Unauthorized request",
+            content = @Content),
+      })
+  public ResponseEntity<ResponseMessage> createBatch(
+      @RequestBody List<@Valid Funding> fundings, HttpServletRequest httpRequest) {
+
+    List<Funding> created = fundingService.createFundings(fundings);
+
+    ResponseMessage msg =
+        new ResponseMessage(HttpStatus.OK.value(), created, httpRequest.getRequestURI());
+
+    return ResponseEntity.ok(msg);
+  }
+
   /**
    * Updates a funding.
    *
@@ -470,6 +525,68 @@ public class FundingController {
     return ResponseEntity.ok(msg);
   }
 
+  /**
+   * Marks a list of fundings specified by {@code ids} as disbursing with a ledger batch, before the
+   * batch is transferred.
+   *
+   * @param ids the list of funding ids to mark
+   * @param batchId the id of the ledger batch
+   * @param httpRequest the http request
+   * @return the {@code ResponseMessage} with disbursing message
+   */
+  @PostMapping("/disbursing")
+  @PreAuthorize("hasAuthority('U') or hasAuthority('I') or hasAuthority('A')")
+  @Operation(
+      summary = "Mark a list of fundings as disbursing with a ledger batch",
+      tags = {"Funding"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Returns disbursing confirmation",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessage.class),
+                    examples =
+                        @ExampleObject(
+                            value =
+                                "{\n"
+                                    + "  \"timestamp\": \"2022-07-19T15:06:39.1370387\",\n"
+                                    + "  \"status\": 200,\n"
+                                    + "  \"message\": \"Fundings disbursing, ids=[1, 2], batchId=contract-1-funding-1\",\n"
+                                    + "  \"data\": null,\n"
+                                    + "  \"path\": \"/api/v1/funding/disbursing/\",\n"
+                                    + "  \"ok\": true\n"
+                                    + "}"))),
+        @ApiResponse(
+            responseCode = "403",
+            description = "Unauthorized request",
+            content = @Content),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Funding with <code>id</code> not found or not in the contract",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessage.class))),
+      })
+  public ResponseEntity<ResponseMessage> markDisbursing(
+      @RequestParam List<Integer> ids,
+      @RequestParam String batchId,
+      HttpServletRequest httpRequest)
+      throws EntityNotFoundException {
+
+    String uri = httpRequest.getRequestURI();
+
+    fundingService.markFundingsDisbursing(ids, batchId);
+
+    String reason = "Fundings disbursing, ids=%s, batchId=%s";
+    ResponseMessage msg =
+        new ResponseMessage(HttpStatus.OK.value(), String.format(reason, ids, batchId), uri);
+
+    return ResponseEntity.ok(msg);
+  }
+
   /**
    * Removes all fundings.
    *
@@ -734,6 +851,68 @@ public class FundingController {
     return ResponseEntity.ok(msg);
   }
 
+  /**
+   * Gets fundings by a list of {@code contractIds} in a single batch.
+   *
+   * @param contractIds the list of contract ids
+   * @param request the http request
+   * @return the lists of fundings keyed by contract id, contracts without fundings are left out
+   */
+  @GetMapping("/contractIds")
+  @PreAuthorize("hasAuthority('U') or hasAuthority('I') or hasAuthority('A')")
+  @Operation(
+      summary = "Retrieve fundings by a list of contract ids",
+      tags = {"Funding"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Returns the fundings keyed by contract id in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessageWithFundingMap.class),
+                    examples =
+                        @ExampleObject(
+                            externalValue =
+                                "http://localhost:8080/swagger/funding/funding-get-contractIds-200.json",
+                            value =
+                                "{\n"
+                                    + "  \"timestamp\": \"2022-07-13T11:30:23.2326168\",\n"
+                                    + "  \"status\": 200,\n"
+                                    + "  \"message\": \"\",\n"
+                                    + "  \"data\": {\n"
+                                    + "    \"30\": [\n"
+                                    + "      {\n"
+                                    + "        \"id\": 4,\n"
+                                    + "        \"contractId\": 30,\n"
+                                    + "        \"profileId\": \"30\",\n"
+                                    + "        \"status\": \"F\",\n"
+                                    + "        \"fundingAmount\": 9999,\n"
+                                    + "        \"disbursedAmount\": 1000,\n"
+                                    + "        \"createdTimestamp\": \"2022-07-07T11:37:19.328878\",\n"
+                                    + "        \"profile\": null\n"
+                                    + "      }\n"
+                                    + "    ]\n"
+                                    + "  },\n"
+                                    + "  \"path\": \"/api/v1/funding/contractIds\",\n"
+                                    + "  \"ok\": true\n"
+                                    + "}"))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> getByContractIds(
+      @RequestParam List<Integer> contractIds, HttpServletRequest request) {
+
+    Map<Integer, List<Funding>> fundings =
+        StreamSupport.stream(
+                fundingService.getFundingsByContractIds(contractIds).spliterator(), false)
+            .collect(Collectors.groupingBy(Funding::getContractId));
+
+    ResponseMessage msg =
+        new ResponseMessage(HttpStatus.OK.value(), fundings, request.getRequestURI());
+
+    return ResponseEntity.ok(msg);
+  }
+
   /**
    * Gets fundings by {@code profileId}.
    *
@@ -0,0 +1,75 @@
+package com.aestus.api.funding.gateway;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.funding.model.Funding;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/** Provides access to the funding module from the other modules. */
+public interface FundingGateway {
+
+  /**
+   * Gets fundings by {@code contractId}.
+   *
+   * @param contractId the contract id
+   * @return the list of fundings
+   * @throws GatewayException if the fundings cannot be retrieved
+   */
+  List<Funding> getFundingsByContractId(int contractId) throws GatewayException;
+
+  /**
+   * Gets fundings of a list of contracts in a single batch.
+   *
+   * @param contractIds the contract ids
+   * @return the lists of fundings keyed by contract id, contracts without fundings are left out
+   * @throws GatewayException if the fundings cannot be retrieved
+   */
+  Map<Integer, List<Funding>> getFundingsByContractIds(Collection<Integer> contractIds)
+      throws GatewayException;
+
+  /**
+   * Gets fundings by {@code profileId}.
+   *
+   * @param profileId the profile id of the investor
+   * @return the list of fundings
+   * @throws GatewayException if the fundings cannot be retrieved
+   */
+  List<Funding> getFundingsByProfileId(int profileId) throws GatewayException;
+
+  /**
+   * Creates a funding.
+   *
+   * @param funding the funding
+   * @return the funding created with the auto-generated {@code id}
+   * @throws GatewayException if the funding cannot be created
+   */
+  Funding createFunding(Funding funding) throws GatewayException;
+
+  /**
+   * Creates fundings in a single batch.
+   *
+   * @param fundings the fundings
+   * @return the fundings created with the auto-generated {@code id}, in the same order
+   * @throws GatewayException if the fundings cannot be created
+   */
+  List<Funding> createFundings(List<Funding> fundings) throws GatewayException;
+
+  /**
+   * Disburses fundings by a list of {@code ids}.
+   *
+   * @param ids the list of funding ids
+   * @throws GatewayException if the fundings cannot be disbursed
+   */
+  void disburseFundings(List<Integer> ids) throws GatewayException;
+
+  /**
+   * Marks fundings by a list of {@code ids} as disbursing with a ledger batch.
+   *
+   * @param ids the list of funding ids
+   * @param batchId the id of the ledger batch
+   * @throws GatewayException if the fundings cannot be marked, none of them is marked then
+   */
+  void markFundingsDisbursing(List<Integer> ids, String batchId) throws GatewayException;
+}
@@ -0,0 +1,119 @@
+package com.aestus.api.funding.gateway.impl;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.common.gateway.HttpGateway;
+import com.aestus.api.common.model.ResponseMessage;
+import com.aestus.api.funding.gateway.FundingGateway;
+import com.aestus.api.funding.model.Funding;
+import com.aestus.api.funding.model.swagger.ResponseMessageWithFunding;
+import com.aestus.api.funding.model.swagger.ResponseMessageWithFundingMap;
+import com.aestus.api.funding.model.swagger.ResponseMessageWithFundings;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+/** The http implementation of the funding gateway, for split deployments. */
+@Component
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "http")
+public class HttpFundingGateway extends HttpGateway implements FundingGateway {
+
+  @Value("${com.aestus.funding.get.contractId.url}")
+  private final String urlFundingGetByContractId = null;
+
+  @Value("${com.aestus.funding.get.contractIds.url}")
+  private final String urlFundingGetByContractIds = null;
+
+  @Value("${com.aestus.funding.get.profileId.url}")
+  private final String urlFundingGetByProfileId = null;
+
+  @Value("${com.aestus.funding.create.url}")
+  private final String urlFundingCreate = null;
+
+  @Value("${com.aestus.funding.create.batch.url}")
+  private final String urlFundingCreateBatch = null;
+
+  @Value("${com.aestus.funding.disburse.url}")
+  private final String urlFundingDisburse = null;
+
+  @Value("${com.aestus.funding.disbursing.url}")
+  private final String urlFundingDisbursing = null;
+
+  public List<Funding> getFundingsByContractId(int contractId) throws GatewayException {
+    return Arrays.asList(
+        exchange(
+                String.format(urlFundingGetByContractId, contractId),
+                HttpMethod.GET,
+                null,
+                ResponseMessageWithFundings.class)
+            .getData());
+  }
+
+  public Map<Integer, List<Funding>> getFundingsByContractIds(Collection<Integer> contractIds)
+      throws GatewayException {
+
+    Map<Integer, List<Funding>> fundings = new HashMap<>();
+
+    for (String strIds : partitionIds(contractIds))
+      fundings.putAll(
+          exchange(
+                  String.format(urlFundingGetByContractIds, strIds),
+                  HttpMethod.GET,
+                  null,
+                  ResponseMessageWithFundingMap.class)
+              .getData());
+
+    return fundings;
+  }
+
+  public List<Funding> getFundingsByProfileId(int profileId) throws GatewayException {
+    return Arrays.asList(
+        exchange(
+                String.format(urlFundingGetByProfileId, profileId),
+                HttpMethod.GET,
+                null,
+                ResponseMessageWithFundings.class)
+            .getData());
+  }
+
+  public Funding createFunding(Funding funding) throws GatewayException {
+    return exchange(urlFundingCreate, HttpMethod.POST, funding, ResponseMessageWithFunding.class)
+        .getData();
+  }
+
+  public List<Funding> createFundings(List<Funding> fundings) throws GatewayException {
+    return Arrays.asList(
+        exchange(
+                urlFundingCreateBatch, HttpMethod.POST, fundings, ResponseMessageWithFundings.class)
+            .getData());
+  }
+
+  public void disburseFundings(List<Integer> ids) throws GatewayException {
+
+    // Format list of funding ids
+    String strIds = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+
+    exchange(
+        String.format(urlFundingDisburse, strIds), HttpMethod.POST, null, ResponseMessage.class);
+  }
+
+  public void markFundingsDisbursing(List<Integer> ids, String batchId) throws GatewayException {
+
+    // Format list of funding ids
+    String strIds = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+
+    exchange(
+        String.format(urlFundingDisbursing, strIds, batchId),
+        HttpMethod.POST,
+        null,
+        ResponseMessage.class);
+  }
+}
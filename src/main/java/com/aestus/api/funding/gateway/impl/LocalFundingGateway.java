@@ -0,0 +1,67 @@
+package com.aestus.api.funding.gateway.impl;
+
+import com.aestus.api.common.exception.EntityNotFoundException;
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.funding.gateway.FundingGateway;
+import com.aestus.api.funding.model.Funding;
+import com.aestus.api.funding.service.FundingService;
+
+import com.google.common.collect.Lists;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import lombok.AllArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** The in-process implementation of the funding gateway, calls the funding service directly. */
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "local", matchIfMissing = true)
+public class LocalFundingGateway implements FundingGateway {
+
+  private final FundingService fundingService;
+
+  public List<Funding> getFundingsByContractId(int contractId) {
+    return Lists.newArrayList(fundingService.getFundingsByContractId(contractId));
+  }
+
+  public Map<Integer, List<Funding>> getFundingsByContractIds(Collection<Integer> contractIds) {
+    return StreamSupport.stream(
+            fundingService.getFundingsByContractIds(contractIds).spliterator(), false)
+        .collect(Collectors.groupingBy(Funding::getContractId));
+  }
+
+  public List<Funding> getFundingsByProfileId(int profileId) {
+    return Lists.newArrayList(fundingService.getFundingsByProfileId(profileId));
+  }
+
+  public Funding createFunding(Funding funding) {
+    return fundingService.createFunding(funding);
+  }
+
+  public List<Funding> createFundings(List<Funding> fundings) {
+    return fundingService.createFundings(fundings);
+  }
+
+  public void disburseFundings(List<Integer> ids) throws GatewayException {
+    try {
+      fundingService.disburseFundings(ids);
+    } catch (EntityNotFoundException ex) {
+      throw new GatewayException(ex);
+    }
+  }
+
+  public void markFundingsDisbursing(List<Integer> ids, String batchId) throws GatewayException {
+    try {
+      fundingService.markFundingsDisbursing(ids, batchId);
+    } catch (EntityNotFoundException ex) {
+      throw new GatewayException(ex);
+    }
+  }
+}
@@ -15,10 +15,16 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "fundings")
+@Table(
+    name = "fundings",
+    indexes = {
+      @Index(name = "idx_contractId_status", columnList = "contractId, status"),
+      @Index(name = "idx_profileId_contractId", columnList = "profileId, contractId")
+    })
 public class Funding {
 
   public static final String STATUS_FUNDS_IN_CONTRACT = "FIC"; // Funds in contract
+  public static final String STATUS_FUNDS_DISBURSING = "FDG"; // Funds being disbursed
   public static final String STATUS_FUNDS_DISBURSED = "FD"; // Funds disbursed
 
   /** The Id. */
@@ -60,6 +66,9 @@ public class Funding {
   @Column(nullable = false)
   Long disbursedAmount;
 
+  /** The id of the ledger batch the funding is disbursed with, set while it is disbursing. */
+  String disbursementBatchId;
+
   /** The created timestamp. */
   @NotNull(message = "createdTimestamp must not be null")
   @Column(nullable = false)
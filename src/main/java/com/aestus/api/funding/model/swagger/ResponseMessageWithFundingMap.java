@@ -0,0 +1,31 @@
+package com.aestus.api.funding.model.swagger;
+
+import com.aestus.api.common.model.ResponseMessage;
+import com.aestus.api.funding.model.Funding;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * An extended ResponseMessage with a map of lists of fundings keyed by contract id as the payload.
+ * Used for schema documentation in Swagger.
+ */
+@Data
+@AllArgsConstructor
+public class ResponseMessageWithFundingMap extends ResponseMessage {
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<Integer, List<Funding>> getData() {
+    return (Map<Integer, List<Funding>>) super.getData();
+  }
+
+  /**
+   * Sets data payload.
+   *
+   * @param fundings the map of lists of fundings keyed by contract id
+   */
+  public void setData(Map<Integer, List<Funding>> fundings) {
+    super.setData(fundings);
+  }
+}
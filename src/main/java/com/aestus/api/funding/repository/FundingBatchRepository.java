@@ -0,0 +1,20 @@
+package com.aestus.api.funding.repository;
+
+import com.aestus.api.funding.model.Funding;
+
+import java.util.List;
+
+/**
+ * Batch operations on fundings that the {@code CrudRepository} cannot do efficiently. The funding
+ * ids are generated by the database, which disables the insert batching of Hibernate.
+ */
+public interface FundingBatchRepository {
+
+  /**
+   * Inserts fundings with a single batched statement.
+   *
+   * @param fundings the fundings, their {@code id} is set from the generated keys
+   * @return the fundings inserted, in the same order
+   */
+  List<Funding> insertAll(List<Funding> fundings);
+}
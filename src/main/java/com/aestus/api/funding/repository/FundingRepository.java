@@ -2,16 +2,20 @@ package com.aestus.api.funding.repository;
 
 import com.aestus.api.funding.model.Funding;
 
+import java.util.Collection;
+
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * The FundingRepository extends the {@code CrudRepository} for basic CRUD operations on a RDBMS via
- * Hibernate.
+ * Hibernate, and the {@code FundingBatchRepository} for batch inserts.
  */
-public interface FundingRepository extends CrudRepository<Funding, Integer> {
+public interface FundingRepository
+    extends CrudRepository<Funding, Integer>, FundingBatchRepository {
 
     @Modifying
     @Transactional
@@ -23,7 +27,46 @@ public interface FundingRepository extends CrudRepository<Funding, Integer> {
     @Query("UPDATE FROM Funding f SET f.disbursedAmount = :amount WHERE f.id = :id")
     void updateDisbursedAmount(Integer id, Long amount);
 
+    /**
+     * Disburses fundings by setting their disbursed amount to the repayment amount, in a single
+     * statement. Fundings already disbursed are left unchanged.
+     *
+     * @param ids the funding ids
+     * @return the number of fundings disbursed
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        "UPDATE FROM Funding f SET f.status = '"
+            + Funding.STATUS_FUNDS_DISBURSED
+            + "', f.disbursedAmount = f.repaymentAmount"
+            + " WHERE f.id IN :ids AND f.status <> '"
+            + Funding.STATUS_FUNDS_DISBURSED
+            + "'")
+    int disburse(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Marks fundings in the contract as disbursing with a ledger batch, in a single statement,
+     * before the batch is transferred. Fundings not in the contract are left unchanged.
+     *
+     * @param ids the funding ids
+     * @param batchId the id of the ledger batch
+     * @return the number of fundings marked
+     */
+    @Modifying
+    @Transactional
+    @Query(
+        "UPDATE FROM Funding f SET f.status = '"
+            + Funding.STATUS_FUNDS_DISBURSING
+            + "', f.disbursementBatchId = :batchId"
+            + " WHERE f.id IN :ids AND f.status = '"
+            + Funding.STATUS_FUNDS_IN_CONTRACT
+            + "'")
+    int markDisbursing(@Param("ids") Collection<Integer> ids, @Param("batchId") String batchId);
+
     Iterable<Funding> findByContractId(Integer contractId);
 
+    Iterable<Funding> findByContractIdIn(Collection<Integer> contractIds);
+
     Iterable<Funding> findByProfileId(Integer profileId);
 }
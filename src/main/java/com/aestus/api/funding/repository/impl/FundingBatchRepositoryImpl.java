@@ -0,0 +1,63 @@
+package com.aestus.api.funding.repository.impl;
+
+import com.aestus.api.funding.model.Funding;
+import com.aestus.api.funding.repository.FundingBatchRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The JDBC implementation of the funding batch operations. The rows are sent as one JDBC batch,
+ * which the MySQL driver rewrites into a multi-row insert with {@code rewriteBatchedStatements}.
+ */
+@AllArgsConstructor
+public class FundingBatchRepositoryImpl implements FundingBatchRepository {
+
+  private static final String INSERT =
+      "INSERT INTO fundings (contract_id, profile_id, status, funding_amount, repayment_amount,"
+          + " disbursed_amount, created_timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Transactional
+  public List<Funding> insertAll(List<Funding> fundings) {
+    if (fundings.isEmpty()) return fundings;
+
+    return jdbcTemplate.execute(
+        (ConnectionCallback<List<Funding>>)
+            connection -> {
+              try (PreparedStatement statement =
+                  connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+
+                for (Funding funding : fundings) {
+                  statement.setInt(1, funding.getContractId());
+                  statement.setInt(2, funding.getProfileId());
+                  statement.setString(3, funding.getStatus());
+                  statement.setLong(4, funding.getFundingAmount());
+                  statement.setLong(5, funding.getRepaymentAmount());
+                  statement.setLong(6, funding.getDisbursedAmount());
+                  statement.setObject(7, funding.getCreatedTimestamp());
+                  statement.addBatch();
+                }
+
+                statement.executeBatch();
+
+                // The generated keys are returned in the order of the rows
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                  for (int i = 0; i < fundings.size() && keys.next(); i++)
+                    fundings.get(i).setId(keys.getInt(1));
+                }
+              }
+
+              return fundings;
+            });
+  }
+}
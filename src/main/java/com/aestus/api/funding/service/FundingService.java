@@ -3,6 +3,7 @@ package com.aestus.api.funding.service;
 import com.aestus.api.common.exception.EntityNotFoundException;
 import com.aestus.api.funding.model.Funding;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -27,6 +28,14 @@ public interface FundingService {
    */
   Iterable<Funding> getFundingsByContractId(int contractId);
 
+  /**
+   * Gets fundings by a list of {@code contractIds}.
+   *
+   * @param contractIds the contract ids
+   * @return the fundings
+   */
+  Iterable<Funding> getFundingsByContractIds(Collection<Integer> contractIds);
+
   /**
    * Gets fundings by {@code contractId}.
    *
@@ -52,6 +61,14 @@ public interface FundingService {
    */
   Funding createFunding(Funding funding);
 
+  /**
+   * Creates fundings in a single batch insert.
+   *
+   * @param fundings the fundings
+   * @return the fundings with generated ids, in the same order
+   */
+  List<Funding> createFundings(List<Funding> fundings);
+
   /**
    * Updates the funding.
    *
@@ -80,13 +97,26 @@ public interface FundingService {
   void updateFundingDisbursedAmount(Integer id, Long amount) throws EntityNotFoundException;
 
   /**
-   * Disbursed a list of fundings
+   * Disburses a list of fundings with set-based updates, in one transaction.
    *
    * @param ids the list of funding ids to be disbursed
-   * @throws EntityNotFoundException the funding with {@code id} is not found
+   * @throws EntityNotFoundException a funding is not found or already disbursed, none of them is
+   *     disbursed then
    */
   void disburseFundings(List<Integer> ids) throws EntityNotFoundException;
 
+  /**
+   * Marks a list of fundings as disbursing with a ledger batch, with set-based updates, in one
+   * transaction. The mark is committed before the batch is transferred, so that a disbursement
+   * that stops in between knows which batch to check.
+   *
+   * @param ids the list of funding ids to be marked
+   * @param batchId the id of the ledger batch
+   * @throws EntityNotFoundException a funding is not found or not in the contract, none of them is
+   *     marked then
+   */
+  void markFundingsDisbursing(List<Integer> ids, String batchId) throws EntityNotFoundException;
+
   /**
    * Delete funding by id.
    *
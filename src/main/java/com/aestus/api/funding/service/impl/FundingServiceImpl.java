@@ -5,12 +5,21 @@ import com.aestus.api.funding.model.Funding;
 import com.aestus.api.funding.repository.FundingRepository;
 import com.aestus.api.funding.service.FundingService;
 
+import com.google.common.collect.Iterables;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import lombok.AllArgsConstructor;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.aestus.api.common.util.QueryUtils.MAX_IN_LIST_SIZE;
+import static com.aestus.api.common.util.QueryUtils.findAllInChunks;
 
 /**
  * The implementation of the Funding service. This implementation uses a {@code CrudRepository} for
@@ -30,6 +39,10 @@ public class FundingServiceImpl implements FundingService {
     return fundingRepository.findByContractId(contractId);
   }
 
+  public Iterable<Funding> getFundingsByContractIds(Collection<Integer> contractIds) {
+    return findAllInChunks(contractIds, fundingRepository::findByContractIdIn);
+  }
+
   public Iterable<Funding> getFundingsByProfileId(int profileId) {
     return fundingRepository.findByProfileId(profileId);
   }
@@ -47,6 +60,10 @@ public class FundingServiceImpl implements FundingService {
     return fundingRepository.save(funding);
   }
 
+  public List<Funding> createFundings(List<Funding> fundings) {
+    return fundingRepository.insertAll(fundings);
+  }
+
   public Funding updateFunding(Funding contract) throws EntityNotFoundException {
     getFundingById(contract.getId());
 
@@ -63,15 +80,25 @@ public class FundingServiceImpl implements FundingService {
     fundingRepository.updateDisbursedAmount(id, amount);
   }
 
+  @Transactional(rollbackFor = EntityNotFoundException.class)
   public void disburseFundings(List<Integer> ids) throws EntityNotFoundException {
 
-    for (Integer id : ids) {
+    Set<Integer> distinct = new LinkedHashSet<>(ids);
+
+    for (List<Integer> chunk : Iterables.partition(distinct, MAX_IN_LIST_SIZE))
+      if (fundingRepository.disburse(chunk) != chunk.size())
+        throw new EntityNotFoundException(Funding.class, chunk);
+  }
+
+  @Transactional(rollbackFor = EntityNotFoundException.class)
+  public void markFundingsDisbursing(List<Integer> ids, String batchId)
+      throws EntityNotFoundException {
 
-      Funding funding = getFundingById(id);
+    Set<Integer> distinct = new LinkedHashSet<>(ids);
 
-      updateFundingStatus(id, Funding.STATUS_FUNDS_DISBURSED);
-      updateFundingDisbursedAmount(id, funding.getRepaymentAmount());
-    }
+    for (List<Integer> chunk : Iterables.partition(distinct, MAX_IN_LIST_SIZE))
+      if (fundingRepository.markDisbursing(chunk, batchId) != chunk.size())
+        throw new EntityNotFoundException(Funding.class, chunk);
   }
 
   public void deleteFundingById(int id) throws EntityNotFoundException {
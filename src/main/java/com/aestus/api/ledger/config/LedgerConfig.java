@@ -0,0 +1,78 @@
+package com.aestus.api.ledger.config;
+
+import com.aestus.api.ledger.journal.LedgerJournal;
+import com.aestus.api.ledger.model.Ledger;
+import com.aestus.api.ledger.recorder.TransactionRecorder;
+import com.aestus.api.transaction.gateway.TransactionGateway;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+/**
+ * The ledger configuration, the ledger is recovered from its journal on startup. The transaction
+ * recorder is closed before the journal it reads.
+ */
+@Configuration
+public class LedgerConfig {
+
+  @Value("${com.aestus.ledger.journal.dir}")
+  private final String journalDir = null;
+
+  @Value("${com.aestus.ledger.journal.segment-size}")
+  private final Integer segmentSize = 0;
+
+  @Value("${com.aestus.ledger.journal.flush-interval-ms}")
+  private final Long flushIntervalMs = 0L;
+
+  @Value("${com.aestus.ledger.batch-retention-ms}")
+  private final Long batchRetentionMs = 0L;
+
+  @Value("${com.aestus.gateway.mode:local}")
+  private final String gatewayMode = null;
+
+  @Value("${com.aestus.ledger.recorder.batch-size}")
+  private final Integer recorderBatchSize = 0;
+
+  @Value("${com.aestus.ledger.recorder.capacity}")
+  private final Long recorderCapacity = 0L;
+
+  @Value("${com.aestus.ledger.recorder.timeout-ms}")
+  private final Long recorderTimeoutMs = 0L;
+
+  @Value("${com.aestus.ledger.recorder.retry-delay-ms}")
+  private final Long recorderRetryDelayMs = 0L;
+
+  @Value("${com.aestus.ledger.recorder.poll-interval-ms}")
+  private final Long recorderPollIntervalMs = 0L;
+
+  @Bean(destroyMethod = "close")
+  public LedgerJournal ledgerJournal() throws IOException {
+    return LedgerJournal.open(Paths.get(journalDir), segmentSize, flushIntervalMs);
+  }
+
+  @Bean
+  public Ledger ledger(LedgerJournal ledgerJournal) throws IOException {
+    return Ledger.recover(ledgerJournal, batchRetentionMs);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "close")
+  @DependsOn("ledger")
+  public TransactionRecorder transactionRecorder(
+      LedgerJournal ledgerJournal, TransactionGateway transactionGateway) {
+    return new TransactionRecorder(
+        ledgerJournal,
+        transactionGateway,
+        Paths.get(journalDir, "recorded.lsn"),
+        "local".equals(gatewayMode),
+        recorderBatchSize,
+        recorderCapacity,
+        recorderTimeoutMs,
+        recorderRetryDelayMs,
+        recorderPollIntervalMs);
+  }
+}
@@ -1,16 +1,13 @@
 package com.aestus.api.ledger.controller;
 
+import com.aestus.api.common.model.AestusPrincipal;
 import com.aestus.api.common.model.ResponseMessage;
-import com.aestus.api.ledger.exception.CreateTransactionException;
 import com.aestus.api.ledger.exception.LedgerException;
-import com.aestus.api.ledger.model.Ledger;
-import com.aestus.api.profile.model.UserProfile;
-import com.aestus.api.profile.model.swagger.ResponseMessageWithUserProfile;
+import com.aestus.api.ledger.model.TransferLeg;
+import com.aestus.api.ledger.service.LedgerService;
 
 import com.aestus.api.transaction.model.Transaction;
-import com.aestus.api.transaction.model.swagger.ResponseMessageWithTransaction;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.aestus.api.transaction.model.swagger.ResponseMessageWithTransactions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -20,19 +17,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
 
-import static com.aestus.api.common.controller.CommonController.getHttpHeaders;
+import java.util.List;
 
 /** Provides the ledger controller functionality. */
 @Slf4j
@@ -41,19 +37,10 @@ import static com.aestus.api.common.controller.CommonController.getHttpHeaders;
 @Validated
 public class LedgerController {
 
-  @Autowired RestTemplate restTemplate;
-  @Autowired ObjectMapper objectMapper;
+  /** The maximum number of legs of a batch transfer, a batch is journaled as a single record. */
+  private static final int MAX_TRANSFER_LEGS = 10000;
 
-  @Value("${com.aestus.base.url}")
-  private final String urlBase = null;
-
-  @Value("${com.aestus.profile.get.token.url}")
-  private final String urlProfileGetByToken = null;
-
-  @Value("${com.aestus.transaction.create.url}")
-  private final String urlTransactionCreate = null;
-
-  protected Ledger ledger = new Ledger();
+  @Autowired private LedgerService ledgerService;
 
   /**
    * Pinging the controller.
@@ -127,7 +114,7 @@ public class LedgerController {
   public ResponseEntity<ResponseMessage> getBalance(
       @PathVariable String walletId, HttpServletRequest httpRequest) {
 
-    Long balance = this.ledger.getBalance(walletId);
+    Long balance = ledgerService.getBalance(walletId);
 
     ResponseMessage msg =
         new ResponseMessage(HttpStatus.OK.value(), balance, httpRequest.getRequestURI());
@@ -135,31 +122,10 @@ public class LedgerController {
     return ResponseEntity.ok(msg);
   }
 
-  /**
-   * Retrieves the user profile associated with the jwt token
-   *
-   * @param request the http request
-   * @return the response message with the user profile
-   */
-  protected UserProfile getUserProfile(HttpServletRequest request) throws LedgerException {
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(request));
-
-    // Retrieve user profile from the jwt token
-    ResponseEntity<ResponseMessageWithUserProfile> response =
-        restTemplate.exchange(
-            urlBase + urlProfileGetByToken,
-            HttpMethod.GET,
-            entity,
-            ResponseMessageWithUserProfile.class);
-
-    if (response.getBody().isOk()) return response.getBody().getData();
-    else throw new LedgerException(response.getBody().getMessage());
-  }
-
   /**
    * Get balance of an account using the jwt.
    *
+   * @param principal the principal of the jwt
    * @param httpRequest the http request
    * @return the balance if available, if not, the NOT FOUND HTTP status
    */
@@ -191,12 +157,10 @@ public class LedgerController {
                                     + "}"))),
         @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
       })
-  public ResponseEntity<ResponseMessage> getBalance(HttpServletRequest httpRequest)
-      throws LedgerException {
-
-    UserProfile profile = getUserProfile(httpRequest);
+  public ResponseEntity<ResponseMessage> getBalance(
+      AestusPrincipal principal, HttpServletRequest httpRequest) {
 
-    Long balance = this.ledger.getBalance(profile.getWalletId());
+    Long balance = ledgerService.getBalance(principal.getWalletId());
 
     ResponseMessage msg =
         new ResponseMessage(HttpStatus.OK.value(), balance, httpRequest.getRequestURI());
@@ -204,33 +168,6 @@ public class LedgerController {
     return ResponseEntity.ok(msg);
   }
 
-  /**
-   * Creates a transaction entry
-   *
-   * @param transaction the transaction entry
-   * @param request the http request
-   * @return the response message with the created transaction
-   */
-  protected void createTransaction(Transaction transaction, HttpServletRequest request)
-      throws CreateTransactionException, JsonProcessingException {
-
-    String jsonTransaction = objectMapper.writeValueAsString(transaction);
-
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(jsonTransaction, getHttpHeaders(request));
-
-    ResponseMessageWithTransaction msg =
-        restTemplate
-            .exchange(
-                urlBase + urlTransactionCreate,
-                HttpMethod.POST,
-                entity,
-                ResponseMessageWithTransaction.class)
-            .getBody();
-
-    if (!msg.isOk()) throw new CreateTransactionException(msg.getMessage());
-  }
-
   /**
    * Transfer an {@code amount} of tokens between 2 accounts.
    *
@@ -299,20 +236,14 @@ public class LedgerController {
       @RequestParam(required = true) String toWalletId,
       @RequestParam(required = true) Long amount,
       HttpServletRequest httpRequest)
-      throws LedgerException, JsonProcessingException {
+      throws LedgerException {
 
     String uri = httpRequest.getRequestURI();
 
-    this.ledger.transfer(fromWalletId, toWalletId, amount);
-
-    long balanceFrom = this.ledger.getBalance(fromWalletId);
-    long balanceTo = this.ledger.getBalance(toWalletId);
+    Transaction transaction = ledgerService.transfer(fromWalletId, toWalletId, amount);
 
-    // Creates a transaction record
-    Transaction transaction =
-        new Transaction("T", fromWalletId, amount * -1, balanceFrom, toWalletId, amount, balanceTo);
-
-    createTransaction(transaction, httpRequest);
+    long balanceFrom = transaction.getSenderBalance();
+    long balanceTo = transaction.getReceiverBalance();
 
     String reason = "After transfer, from wallet balance=%d, to wallet balance=%d";
 
@@ -323,6 +254,110 @@ public class LedgerController {
     return ResponseEntity.ok(msg);
   }
 
+  /**
+   * Transfers a batch of amounts, all or nothing. Every leg is validated before any is applied, and
+   * the transactions are written behind from the ledger journal. A batch with an id is applied
+   * once, sending it again transfers nothing.
+   *
+   * <p>A caller transfers from its own wallet only, every leg must be sent from it. Only an
+   * administrator transfers from other wallets, e.g. those of the contracts.
+   *
+   * @param batchId the id of the batch, optional
+   * @param legs the transfers, applied in order
+   * @param httpRequest the http request
+   * @return the {@code ResponseMessage} containing the transactions submitted, one per leg
+   */
+  @PostMapping(value = "/transfers", consumes = "application/json", produces = "application/json")
+  @PreAuthorize(
+      "hasAuthority('A') or ((hasAuthority('U') or hasAuthority('S') or hasAuthority('I'))"
+          + " and principal.walletId != null"
+          + " and #legs.?[fromWalletId != #root.principal.walletId].isEmpty())")
+  @Operation(
+      summary = "Transfer tokens for a batch of legs, all or nothing",
+      tags = {"Ledger"},
+      requestBody =
+          @io.swagger.v3.oas.annotations.parameters.RequestBody(
+              required = true,
+              description = "Requires a json array of transfer legs, applied in order",
+              content =
+                  @Content(
+                      examples =
+                          @ExampleObject(
+                              externalValue =
+                                  "http://localhost:8080/swagger/ledger/ledger-transfers-req.json",
+                              value =
+                                  "[\n"
+                                      + "  {\n"
+                                      + "    \"fromWalletId\": \"4zFraRa6gbst1RKjua9qT2VwEHEwH1Eqm3WJcKYuH5se\",\n"
+                                      + "    \"toWalletId\": \"GAyCywe7wYQ49XA92BrDBVvj2CMKeEGMmGjseQR3yFua\",\n"
+                                      + "    \"amount\": 10000\n"
+                                      + "  },\n"
+                                      + "  {\n"
+                                      + "    \"fromWalletId\": \"4zFraRa6gbst1RKjua9qT2VwEHEwH1Eqm3WJcKYuH5se\",\n"
+                                      + "    \"toWalletId\": \"qJJZvUgCRtJMNHqq91EcoStYw8NhWyszrtWRVLhVmw4\",\n"
+                                      + "    \"amount\": 20000\n"
+                                      + "  }\n"
+                                      + "]"))),
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Returns the transactions submitted, one per leg, in the <code>data</code> field",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ResponseMessageWithTransactions.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description =
+                "No leg is transferred, a leg has an invalid amount, wallet address or balance",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = ResponseMessage.class),
+                  examples =
+                      @ExampleObject(
+                          externalValue =
+                              "http://localhost:8080/swagger/ledger/ledger-transfers-400.json",
+                          value =
+                              "{\n"
+                                  + "  \"timestamp\": \"2022-07-08T18:17:35.199669\",\n"
+                                  + "  \"status\": 400,\n"
+                                  + "  \"message\": \"InvalidBalanceException: Invalid balance @ wallet address GAyCywe7wYQ49XA92BrDBVvj2CMKeEGMmGjseQR3yFua\",\n"
+                                  + "  \"data\": null,\n"
+                                  + "  \"path\": \"/api/v1/ledger/transfers\",\n"
+                                  + "  \"ok\": false\n"
+                                  + "}"))
+            }),
+        @ApiResponse(
+            responseCode = "403",
+            description =
+                "Unauthorized request, or a leg sent from a wallet other than the caller's",
+            content = @Content),
+      })
+  public ResponseEntity<ResponseMessage> transfers(
+      @RequestParam(required = false) String batchId,
+      @RequestBody
+          @NotEmpty(message = "legs must not be empty")
+          @Size(max = MAX_TRANSFER_LEGS, message = "legs must not contain more than 10000 legs")
+          List<@Valid TransferLeg> legs,
+      HttpServletRequest httpRequest)
+      throws LedgerException {
+
+    String uri = httpRequest.getRequestURI();
+
+    List<Transaction> transactions = ledgerService.transfer(batchId, legs);
+
+    String reason = "Transferred %d legs";
+
+    ResponseMessage msg =
+        new ResponseMessage(
+            HttpStatus.OK.value(), String.format(reason, transactions.size()), transactions, uri);
+
+    return ResponseEntity.ok(msg);
+  }
+
   /**
    * Gets the ledger entries.
    *
@@ -353,7 +388,7 @@ public class LedgerController {
 
     ResponseMessage msg =
         new ResponseMessage(
-            HttpStatus.OK.value(), this.ledger.getEntries(), httpRequest.getRequestURI());
+            HttpStatus.OK.value(), ledgerService.getEntries(), httpRequest.getRequestURI());
 
     return ResponseEntity.ok(msg);
   }
@@ -0,0 +1,30 @@
+package com.aestus.api.ledger.gateway;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.ledger.model.TransferLeg;
+
+import java.util.List;
+
+/** Provides access to the ledger module from the other modules. */
+public interface LedgerGateway {
+
+  /**
+   * Transfers an {@code amount} of tokens between 2 accounts.
+   *
+   * @param fromWalletId the from wallet address
+   * @param toWalletId the to wallet address
+   * @param amount the amount of tokens to be transferred
+   * @throws GatewayException if the transfer fails
+   */
+  void transfer(String fromWalletId, String toWalletId, long amount) throws GatewayException;
+
+  /**
+   * Transfers a batch of amounts once, all or nothing. A batch whose id was applied already is not
+   * applied again, so that a batch that may have been applied can be sent again.
+   *
+   * @param batchId the id of the batch, {@code null} if none
+   * @param legs the transfers, applied in order
+   * @throws GatewayException if a transfer fails, nothing is transferred then
+   */
+  void transfer(String batchId, List<TransferLeg> legs) throws GatewayException;
+}
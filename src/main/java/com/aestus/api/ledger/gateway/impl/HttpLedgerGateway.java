@@ -0,0 +1,46 @@
+package com.aestus.api.ledger.gateway.impl;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.common.gateway.HttpGateway;
+import com.aestus.api.common.model.ResponseMessage;
+import com.aestus.api.ledger.gateway.LedgerGateway;
+import com.aestus.api.ledger.model.TransferLeg;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+/** The http implementation of the ledger gateway, for split deployments. */
+@Component
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "http")
+public class HttpLedgerGateway extends HttpGateway implements LedgerGateway {
+
+  @Value("${com.aestus.ledger.transfer.url}")
+  private final String urlLedgerTransfer = null;
+
+  @Value("${com.aestus.ledger.transfers.url}")
+  private final String urlLedgerTransfers = null;
+
+  @Value("${com.aestus.ledger.transfers.batch.url}")
+  private final String urlLedgerTransfersBatch = null;
+
+  public void transfer(String fromWalletId, String toWalletId, long amount)
+      throws GatewayException {
+    exchange(
+        String.format(urlLedgerTransfer, fromWalletId, toWalletId, amount),
+        HttpMethod.POST,
+        null,
+        ResponseMessage.class);
+  }
+
+  public void transfer(String batchId, List<TransferLeg> legs) throws GatewayException {
+    exchange(
+        batchId == null ? urlLedgerTransfers : String.format(urlLedgerTransfersBatch, batchId),
+        HttpMethod.POST,
+        legs,
+        ResponseMessage.class);
+  }
+}
@@ -0,0 +1,40 @@
+package com.aestus.api.ledger.gateway.impl;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.ledger.exception.LedgerException;
+import com.aestus.api.ledger.gateway.LedgerGateway;
+import com.aestus.api.ledger.model.TransferLeg;
+import com.aestus.api.ledger.service.LedgerService;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** The in-process implementation of the ledger gateway, calls the ledger service directly. */
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "local", matchIfMissing = true)
+public class LocalLedgerGateway implements LedgerGateway {
+
+  private final LedgerService ledgerService;
+
+  public void transfer(String fromWalletId, String toWalletId, long amount)
+      throws GatewayException {
+    try {
+      ledgerService.transfer(fromWalletId, toWalletId, amount);
+    } catch (LedgerException ex) {
+      throw new GatewayException(ex);
+    }
+  }
+
+  public void transfer(String batchId, List<TransferLeg> legs) throws GatewayException {
+    try {
+      ledgerService.transfer(batchId, legs);
+    } catch (LedgerException ex) {
+      throw new GatewayException(ex);
+    }
+  }
+}
@@ -0,0 +1,847 @@
+package com.aestus.api.ledger.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An append-only journal of the ledger operations, with periodic snapshots of the balances.
+ *
+ * <p>The records are appended to memory-mapped segment files named after the sequence number
+ * (lsn) of their first record, so appending costs a memory copy. A background thread forces the
+ * current segment to disk at most every {@code flushIntervalMs} and advances the durable lsn, all
+ * the records appended in the meantime share the same fsync (group commit). Callers that need
+ * durability wait on {@link #awaitDurable(long)}.
+ *
+ * <p>The lsns start over at 1 in a new directory, so each journal has an id of its own, a random
+ * UUID written in the directory before the first segment. A record is identified across journals
+ * by the id and its lsn, e.g. by the transaction records derived from it.
+ *
+ * <p>A snapshot holds the balances as of an lsn, the segments it covers are deleted once it is
+ * written, except those holding records after the retained lsn, which {@link #read(long, int)} may
+ * still be asked for. On startup {@link #replay(Visitor)} loads the latest snapshot and replays
+ * only the records after it, so the recovery time depends on the snapshot interval, not on the
+ * history.
+ *
+ * <p>Record layout: {@code length:int crc:int type:byte lsn:long timestamp:long batchId:utf
+ * count:int (amount:long fromBalance:long toBalance:long from:utf to:utf)*}, the crc covers the
+ * bytes after it. Each leg holds the balances right after it, so that a record describes the
+ * transfer on its own. A batch of transfers is a single record, so a batch is replayed entirely or
+ * not at all; the id of a batch, empty if none, lets the caller apply it once. A zero length, a bad
+ * crc or a gap in the lsn marks the end of a segment, so a record torn by a crash is discarded.
+ */
+@Slf4j
+public class LedgerJournal implements Closeable {
+
+  /** The record type of an account opening, its leg opens the sender with the amount. */
+  public static final byte OPEN = 1;
+
+  /** The record type of a transfer, of one leg. */
+  public static final byte TRANSFER = 2;
+
+  /** The record type of a batch of transfers, of one leg per transfer. */
+  public static final byte TRANSFERS = 3;
+
+  private static final int RECORD_HEADER = Integer.BYTES * 2;
+  private static final int SNAPSHOT_MAGIC = 0x4c444753;
+  private static final String SEGMENT_PREFIX = "journal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String SNAPSHOT_SUFFIX = ".bin";
+  private static final String ID_FILE = "journal.id";
+
+  /** Receives the state recovered from the journal. */
+  public interface Visitor {
+
+    /**
+     * Called for each account of the latest snapshot, before any record.
+     *
+     * @param walletId the wallet id of the account
+     * @param balance the balance of the account
+     */
+    void account(String walletId, long balance);
+
+    /**
+     * Called for each record after the snapshot, in lsn order.
+     *
+     * @param record the record
+     * @throws IOException if the record does not apply to the state recovered so far
+     */
+    void record(Record record) throws IOException;
+
+    /**
+     * Called for each batch id of the latest snapshot, before any record.
+     *
+     * @param batchId the id of the batch
+     * @param lsn the lsn of the record of the batch
+     * @param timestamp the time of the record of the batch, in epoch milliseconds
+     */
+    void batch(String batchId, long lsn, long timestamp);
+  }
+
+  /** A record of the journal. */
+  @Value
+  public static class Record {
+
+    /** The record type. */
+    byte type;
+
+    /** The sequence number of the record. */
+    long lsn;
+
+    /** The time the record was appended, in epoch milliseconds. */
+    long timestamp;
+
+    /** The id of the batch of transfers, {@code null} if none. */
+    String batchId;
+
+    /** The legs, one for an opening or a transfer, one per transfer for a batch. */
+    List<Leg> legs;
+  }
+
+  /** A leg of a record, the change of the balance of one or 2 accounts. */
+  @Value
+  public static class Leg {
+
+    /** The wallet id of the sender, or of the account opened. */
+    String fromWalletId;
+
+    /** The wallet id of the receiver, {@code null} for an opening. */
+    String toWalletId;
+
+    /** The amount transferred, or the opening balance. */
+    long amount;
+
+    /** The balance of the sender, or of the account opened, right after the leg. */
+    long fromBalance;
+
+    /** The balance of the receiver right after the leg, 0 for an opening. */
+    long toBalance;
+  }
+
+  /** Receives the accounts written to a snapshot. */
+  public interface SnapshotWriter {
+
+    /**
+     * Writes an account.
+     *
+     * @param walletId the wallet id of the account
+     * @param balance the balance of the account
+     * @throws IOException if the account cannot be written
+     */
+    void account(String walletId, long balance) throws IOException;
+  }
+
+  /** Provides the accounts and the batch ids of a snapshot. */
+  public interface SnapshotSource {
+
+    /**
+     * Writes every account to a snapshot.
+     *
+     * @param writer the snapshot writer
+     * @throws IOException if an account cannot be written
+     */
+    void writeTo(SnapshotWriter writer) throws IOException;
+
+    /**
+     * Gets the batches applied so far whose ids must still be known after a restart.
+     *
+     * @return the records of the batches, without their legs
+     */
+    List<Record> getBatches();
+  }
+
+  private final Path dir;
+  private final int segmentSize;
+  private final long flushIntervalMs;
+
+  /** The id of the journal, read or created on open. */
+  private String id;
+
+  private final ReentrantLock appendLock = new ReentrantLock();
+  private final Object durability = new Object();
+
+  private volatile MappedByteBuffer segment;
+
+  private volatile long appendedLsn;
+  private long durableLsn;
+  private volatile boolean closed;
+
+  private Thread flusher;
+
+  /** The segment {@link #read(long, int)} reads from, guarded by itself. */
+  private final Reader reader = new Reader();
+
+  private LedgerJournal(Path dir, int segmentSize, long flushIntervalMs) {
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+    this.flushIntervalMs = flushIntervalMs;
+  }
+
+  /**
+   * Opens the journal in a directory, the directory and the id of the journal are created if
+   * needed. Call {@link #replay(Visitor)} before appending.
+   *
+   * @param dir the directory of the segments and snapshots
+   * @param segmentSize the size of a segment file in bytes
+   * @param flushIntervalMs the maximum delay between 2 fsyncs
+   * @return the journal
+   * @throws IOException if the directory or the id cannot be created
+   */
+  public static LedgerJournal open(Path dir, int segmentSize, long flushIntervalMs)
+      throws IOException {
+
+    Files.createDirectories(dir);
+
+    LedgerJournal journal = new LedgerJournal(dir, segmentSize, flushIntervalMs);
+
+    journal.id = journal.readId();
+
+    return journal;
+  }
+
+  /**
+   * Gets the id of the journal, the lsns of its records are unique within it only.
+   *
+   * @return the id
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Replays the latest snapshot and the records after it, then opens the journal for appending.
+   *
+   * @param visitor the visitor receiving the recovered state
+   * @return {@code true} if any state was recovered, {@code false} if the journal is empty
+   * @throws IOException if the journal cannot be read
+   */
+  public boolean replay(Visitor visitor) throws IOException {
+
+    long lsn = 0;
+    boolean recovered = false;
+
+    for (Path path : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX, true)) {
+      // Checked before reading, so that a corrupted snapshot does not leak accounts
+      if (isValidSnapshot(path)) {
+        lsn = readSnapshot(path, visitor);
+        recovered = true;
+        break;
+      }
+
+      log.warn("Ignoring corrupted ledger snapshot {}", path);
+    }
+
+    long snapshotLsn = lsn;
+    int records = 0;
+    MappedByteBuffer last = null;
+    long lastLsn = 0;
+
+    for (Path path : list(SEGMENT_PREFIX, SEGMENT_SUFFIX, false)) {
+      long firstLsn = parseLsn(path, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+
+      if (firstLsn > lsn + 1)
+        throw new IOException(
+            String.format("Ledger journal gap before %s, expected lsn %d", path, lsn + 1));
+
+      MappedByteBuffer buffer = map(path);
+      long expected = firstLsn;
+
+      // The records of a segment have consecutive lsns, anything else is a torn or stale record
+      while (buffer.remaining() > RECORD_HEADER) {
+        int start = buffer.position();
+        Record record = readRecord(buffer);
+
+        if (record == null || record.getLsn() != expected) {
+          buffer.position(start);
+          break;
+        }
+
+        // Records up to the snapshot lsn are already reflected in the snapshot
+        if (record.getLsn() == lsn + 1) {
+          visitor.record(record);
+
+          lsn = record.getLsn();
+          records++;
+        }
+
+        expected++;
+      }
+
+      last = buffer;
+      lastLsn = expected - 1;
+    }
+
+    log.info(
+        "Ledger recovered up to lsn {}, snapshot lsn {}, {} records replayed",
+        lsn,
+        snapshotLsn,
+        records);
+
+    appendedLsn = lsn;
+    durableLsn = lsn;
+
+    // Resume appending after the last valid record, clearing what a crash left after it
+    if (last != null && lastLsn == lsn) {
+      int position = last.position();
+      byte[] zeros = new byte[64 * 1024];
+
+      while (last.hasRemaining()) last.put(zeros, 0, Math.min(zeros.length, last.remaining()));
+
+      last.force();
+      last.position(position);
+      segment = last;
+    } else newSegment(lsn + 1);
+
+    flusher = new Thread(this::flushLoop, "ledger-journal-flusher");
+    flusher.setDaemon(true);
+    flusher.start();
+
+    return recovered || records > 0;
+  }
+
+  /**
+   * Appends a record. The caller orders the appends of records that do not commute, e.g. by
+   * holding the locks of the wallets involved.
+   *
+   * @param type the record type
+   * @param timestamp the time of the record, in epoch milliseconds
+   * @param legs the legs of the record
+   * @return the lsn of the record
+   */
+  public long append(byte type, long timestamp, List<Leg> legs) {
+    return append(type, timestamp, null, legs);
+  }
+
+  /**
+   * Appends a record of a batch. The caller orders the appends of records that do not commute, e.g.
+   * by holding the locks of the wallets involved.
+   *
+   * @param type the record type
+   * @param timestamp the time of the record, in epoch milliseconds
+   * @param batchId the id of the batch, {@code null} if none
+   * @param legs the legs of the record
+   * @return the lsn of the record
+   */
+  public long append(byte type, long timestamp, String batchId, List<Leg> legs) {
+
+    byte[] batch = batchId == null ? new byte[0] : batchId.getBytes(StandardCharsets.UTF_8);
+    byte[][] from = new byte[legs.size()][];
+    byte[][] to = new byte[legs.size()][];
+    int length = 1 + Long.BYTES * 2 + Short.BYTES + batch.length + Integer.BYTES;
+
+    for (int i = 0; i < legs.size(); i++) {
+      Leg leg = legs.get(i);
+
+      from[i] = leg.getFromWalletId().getBytes(StandardCharsets.UTF_8);
+      to[i] =
+          leg.getToWalletId() == null
+              ? new byte[0]
+              : leg.getToWalletId().getBytes(StandardCharsets.UTF_8);
+      length += Long.BYTES * 3 + Short.BYTES * 2 + from[i].length + to[i].length;
+    }
+
+    return append(
+        type,
+        length,
+        buffer -> {
+          buffer.putLong(timestamp);
+          buffer.putShort((short) batch.length).put(batch);
+          buffer.putInt(legs.size());
+
+          for (int i = 0; i < legs.size(); i++) {
+            Leg leg = legs.get(i);
+
+            buffer.putLong(leg.getAmount());
+            buffer.putLong(leg.getFromBalance()).putLong(leg.getToBalance());
+            buffer.putShort((short) from[i].length).put(from[i]);
+            buffer.putShort((short) to[i].length).put(to[i]);
+          }
+        });
+  }
+
+  /** Appends a record of {@code length} bytes, the body is written after the type and the lsn. */
+  private long append(byte type, int length, Consumer<ByteBuffer> body) {
+
+    if (RECORD_HEADER + length > segmentSize)
+      throw new IllegalArgumentException(
+          String.format("Ledger journal record of %d bytes exceeds the segment size", length));
+
+    appendLock.lock();
+    try {
+      if (closed) throw new IllegalStateException("Ledger journal is closed");
+
+      long lsn = appendedLsn + 1;
+
+      if (segment.remaining() < RECORD_HEADER + length) {
+        segment.force();
+        newSegment(lsn);
+      }
+
+      MappedByteBuffer buffer = segment;
+      int start = buffer.position();
+
+      buffer.position(start + RECORD_HEADER);
+      buffer.put(type).putLong(lsn);
+      body.accept(buffer);
+
+      CRC32 crc = new CRC32();
+      crc.update(buffer.duplicate().position(start + RECORD_HEADER).limit(buffer.position()));
+
+      buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+      buffer.putInt(start, length);
+
+      appendedLsn = lsn;
+
+      return lsn;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the lsn of the last record appended.
+   *
+   * @return the lsn
+   */
+  public long getLastLsn() {
+    return appendedLsn;
+  }
+
+  /**
+   * Reads the records forced to disk after an lsn, in lsn order. Consecutive reads continue where
+   * the previous one stopped, the segments are read through a mapping of their own.
+   *
+   * @param afterLsn the lsn of the last record read
+   * @param maxRecords the maximum number of records read
+   * @return the records, empty if none was forced after {@code afterLsn}; the first one is after
+   *     {@code afterLsn + 1} if the records in between are no longer retained
+   * @throws IOException if the journal cannot be read
+   */
+  public List<Record> read(long afterLsn, int maxRecords) throws IOException {
+    long until;
+
+    synchronized (durability) {
+      until = durableLsn;
+    }
+
+    List<Record> records = new ArrayList<>();
+
+    synchronized (reader) {
+      if (afterLsn >= until) return records;
+
+      if (reader.buffer == null || reader.nextLsn != afterLsn + 1) seek(afterLsn + 1);
+
+      while (records.size() < maxRecords && reader.buffer != null && reader.nextLsn <= until) {
+        int start = reader.buffer.position();
+        Record record =
+            reader.buffer.remaining() > RECORD_HEADER ? readRecord(reader.buffer) : null;
+
+        if (record != null && record.getLsn() == reader.nextLsn) {
+          records.add(record);
+          reader.nextLsn++;
+          continue;
+        }
+
+        // The end of a segment, the next one starts with the next lsn
+        Path next = segmentPath(reader.nextLsn);
+
+        reader.buffer.position(start);
+
+        if (!Files.exists(next))
+          throw new IOException(
+              String.format("Ledger journal segment missing for lsn %d", reader.nextLsn));
+
+        reader.buffer = mapReadOnly(next);
+      }
+    }
+
+    return records;
+  }
+
+  /**
+   * Waits until a record is forced to disk.
+   *
+   * @param lsn the lsn of the record
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public void awaitDurable(long lsn) throws InterruptedException {
+    synchronized (durability) {
+      while (durableLsn < lsn) {
+        if (closed) throw new IllegalStateException("Ledger journal is closed");
+
+        durability.wait();
+      }
+    }
+  }
+
+  /**
+   * Writes a snapshot of the balances, then deletes the older snapshots and the segments it
+   * covers. The accounts are streamed to the file, the snapshot layout is {@code magic:int
+   * lsn:long (walletId:utf balance:long)* end:short count:int batches:int (batchId:utf lsn:long
+   * timestamp:long)* crc:int}.
+   *
+   * @param source the accounts
+   * @param lsn the lsn of the last record reflected in the balances
+   * @param retainedLsn the lsn after which the records must stay readable, the segments holding
+   *     them are kept even if the snapshot covers them
+   * @throws IOException if the snapshot cannot be written
+   * @throws InterruptedException if the thread is interrupted while waiting for the records up to
+   *     {@code lsn} to be forced
+   */
+  public void writeSnapshot(SnapshotSource source, long lsn, long retainedLsn)
+      throws IOException, InterruptedException {
+
+    // The journal must not end before the snapshot, or the next records would not chain
+    awaitDurable(lsn);
+
+    Path path = dir.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, lsn, SNAPSHOT_SUFFIX));
+    Path tmp = dir.resolve(path.getFileName() + ".tmp");
+
+    int[] count = new int[1];
+
+    try (FileOutputStream file = new FileOutputStream(tmp.toFile())) {
+      BufferedOutputStream buffered = new BufferedOutputStream(file, 1 << 16);
+      CheckedOutputStream checked = new CheckedOutputStream(buffered, new CRC32());
+      DataOutputStream out = new DataOutputStream(checked);
+
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeLong(lsn);
+
+      source.writeTo(
+          (walletId, balance) -> {
+            out.writeUTF(walletId);
+            out.writeLong(balance);
+            count[0]++;
+          });
+
+      out.writeShort(-1);
+      out.writeInt(count[0]);
+
+      List<Record> batches = source.getBatches();
+
+      out.writeInt(batches.size());
+
+      for (Record batch : batches) {
+        out.writeUTF(batch.getBatchId());
+        out.writeLong(batch.getLsn());
+        out.writeLong(batch.getTimestamp());
+      }
+
+      out.flush();
+
+      // The crc itself is written past the checksummed stream
+      new DataOutputStream(buffered).writeInt((int) checked.getChecksum().getValue());
+      buffered.flush();
+      file.getChannel().force(true);
+    }
+
+    Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+    syncDir();
+
+    // Older snapshots and the segments whose records are all covered are no longer needed
+    for (Path old : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX, false))
+      if (parseLsn(old, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < lsn) Files.deleteIfExists(old);
+
+    List<Path> segments = list(SEGMENT_PREFIX, SEGMENT_SUFFIX, false);
+    long deletableLsn = Math.min(lsn, retainedLsn);
+
+    for (int i = 0; i + 1 < segments.size(); i++)
+      if (parseLsn(segments.get(i + 1), SEGMENT_PREFIX, SEGMENT_SUFFIX) <= deletableLsn + 1)
+        Files.deleteIfExists(segments.get(i));
+
+    log.info("Ledger snapshot written at lsn {}, {} accounts", lsn, count[0]);
+  }
+
+  /** Forces the pending records to disk and stops the flusher. */
+  public void close() {
+    appendLock.lock();
+    try {
+      closed = true;
+      if (segment != null) segment.force();
+    } finally {
+      appendLock.unlock();
+    }
+
+    if (flusher != null) flusher.interrupt();
+
+    synchronized (durability) {
+      durableLsn = appendedLsn;
+      durability.notifyAll();
+    }
+  }
+
+  private void flushLoop() {
+    while (!closed) {
+      try {
+        Thread.sleep(flushIntervalMs);
+      } catch (InterruptedException ex) {
+        return;
+      }
+
+      long lsn = appendedLsn;
+
+      synchronized (durability) {
+        if (lsn == durableLsn) continue;
+      }
+
+      // Records up to lsn are in the current segment, or in a previous one forced on rollover
+      segment.force();
+
+      synchronized (durability) {
+        durableLsn = lsn;
+        durability.notifyAll();
+      }
+    }
+  }
+
+  private void newSegment(long firstLsn) throws IOException {
+    Path path = segmentPath(firstLsn);
+
+    try (FileChannel channel =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    syncDir();
+  }
+
+  private Path segmentPath(long firstLsn) {
+    return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+  }
+
+  private MappedByteBuffer map(Path path) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+  }
+
+  private static ByteBuffer mapReadOnly(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  /** Positions the reader right before the record {@code lsn}, or the first record retained. */
+  private void seek(long lsn) throws IOException {
+    List<Path> segments = list(SEGMENT_PREFIX, SEGMENT_SUFFIX, false);
+
+    reader.buffer = null;
+
+    if (segments.isEmpty()) return;
+
+    Path path = segments.get(0);
+
+    for (Path segment : segments)
+      if (parseLsn(segment, SEGMENT_PREFIX, SEGMENT_SUFFIX) <= lsn) path = segment;
+
+    ByteBuffer buffer = mapReadOnly(path);
+    long next = parseLsn(path, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+
+    while (next < lsn && buffer.remaining() > RECORD_HEADER) {
+      int start = buffer.position();
+      Record record = readRecord(buffer);
+
+      if (record == null) {
+        buffer.position(start);
+        break;
+      }
+
+      next = record.getLsn() + 1;
+    }
+
+    reader.buffer = buffer;
+    reader.nextLsn = next;
+  }
+
+  private static Record readRecord(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    int crc = buffer.getInt();
+
+    if (length <= 0 || length > buffer.remaining()) return null;
+
+    CRC32 actual = new CRC32();
+    actual.update(buffer.duplicate().limit(buffer.position() + length));
+
+    if ((int) actual.getValue() != crc) return null;
+
+    byte type = buffer.get();
+    long lsn = buffer.getLong();
+    long timestamp = buffer.getLong();
+    String batchId = readString(buffer);
+    int count = buffer.getInt();
+    List<Leg> legs = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      long amount = buffer.getLong();
+      long fromBalance = buffer.getLong();
+      long toBalance = buffer.getLong();
+      String from = readString(buffer);
+      String to = readString(buffer);
+
+      legs.add(new Leg(from, to.isEmpty() ? null : to, amount, fromBalance, toBalance));
+    }
+
+    return new Record(type, lsn, timestamp, batchId.isEmpty() ? null : batchId, legs);
+  }
+
+  private static boolean isValidSnapshot(Path path) throws IOException {
+    long size = Files.size(path);
+
+    if (size < Integer.BYTES * 4 + Long.BYTES + Short.BYTES) return false;
+
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+      CheckedInputStream checked = new CheckedInputStream(in, new CRC32());
+      byte[] bytes = new byte[1 << 16];
+
+      for (long remaining = size - Integer.BYTES; remaining > 0; ) {
+        int read = checked.read(bytes, 0, (int) Math.min(bytes.length, remaining));
+
+        if (read < 0) return false;
+
+        remaining -= read;
+      }
+
+      return (int) checked.getChecksum().getValue() == new DataInputStream(in).readInt();
+    }
+  }
+
+  private static long readSnapshot(Path path, Visitor visitor) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+
+      if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("Not a ledger snapshot: " + path);
+
+      long lsn = in.readLong();
+
+      // Each account starts with the length of its wallet id, the end marker is negative
+      for (in.mark(Short.BYTES); in.readShort() >= 0; in.mark(Short.BYTES)) {
+        in.reset();
+        visitor.account(in.readUTF(), in.readLong());
+      }
+
+      // The count of the accounts, then the batch ids
+      in.readInt();
+
+      for (int batches = in.readInt(); batches > 0; batches--)
+        visitor.batch(in.readUTF(), in.readLong(), in.readLong());
+
+      return lsn;
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getShort()];
+
+    buffer.get(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private List<Path> list(String prefix, String suffix, boolean newestFirst) throws IOException {
+    try (Stream<Path> paths = Files.list(dir)) {
+      List<Path> list =
+          paths
+              .filter(
+                  path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(prefix) && name.endsWith(suffix);
+                  })
+              .sorted()
+              .collect(Collectors.toCollection(ArrayList::new));
+
+      if (newestFirst) Collections.reverse(list);
+
+      return list;
+    }
+  }
+
+  private static long parseLsn(Path path, String prefix, String suffix) {
+    String name = path.getFileName().toString();
+
+    return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+  }
+
+  /** Reads the id of the journal, or creates it for a new journal. */
+  private String readId() throws IOException {
+    Path path = dir.resolve(ID_FILE);
+
+    if (Files.exists(path))
+      return new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+
+    // A journal written before the ids were, its records are identified by the new id from now on
+    if (!list(SEGMENT_PREFIX, SEGMENT_SUFFIX, false).isEmpty())
+      log.warn("Ledger journal {} has no id, a new one is created", dir);
+
+    String id = UUID.randomUUID().toString();
+    Path tmp = dir.resolve(ID_FILE + ".tmp");
+
+    try (FileChannel channel =
+        FileChannel.open(
+            tmp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(id.getBytes(StandardCharsets.UTF_8)));
+      channel.force(true);
+    }
+
+    Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+    syncDir();
+
+    log.info("Ledger journal {} created with id {}", dir, id);
+
+    return id;
+  }
+
+  private void syncDir() {
+    try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException ex) {
+      // Not supported on every platform, the rename is still atomic
+      log.debug("Cannot sync ledger journal directory {}", dir, ex);
+    }
+  }
+
+  /** The position of {@link #read(long, int)} in the segments. */
+  private static class Reader {
+
+    /** The segment being read, {@code null} before the first read. */
+    ByteBuffer buffer;
+
+    /** The lsn of the next record of the segment. */
+    long nextLsn;
+  }
+}
@@ -3,54 +3,560 @@ package com.aestus.api.ledger.model;
 import com.aestus.api.ledger.exception.LedgerException;
 import com.aestus.api.ledger.exception.InvalidAmountException;
 import com.aestus.api.ledger.exception.InvalidBalanceException;
+import com.aestus.api.ledger.journal.LedgerJournal;
 
-import java.util.HashMap;
+import com.google.common.util.concurrent.Striped;
 
-import lombok.Data;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
 
-@Data
+/**
+ * An in-memory ledger of balances keyed by wallet id, safe for concurrent use. Wallet ids are
+ * interned to dense indices by a {@link WalletIndex} and the balances are kept unboxed in chunks of
+ * {@code long}, indexed the same way, so that millions of wallets cost tens of bytes each.
+ *
+ * <p>Each wallet is guarded by one of a fixed number of striped locks. A transfer locks the stripes
+ * of both wallets in stripe order so that concurrent transfers cannot deadlock, and transfers
+ * between disjoint wallets mostly run in parallel. Balances are read without locking, snapshots of
+ * all entries lock every stripe to return a consistent view.
+ *
+ * <p>When backed by a {@link LedgerJournal}, every change is appended to the journal while the
+ * locks of the wallets are held, so the journal order is consistent with the balances. A record
+ * holds the time of the change and the balances right after it, the transaction records of the
+ * transfers are derived from it.
+ *
+ * <p>A batch may be given an id, so that a caller that does not know whether a batch was applied
+ * can send it again: the ids of the batches applied are journaled with them, kept for the batch
+ * retention and written to the snapshots, and a batch whose id is known is not applied twice.
+ */
 public class Ledger {
 
-  HashMap<String, Long> entries = new HashMap<>();
+  /** The default number of lock stripes. */
+  public static final int DEFAULT_STRIPES = 1024;
+
+  /** The default time the ids of the batches applied are kept for, a week. */
+  public static final long DEFAULT_BATCH_RETENTION_MS = 7 * 24 * 3600 * 1000L;
+
+  /** The balance of an index interned but not opened yet. */
+  private static final long NONE = Long.MIN_VALUE;
+
+  private final WalletIndex wallets = new WalletIndex();
+
+  /** The balances by index, each chunk holds {@code WalletIndex.CHUNK_SIZE} balances. */
+  private volatile AtomicLongArray[] balances = new AtomicLongArray[0];
+
+  private final Striped<Lock> locks;
+
+  private final LedgerJournal journal;
 
+  /** The time the ids of the batches applied are kept for, in milliseconds. */
+  private final long batchRetentionMs;
+
+  /** The records of the batches applied by id, without their legs. */
+  private final Map<String, LedgerJournal.Record> batches = new ConcurrentHashMap<>();
+
+  /** Serializes the batches with an id, so that a batch id is checked and applied at once. */
+  private final Object batchLock = new Object();
+
+  /** Creates an in-memory ledger with the initial accounts. */
   public Ledger() {
+    this(DEFAULT_STRIPES, null, DEFAULT_BATCH_RETENTION_MS);
+
     init();
   }
 
+  private Ledger(int stripes, LedgerJournal journal, long batchRetentionMs) {
+    this.locks = Striped.lock(stripes);
+    this.journal = journal;
+    this.batchRetentionMs = batchRetentionMs;
+  }
+
+  /**
+   * Creates a ledger backed by a journal, the balances are recovered from the journal. A new
+   * journal is initialized with the initial accounts.
+   *
+   * @param journal the journal
+   * @param batchRetentionMs the time the ids of the batches applied are kept for
+   * @return the ledger
+   * @throws IOException if the journal cannot be read
+   */
+  public static Ledger recover(LedgerJournal journal, long batchRetentionMs) throws IOException {
+    Ledger ledger = new Ledger(DEFAULT_STRIPES, journal, batchRetentionMs);
+
+    boolean recovered =
+        journal.replay(
+            new LedgerJournal.Visitor() {
+              public void account(String walletId, long balance) {
+                ledger.set(ledger.intern(walletId), balance);
+              }
+
+              public void batch(String batchId, long lsn, long timestamp) {
+                ledger.batches.put(
+                    batchId,
+                    new LedgerJournal.Record(
+                        LedgerJournal.TRANSFERS, lsn, timestamp, batchId, List.of()));
+              }
+
+              public void record(LedgerJournal.Record record) throws IOException {
+                if (record.getBatchId() != null)
+                  batch(record.getBatchId(), record.getLsn(), record.getTimestamp());
+
+                for (LedgerJournal.Leg leg : record.getLegs()) {
+                  if (record.getType() == LedgerJournal.OPEN) {
+                    account(leg.getFromWalletId(), leg.getAmount());
+                    continue;
+                  }
+
+                  int from = ledger.indexOf(record, leg.getFromWalletId());
+                  int to = ledger.indexOf(record, leg.getToWalletId());
+
+                  ledger.set(from, ledger.get(from) - leg.getAmount());
+                  ledger.set(to, ledger.get(to) + leg.getAmount());
+                }
+              }
+            });
+
+    if (!recovered) ledger.init();
+
+    return ledger;
+  }
+
   private void init() {
-    this.entries = new HashMap<>();
+    open("4zFraRa6gbst1RKjua9qT2VwEHEwH1Eqm3WJcKYuH5se", 1000000000L);
+    open("SXLRdrywXBntChoDLPjEF1KDQH95eu5EvkA4Uge1hjU", 1000000000L);
+    open("5tjN3DGqz5eYjNPipT2Vv9U2gRgqdjo62DE1QjxbC5DK", 1000000000L);
+    open("6FVgAaLL8avbKAVWLB64sZJ3j8zJToiuNZFbvpHBrzFc", 1000000000L);
+    open("qJJZvUgCRtJMNHqq91EcoStYw8NhWyszrtWRVLhVmw4", 1000000000L);
+    open("CbgZoPiQnnASxoYnerEAumW67EJrVkcHcCNeLCQbdBNA", 1000000000L);
+    open("GAyCywe7wYQ49XA92BrDBVvj2CMKeEGMmGjseQR3yFua", 0L);
+  }
+
+  /**
+   * Opens an account, or resets the balance of an existing one.
+   *
+   * @param walletId the wallet id of the account
+   * @param balance the initial balance
+   * @return the lsn of the journal record, 0 if the ledger is not journaled
+   */
+  public long open(String walletId, long balance) {
+    int index = intern(walletId);
+    Lock lock = stripe(index);
+
+    lock.lock();
+    try {
+      long lsn =
+          journal == null
+              ? 0
+              : journal.append(
+                  LedgerJournal.OPEN,
+                  System.currentTimeMillis(),
+                  List.of(new LedgerJournal.Leg(walletId, null, balance, balance, 0)));
+
+      set(index, balance);
 
-    this.entries.put("4zFraRa6gbst1RKjua9qT2VwEHEwH1Eqm3WJcKYuH5se", 1000000000L);
-    this.entries.put("SXLRdrywXBntChoDLPjEF1KDQH95eu5EvkA4Uge1hjU", 1000000000L);
-    this.entries.put("5tjN3DGqz5eYjNPipT2Vv9U2gRgqdjo62DE1QjxbC5DK", 1000000000L);
-    this.entries.put("6FVgAaLL8avbKAVWLB64sZJ3j8zJToiuNZFbvpHBrzFc", 1000000000L);
-    this.entries.put("qJJZvUgCRtJMNHqq91EcoStYw8NhWyszrtWRVLhVmw4", 1000000000L);
-    this.entries.put("CbgZoPiQnnASxoYnerEAumW67EJrVkcHcCNeLCQbdBNA", 1000000000L);
-    this.entries.put("GAyCywe7wYQ49XA92BrDBVvj2CMKeEGMmGjseQR3yFua", 0L);
+      return lsn;
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public void transfer(String fromWalletId, String toWalletId, long amount) throws LedgerException {
+  /**
+   * Transfers an {@code amount} between 2 accounts. Both legs are applied atomically with respect
+   * to other transfers and snapshots.
+   *
+   * @param fromWalletId the wallet id of the sender
+   * @param toWalletId the wallet id of the receiver
+   * @param amount the amount to transfer
+   * @return the transfer, with the balances of both accounts right after it was applied
+   * @throws LedgerException if the amount is not positive or an account does not exist
+   */
+  public Transfer transfer(String fromWalletId, String toWalletId, long amount)
+      throws LedgerException {
 
     if (amount <= 0) throw new InvalidAmountException(amount);
 
-    Long fromBalance = this.entries.get(fromWalletId);
-    Long toBalance = this.entries.get(toWalletId);
+    int from = wallets.indexOf(fromWalletId);
+    int to = wallets.indexOf(toWalletId);
+
+    if (from < 0) throw new InvalidBalanceException(fromWalletId);
+    if (to < 0) throw new InvalidBalanceException(toWalletId);
+
+    // Locking in stripe order gives a global lock order
+    List<Lock> acquired = lock(from, to);
+
+    try {
+      if (get(from) == NONE) throw new InvalidBalanceException(fromWalletId);
+      if (get(to) == NONE) throw new InvalidBalanceException(toWalletId);
+
+      // A transfer to the same wallet nets to zero
+      long fromBalance = from == to ? get(from) : get(from) - amount;
+      long toBalance = from == to ? get(to) : get(to) + amount;
+      long timestamp = System.currentTimeMillis();
 
-    if (fromBalance == null) throw new InvalidBalanceException(fromWalletId);
-    if (toBalance == null) throw new InvalidBalanceException(toWalletId);
+      long lsn =
+          journal == null
+              ? 0
+              : journal.append(
+                  LedgerJournal.TRANSFER,
+                  timestamp,
+                  List.of(
+                      new LedgerJournal.Leg(
+                          fromWalletId, toWalletId, amount, fromBalance, toBalance)));
 
-    fromBalance -= amount;
-    toBalance += amount;
+      set(from, fromBalance);
+      set(to, toBalance);
 
-    this.entries.put(fromWalletId, fromBalance);
-    this.entries.put(toWalletId, toBalance);
+      return new Transfer(
+          fromWalletId, toWalletId, amount, fromBalance, toBalance, lsn, 0, toTimestamp(timestamp));
+    } finally {
+      unlock(acquired);
+    }
+  }
+
+  /**
+   * Transfers a batch of amounts, all or nothing. The locks of every wallet involved are held for
+   * the whole batch, the legs are validated in order against a copy of the balances and applied
+   * only if none of them is invalid or overdraws its sender. The batch is journaled as one record.
+   *
+   * @param legs the transfers, applied in order
+   * @return the transfers, with the balances of both accounts right after each of them
+   * @throws LedgerException if an amount is not positive, an account does not exist or does not
+   *     have the balance for a leg, nothing is transferred then
+   */
+  public List<Transfer> transfer(List<TransferLeg> legs) throws LedgerException {
+    return transfer(null, legs);
+  }
+
+  /**
+   * Transfers a batch of amounts once, all or nothing. A batch whose id was applied already, within
+   * the batch retention, is not applied again, so that a batch can be sent again until it is known
+   * to be applied.
+   *
+   * @param batchId the id of the batch, {@code null} if none
+   * @param legs the transfers, applied in order
+   * @return the transfers, with the balances of both accounts right after each of them, empty if
+   *     the batch was applied already
+   * @throws LedgerException if an amount is not positive, an account does not exist or does not
+   *     have the balance for a leg, nothing is transferred then
+   */
+  public List<Transfer> transfer(String batchId, List<TransferLeg> legs) throws LedgerException {
+    if (batchId == null) return apply(null, legs);
+
+    synchronized (batchLock) {
+      if (batches.containsKey(batchId)) return new ArrayList<>();
+
+      return apply(batchId, legs);
+    }
+  }
+
+  private List<Transfer> apply(String batchId, List<TransferLeg> legs) throws LedgerException {
+
+    if (legs.isEmpty()) return new ArrayList<>();
+
+    int[] indices = new int[legs.size() * 2];
+
+    for (int i = 0; i < legs.size(); i++) {
+      TransferLeg leg = legs.get(i);
+
+      if (leg.getAmount() <= 0) throw new InvalidAmountException(leg.getAmount());
+
+      indices[i * 2] = wallets.indexOf(leg.getFromWalletId());
+      indices[i * 2 + 1] = wallets.indexOf(leg.getToWalletId());
+
+      if (indices[i * 2] < 0) throw new InvalidBalanceException(leg.getFromWalletId());
+      if (indices[i * 2 + 1] < 0) throw new InvalidBalanceException(leg.getToWalletId());
+    }
+
+    List<Lock> acquired = lock(indices);
+
+    try {
+      // The legs are applied to a copy, the ledger is only changed once all of them are valid
+      Map<Integer, Long> after = new HashMap<>();
+      List<Transfer> transfers = new ArrayList<>(legs.size());
+      long timestamp = System.currentTimeMillis();
+
+      for (int i = 0; i < legs.size(); i++) {
+        TransferLeg leg = legs.get(i);
+        long fromBalance = after.computeIfAbsent(indices[i * 2], this::get);
+        long toBalance = after.computeIfAbsent(indices[i * 2 + 1], this::get);
+
+        if (fromBalance == NONE || fromBalance < leg.getAmount())
+          throw new InvalidBalanceException(leg.getFromWalletId());
+        if (toBalance == NONE) throw new InvalidBalanceException(leg.getToWalletId());
+
+        after.put(indices[i * 2], fromBalance - leg.getAmount());
+        after.put(indices[i * 2 + 1], after.get(indices[i * 2 + 1]) + leg.getAmount());
+
+        transfers.add(
+            new Transfer(
+                leg.getFromWalletId(),
+                leg.getToWalletId(),
+                leg.getAmount(),
+                after.get(indices[i * 2]),
+                after.get(indices[i * 2 + 1]),
+                0,
+                i,
+                toTimestamp(timestamp)));
+      }
+
+      long lsn = journal == null ? 0 : appendTransfers(timestamp, batchId, transfers);
+
+      after.forEach(this::set);
+      transfers.forEach(transfer -> transfer.setLsn(lsn));
+
+      if (batchId != null)
+        batches.put(
+            batchId,
+            new LedgerJournal.Record(
+                LedgerJournal.TRANSFERS, lsn, timestamp, batchId, List.of()));
+
+      return transfers;
+    } finally {
+      unlock(acquired);
+    }
+  }
+
+  /**
+   * Waits until the journal record of a change is forced to disk, records are forced in groups.
+   *
+   * @param lsn the lsn returned by the change
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public void awaitDurable(long lsn) throws InterruptedException {
+    if (journal != null && lsn > 0) journal.awaitDurable(lsn);
+  }
+
+  /**
+   * Writes a snapshot of the balances and of the batch ids to the journal, so that a restart only
+   * replays the changes made after it. Only the balances are copied while the ledger is locked, the
+   * wallet ids are encoded while writing. The batch ids past the retention are forgotten.
+   *
+   * @param retainedLsn the lsn after which the journal records must stay readable
+   * @throws IOException if the snapshot cannot be written
+   * @throws InterruptedException if the thread is interrupted while writing the snapshot
+   */
+  public void checkpoint(long retainedLsn) throws IOException, InterruptedException {
+    long expired = System.currentTimeMillis() - batchRetentionMs;
+
+    batches.values().removeIf(batch -> batch.getTimestamp() < expired);
+
+    if (journal == null) return;
+
+    long lsn;
+    long[][] copy;
+    List<LedgerJournal.Record> applied;
+    List<Lock> acquired = lockAll();
+
+    try {
+      copy = copyBalances();
+      applied = new ArrayList<>(batches.values());
+      lsn = journal.getLastLsn();
+    } finally {
+      unlock(acquired);
+    }
+
+    journal.writeSnapshot(
+        new LedgerJournal.SnapshotSource() {
+          public void writeTo(LedgerJournal.SnapshotWriter writer) throws IOException {
+            for (int index = 0; index < copy.length * WalletIndex.CHUNK_SIZE; index++) {
+              long balance = copy[index / WalletIndex.CHUNK_SIZE][index % WalletIndex.CHUNK_SIZE];
+
+              if (balance != NONE) writer.account(wallets.walletIdOf(index), balance);
+            }
+          }
+
+          public List<LedgerJournal.Record> getBatches() {
+            return applied;
+          }
+        },
+        lsn,
+        retainedLsn);
   }
 
   public Long getBalance(String walletId) {
-    return this.entries.get(walletId);
+    int index = wallets.indexOf(walletId);
+
+    if (index < 0) return null;
+
+    long balance = get(index);
+
+    return balance == NONE ? null : balance;
   }
 
+  /**
+   * Gets a consistent snapshot of all entries, no transfer is applied while the snapshot is taken.
+   *
+   * @return a copy of the balances keyed by wallet id
+   */
   public HashMap<String, Long> getEntries() {
-    return this.entries;
+    long[][] copy;
+    List<Lock> acquired = lockAll();
+
+    try {
+      copy = copyBalances();
+    } finally {
+      unlock(acquired);
+    }
+
+    HashMap<String, Long> entries = new HashMap<>();
+
+    for (int index = 0; index < copy.length * WalletIndex.CHUNK_SIZE; index++) {
+      long balance = copy[index / WalletIndex.CHUNK_SIZE][index % WalletIndex.CHUNK_SIZE];
+
+      if (balance != NONE) entries.put(wallets.walletIdOf(index), balance);
+    }
+
+    return entries;
+  }
+
+  /**
+   * Gets the number of accounts, including those being opened.
+   *
+   * @return the number of accounts
+   */
+  public int size() {
+    return wallets.size();
+  }
+
+  private long appendTransfers(long timestamp, String batchId, List<Transfer> transfers) {
+    List<LedgerJournal.Leg> legs = new ArrayList<>(transfers.size());
+
+    for (Transfer transfer : transfers)
+      legs.add(
+          new LedgerJournal.Leg(
+              transfer.getFromWalletId(),
+              transfer.getToWalletId(),
+              transfer.getAmount(),
+              transfer.getFromBalance(),
+              transfer.getToBalance()));
+
+    return journal.append(LedgerJournal.TRANSFERS, timestamp, batchId, legs);
+  }
+
+  /**
+   * Converts the timestamp of a journal record to the time of its transfers.
+   *
+   * @param timestamp the timestamp, in epoch milliseconds
+   * @return the time, in the default time zone
+   */
+  public static LocalDateTime toTimestamp(long timestamp) {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+  }
+
+  /** Gets the index of a wallet of a record being replayed, it must have been opened before. */
+  private int indexOf(LedgerJournal.Record record, String walletId) throws IOException {
+    int index = wallets.indexOf(walletId);
+
+    if (index < 0 || get(index) == NONE)
+      throw new IOException(
+          String.format(
+              "Ledger journal record %d transfers with wallet %s, which is not opened",
+              record.getLsn(), walletId));
+
+    return index;
+  }
+
+  /** Interns a wallet id and makes room for its balance. */
+  private int intern(String walletId) {
+    int index = wallets.intern(walletId);
+
+    if (index / WalletIndex.CHUNK_SIZE >= balances.length) grow(index);
+
+    return index;
+  }
+
+  private synchronized void grow(int index) {
+    AtomicLongArray[] chunks = balances;
+
+    if (index / WalletIndex.CHUNK_SIZE < chunks.length) return;
+
+    AtomicLongArray[] grown = Arrays.copyOf(chunks, index / WalletIndex.CHUNK_SIZE + 1);
+
+    for (int i = chunks.length; i < grown.length; i++) {
+      long[] chunk = new long[WalletIndex.CHUNK_SIZE];
+
+      Arrays.fill(chunk, NONE);
+      grown[i] = new AtomicLongArray(chunk);
+    }
+
+    balances = grown;
+  }
+
+  private long get(int index) {
+    AtomicLongArray[] chunks = balances;
+
+    // An index is visible as soon as it is interned, possibly before its chunk
+    if (index / WalletIndex.CHUNK_SIZE >= chunks.length) return NONE;
+
+    return chunks[index / WalletIndex.CHUNK_SIZE].get(index % WalletIndex.CHUNK_SIZE);
+  }
+
+  private void set(int index, long balance) {
+    balances[index / WalletIndex.CHUNK_SIZE].set(index % WalletIndex.CHUNK_SIZE, balance);
+  }
+
+  private long[][] copyBalances() {
+    AtomicLongArray[] chunks = balances;
+    long[][] copy = new long[chunks.length][];
+
+    for (int i = 0; i < chunks.length; i++) {
+      copy[i] = new long[WalletIndex.CHUNK_SIZE];
+
+      for (int j = 0; j < WalletIndex.CHUNK_SIZE; j++) copy[i][j] = chunks[i].get(j);
+    }
+
+    return copy;
+  }
+
+  private Lock stripe(int index) {
+    return locks.getAt(index % locks.size());
+  }
+
+  private List<Lock> lock(int... indices) {
+    int[] stripes = new int[indices.length];
+
+    for (int i = 0; i < indices.length; i++) stripes[i] = indices[i] % locks.size();
+
+    Arrays.sort(stripes);
+
+    List<Lock> acquired = new ArrayList<>();
+
+    for (int i = 0; i < stripes.length; i++) {
+      if (i > 0 && stripes[i] == stripes[i - 1]) continue;
+
+      Lock lock = locks.getAt(stripes[i]);
+
+      lock.lock();
+      acquired.add(lock);
+    }
+
+    return acquired;
+  }
+
+  private List<Lock> lockAll() {
+    List<Lock> acquired = new ArrayList<>();
+
+    for (int i = 0; i < locks.size(); i++) {
+      Lock lock = locks.getAt(i);
+
+      lock.lock();
+      acquired.add(lock);
+    }
+
+    return acquired;
+  }
+
+  private static void unlock(List<Lock> acquired) {
+    for (int i = acquired.size() - 1; i >= 0; i--) acquired.get(i).unlock();
   }
 }
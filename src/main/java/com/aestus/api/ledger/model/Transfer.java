@@ -0,0 +1,36 @@
+package com.aestus.api.ledger.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** A transfer applied to the ledger, with the balances of both accounts right after it. */
+@Data
+@AllArgsConstructor
+public class Transfer {
+
+  /** The wallet id of the sender. */
+  private String fromWalletId;
+
+  /** The wallet id of the receiver. */
+  private String toWalletId;
+
+  /** The amount transferred. */
+  private long amount;
+
+  /** The balance of the sender after the transfer. */
+  private long fromBalance;
+
+  /** The balance of the receiver after the transfer. */
+  private long toBalance;
+
+  /** The sequence number of the transfer in the ledger journal, 0 if not journaled. */
+  private long lsn;
+
+  /** The index of the transfer in its journal record. */
+  private int leg;
+
+  /** The time of the journal record. */
+  private LocalDateTime timestamp;
+}
@@ -0,0 +1,26 @@
+package com.aestus.api.ledger.model;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A transfer requested as part of a batch, see {@link Ledger#transfer(java.util.List)}. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferLeg {
+
+  @NotBlank(message = "fromWalletId must not be blank")
+  private String fromWalletId;
+
+  @NotBlank(message = "toWalletId must not be blank")
+  private String toWalletId;
+
+  @NotNull(message = "amount must not be Null")
+  @Min(value = 1, message = "amount must be > 0")
+  private Long amount;
+}
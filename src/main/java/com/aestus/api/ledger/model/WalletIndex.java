@@ -0,0 +1,187 @@
+package com.aestus.api.ledger.model;
+
+import com.aestus.api.common.util.Base58Utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Interns wallet ids to dense int indices, {@code 0} to {@code size() - 1}. A wallet address is
+ * decoded from base58 to its 32-byte key, stored as 4 longs in chunks that grow without copying,
+ * and found through an open-addressing table of indices. Ids that are not 32-byte base58 keys are
+ * kept in a map, they are not expected outside of tests.
+ *
+ * <p>Lookups do not lock: a key is written before its index is published in the table, and a
+ * resized table is published only once it holds every index. Interning is synchronized.
+ */
+public class WalletIndex {
+
+  /** The number of indices per chunk, a power of 2. */
+  static final int CHUNK_SIZE = 1 << 16;
+
+  private static final int KEY_BYTES = 32;
+  private static final int KEY_LONGS = KEY_BYTES / Long.BYTES;
+
+  /** The table of {@code index + 1} by hash, 0 marks an empty slot. */
+  private volatile AtomicIntegerArray table = new AtomicIntegerArray(CHUNK_SIZE);
+
+  /** The keys by index, each chunk holds {@code CHUNK_SIZE} keys. */
+  private volatile long[][] keys = new long[0][];
+
+  private final Map<String, Integer> otherIds = new ConcurrentHashMap<>();
+  private final Map<Integer, String> otherIndices = new ConcurrentHashMap<>();
+
+  private volatile int size;
+
+  /**
+   * Gets the index of a wallet id.
+   *
+   * @param walletId the wallet id
+   * @return the index, {@code -1} if the wallet id is not interned
+   */
+  public int indexOf(String walletId) {
+    byte[] key = Base58Utils.decode(walletId, KEY_BYTES);
+
+    if (key == null) return otherIds.getOrDefault(walletId, -1);
+
+    ByteBuffer buffer = ByteBuffer.wrap(key);
+
+    return find(table, buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+  }
+
+  /**
+   * Interns a wallet id, chunks are added as needed.
+   *
+   * @param walletId the wallet id
+   * @return the index of the wallet id, new or existing
+   */
+  public synchronized int intern(String walletId) {
+    byte[] key = Base58Utils.decode(walletId, KEY_BYTES);
+
+    if (key == null) {
+      Integer index = otherIds.get(walletId);
+
+      if (index != null) return index;
+
+      index = nextIndex(0, 0, 0, 0);
+      otherIndices.put(index, walletId);
+      otherIds.put(walletId, index);
+
+      return index;
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(key);
+    long k0 = buffer.getLong(), k1 = buffer.getLong(), k2 = buffer.getLong(), k3 = buffer.getLong();
+
+    int index = find(table, k0, k1, k2, k3);
+
+    if (index >= 0) return index;
+
+    index = nextIndex(k0, k1, k2, k3);
+    place(table, index, k0, k1, k2, k3);
+
+    return index;
+  }
+
+  /**
+   * Gets the wallet id of an index.
+   *
+   * @param index the index
+   * @return the wallet id
+   */
+  public String walletIdOf(int index) {
+    String walletId = otherIndices.get(index);
+
+    if (walletId != null) return walletId;
+
+    long[] chunk = keys[index / CHUNK_SIZE];
+    int offset = (index % CHUNK_SIZE) * KEY_LONGS;
+    ByteBuffer buffer = ByteBuffer.allocate(KEY_BYTES);
+
+    for (int i = 0; i < KEY_LONGS; i++) buffer.putLong(chunk[offset + i]);
+
+    return Base58Utils.encode(buffer.array());
+  }
+
+  /**
+   * Gets the number of wallet ids interned.
+   *
+   * @return the number of wallet ids
+   */
+  public int size() {
+    return size;
+  }
+
+  /** Stores the key of a new index, growing the chunks and the table as needed. */
+  private int nextIndex(long k0, long k1, long k2, long k3) {
+    int index = size;
+
+    if (index / CHUNK_SIZE == keys.length) {
+      long[][] grown = Arrays.copyOf(keys, keys.length + 1);
+
+      grown[keys.length] = new long[CHUNK_SIZE * KEY_LONGS];
+      keys = grown;
+    }
+
+    long[] chunk = keys[index / CHUNK_SIZE];
+    int offset = (index % CHUNK_SIZE) * KEY_LONGS;
+
+    chunk[offset] = k0;
+    chunk[offset + 1] = k1;
+    chunk[offset + 2] = k2;
+    chunk[offset + 3] = k3;
+
+    // Keep the load factor under 1/2, the old table stays valid until the new one is complete
+    if ((index + 1) * 2 > table.length()) {
+      AtomicIntegerArray resized = new AtomicIntegerArray(table.length() * 2);
+
+      for (int i = 0; i < index; i++)
+        if (!otherIndices.containsKey(i))
+          place(resized, i, key(i, 0), key(i, 1), key(i, 2), key(i, 3));
+
+      table = resized;
+    }
+
+    size = index + 1;
+
+    return index;
+  }
+
+  private int find(AtomicIntegerArray table, long k0, long k1, long k2, long k3) {
+    int mask = table.length() - 1;
+
+    for (int slot = hash(k0, k1, k2, k3) & mask; ; slot = (slot + 1) & mask) {
+      int entry = table.get(slot);
+
+      if (entry == 0) return -1;
+
+      int index = entry - 1;
+
+      if (key(index, 0) == k0 && key(index, 1) == k1 && key(index, 2) == k2 && key(index, 3) == k3)
+        return index;
+    }
+  }
+
+  private static void place(
+      AtomicIntegerArray table, int index, long k0, long k1, long k2, long k3) {
+    int mask = table.length() - 1;
+    int slot = hash(k0, k1, k2, k3) & mask;
+
+    while (table.get(slot) != 0) slot = (slot + 1) & mask;
+
+    table.set(slot, index + 1);
+  }
+
+  private long key(int index, int i) {
+    return keys[index / CHUNK_SIZE][(index % CHUNK_SIZE) * KEY_LONGS + i];
+  }
+
+  private static int hash(long k0, long k1, long k2, long k3) {
+    long h = k0 * 0x9E3779B97F4A7C15L ^ k1 ^ k2 * 31 ^ k3;
+
+    return (int) (h ^ (h >>> 32));
+  }
+}
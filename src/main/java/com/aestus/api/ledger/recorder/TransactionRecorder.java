@@ -0,0 +1,311 @@
+package com.aestus.api.ledger.recorder;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.ledger.exception.CreateTransactionException;
+import com.aestus.api.ledger.journal.LedgerJournal;
+import com.aestus.api.ledger.model.Ledger;
+import com.aestus.api.ledger.model.Transfer;
+import com.aestus.api.transaction.gateway.TransactionGateway;
+import com.aestus.api.transaction.model.Transaction;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the transaction records of the ledger transfers behind, from the ledger journal. A
+ * transfer is durable once its journal record is forced, the transaction records are derived from
+ * the journal records in lsn order and created in batches, and the lsn of the last record created
+ * is saved in the journal directory. Nothing is ever dropped: a batch that cannot be created is
+ * retried from the journal, after a crash too, and the transaction module skips the records it
+ * already holds, by journal id and lsn, so that a retried batch is created once.
+ *
+ * <p>In local mode a background thread follows the journal. In http mode the transaction module is
+ * called with the headers of the current request, so the records are created by the thread of the
+ * transfer, which also catches up with the records a failed call left behind.
+ *
+ * <p>The records not created yet are bounded: {@link #awaitCapacity()} blocks a transfer before it
+ * is applied while more than {@code capacity} records are behind, and fails it after a timeout.
+ */
+@Slf4j
+public class TransactionRecorder implements Closeable {
+
+  private final LedgerJournal journal;
+  private final TransactionGateway transactionGateway;
+  private final Path lsnPath;
+  private final boolean background;
+  private final int batchSize;
+  private final long capacity;
+  private final long timeoutMs;
+  private final long retryDelayMs;
+  private final long pollIntervalMs;
+
+  /** Guards the recorded lsn, notified when it moves. */
+  private final Object progress = new Object();
+
+  /** The lsn of the last journal record created, guarded by {@link #progress}. */
+  private long recordedLsn;
+
+  private volatile boolean closed;
+
+  private Thread recorder;
+
+  /**
+   * Creates a recorder, call {@link #start()} before recording.
+   *
+   * @param journal the ledger journal the transfers are read from
+   * @param transactionGateway the gateway the transaction records are created with
+   * @param lsnPath the file the lsn of the last record created is saved in
+   * @param background true to create the records from a background thread
+   * @param batchSize the maximum number of journal records per batch
+   * @param capacity the maximum number of journal records behind before transfers wait
+   * @param timeoutMs the maximum time a transfer waits for the records behind
+   * @param retryDelayMs the time waited before a failed batch is retried
+   * @param pollIntervalMs the time the background thread waits for new records
+   */
+  public TransactionRecorder(
+      LedgerJournal journal,
+      TransactionGateway transactionGateway,
+      Path lsnPath,
+      boolean background,
+      int batchSize,
+      long capacity,
+      long timeoutMs,
+      long retryDelayMs,
+      long pollIntervalMs) {
+    this.journal = journal;
+    this.transactionGateway = transactionGateway;
+    this.lsnPath = lsnPath;
+    this.background = background;
+    this.batchSize = batchSize;
+    this.capacity = capacity;
+    this.timeoutMs = timeoutMs;
+    this.retryDelayMs = retryDelayMs;
+    this.pollIntervalMs = pollIntervalMs;
+  }
+
+  /**
+   * Reads the lsn of the last record created, and starts the background thread in local mode.
+   *
+   * @throws IOException if the lsn cannot be read
+   */
+  public void start() throws IOException {
+    long lsn =
+        Files.exists(lsnPath)
+            ? Long.parseLong(new String(Files.readAllBytes(lsnPath), StandardCharsets.UTF_8).trim())
+            : 0;
+
+    synchronized (progress) {
+      recordedLsn = lsn;
+    }
+
+    log.info("Recording the ledger transactions after lsn {}", lsn);
+
+    if (!background) return;
+
+    recorder = new Thread(this::recordLoop, "transaction-recorder");
+    recorder.setDaemon(true);
+    recorder.start();
+  }
+
+  /**
+   * Waits until the records behind are within the capacity, call it before applying a transfer.
+   *
+   * @throws CreateTransactionException if the records are still behind after the timeout, the
+   *     transfer must not be applied then
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public void awaitCapacity() throws CreateTransactionException, InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+
+    synchronized (progress) {
+      while (journal.getLastLsn() - recordedLsn > capacity) {
+        long remaining = deadline - System.currentTimeMillis();
+
+        if (remaining <= 0)
+          throw new CreateTransactionException(
+              String.format(
+                  "%d transaction records are not created yet",
+                  journal.getLastLsn() - recordedLsn));
+
+        progress.wait(remaining);
+      }
+    }
+  }
+
+  /**
+   * Creates the records of the transfers forced to the journal, in the calling thread in http mode.
+   * A failure is logged and left to the next call, the transfers are durable anyway.
+   */
+  public void record() {
+    if (background) return;
+
+    try {
+      recordAll();
+    } catch (GatewayException | IOException | RuntimeException ex) {
+      log.error("Cannot record the ledger transactions after lsn {}", getRecordedLsn(), ex);
+    }
+  }
+
+  /**
+   * Gets the lsn of the last journal record whose transactions are created.
+   *
+   * @return the lsn
+   */
+  public long getRecordedLsn() {
+    synchronized (progress) {
+      return recordedLsn;
+    }
+  }
+
+  /**
+   * Gets the id of the journal the transfers are read from.
+   *
+   * @return the journal id
+   */
+  public String getJournalId() {
+    return journal.getId();
+  }
+
+  /** Stops the background thread, the records left are created after the restart. */
+  public void close() {
+    closed = true;
+
+    if (recorder == null) return;
+
+    recorder.interrupt();
+
+    try {
+      recorder.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Converts a transfer to its transaction record, with the balances right after the transfer and
+   * the time of its journal record. The journal id, lsn and leg identify the record, so that it is
+   * created once.
+   *
+   * @param journalId the id of the journal of the transfer
+   * @param transfer the transfer
+   * @return the transaction, without its {@code id}
+   */
+  public static Transaction toTransaction(String journalId, Transfer transfer) {
+    Transaction transaction =
+        new Transaction(
+            "T",
+            transfer.getFromWalletId(),
+            transfer.getAmount() * -1,
+            transfer.getFromBalance(),
+            transfer.getToWalletId(),
+            transfer.getAmount(),
+            transfer.getToBalance());
+
+    transaction.setCreatedTimestamp(transfer.getTimestamp());
+    transaction.setJournalId(journalId);
+    transaction.setLsn(transfer.getLsn());
+    transaction.setLeg(transfer.getLeg());
+    transaction.setHash();
+
+    return transaction;
+  }
+
+  private void recordLoop() {
+    while (!closed) {
+      try {
+        if (recordAll() == 0) Thread.sleep(pollIntervalMs);
+      } catch (GatewayException | IOException | RuntimeException ex) {
+        log.error("Cannot record the ledger transactions after lsn {}", getRecordedLsn(), ex);
+
+        try {
+          Thread.sleep(retryDelayMs);
+        } catch (InterruptedException e) {
+          return;
+        }
+      } catch (InterruptedException ex) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Creates the records of the transfers forced to the journal, one batch at a time.
+   *
+   * @return the number of journal records read
+   */
+  private synchronized int recordAll() throws GatewayException, IOException {
+    int count = 0;
+    List<LedgerJournal.Record> records;
+
+    do {
+      long after = getRecordedLsn();
+
+      records = journal.read(after, batchSize);
+
+      if (records.isEmpty()) break;
+
+      if (records.get(0).getLsn() > after + 1)
+        log.warn(
+            "Ledger journal records {} to {} are no longer retained, their transactions are lost",
+            after + 1,
+            records.get(0).getLsn() - 1);
+
+      List<Transaction> transactions = new ArrayList<>();
+
+      for (LedgerJournal.Record record : records)
+        if (record.getType() != LedgerJournal.OPEN)
+          toTransactions(journal.getId(), record, transactions);
+
+      if (!transactions.isEmpty()) transactionGateway.createTransactions(transactions);
+
+      advance(records.get(records.size() - 1).getLsn());
+
+      count += records.size();
+    } while (records.size() == batchSize);
+
+    return count;
+  }
+
+  private static void toTransactions(
+      String journalId, LedgerJournal.Record record, List<Transaction> transactions) {
+    List<LedgerJournal.Leg> legs = record.getLegs();
+
+    for (int i = 0; i < legs.size(); i++) {
+      LedgerJournal.Leg leg = legs.get(i);
+
+      transactions.add(
+          toTransaction(
+              journalId,
+              new Transfer(
+                  leg.getFromWalletId(),
+                  leg.getToWalletId(),
+                  leg.getAmount(),
+                  leg.getFromBalance(),
+                  leg.getToBalance(),
+                  record.getLsn(),
+                  i,
+                  Ledger.toTimestamp(record.getTimestamp()))));
+    }
+  }
+
+  /** Saves the lsn of the last record created, then lets the transfers waiting for room go. */
+  private void advance(long lsn) throws IOException {
+    Path tmp = lsnPath.resolveSibling(lsnPath.getFileName() + ".tmp");
+
+    Files.write(tmp, Long.toString(lsn).getBytes(StandardCharsets.UTF_8));
+    Files.move(tmp, lsnPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    synchronized (progress) {
+      recordedLsn = lsn;
+      progress.notifyAll();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.aestus.api.ledger.service;
+
+import com.aestus.api.ledger.exception.LedgerException;
+import com.aestus.api.ledger.model.TransferLeg;
+import com.aestus.api.transaction.model.Transaction;
+
+import java.util.List;
+import java.util.Map;
+
+/** The interface Ledger service. */
+public interface LedgerService {
+
+  /**
+   * Gets the balance of an account.
+   *
+   * @param walletId the wallet id of the account
+   * @return the balance, {@code null} if the account does not exist
+   */
+  Long getBalance(String walletId);
+
+  /**
+   * Gets the ledger entries.
+   *
+   * @return the balances keyed by wallet id
+   */
+  Map<String, Long> getEntries();
+
+  /**
+   * Transfers an {@code amount} of tokens between 2 accounts and records the transaction, the
+   * record is written behind. Once the transfer is applied it is durable, and this no longer fails.
+   *
+   * @param fromWalletId the from wallet address
+   * @param toWalletId the to wallet address
+   * @param amount the amount of tokens to be transferred
+   * @return the transaction submitted for the transfer, without its {@code id} yet
+   * @throws LedgerException if the transfer is invalid or too many transactions are not recorded
+   *     yet, nothing is transferred then
+   */
+  Transaction transfer(String fromWalletId, String toWalletId, long amount)
+      throws LedgerException;
+
+  /**
+   * Transfers a batch of amounts, all or nothing, and records the transactions, the records are
+   * written behind. Once the batch is applied it is durable, and this no longer fails.
+   *
+   * @param legs the transfers, applied in order
+   * @return the transactions submitted, one per leg, without their {@code id} yet
+   * @throws LedgerException if a leg is invalid or too many transactions are not recorded yet,
+   *     nothing is transferred then
+   */
+  List<Transaction> transfer(List<TransferLeg> legs) throws LedgerException;
+
+  /**
+   * Transfers a batch of amounts once, all or nothing, and records the transactions, the records
+   * are written behind. A batch whose id was applied already is not applied again.
+   *
+   * @param batchId the id of the batch, {@code null} if none
+   * @param legs the transfers, applied in order
+   * @return the transactions submitted, one per leg, empty if the batch was applied already
+   * @throws LedgerException if a leg is invalid or too many transactions are not recorded yet,
+   *     nothing is transferred then
+   */
+  List<Transaction> transfer(String batchId, List<TransferLeg> legs) throws LedgerException;
+
+  /**
+   * Writes a snapshot of the balances, so that a restart only replays the transfers made after
+   * it. Runs periodically.
+   */
+  void checkpoint();
+}
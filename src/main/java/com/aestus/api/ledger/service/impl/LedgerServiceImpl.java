@@ -0,0 +1,123 @@
+package com.aestus.api.ledger.service.impl;
+
+import com.aestus.api.ledger.exception.LedgerException;
+import com.aestus.api.ledger.model.Ledger;
+import com.aestus.api.ledger.model.Transfer;
+import com.aestus.api.ledger.model.TransferLeg;
+import com.aestus.api.ledger.recorder.TransactionRecorder;
+import com.aestus.api.ledger.service.LedgerService;
+import com.aestus.api.transaction.model.Transaction;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * The implementation of the Ledger service. The balances are held in memory by a thread-safe
+ * ledger backed by a journal, every transfer is recorded through the transaction gateway. The
+ * transaction records are written behind from the journal by the {@link TransactionRecorder}, so a
+ * transfer or a batch never fails once it is durable.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class LedgerServiceImpl implements LedgerService {
+
+  private final Ledger ledger;
+
+  private final TransactionRecorder transactionRecorder;
+
+  public Long getBalance(String walletId) {
+    return ledger.getBalance(walletId);
+  }
+
+  public Map<String, Long> getEntries() {
+    return ledger.getEntries();
+  }
+
+  public Transaction transfer(String fromWalletId, String toWalletId, long amount)
+      throws LedgerException {
+
+    // The records behind are bounded before the balances change, not after
+    awaitCapacity();
+
+    Transfer transfer = ledger.transfer(fromWalletId, toWalletId, amount);
+
+    awaitDurable(transfer.getLsn());
+
+    // The journal makes the transfer durable, the transaction record is written behind from it
+    transactionRecorder.record();
+
+    return TransactionRecorder.toTransaction(transactionRecorder.getJournalId(), transfer);
+  }
+
+  public List<Transaction> transfer(List<TransferLeg> legs) throws LedgerException {
+    return transfer(null, legs);
+  }
+
+  public List<Transaction> transfer(String batchId, List<TransferLeg> legs)
+      throws LedgerException {
+
+    if (legs.isEmpty()) return new ArrayList<>();
+
+    awaitCapacity();
+
+    List<Transfer> transfers = ledger.transfer(batchId, legs);
+
+    // A batch applied already is durable since it was applied
+    if (transfers.isEmpty()) return new ArrayList<>();
+
+    // The legs share the lsn of the batch
+    awaitDurable(transfers.get(0).getLsn());
+
+    // The journal record makes the whole batch durable, its transactions are written behind from it
+    transactionRecorder.record();
+
+    List<Transaction> transactions = new ArrayList<>(transfers.size());
+
+    for (Transfer transfer : transfers)
+      transactions.add(
+          TransactionRecorder.toTransaction(transactionRecorder.getJournalId(), transfer));
+
+    return transactions;
+  }
+
+  @Scheduled(
+      initialDelayString = "${com.aestus.ledger.snapshot.interval-ms}",
+      fixedDelayString = "${com.aestus.ledger.snapshot.interval-ms}")
+  public void checkpoint() {
+    try {
+      // The journal records are kept until their transactions are recorded
+      ledger.checkpoint(transactionRecorder.getRecordedLsn());
+    } catch (IOException ex) {
+      log.error("Cannot write the ledger snapshot", ex);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void awaitCapacity() throws LedgerException {
+    try {
+      transactionRecorder.awaitCapacity();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new LedgerException("Interrupted while waiting for the transaction records");
+    }
+  }
+
+  private void awaitDurable(long lsn) throws LedgerException {
+    try {
+      ledger.awaitDurable(lsn);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new LedgerException("Interrupted while journaling the transfer");
+    }
+  }
+}
@@ -4,6 +4,7 @@ import com.aestus.api.common.model.ResponseMessage;
 import com.aestus.api.product.service.ProductService;
 import com.aestus.api.product.model.Product;
 import com.aestus.api.product.model.swagger.ResponseMessageWithProduct;
+import com.aestus.api.product.model.swagger.ResponseMessageWithProductMap;
 import com.aestus.api.product.model.swagger.ResponseMessageWithProducts;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,7 +15,12 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -566,6 +572,62 @@ public class ProductController {
     }
   }
 
+  /**
+   * Gets products by a list of ids in a single batch.
+   *
+   * @param ids the list of product ids
+   * @param request the http request
+   * @return the products keyed by id, ids without a product are left out
+   */
+  @GetMapping("/ids")
+  @PreAuthorize(
+      "hasAuthority('U') or hasAuthority('S') or hasAuthority('D') or hasAuthority('I') or hasAuthority('A')")
+  @Operation(
+      summary = "Retrieve products by a list of ids",
+      tags = {"Product"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Returns the products keyed by id in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessageWithProductMap.class),
+                    examples =
+                        @ExampleObject(
+                            externalValue =
+                                "http://localhost:8080/swagger/product/product-get-ids-200.json",
+                            value =
+                                "{\n"
+                                    + "  \"timestamp\": \"2022-07-07T15:11:22.6693793\",\n"
+                                    + "  \"status\": 200,\n"
+                                    + "  \"message\": \"\",\n"
+                                    + "  \"data\": {\n"
+                                    + "    \"1\": {\n"
+                                    + "      \"id\": 1,\n"
+                                    + "      \"profileId\": 2,\n"
+                                    + "      \"name\": \"Solar Panel Installation\",\n"
+                                    + "      \"description\": \"Rooftop solar panel installation\"\n"
+                                    + "    }\n"
+                                    + "  },\n"
+                                    + "  \"path\": \"/api/v1/product/ids\",\n"
+                                    + "  \"ok\": true\n"
+                                    + "}"))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> getByIds(
+      @RequestParam List<Integer> ids, HttpServletRequest request) {
+
+    Map<Integer, Product> products =
+        StreamSupport.stream(productService.getProductsByIds(ids).spliterator(), false)
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+    ResponseMessage msg =
+        new ResponseMessage(HttpStatus.OK.value(), products, request.getRequestURI());
+
+    return ResponseEntity.ok(msg);
+  }
+
   /**
    * Removes a product by {@code id}.
    *
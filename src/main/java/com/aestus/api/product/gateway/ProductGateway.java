@@ -0,0 +1,29 @@
+package com.aestus.api.product.gateway;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.product.model.Product;
+
+import java.util.Collection;
+import java.util.Map;
+
+/** Provides access to the product module from the other modules. */
+public interface ProductGateway {
+
+  /**
+   * Gets a product by {@code id}.
+   *
+   * @param id the product id
+   * @return the product
+   * @throws GatewayException if the product cannot be retrieved
+   */
+  Product getProductById(int id) throws GatewayException;
+
+  /**
+   * Gets products by a list of {@code ids}.
+   *
+   * @param ids the product ids
+   * @return the products keyed by id, products that do not exist are left out
+   * @throws GatewayException if the products cannot be retrieved
+   */
+  Map<Integer, Product> getProductsByIds(Collection<Integer> ids) throws GatewayException;
+}
@@ -0,0 +1,54 @@
+package com.aestus.api.product.gateway.impl;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.common.gateway.HttpGateway;
+import com.aestus.api.product.gateway.ProductGateway;
+import com.aestus.api.product.model.Product;
+import com.aestus.api.product.model.swagger.ResponseMessageWithProduct;
+import com.aestus.api.product.model.swagger.ResponseMessageWithProductMap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+/** The http implementation of the product gateway, for split deployments. */
+@Component
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "http")
+public class HttpProductGateway extends HttpGateway implements ProductGateway {
+
+  @Value("${com.aestus.product.get.id.url}")
+  private final String urlProductGetById = null;
+
+  @Value("${com.aestus.product.get.ids.url}")
+  private final String urlProductGetByIds = null;
+
+  public Product getProductById(int id) throws GatewayException {
+    return exchange(
+            String.format(urlProductGetById, id),
+            HttpMethod.GET,
+            null,
+            ResponseMessageWithProduct.class)
+        .getData();
+  }
+
+  public Map<Integer, Product> getProductsByIds(Collection<Integer> ids) throws GatewayException {
+
+    Map<Integer, Product> products = new HashMap<>();
+
+    for (String strIds : partitionIds(ids))
+      products.putAll(
+          exchange(
+                  String.format(urlProductGetByIds, strIds),
+                  HttpMethod.GET,
+                  null,
+                  ResponseMessageWithProductMap.class)
+              .getData());
+
+    return products;
+  }
+}
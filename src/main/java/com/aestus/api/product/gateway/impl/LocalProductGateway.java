@@ -0,0 +1,44 @@
+package com.aestus.api.product.gateway.impl;
+
+import com.aestus.api.common.exception.EntityNotFoundException;
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.product.gateway.ProductGateway;
+import com.aestus.api.product.model.Product;
+import com.aestus.api.product.service.ProductService;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import lombok.AllArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** The in-process implementation of the product gateway, calls the product service directly. */
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "local", matchIfMissing = true)
+public class LocalProductGateway implements ProductGateway {
+
+  private final ProductService productService;
+
+  public Product getProductById(int id) throws GatewayException {
+
+    Optional<Product> optProduct = productService.getProductById(id);
+
+    if (optProduct.isPresent()) return optProduct.get();
+    else throw new GatewayException(new EntityNotFoundException(Product.class, id));
+  }
+
+  public Map<Integer, Product> getProductsByIds(Collection<Integer> ids) {
+
+    Map<Integer, Product> products = new HashMap<>();
+
+    for (Product product : productService.getProductsByIds(ids))
+      products.put(product.getId(), product);
+
+    return products;
+  }
+}
@@ -0,0 +1,30 @@
+package com.aestus.api.product.model.swagger;
+
+import com.aestus.api.common.model.ResponseMessage;
+import com.aestus.api.product.model.Product;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * An extended ResponseMessage with a map of products keyed by id as the payload. Used for schema
+ * documentation in Swagger.
+ */
+@Data
+@AllArgsConstructor
+public class ResponseMessageWithProductMap extends ResponseMessage {
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<Integer, Product> getData() {
+    return (Map<Integer, Product>) super.getData();
+  }
+
+  /**
+   * Sets data payload.
+   *
+   * @param products the map of products keyed by id
+   */
+  public void setData(Map<Integer, Product> products) {
+    super.setData(products);
+  }
+}
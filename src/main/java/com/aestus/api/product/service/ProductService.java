@@ -34,6 +34,14 @@ public interface ProductService {
    */
   Optional<Product> getProductById(int id);
 
+  /**
+   * Gets products by a list of ids.
+   *
+   * @param ids the product ids
+   * @return the products found, products that do not exist are left out
+   */
+  Iterable<Product> getProductsByIds(Iterable<Integer> ids);
+
   /**
    * Creates a product.
    *
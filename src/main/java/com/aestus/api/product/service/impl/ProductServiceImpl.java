@@ -10,6 +10,8 @@ import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 
+import static com.aestus.api.common.util.QueryUtils.findAllInChunks;
+
 /**
  * The implementation of the Product service. This implementation uses a {@code CrudRepository} for
  * persistence to a RDBMS via Hibernate.
@@ -32,6 +34,10 @@ public class ProductServiceImpl implements ProductService {
     return productRepository.findById(id);
   }
 
+  public Iterable<Product> getProductsByIds(Iterable<Integer> ids) {
+    return findAllInChunks(ids, productRepository::findAllById);
+  }
+
   public Product createProduct(Product product) {
     return productRepository.save(product);
   }
@@ -0,0 +1,67 @@
+package com.aestus.api.profile.cache;
+
+import com.aestus.api.profile.model.UserProfile;
+
+import java.time.LocalDateTime;
+
+import lombok.Value;
+
+/**
+ * The immutable snapshot of a user profile held by the {@link ProfileCache}. The profiles read
+ * from the cache are copies of the snapshot, so that changing a profile read cannot change the
+ * cache.
+ */
+@Value
+public class CachedProfile {
+
+  Integer id;
+  String username;
+  String password;
+  String firstName;
+  String lastName;
+  String email;
+  String phone;
+  String userType;
+  LocalDateTime registrationDate;
+  String walletId;
+
+  /**
+   * Takes the snapshot of a user profile.
+   *
+   * @param profile the user profile
+   * @return the snapshot
+   */
+  public static CachedProfile of(UserProfile profile) {
+    return new CachedProfile(
+        profile.getId(),
+        profile.getUsername(),
+        profile.getPassword(),
+        profile.getFirstName(),
+        profile.getLastName(),
+        profile.getEmail(),
+        profile.getPhone(),
+        profile.getUserType(),
+        profile.getRegistrationDate(),
+        profile.getWalletId());
+  }
+
+  /**
+   * Copies the snapshot into a new user profile.
+   *
+   * @return the user profile
+   */
+  public UserProfile toProfile() {
+    return UserProfile.builder()
+        .id(id)
+        .username(username)
+        .password(password)
+        .firstName(firstName)
+        .lastName(lastName)
+        .email(email)
+        .phone(phone)
+        .userType(userType)
+        .registrationDate(registrationDate)
+        .walletId(walletId)
+        .build();
+  }
+}
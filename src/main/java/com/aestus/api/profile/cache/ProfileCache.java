@@ -0,0 +1,287 @@
+package com.aestus.api.profile.cache;
+
+import com.aestus.api.common.cache.CacheInvalidator;
+import com.aestus.api.profile.model.ProfileCacheStats;
+import com.aestus.api.profile.model.UserProfile;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Sets;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A bounded read-through cache of the user profiles, with three keyed views: by id, by username
+ * and by email. The profiles are cached once, by id, as immutable snapshots; the username and email
+ * views map their keys to profile ids. A view entry is served only if the profile it points to is
+ * cached under the same key, so that invalidating a profile by id invalidates it in all views at
+ * once, even if its username or email changed.
+ *
+ * <p>A profile is evicted when it changes, again after the transaction completes, so that a read
+ * in between cannot cache a profile not committed yet. A profile read from the database is not
+ * cached if a profile was invalidated while it was read, as it may predate the change. The
+ * invalidations are also written for the other nodes, in the transaction of the change, and the
+ * invalidations of the other nodes are applied to this cache.
+ */
+public class ProfileCache {
+  public static final String CACHE_NAME = "profile";
+
+  public static final String VIEW_ID = "id";
+  public static final String VIEW_USERNAME = "username";
+  public static final String VIEW_EMAIL = "email";
+
+  private final CacheInvalidator cacheInvalidator;
+
+  private final Cache<Integer, CachedProfile> profiles;
+  private final Cache<String, Integer> idsByUsername;
+  private final Cache<String, Integer> idsByEmail;
+
+  private final Counters idCounters = new Counters();
+  private final Counters usernameCounters = new Counters();
+  private final Counters emailCounters = new Counters();
+
+  /** The number of invalidations so far, guarded by this cache. */
+  private long generation;
+
+  /**
+   * Creates a profile cache.
+   *
+   * @param cacheInvalidator the invalidator of the caches of the nodes
+   * @param cacheSize the maximum number of profiles cached, and of keys of each view
+   */
+  public ProfileCache(CacheInvalidator cacheInvalidator, int cacheSize) {
+    this.cacheInvalidator = cacheInvalidator;
+    this.profiles = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+    this.idsByUsername = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+    this.idsByEmail = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+
+    cacheInvalidator.register(
+        CACHE_NAME,
+        new CacheInvalidator.Listener() {
+          @Override
+          public void invalidate(String key, LocalDateTime timestamp) {
+            if (Objects.isNull(key)) evictAll();
+            else evict(Integer.valueOf(key));
+          }
+
+          @Override
+          public void flush() {
+            evictAll();
+          }
+        });
+  }
+
+  /**
+   * Gets a user profile by id, loaded on a miss.
+   *
+   * @param id the id
+   * @param loader the loader of the profile from the database
+   * @return a copy of the user profile
+   */
+  public Optional<UserProfile> getById(int id, Supplier<Optional<UserProfile>> loader) {
+    CachedProfile cached = profiles.asMap().get(id);
+
+    if (cached != null) {
+      idCounters.hits.increment();
+      return Optional.of(cached.toProfile());
+    }
+
+    idCounters.misses.increment();
+
+    return load(loader);
+  }
+
+  /**
+   * Gets a user profile by username, loaded on a miss.
+   *
+   * @param username the username
+   * @param loader the loader of the profile from the database
+   * @return a copy of the user profile
+   */
+  public Optional<UserProfile> getByUsername(
+      String username, Supplier<Optional<UserProfile>> loader) {
+    return get(idsByUsername, usernameCounters, username, CachedProfile::getUsername, loader);
+  }
+
+  /**
+   * Gets a user profile by email, loaded on a miss.
+   *
+   * @param email the email address
+   * @param loader the loader of the profile from the database
+   * @return a copy of the user profile
+   */
+  public Optional<UserProfile> getByEmail(String email, Supplier<Optional<UserProfile>> loader) {
+    return get(idsByEmail, emailCounters, email, CachedProfile::getEmail, loader);
+  }
+
+  /**
+   * Gets user profiles by ids, the profiles not cached are loaded with one call of the loader.
+   *
+   * @param ids the ids
+   * @param loader the loader of the profiles from the database, by ids
+   * @return the user profiles found, profiles that do not exist are left out
+   */
+  public List<UserProfile> getByIds(
+      Iterable<Integer> ids, Function<Collection<Integer>, Iterable<UserProfile>> loader) {
+    List<UserProfile> found = new ArrayList<>();
+    List<Integer> missing = new ArrayList<>();
+
+    for (Integer id : Sets.newLinkedHashSet(ids)) {
+      CachedProfile cached = profiles.asMap().get(id);
+
+      if (cached != null) found.add(cached.toProfile());
+      else missing.add(id);
+    }
+
+    idCounters.hits.add(found.size());
+    idCounters.misses.add(missing.size());
+
+    if (missing.isEmpty()) return found;
+
+    long generation = getGeneration();
+
+    for (UserProfile profile : loader.apply(missing)) {
+      put(profile, generation);
+      found.add(profile);
+    }
+
+    return found;
+  }
+
+  /**
+   * Invalidates a user profile in all views.
+   *
+   * @param id the id of the profile
+   */
+  public void invalidate(Integer id) {
+    if (Objects.isNull(id)) return;
+
+    evict(id);
+    cacheInvalidator.publish(CACHE_NAME, String.valueOf(id));
+
+    if (TransactionSynchronizationManager.isSynchronizationActive())
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              evict(id);
+            }
+          });
+  }
+
+  /** Invalidates all user profiles. */
+  public void invalidateAll() {
+    evictAll();
+    cacheInvalidator.publish(CACHE_NAME, null);
+
+    if (TransactionSynchronizationManager.isSynchronizationActive())
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              evictAll();
+            }
+          });
+  }
+
+  /**
+   * Gets the statistics of the views.
+   *
+   * @return the statistics of the id, username and email views
+   */
+  public List<ProfileCacheStats> getStats() {
+    return List.of(
+        idCounters.getStats(VIEW_ID, profiles),
+        usernameCounters.getStats(VIEW_USERNAME, idsByUsername),
+        emailCounters.getStats(VIEW_EMAIL, idsByEmail));
+  }
+
+  private Optional<UserProfile> get(
+      Cache<String, Integer> ids,
+      Counters counters,
+      String key,
+      Function<CachedProfile, String> keyOf,
+      Supplier<Optional<UserProfile>> loader) {
+
+    Integer id = Objects.isNull(key) ? null : ids.asMap().get(key);
+    CachedProfile cached = Objects.isNull(id) ? null : profiles.asMap().get(id);
+
+    if (cached != null && key.equals(keyOf.apply(cached))) {
+      counters.hits.increment();
+      return Optional.of(cached.toProfile());
+    }
+
+    counters.misses.increment();
+
+    return load(loader);
+  }
+
+  private Optional<UserProfile> load(Supplier<Optional<UserProfile>> loader) {
+    long generation = getGeneration();
+
+    Optional<UserProfile> profile = loader.get();
+
+    profile.ifPresent(loaded -> put(loaded, generation));
+
+    return profile;
+  }
+
+  private synchronized long getGeneration() {
+    return generation;
+  }
+
+  private synchronized void put(UserProfile profile, long generation) {
+    if (generation != this.generation || Objects.isNull(profile.getId())) return;
+
+    CachedProfile cached = CachedProfile.of(profile);
+
+    profiles.put(cached.getId(), cached);
+
+    if (!Objects.isNull(cached.getUsername()))
+      idsByUsername.put(cached.getUsername(), cached.getId());
+    if (!Objects.isNull(cached.getEmail())) idsByEmail.put(cached.getEmail(), cached.getId());
+  }
+
+  private synchronized void evict(Integer id) {
+    generation++;
+    profiles.invalidate(id);
+  }
+
+  private synchronized void evictAll() {
+    generation++;
+    profiles.invalidateAll();
+    idsByUsername.invalidateAll();
+    idsByEmail.invalidateAll();
+  }
+
+  /** The hits and misses of a view. */
+  private static class Counters {
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+
+    ProfileCacheStats getStats(String view, Cache<?, ?> cache) {
+      long hitCount = hits.sum();
+      long missCount = misses.sum();
+      long requestCount = hitCount + missCount;
+
+      return new ProfileCacheStats(
+          view,
+          cache.size(),
+          hitCount,
+          missCount,
+          requestCount == 0 ? 1.0 : (double) hitCount / requestCount,
+          cache.stats().evictionCount());
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.aestus.api.profile.config;
+
+import com.aestus.api.common.cache.CacheInvalidator;
+import com.aestus.api.profile.cache.ProfileCache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** The profile configuration. */
+@Configuration
+public class ProfileConfig {
+
+  @Value("${com.aestus.profile.cache-size}")
+  private final Integer cacheSize = 0;
+
+  @Bean
+  public ProfileCache profileCache(CacheInvalidator cacheInvalidator) {
+    return new ProfileCache(cacheInvalidator, cacheSize);
+  }
+}
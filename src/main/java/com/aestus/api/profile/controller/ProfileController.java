@@ -3,6 +3,7 @@ package com.aestus.api.profile.controller;
 import com.aestus.api.common.model.ResponseMessage;
 import com.aestus.api.common.util.JWTUtils;
 import com.aestus.api.profile.model.swagger.ResponseMessageWithUserProfile;
+import com.aestus.api.profile.model.swagger.ResponseMessageWithUserProfileMap;
 import com.aestus.api.profile.model.swagger.ResponseMessageWithUserProfiles;
 import com.aestus.api.profile.model.UserProfile;
 import com.aestus.api.profile.service.ProfileService;
@@ -17,7 +18,9 @@ import com.github.fge.jsonpatch.JsonPatch;
 import com.github.fge.jsonpatch.JsonPatchException;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -353,6 +356,70 @@ public class ProfileController {
     }
   }
 
+  /**
+   * Gets user profiles by a list of ids in a single batch.
+   *
+   * @param ids the list of ids
+   * @param request the http request
+   * @return the user profiles keyed by id, ids without a user profile are left out
+   */
+  @GetMapping("/ids")
+  @PreAuthorize(
+      "hasAuthority('U') or hasAuthority('S') or hasAuthority('D') or hasAuthority('I') or hasAuthority('A')")
+  @Operation(
+      summary = "Retrieve user profiles by a list of ids",
+      tags = {"Profile"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Returns the user profiles keyed by id in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessageWithUserProfileMap.class),
+                    examples =
+                        @ExampleObject(
+                            externalValue =
+                                "http://localhost:8080/swagger/profile/profile-get-ids-200.json",
+                            value =
+                                "{\n"
+                                    + "  \"timestamp\": \"2022-07-07T15:11:22.6693793\",\n"
+                                    + "  \"status\": 200,\n"
+                                    + "  \"message\": \"\",\n"
+                                    + "  \"data\": {\n"
+                                    + "    \"1\": {\n"
+                                    + "      \"id\": 1,\n"
+                                    + "      \"username\": \"johnsmith\",\n"
+                                    + "      \"firstName\": \"John\",\n"
+                                    + "      \"lastName\": \"Smith\",\n"
+                                    + "      \"userType\": \"U\"\n"
+                                    + "    },\n"
+                                    + "    \"2\": {\n"
+                                    + "      \"id\": 2,\n"
+                                    + "      \"username\": \"janedoe\",\n"
+                                    + "      \"firstName\": \"Jane\",\n"
+                                    + "      \"lastName\": \"Doe\",\n"
+                                    + "      \"userType\": \"S\"\n"
+                                    + "    }\n"
+                                    + "  },\n"
+                                    + "  \"path\": \"/api/v1/profile/ids\",\n"
+                                    + "  \"ok\": true\n"
+                                    + "}"))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> getByIds(
+      @RequestParam List<Integer> ids, HttpServletRequest request) {
+
+    Map<Integer, UserProfile> profiles =
+        StreamSupport.stream(profileService.getProfilesByIds(ids).spliterator(), false)
+            .collect(Collectors.toMap(UserProfile::getId, Function.identity()));
+
+    ResponseMessage msg =
+        new ResponseMessage(HttpStatus.OK.value(), profiles, request.getRequestURI());
+
+    return ResponseEntity.ok(msg);
+  }
+
   /**
    * Gets user profile by username.
    *
@@ -579,9 +646,8 @@ public class ProfileController {
       })
   public ResponseEntity<ResponseMessage> getByToken(HttpServletRequest request) {
 
-    String token = request.getHeader("authorization").split(" ")[1];
-
-    String username = jwtUtils.getUsernameFromToken(token);
+    // The token was verified by the authentication filter
+    String username = jwtUtils.getUsername(jwtUtils.getClaims(request));
 
     return getByUsername(username, request);
   }
@@ -1310,4 +1376,36 @@ public class ProfileController {
 
     return ResponseEntity.ok(msg);
   }
+
+  /**
+   * Gets the hit, miss and eviction statistics of the profile cache, by keyed view.
+   *
+   * @param request the http request
+   * @return the {@code ResponseMessage} containing the statistics of the id, username and email
+   *     views of the cache
+   */
+  @GetMapping("/cache/stats")
+  @PreAuthorize("hasAuthority('A')")
+  @Operation(
+      summary = "Retrieve the statistics of the profile cache",
+      tags = {"User Profile"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Returns the hits, misses and evictions of the id, username and email views in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessage.class))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> getCacheStats(HttpServletRequest request) {
+
+    ResponseMessage msg =
+        new ResponseMessage(
+            HttpStatus.OK.value(), profileService.getCacheStats(), request.getRequestURI());
+
+    return ResponseEntity.ok(msg);
+  }
 }
@@ -0,0 +1,29 @@
+package com.aestus.api.profile.gateway;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.profile.model.UserProfile;
+
+import java.util.Collection;
+import java.util.Map;
+
+/** Provides access to the profile module from the other modules. */
+public interface ProfileGateway {
+
+  /**
+   * Gets a user profile by {@code id}.
+   *
+   * @param id the profile id
+   * @return the user profile
+   * @throws GatewayException if the user profile cannot be retrieved
+   */
+  UserProfile getProfileById(int id) throws GatewayException;
+
+  /**
+   * Gets user profiles by a list of {@code ids}.
+   *
+   * @param ids the profile ids
+   * @return the user profiles keyed by id, profiles that do not exist are left out
+   * @throws GatewayException if the user profiles cannot be retrieved
+   */
+  Map<Integer, UserProfile> getProfilesByIds(Collection<Integer> ids) throws GatewayException;
+}
@@ -0,0 +1,55 @@
+package com.aestus.api.profile.gateway.impl;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.common.gateway.HttpGateway;
+import com.aestus.api.profile.gateway.ProfileGateway;
+import com.aestus.api.profile.model.UserProfile;
+import com.aestus.api.profile.model.swagger.ResponseMessageWithUserProfile;
+import com.aestus.api.profile.model.swagger.ResponseMessageWithUserProfileMap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+/** The http implementation of the profile gateway, for split deployments. */
+@Component
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "http")
+public class HttpProfileGateway extends HttpGateway implements ProfileGateway {
+
+  @Value("${com.aestus.profile.get.id.url}")
+  private final String urlProfileGetById = null;
+
+  @Value("${com.aestus.profile.get.ids.url}")
+  private final String urlProfileGetByIds = null;
+
+  public UserProfile getProfileById(int id) throws GatewayException {
+    return exchange(
+            String.format(urlProfileGetById, id),
+            HttpMethod.GET,
+            null,
+            ResponseMessageWithUserProfile.class)
+        .getData();
+  }
+
+  public Map<Integer, UserProfile> getProfilesByIds(Collection<Integer> ids)
+      throws GatewayException {
+
+    Map<Integer, UserProfile> profiles = new HashMap<>();
+
+    for (String strIds : partitionIds(ids))
+      profiles.putAll(
+          exchange(
+                  String.format(urlProfileGetByIds, strIds),
+                  HttpMethod.GET,
+                  null,
+                  ResponseMessageWithUserProfileMap.class)
+              .getData());
+
+    return profiles;
+  }
+}
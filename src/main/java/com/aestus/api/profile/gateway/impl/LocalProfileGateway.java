@@ -0,0 +1,44 @@
+package com.aestus.api.profile.gateway.impl;
+
+import com.aestus.api.common.exception.EntityNotFoundException;
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.profile.gateway.ProfileGateway;
+import com.aestus.api.profile.model.UserProfile;
+import com.aestus.api.profile.service.ProfileService;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import lombok.AllArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** The in-process implementation of the profile gateway, calls the profile service directly. */
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "local", matchIfMissing = true)
+public class LocalProfileGateway implements ProfileGateway {
+
+  private final ProfileService profileService;
+
+  public UserProfile getProfileById(int id) throws GatewayException {
+
+    Optional<UserProfile> optProfile = profileService.getProfileById(id);
+
+    if (optProfile.isPresent()) return optProfile.get();
+    else throw new GatewayException(new EntityNotFoundException(UserProfile.class, id));
+  }
+
+  public Map<Integer, UserProfile> getProfilesByIds(Collection<Integer> ids) {
+
+    Map<Integer, UserProfile> profiles = new HashMap<>();
+
+    for (UserProfile profile : profileService.getProfilesByIds(ids))
+      profiles.put(profile.getId(), profile);
+
+    return profiles;
+  }
+}
@@ -0,0 +1,30 @@
+package com.aestus.api.profile.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** The hit, miss and eviction statistics of a keyed view of the profile cache. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProfileCacheStats {
+
+  /** The key of the view, i.e. id, username or email. */
+  private String view;
+
+  /** The number of entries of the view. */
+  private long size;
+
+  /** The number of profiles read from the cache. */
+  private long hitCount;
+
+  /** The number of profiles read from the database, found or not. */
+  private long missCount;
+
+  /** The ratio of the reads served from the cache, 1 if there were no reads. */
+  private double hitRate;
+
+  /** The number of entries evicted for the size bound, not counting the invalidations. */
+  private long evictionCount;
+}
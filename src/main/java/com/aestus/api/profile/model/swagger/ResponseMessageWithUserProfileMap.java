@@ -0,0 +1,30 @@
+package com.aestus.api.profile.model.swagger;
+
+import com.aestus.api.common.model.ResponseMessage;
+import com.aestus.api.profile.model.UserProfile;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * An extended ResponseMessage with a map of user profiles keyed by id as the payload. Used for
+ * schema documentation in Swagger.
+ */
+@Data
+@AllArgsConstructor
+public class ResponseMessageWithUserProfileMap extends ResponseMessage {
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<Integer, UserProfile> getData() {
+    return (Map<Integer, UserProfile>) super.getData();
+  }
+
+  /**
+   * Sets data payload.
+   *
+   * @param profiles the map of user profiles keyed by id
+   */
+  public void setData(Map<Integer, UserProfile> profiles) {
+    super.setData(profiles);
+  }
+}
@@ -1,7 +1,9 @@
 package com.aestus.api.profile.service;
 
+import com.aestus.api.profile.model.ProfileCacheStats;
 import com.aestus.api.profile.model.UserProfile;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -32,6 +34,14 @@ public interface ProfileService {
    */
   Optional<UserProfile> getProfileById(int id);
 
+  /**
+   * Gets user profiles by a list of ids.
+   *
+   * @param ids the ids
+   * @return the user profiles found, profiles that do not exist are left out
+   */
+  Iterable<UserProfile> getProfilesByIds(Iterable<Integer> ids);
+
   /**
    * Gets user profile by username.
    *
@@ -73,4 +83,11 @@ public interface ProfileService {
 
   /** Delete all user profiles. */
   void deleteAllProfiles();
+
+  /**
+   * Gets the hit, miss and eviction statistics of the profile cache.
+   *
+   * @return the statistics of the id, username and email views of the cache
+   */
+  List<ProfileCacheStats> getCacheStats();
 }
@@ -1,5 +1,8 @@
 package com.aestus.api.profile.service.impl;
 
+import com.aestus.api.common.util.JWTUtils;
+import com.aestus.api.profile.cache.ProfileCache;
+import com.aestus.api.profile.model.ProfileCacheStats;
 import com.aestus.api.profile.service.ProfileService;
 import com.aestus.api.profile.model.UserProfile;
 import com.aestus.api.profile.repository.ProfileRepository;
@@ -7,17 +10,31 @@ import com.aestus.api.profile.repository.ProfileRepository;
 import lombok.AllArgsConstructor;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
+import static com.aestus.api.common.util.QueryUtils.findAllInChunks;
+
 /**
  * The implementation of the User Profile service. This implementation uses a {@code CrudRepository}
- * for persistence to a RDBMS via Hibernate.
+ * for persistence to a RDBMS via Hibernate. The requests are authenticated from the claims of the
+ * tokens, so the tokens of a profile are revoked when the profile is deleted, or updated with a
+ * change to a claim: the username, the user type or the wallet id.
+ *
+ * <p>The profiles read by id, username or email are cached, and are invalidated in all views when
+ * they are created, updated or deleted. The profiles returned by the reads are copies of the cached
+ * profiles, they may be changed and saved like the profiles read from the repository. The changes
+ * are transactional, so that the invalidations of the other nodes are written with the change.
  */
 @Service
 @AllArgsConstructor
 public class ProfileServiceImpl implements ProfileService {
   private final ProfileRepository profileRepository;
+  private final JWTUtils jwtUtils;
+  private final ProfileCache profileCache;
 
   public Iterable<UserProfile> getAllProfiles() {
     return profileRepository.findAll();
@@ -28,30 +45,76 @@ public class ProfileServiceImpl implements ProfileService {
   }
 
   public Optional<UserProfile> getProfileById(int id) {
-    return profileRepository.findById(id);
+    return profileCache.getById(id, () -> profileRepository.findById(id));
+  }
+
+  public Iterable<UserProfile> getProfilesByIds(Iterable<Integer> ids) {
+    return profileCache.getByIds(
+        ids, missing -> findAllInChunks(missing, profileRepository::findAllById));
   }
 
   public Optional<UserProfile> getProfileByUsername(String username) {
-    return profileRepository.findByUsername(username);
+    return profileCache.getByUsername(username, () -> profileRepository.findByUsername(username));
   }
 
   public Optional<UserProfile> getProfileByEmail(String email) {
-    return profileRepository.findByEmail(email);
+    return profileCache.getByEmail(email, () -> profileRepository.findByEmail(email));
   }
 
+  @Transactional
   public UserProfile createProfile(UserProfile profile) {
-    return profileRepository.save(profile);
+    UserProfile created = profileRepository.save(profile);
+
+    profileCache.invalidate(created.getId());
+
+    return created;
   }
 
+  @Transactional
   public UserProfile updateProfile(UserProfile profile) {
-    return profileRepository.save(profile);
+    // The row as of before the update. The claims are read before the save, which merges the
+    // changes into the managed instance returned here.
+    Optional<UserProfile> current =
+        Objects.isNull(profile.getId())
+            ? Optional.empty()
+            : profileRepository.findById(profile.getId());
+    String username = current.map(UserProfile::getUsername).orElse(null);
+    String userType = current.map(UserProfile::getUserType).orElse(null);
+    String walletId = current.map(UserProfile::getWalletId).orElse(null);
+
+    UserProfile updated = profileRepository.save(profile);
+
+    profileCache.invalidate(updated.getId());
+
+    // The claims of the tokens issued are out of date, and the tokens issued under the former
+    // username are revoked too. A profile saved without a former row has no tokens.
+    if (current.isPresent()
+        && (!Objects.equals(username, updated.getUsername())
+            || !Objects.equals(userType, updated.getUserType())
+            || !Objects.equals(walletId, updated.getWalletId()))) {
+      jwtUtils.revokeTokens(updated.getId(), updated.getUsername());
+
+      if (!Objects.equals(username, updated.getUsername())) jwtUtils.revokeTokens(null, username);
+    }
+
+    return updated;
   }
 
+  @Transactional
   public void deleteProfileById(int id) {
     profileRepository.deleteById(id);
+    profileCache.invalidate(id);
+    jwtUtils.revokeTokens(id, null);
   }
 
+  @Transactional
   public void deleteAllProfiles() {
     profileRepository.deleteAll();
+    profileCache.invalidateAll();
+    jwtUtils.revokeAllTokens();
+  }
+
+  public List<ProfileCacheStats> getCacheStats() {
+    return profileCache.getStats();
   }
 }
@@ -0,0 +1,27 @@
+package com.aestus.api.request.config;
+
+import com.aestus.api.common.cache.CacheInvalidator;
+import com.aestus.api.request.counter.RequestCounter;
+import com.aestus.api.request.repository.RequestCountRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** The request configuration. The requests are recounted on start if there are no counts yet. */
+@Configuration
+public class RequestConfig {
+
+  @Value("${com.aestus.request.counts.cache-size}")
+  private final Integer countsCacheSize = 0;
+
+  @Bean(initMethod = "start")
+  public RequestCounter requestCounter(
+      RequestCountRepository requestCountRepository,
+      TransactionTemplate transactionTemplate,
+      CacheInvalidator cacheInvalidator) {
+    return new RequestCounter(
+        requestCountRepository, transactionTemplate, cacheInvalidator, countsCacheSize);
+  }
+}
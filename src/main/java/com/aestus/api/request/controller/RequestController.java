@@ -1,26 +1,24 @@
 package com.aestus.api.request.controller;
 
 import com.aestus.api.common.exception.EntityNotFoundException;
+import com.aestus.api.common.exception.GatewayException;
 import com.aestus.api.common.model.ResponseMessage;
-import com.aestus.api.contract.exception.GetProposalException;
+import com.aestus.api.contract.gateway.ContractGateway;
 import com.aestus.api.contract.model.Contract;
-import com.aestus.api.contract.model.swagger.ResponseMessageWithContract;
 import com.aestus.api.product.model.Product;
-import com.aestus.api.product.model.swagger.ResponseMessageWithProduct;
 import com.aestus.api.profile.model.UserProfile;
-import com.aestus.api.profile.model.swagger.ResponseMessageWithUserProfile;
 import com.aestus.api.request.exception.CreateContractException;
+import com.aestus.api.request.exception.GetContractException;
 import com.aestus.api.request.exception.GetProductException;
 import com.aestus.api.request.exception.GetUserProfileException;
+import com.aestus.api.request.exception.InvalidRequestTypeException;
 import com.aestus.api.request.exception.RequestException;
+import com.aestus.api.request.loader.EnrichmentLoader;
 import com.aestus.api.request.model.*;
 import com.aestus.api.request.model.swagger.*;
 import com.aestus.api.request.service.RequestService;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -28,13 +26,25 @@ import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
@@ -42,18 +52,13 @@ import javax.validation.constraints.Positive;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
-
-import static com.aestus.api.common.controller.CommonController.getHttpHeaders;
 
 /** Provides the request controller functionality. */
 @Slf4j
@@ -62,24 +67,14 @@ import static com.aestus.api.common.controller.CommonController.getHttpHeaders;
 @Validated
 public class RequestController {
 
-  @Autowired private RequestService requestService;
-  @Autowired ObjectMapper objectMapper;
-  @Autowired RestTemplate restTemplate;
-
-  @Value("${com.aestus.base.url}")
-  private final String urlBase = null;
+  /** The default and maximum number of requests of a page of search results. */
+  private static final String DEFAULT_PAGE_SIZE = "50";
 
-  @Value("${com.aestus.product.get.id.url}")
-  private final String urlProductGetById = null;
+  private static final int MAX_PAGE_SIZE = 500;
 
-  @Value("${com.aestus.profile.get.id.url}")
-  private final String urlProfileGetById = null;
-
-  @Value("${com.aestus.contract.create.url}")
-  private final String urlContractCreate = null;
-
-  @Value("${com.aestus.contract.get.requestId.url}")
-  private final String urlContractGetByRequestId = null;
+  @Autowired private RequestService requestService;
+  @Autowired private ContractGateway contractGateway;
+  @Autowired private EnrichmentLoader loader;
 
   /**
    * Pinging the controller.
@@ -585,6 +580,64 @@ public class RequestController {
     return ResponseEntity.ok(msg);
   }
 
+  /**
+   * Gets the request counts of a profile, e.g. for the badges of new proposals. The counts are
+   * served from memory, without reading the requests.
+   *
+   * @param profileId the profile id
+   * @param request the http request
+   * @return the request counts by direction, type and status
+   */
+  @GetMapping("/counts/{profileId}")
+  @PreAuthorize("hasAuthority('U') or hasAuthority('S') or hasAuthority('I') or hasAuthority('A')")
+  @Operation(
+      summary = "Retrieve the request counts of a profile",
+      tags = {"Request"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Returns the numbers of requests from and to the profile by type and status in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessageWithRequestCounts.class),
+                    examples =
+                        @ExampleObject(
+                            value =
+                                "{\n"
+                                    + "  \"timestamp\": \"2022-06-15T15:13:53.5366634\",\n"
+                                    + "  \"status\": 200,\n"
+                                    + "  \"message\": \"\",\n"
+                                    + "  \"data\": {\n"
+                                    + "    \"profileId\": 2,\n"
+                                    + "    \"counts\": [\n"
+                                    + "      {\n"
+                                    + "        \"profileId\": 2,\n"
+                                    + "        \"direction\": \"TO\",\n"
+                                    + "        \"type\": \"PRO\",\n"
+                                    + "        \"status\": \"O\",\n"
+                                    + "        \"count\": 3\n"
+                                    + "      }\n"
+                                    + "    ]\n"
+                                    + "  },\n"
+                                    + "  \"path\": \"/api/v1/request/counts/2\",\n"
+                                    + "  \"ok\": true\n"
+                                    + "}"))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> getCounts(
+      @PathVariable Integer profileId, HttpServletRequest request) {
+
+    ResponseMessage msg =
+        new ResponseMessage(
+            HttpStatus.OK.value(),
+            requestService.getRequestCounts(profileId),
+            request.getRequestURI());
+
+    return ResponseEntity.ok(msg);
+  }
+
   /**
    * Gets requests by profile id.
    *
@@ -809,6 +862,101 @@ public class RequestController {
     return ResponseEntity.ok(msg);
   }
 
+  /**
+   * Searches requests on any combination of criteria, a page at a time. The criteria are applied
+   * in a single query, a page seeks right after the cursor of the previous one.
+   *
+   * @param type the request type
+   * @param statuses the request statuses, any of them
+   * @param fromProfileId the from profile id
+   * @param toProfileId the to profile id
+   * @param profileId a profile id matching either the from or the to profile id
+   * @param requestId the id of the linked request
+   * @param minCost the lower bound of the cost, inclusive
+   * @param maxCost the upper bound of the cost, inclusive
+   * @param from the lower bound of the created timestamps, inclusive
+   * @param to the upper bound of the created timestamps, exclusive
+   * @param sort the order of the requests
+   * @param cursor the {@code nextCursor} of the previous page, none for the first page
+   * @param limit the maximum number of requests of the page
+   * @param request the http request
+   * @return a page of requests, BAD REQUEST if the cursor is malformed or of another sort
+   */
+  @GetMapping("/search")
+  @PreAuthorize("hasAuthority('U') or hasAuthority('S') or hasAuthority('I') or hasAuthority('A')")
+  @Operation(
+      summary = "Search requests",
+      tags = {"Request"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Returns a page of requests and the cursor of the next page in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessageWithRequestPage.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Malformed cursor",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessage.class))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> search(
+      @RequestParam(required = false) String type,
+      @RequestParam(required = false, defaultValue = "") List<String> statuses,
+      @RequestParam(required = false) Integer fromProfileId,
+      @RequestParam(required = false) Integer toProfileId,
+      @RequestParam(required = false) Integer profileId,
+      @RequestParam(required = false) Integer requestId,
+      @RequestParam(required = false) Long minCost,
+      @RequestParam(required = false) Long maxCost,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime to,
+      @RequestParam(defaultValue = "ID_ASC") RequestSort sort,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+      HttpServletRequest request) {
+
+    RequestSearch search =
+        RequestSearch.builder()
+            .type(type)
+            .statuses(statuses)
+            .fromProfileId(fromProfileId)
+            .toProfileId(toProfileId)
+            .profileId(profileId)
+            .requestId(requestId)
+            .minCost(minCost)
+            .maxCost(maxCost)
+            .from(from)
+            .to(to)
+            .sort(sort)
+            .build();
+
+    ResponseMessage msg;
+
+    try {
+
+      RequestPage page =
+          requestService.searchRequests(
+              search, cursor == null ? null : RequestCursor.decode(cursor), limit);
+
+      msg = new ResponseMessage(HttpStatus.OK.value(), page, request.getRequestURI());
+
+      return ResponseEntity.ok(msg);
+    } catch (IllegalArgumentException ex) {
+
+      msg = new ResponseMessage(HttpStatus.BAD_REQUEST, ex, request.getRequestURI());
+
+      return ResponseEntity.badRequest().body(msg);
+    }
+  }
+
   /**
    * Gets request for proposals by {@code fromProfileId}.
    *
@@ -945,21 +1093,23 @@ public class RequestController {
       HttpServletRequest request)
       throws GetUserProfileException, GetProductException {
 
-    Iterable<RequestForProposal> rfps = requestService.getRequestForProposalsFrom(fromProfileId);
+    List<RequestForProposal> rfps =
+        Lists.newArrayList(requestService.getRequestForProposalsFrom(fromProfileId));
+
+    // Include proposals to the request for proposals
+    Map<Integer, List<Request>> proposals =
+        includeProposals
+            ? getProposalsByRfpIds(getIds(rfps, Request::getId), includeProvider, false)
+            : Collections.emptyMap();
+
+    // Include product which the request for proposal is based on
+    if (includeProduct) loadProducts(getIds(rfps, RequestForProposal::getProductId));
 
     for (RequestForProposal rfp : rfps) {
-      // Include proposals to the request for proposals
-      if (includeProposals) {
-        List<Request> proposals =
-            (List<Request>)
-                getProposalsFor(rfp.getId(), includeProvider, Boolean.FALSE, request)
-                    .getBody()
-                    .getData();
-        rfp.setProposals(proposals);
-      }
+      if (includeProposals)
+        rfp.setProposals(proposals.getOrDefault(rfp.getId(), new ArrayList<>()));
 
-      // Include product which the request for proposal is based on
-      if (includeProduct) rfp.setProduct(getProduct(rfp.getProductId(), request));
+      if (includeProduct) rfp.setProduct(getProduct(rfp.getProductId()));
     }
 
     ResponseMessage msg = new ResponseMessage(HttpStatus.OK.value(), rfps, request.getRequestURI());
@@ -1130,16 +1280,24 @@ public class RequestController {
       HttpServletRequest request)
       throws GetUserProfileException, GetProductException {
 
-    Iterable<RequestForProposal> rfps = requestService.getRequestForProposalsTo(toProfileId);
+    List<RequestForProposal> rfps =
+        Lists.newArrayList(requestService.getRequestForProposalsTo(toProfileId));
+
+    // Include proposals for each request for proposal
+    Map<Integer, List<Request>> rfpProposals =
+        includeProposals
+            ? getProposalsByRfpIds(getIds(rfps, Request::getId), includeProvider, false)
+            : Collections.emptyMap();
+
+    // Include the from user profile for each request for proposal
+    if (includeUser) loadUserProfiles(getIds(rfps, Request::getFromProfileId));
+
+    // Include the product which the request for proposal is based on
+    if (includeProduct) loadProducts(getIds(rfps, RequestForProposal::getProductId));
 
     for (RequestForProposal rfp : rfps) {
-      // Include proposals for each request for proposal
       if (includeProposals) {
-        List<Request> proposals =
-            (List<Request>)
-                getProposalsFor(rfp.getId(), includeProvider, Boolean.FALSE, request)
-                    .getBody()
-                    .getData();
+        List<Request> proposals = rfpProposals.getOrDefault(rfp.getId(), new ArrayList<>());
 
         if (providerId > 0) {
           Request reqProposal =
@@ -1154,11 +1312,9 @@ public class RequestController {
         rfp.setProposals(proposals);
       }
 
-      // Include the from user profile for each request for proposal
-      if (includeUser) rfp.setFromUser(getUserProfile(rfp.getFromProfileId(), request));
+      if (includeUser) rfp.setFromUser(getUserProfile(rfp.getFromProfileId()));
 
-      // Include the product which the request for proposal is based on
-      if (includeProduct) rfp.setProduct(getProduct(rfp.getProductId(), request));
+      if (includeProduct) rfp.setProduct(getProduct(rfp.getProductId()));
     }
     ResponseMessage msg = new ResponseMessage(HttpStatus.OK.value(), rfps, request.getRequestURI());
 
@@ -1354,18 +1510,7 @@ public class RequestController {
 
     Iterable<Request> requests = requestService.getRequestsByRequestId(rfpId);
 
-    ArrayList<Proposal> proposals = new ArrayList<Proposal>();
-
-    for (Request request : requests) {
-      Proposal proposal = new Proposal(request);
-
-      if (includeProvider)
-        proposal.setProvider(getUserProfile(proposal.getFromProfileId(), httpRequest));
-
-      if (includeUser) proposal.setUser(getUserProfile(proposal.getToProfileId(), httpRequest));
-
-      proposals.add(proposal);
-    }
+    List<Proposal> proposals = getProposals(requests, includeProvider, includeUser);
 
     ResponseMessage msg =
         new ResponseMessage(HttpStatus.OK.value(), proposals, httpRequest.getRequestURI());
@@ -1492,27 +1637,15 @@ public class RequestController {
       HttpServletRequest httpRequest)
       throws GetUserProfileException {
 
-    Iterable<Request> requests = null;
-
-    if (status.length() > 0)
-      requests =
-          requestService.getRequestsByFromProfileIdAndTypeAndStatus(
-              fromProfileId, Request.TYPE_PRO, status);
-    else
-      requests = requestService.getRequestsByFromProfileIdAndType(fromProfileId, Request.TYPE_PRO);
-
-    ArrayList<Proposal> proposals = new ArrayList<Proposal>();
+    Iterable<Request> requests =
+        requestService.findRequests(
+            RequestSearch.builder()
+                .fromProfileId(fromProfileId)
+                .type(Request.TYPE_PRO)
+                .statuses(getStatuses(status))
+                .build());
 
-    for (Request request : requests) {
-      Proposal proposal = new Proposal(request);
-
-      if (includeProvider)
-        proposal.setProvider(getUserProfile(proposal.getFromProfileId(), httpRequest));
-
-      if (includeUser) proposal.setUser(getUserProfile(proposal.getToProfileId(), httpRequest));
-
-      proposals.add(proposal);
-    }
+    List<Proposal> proposals = getProposals(requests, includeProvider, includeUser);
 
     ResponseMessage msg =
         new ResponseMessage(HttpStatus.OK.value(), proposals, httpRequest.getRequestURI());
@@ -1639,47 +1772,191 @@ public class RequestController {
       HttpServletRequest httpRequest)
       throws GetUserProfileException {
 
-    Iterable<Request> requests;
+    Iterable<Request> requests =
+        requestService.findRequests(
+            RequestSearch.builder()
+                .toProfileId(toProfileId)
+                .type(Request.TYPE_PRO)
+                .statuses(getStatuses(status))
+                .build());
+
+    List<Proposal> proposals = getProposals(requests, includeProvider, includeUser);
+
+    ResponseMessage msg =
+        new ResponseMessage(HttpStatus.OK.value(), proposals, httpRequest.getRequestURI());
+
+    return ResponseEntity.ok(msg);
+  }
+
+  /**
+   * Gets contract by {@code requestId}.
+   *
+   * @param requestId the id of the request for funding
+   * @return the contract, including its fundings
+   * @throws GetContractException any exception thrown when retrieving the contract
+   */
+  public Contract getContract(int requestId) throws GetContractException {
+    try {
+      return loader.getContract(requestId);
+    } catch (GatewayException ex) {
+      throw new GetContractException(ex.getMessage());
+    }
+  }
+
+  /**
+   * Loads the contracts of a list of request for fundings in a single batch.
+   *
+   * @param requestIds the ids of the request for fundings
+   * @throws GetContractException any exception thrown when retrieving the contracts
+   */
+  protected void loadContracts(Collection<Integer> requestIds) throws GetContractException {
+    try {
+      loader.loadContracts(requestIds);
+    } catch (GatewayException ex) {
+      throw new GetContractException(ex.getMessage());
+    }
+  }
+
+  /**
+   * Gets the distinct ids referenced by a list of requests.
+   *
+   * @param requests the requests
+   * @param mapper the function returning the id referenced by a request
+   * @param <T> the type of the requests
+   * @return the set of ids, {@code null} ids are left out
+   */
+  protected static <T extends Request> Set<Integer> getIds(
+      Collection<T> requests, Function<T, Integer> mapper) {
+    return requests.stream().map(mapper).filter(Objects::nonNull).collect(Collectors.toSet());
+  }
 
-    if (status.length() > 0)
-      requests =
-          requestService.getRequestsByToProfileIdAndTypeAndStatus(
-              toProfileId, Request.TYPE_PRO, status);
-    else requests = requestService.getRequestsByToProfileIdAndType(toProfileId, Request.TYPE_PRO);
+  /**
+   * Gets the statuses of a search from an optional status.
+   *
+   * @param status the status, empty for any status
+   * @return the list of the status, empty if none
+   */
+  protected static List<String> getStatuses(String status) {
+    return status.isEmpty() ? List.of() : List.of(status);
+  }
 
-    ArrayList<Proposal> proposals = new ArrayList<Proposal>();
+  /**
+   * Converts requests to proposals, the profiles of the solution providers and users are loaded in
+   * a single batch.
+   *
+   * @param requests the requests
+   * @param includeProvider when {@code true}, includes the profiles of the solution providers in
+   *     the returned proposals
+   * @param includeUser when {@code true}, includes the profiles of the users in the returned
+   *     proposals
+   * @return the list of proposals
+   * @throws GetUserProfileException any exception thrown when retrieving the user profiles
+   */
+  protected List<Proposal> getProposals(
+      Iterable<Request> requests, boolean includeProvider, boolean includeUser)
+      throws GetUserProfileException {
+
+    List<Proposal> proposals = new ArrayList<Proposal>();
 
-    for (Request request : requests) {
-      Proposal proposal = new Proposal(request);
+    for (Request request : requests) proposals.add(new Proposal(request));
 
-      if (includeProvider)
-        proposal.setProvider(getUserProfile(proposal.getFromProfileId(), httpRequest));
+    Set<Integer> profileIds = new HashSet<>();
 
-      if (includeUser) proposal.setUser(getUserProfile(proposal.getToProfileId(), httpRequest));
+    if (includeProvider) profileIds.addAll(getIds(proposals, Request::getFromProfileId));
+    if (includeUser) profileIds.addAll(getIds(proposals, Request::getToProfileId));
 
-      proposals.add(proposal);
+    loadUserProfiles(profileIds);
+
+    for (Proposal proposal : proposals) {
+      if (includeProvider) proposal.setProvider(getUserProfile(proposal.getFromProfileId()));
+      if (includeUser) proposal.setUser(getUserProfile(proposal.getToProfileId()));
     }
 
-    ResponseMessage msg =
-        new ResponseMessage(HttpStatus.OK.value(), proposals, httpRequest.getRequestURI());
+    return proposals;
+  }
 
-    return ResponseEntity.ok(msg);
+  /**
+   * Gets the proposals of a list of request for proposals in a single query.
+   *
+   * @param rfpIds the ids of the request for proposals
+   * @param includeProvider when {@code true}, includes the profiles of the solution providers in
+   *     the returned proposals
+   * @param includeUser when {@code true}, includes the profiles of the users in the returned
+   *     proposals
+   * @return the proposals keyed by the id of their request for proposal
+   * @throws GetUserProfileException any exception thrown when retrieving the user profiles
+   */
+  protected Map<Integer, List<Request>> getProposalsByRfpIds(
+      Collection<Integer> rfpIds, boolean includeProvider, boolean includeUser)
+      throws GetUserProfileException {
+
+    if (rfpIds.isEmpty()) return new HashMap<>();
+
+    List<Proposal> proposals =
+        getProposals(
+            requestService.getRequestsByRequestIds(rfpIds), includeProvider, includeUser);
+
+    return proposals.stream()
+        .collect(
+            Collectors.groupingBy(
+                Request::getRequestId,
+                Collectors.mapping(proposal -> (Request) proposal, Collectors.toList())));
   }
 
-  public Contract getContract(int requestId, HttpServletRequest request) throws RequestException {
+  /**
+   * Includes the user profiles, proposals and contracts in a list of request for fundings. Each
+   * type of entity is loaded in a single batch, regardless of the number of request for fundings.
+   *
+   * @param rffs the request for fundings
+   * @param includeUser when {@code true}, includes the profile of the user
+   * @param includeProposal when {@code true}, includes the proposal the request for funding is
+   *     based on
+   * @param includeProvider when {@code true}, includes the profile of the solution provider in the
+   *     proposal
+   * @param includeProposalUser when {@code true}, includes the profile of the user in the proposal
+   * @param includeContract when {@code true}, includes the contract
+   * @throws RequestException any exception thrown when retrieving the related entities
+   * @throws EntityNotFoundException if the proposal of a request for funding is not found
+   */
+  protected void enrichRequestForFundings(
+      List<RequestForFunding> rffs,
+      boolean includeUser,
+      boolean includeProposal,
+      boolean includeProvider,
+      boolean includeProposalUser,
+      boolean includeContract)
+      throws RequestException, EntityNotFoundException {
+
+    if (includeUser) loadUserProfiles(getIds(rffs, Request::getFromProfileId));
+
+    Map<Integer, Proposal> proposals = new HashMap<>();
+
+    if (includeProposal) {
+      Iterable<Request> requests =
+          requestService.getRequestsByIds(getIds(rffs, Request::getRequestId));
+
+      for (Request request : requests)
+        if (!request.isPRO()) throw new InvalidRequestTypeException(request.getType());
+
+      for (Proposal proposal : getProposals(requests, includeProvider, includeProposalUser))
+        proposals.put(proposal.getId(), proposal);
+    }
+
+    if (includeContract) loadContracts(getIds(rffs, Request::getId));
+
+    for (RequestForFunding rff : rffs) {
+      if (includeUser) rff.setFromUser(getUserProfile(rff.getFromProfileId()));
 
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(request));
+      if (includeProposal) {
+        Proposal proposal = proposals.get(rff.getRequestId());
 
-    String url = urlBase + String.format(urlContractGetByRequestId, requestId);
+        if (proposal == null) throw new EntityNotFoundException(Request.class, rff.getRequestId());
 
-    ResponseMessageWithContract msg =
-        restTemplate
-            .exchange(url, HttpMethod.GET, entity, ResponseMessageWithContract.class)
-            .getBody();
+        rff.setProposal(proposal);
+      }
 
-    if (msg.isOk()) return msg.getData();
-    else throw new RequestException(msg.getMessage());
+      if (includeContract) rff.setContract(getContract(rff.getId()));
+    }
   }
 
   /**
@@ -1865,43 +2142,16 @@ public class RequestController {
       HttpServletRequest httpRequest)
       throws RequestException, EntityNotFoundException {
 
-    Iterable<Request> requests = null;
-
-    if (statuses.size() == 0) requests = requestService.getRequestsByType(Request.TYPE_RFF);
-    else {
-
-      for (String status : statuses) {
-
-        if (requests == null)
-          requests = requestService.getRequestsByTypeAndStatus(Request.TYPE_RFF, status);
-        else
-          requests =
-              Iterables.concat(
-                  requests, requestService.getRequestsByTypeAndStatus(Request.TYPE_RFF, status));
-      }
-    }
+    Iterable<Request> requests =
+        requestService.findRequests(
+            RequestSearch.builder().type(Request.TYPE_RFF).statuses(statuses).build());
 
     ArrayList<RequestForFunding> rffs = new ArrayList<RequestForFunding>();
 
-    for (Request request : requests) {
-
-      RequestForFunding rff = new RequestForFunding(request);
+    for (Request request : requests) rffs.add(new RequestForFunding(request));
 
-      if (includeUser) rff.setFromUser(getUserProfile(rff.getFromProfileId(), httpRequest));
-
-      if (includeProposal) {
-        Proposal proposal =
-            (Proposal)
-                getProposal(rff.getRequestId(), includeProvider, false, httpRequest)
-                    .getBody()
-                    .getData();
-        rff.setProposal(proposal);
-      }
-
-      if (includeContract) rff.setContract(getContract(rff.getId(), httpRequest));
-
-      rffs.add(rff);
-    }
+    enrichRequestForFundings(
+        rffs, includeUser, includeProposal, includeProvider, false, includeContract);
 
     ResponseMessage msg =
         new ResponseMessage(HttpStatus.OK.value(), rffs, httpRequest.getRequestURI());
@@ -2036,48 +2286,20 @@ public class RequestController {
       HttpServletRequest httpRequest)
       throws RequestException, EntityNotFoundException {
 
-    Iterable<Request> requests = null;
-
-    if (statuses.size() == 0)
-      requests = requestService.getRequestsByFromProfileIdAndType(fromProfileId, Request.TYPE_RFF);
-    else {
-
-      for (String status : statuses) {
-
-        if (requests == null)
-          requests =
-              requestService.getRequestsByFromProfileIdAndTypeAndStatus(
-                  fromProfileId, Request.TYPE_RFF, status);
-        else
-          requests =
-              Iterables.concat(
-                  requests,
-                  requestService.getRequestsByFromProfileIdAndTypeAndStatus(
-                      fromProfileId, Request.TYPE_RFF, status));
-      }
-    }
+    Iterable<Request> requests =
+        requestService.findRequests(
+            RequestSearch.builder()
+                .fromProfileId(fromProfileId)
+                .type(Request.TYPE_RFF)
+                .statuses(statuses)
+                .build());
 
     ArrayList<RequestForFunding> rffs = new ArrayList<RequestForFunding>();
 
-    for (Request request : requests) {
-
-      RequestForFunding rff = new RequestForFunding(request);
-
-      if (includeUser) rff.setFromUser(getUserProfile(rff.getFromProfileId(), httpRequest));
-
-      if (includeProposal) {
-        Proposal proposal =
-            (Proposal)
-                getProposal(rff.getRequestId(), includeProvider, false, httpRequest)
-                    .getBody()
-                    .getData();
-        rff.setProposal(proposal);
-      }
-
-      if (includeContract) rff.setContract(getContract(rff.getId(), httpRequest));
+    for (Request request : requests) rffs.add(new RequestForFunding(request));
 
-      rffs.add(rff);
-    }
+    enrichRequestForFundings(
+        rffs, includeUser, includeProposal, includeProvider, false, includeContract);
 
     ResponseMessage msg =
         new ResponseMessage(HttpStatus.OK.value(), rffs, httpRequest.getRequestURI());
@@ -2218,30 +2440,13 @@ public class RequestController {
       HttpServletRequest httpRequest)
       throws RequestException, EntityNotFoundException {
 
-    Iterable<RequestForFunding> rffs = requestService.getRequestForFundingsFor(providerId);
-
-    ArrayList<RequestForFunding> selected = new ArrayList<RequestForFunding>();
-
-    ResponseMessage msg;
-
-    for (RequestForFunding rff : rffs)
-      if (statuses.size() == 0 || statuses.contains(rff.getStatus())) {
-        if (includeUser) rff.setFromUser(getUserProfile(rff.getFromProfileId(), httpRequest));
+    List<RequestForFunding> selected =
+        requestService.getRequestForFundingsFor(providerId, statuses);
 
-        if (includeProposal) {
+    enrichRequestForFundings(selected, includeUser, includeProposal, false, true, includeContract);
 
-          msg = getProposal(rff.getRequestId(), false, true, httpRequest).getBody();
-
-          if (msg.isOk()) rff.setProposal((Proposal) msg.getData());
-          else throw new GetProposalException(msg.getMessage());
-        }
-
-        if (includeContract) rff.setContract(getContract(rff.getId(), httpRequest));
-
-        selected.add(rff);
-      }
-
-    msg = new ResponseMessage(HttpStatus.OK.value(), selected, httpRequest.getRequestURI());
+    ResponseMessage msg =
+        new ResponseMessage(HttpStatus.OK.value(), selected, httpRequest.getRequestURI());
 
     return ResponseEntity.ok(msg);
   }
@@ -2283,23 +2488,22 @@ public class RequestController {
       HttpServletRequest httpRequest)
       throws RequestException {
 
-    Iterable<Request> requests = null;
-
-    if (status.length() > 0)
-      requests =
-          requestService.getRequestsByFromProfileIdAndTypeAndStatus(
-              fromProfileId, Request.TYPE_RPY, status);
-    else
-      requests = requestService.getRequestsByFromProfileIdAndType(fromProfileId, Request.TYPE_RPY);
+    Iterable<Request> requests =
+        requestService.findRequests(
+            RequestSearch.builder()
+                .fromProfileId(fromProfileId)
+                .type(Request.TYPE_RPY)
+                .statuses(getStatuses(status))
+                .build());
 
     ArrayList<RequestForPayment> rpys = new ArrayList<RequestForPayment>();
 
-    for (Request request : requests) {
-      RequestForPayment rpy = new RequestForPayment(request);
+    for (Request request : requests) rpys.add(new RequestForPayment(request));
 
-      if (includeToUser) rpy.setToProfile(getUserProfile(rpy.getToProfileId(), httpRequest));
+    if (includeToUser) {
+      loadUserProfiles(getIds(rpys, Request::getToProfileId));
 
-      rpys.add(rpy);
+      for (RequestForPayment rpy : rpys) rpy.setToProfile(getUserProfile(rpy.getToProfileId()));
     }
 
     ResponseMessage msg =
@@ -2345,23 +2549,23 @@ public class RequestController {
       HttpServletRequest httpRequest)
       throws RequestException {
 
-    Iterable<Request> requests = null;
-
-    if (status.length() > 0)
-      requests =
-          requestService.getRequestsByToProfileIdAndTypeAndStatus(
-                  toProfileId, Request.TYPE_RPY, status);
-    else
-      requests = requestService.getRequestsByToProfileIdAndType(toProfileId, Request.TYPE_RPY);
+    Iterable<Request> requests =
+        requestService.findRequests(
+            RequestSearch.builder()
+                .toProfileId(toProfileId)
+                .type(Request.TYPE_RPY)
+                .statuses(getStatuses(status))
+                .build());
 
     ArrayList<RequestForPayment> rpys = new ArrayList<RequestForPayment>();
 
-    for (Request request : requests) {
-      RequestForPayment rpy = new RequestForPayment(request);
+    for (Request request : requests) rpys.add(new RequestForPayment(request));
 
-      if (includeFromUser) rpy.setFromProfile(getUserProfile(rpy.getFromProfileId(), httpRequest));
+    if (includeFromUser) {
+      loadUserProfiles(getIds(rpys, Request::getFromProfileId));
 
-      rpys.add(rpy);
+      for (RequestForPayment rpy : rpys)
+        rpy.setFromProfile(getUserProfile(rpy.getFromProfileId()));
     }
 
     ResponseMessage msg =
@@ -2485,10 +2689,10 @@ public class RequestController {
     Request request = requestService.getRequestById(id);
 
     if (includeFromProfile)
-      request.setFromProfile(getUserProfile(request.getFromProfileId(), httpRequest));
+      request.setFromProfile(getUserProfile(request.getFromProfileId()));
 
     if (includeToProfile)
-      request.setToProfile(getUserProfile(request.getToProfileId(), httpRequest));
+      request.setToProfile(getUserProfile(request.getToProfileId()));
 
     ResponseMessage msg =
         new ResponseMessage(HttpStatus.OK.value(), request, httpRequest.getRequestURI());
@@ -2497,27 +2701,32 @@ public class RequestController {
   }
 
   /**
-   * Gets user profile by {@code id}.
+   * Gets product by {@code id}.
    *
    * @param productId the product id
-   * @param request the http request
    * @return the product
    * @throws GetProductException any exception thrown when retrieving the product
    */
-  protected Product getProduct(int productId, HttpServletRequest request)
-      throws GetProductException {
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(request));
-
-    String url = urlBase + String.format(urlProductGetById, productId);
-
-    ResponseMessageWithProduct msg =
-        restTemplate
-            .exchange(url, HttpMethod.GET, entity, ResponseMessageWithProduct.class)
-            .getBody();
+  protected Product getProduct(int productId) throws GetProductException {
+    try {
+      return loader.getProduct(productId);
+    } catch (GatewayException ex) {
+      throw new GetProductException(ex.getMessage());
+    }
+  }
 
-    if (msg.isOk()) return msg.getData();
-    else throw new GetProductException(msg.getMessage());
+  /**
+   * Loads the products of a list of product ids in a single batch.
+   *
+   * @param ids the product ids
+   * @throws GetProductException any exception thrown when retrieving the products
+   */
+  protected void loadProducts(Collection<Integer> ids) throws GetProductException {
+    try {
+      loader.loadProducts(ids);
+    } catch (GatewayException ex) {
+      throw new GetProductException(ex.getMessage());
+    }
   }
 
   /**
@@ -2725,16 +2934,15 @@ public class RequestController {
 
     ResponseMessage msg;
 
-    if (includeUser) rfp.setFromUser(getUserProfile(rfp.getFromProfileId(), request));
+    if (includeUser) rfp.setFromUser(getUserProfile(rfp.getFromProfileId()));
 
-    if (includeProposals) {
-      msg = getProposalsFor(id, includeProvider, Boolean.FALSE, request).getBody();
-
-      if (msg.isOk()) rfp.setProposals((List<Request>) msg.getData());
-    }
+    if (includeProposals)
+      rfp.setProposals(
+          getProposalsByRfpIds(Collections.singleton(id), includeProvider, false)
+              .getOrDefault(id, new ArrayList<>()));
 
     if (includeProduct) {
-      rfp.setProduct(getProduct(rfp.getProductId(), request));
+      rfp.setProduct(getProduct(rfp.getProductId()));
     }
 
     msg = new ResponseMessage(HttpStatus.OK.value(), rfp, request.getRequestURI());
@@ -2746,24 +2954,29 @@ public class RequestController {
    * Gets user profile by {@code id}.
    *
    * @param id the profile id
-   * @param request the http request
    * @return the user profile
    * @throws GetUserProfileException any exception thrown when retrieving the user profile
    */
-  protected UserProfile getUserProfile(int id, HttpServletRequest request)
-      throws GetUserProfileException {
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(request));
-
-    String url = urlBase + String.format(urlProfileGetById, id);
-
-    ResponseMessageWithUserProfile msg =
-        restTemplate
-            .exchange(url, HttpMethod.GET, entity, ResponseMessageWithUserProfile.class)
-            .getBody();
+  protected UserProfile getUserProfile(int id) throws GetUserProfileException {
+    try {
+      return loader.getProfile(id);
+    } catch (GatewayException ex) {
+      throw new GetUserProfileException(ex.getMessage());
+    }
+  }
 
-    if (msg.isOk()) return msg.getData();
-    else throw new GetUserProfileException(msg.getMessage());
+  /**
+   * Loads the user profiles of a list of profile ids in a single batch.
+   *
+   * @param ids the profile ids
+   * @throws GetUserProfileException any exception thrown when retrieving the user profiles
+   */
+  protected void loadUserProfiles(Collection<Integer> ids) throws GetUserProfileException {
+    try {
+      loader.loadProfiles(ids);
+    } catch (GatewayException ex) {
+      throw new GetUserProfileException(ex.getMessage());
+    }
   }
 
   /**
@@ -2925,8 +3138,8 @@ public class RequestController {
 
     Proposal proposal = requestService.getProposal(id);
 
-    if (includeProvider) proposal.setProvider(getUserProfile(proposal.getFromProfileId(), request));
-    if (includeUser) proposal.setUser(getUserProfile(proposal.getToProfileId(), request));
+    if (includeProvider) proposal.setProvider(getUserProfile(proposal.getFromProfileId()));
+    if (includeUser) proposal.setUser(getUserProfile(proposal.getToProfileId()));
 
     ResponseMessage msg =
         new ResponseMessage(HttpStatus.OK.value(), proposal, request.getRequestURI());
@@ -3001,8 +3214,8 @@ public class RequestController {
 
     RequestForPayment rpy = requestService.getRequestForPayment(id);
 
-    if (includeFromUser) rpy.setFromProfile(getUserProfile(rpy.getFromProfileId(), request));
-    if (includeToUser) rpy.setToProfile(getUserProfile(rpy.getToProfileId(), request));
+    if (includeFromUser) rpy.setFromProfile(getUserProfile(rpy.getFromProfileId()));
+    if (includeToUser) rpy.setToProfile(getUserProfile(rpy.getToProfileId()));
 
     ResponseMessage msg = new ResponseMessage(HttpStatus.OK.value(), rpy, request.getRequestURI());
 
@@ -3130,25 +3343,19 @@ public class RequestController {
     return ResponseEntity.ok(msg);
   }
 
-  public Contract createContract(Contract contract, HttpServletRequest httpRequest)
-      throws CreateContractException, JsonProcessingException {
-
-    String jsonContract = objectMapper.writeValueAsString(contract);
-
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(jsonContract, getHttpHeaders(httpRequest));
-
-    ResponseMessageWithContract msg =
-        restTemplate
-            .exchange(
-                urlBase + urlContractCreate,
-                HttpMethod.POST,
-                entity,
-                ResponseMessageWithContract.class)
-            .getBody();
-
-    if (msg.isOk()) return msg.getData();
-    else throw new CreateContractException(msg.getMessage());
+  /**
+   * Creates a contract.
+   *
+   * @param contract the contract
+   * @return the contract created with the auto-generated {@code id}
+   * @throws CreateContractException any exception thrown when creating the contract
+   */
+  public Contract createContract(Contract contract) throws CreateContractException {
+    try {
+      return contractGateway.createContract(contract);
+    } catch (GatewayException ex) {
+      throw new CreateContractException(ex.getMessage());
+    }
   }
 
   /**
@@ -3278,7 +3485,7 @@ public class RequestController {
       })
   public ResponseEntity<ResponseMessage> createRequestForFunding(
       @Valid @RequestBody Request request, BindingResult result, HttpServletRequest httpRequest)
-      throws CreateContractException, EntityNotFoundException, JsonProcessingException {
+      throws CreateContractException, EntityNotFoundException {
 
     String uri = httpRequest.getRequestURI();
 
@@ -3289,7 +3496,7 @@ public class RequestController {
 
     // Create a contract instance based on the request for funding
     Contract contract = new Contract(request);
-    contract = createContract(contract, httpRequest);
+    contract = createContract(contract);
 
     // Return both the request for funding and the contract
     Object[] array = new Object[] {created, contract};
@@ -0,0 +1,249 @@
+package com.aestus.api.request.counter;
+
+import com.aestus.api.common.cache.CacheInvalidator;
+import com.aestus.api.request.model.Request;
+import com.aestus.api.request.model.RequestCount;
+import com.aestus.api.request.model.RequestCounts;
+import com.aestus.api.request.repository.RequestCountRepository;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The request counts of the profiles, by direction, type and status. The counts are incremented in
+ * the transaction of the request created, updated or deleted, and the counts of a profile are read
+ * with one primary key range read, then served from a bounded in-memory cache.
+ *
+ * <p>The cached counts of a profile are evicted when its counts change, again after the
+ * transaction completes, so that a read in between cannot cache counts not committed yet. The
+ * other nodes evict them on the invalidation written in the transaction.
+ */
+@Slf4j
+public class RequestCounter {
+  public static final String CACHE_NAME = "request-counts";
+
+  private final RequestCountRepository repository;
+  private final TransactionTemplate transactionTemplate;
+  private final CacheInvalidator cacheInvalidator;
+  private final Cache<Integer, RequestCounts> cache;
+
+  /**
+   * Creates a counter, call {@link #start()} before counting.
+   *
+   * @param repository the repository of the counts
+   * @param transactionTemplate the template of the transaction recounting the requests
+   * @param cacheInvalidator the invalidator of the caches of the nodes
+   * @param cacheSize the maximum number of profiles whose counts are cached
+   */
+  public RequestCounter(
+      RequestCountRepository repository,
+      TransactionTemplate transactionTemplate,
+      CacheInvalidator cacheInvalidator,
+      int cacheSize) {
+    this.repository = repository;
+    this.transactionTemplate = transactionTemplate;
+    this.cacheInvalidator = cacheInvalidator;
+    this.cache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+
+    cacheInvalidator.register(
+        CACHE_NAME,
+        new CacheInvalidator.Listener() {
+          @Override
+          public void invalidate(String key, LocalDateTime timestamp) {
+            if (Objects.isNull(key)) cache.invalidateAll();
+            else cache.invalidate(Integer.valueOf(key));
+          }
+
+          @Override
+          public void flush() {
+            cache.invalidateAll();
+          }
+        });
+  }
+
+  /** Recounts the requests if there are no counts yet, e.g. on the first start of the counts. */
+  public void start() {
+    if (repository.count() == 0) recount();
+  }
+
+  /**
+   * Gets the request counts of a profile.
+   *
+   * @param profileId the profile id
+   * @return the counts
+   */
+  public RequestCounts getCounts(int profileId) {
+    try {
+      return cache.get(
+          profileId,
+          () -> new RequestCounts(profileId, List.copyOf(repository.findByProfileId(profileId))));
+    } catch (ExecutionException ex) {
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+
+  /**
+   * Counts a request created.
+   *
+   * @param request the request
+   */
+  public void added(Request request) {
+    apply(new Deltas().add(request, request.getStatus(), 1));
+  }
+
+  /**
+   * Uncounts the requests deleted.
+   *
+   * @param requests the requests
+   */
+  public void removed(Collection<Request> requests) {
+    Deltas deltas = new Deltas();
+
+    for (Request request : requests) deltas.add(request, request.getStatus(), -1);
+
+    apply(deltas);
+  }
+
+  /**
+   * Moves the count of a request updated, if its profiles, type or status changed.
+   *
+   * @param before the request before the update
+   * @param after the request after the update
+   */
+  public void changed(Request before, Request after) {
+    apply(new Deltas().add(before, before.getStatus(), -1).add(after, after.getStatus(), 1));
+  }
+
+  /**
+   * Moves the counts of the requests whose status changed.
+   *
+   * @param requests the requests, in their status before the change
+   * @param status the status after the change
+   */
+  public void changed(Collection<Request> requests, String status) {
+    Deltas deltas = new Deltas();
+
+    for (Request request : requests)
+      deltas.add(request, request.getStatus(), -1).add(request, status, 1);
+
+    apply(deltas);
+  }
+
+  /** Deletes all counts, when all requests are deleted. */
+  public void clear() {
+    repository.deleteAllCounts();
+    invalidateAll();
+  }
+
+  /** Replaces all counts by a recount of the requests. */
+  public void recount() {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          repository.deleteAllCounts();
+
+          int from = repository.recountFrom();
+          int to = repository.recountTo();
+
+          log.info("Recounted the requests, {} from and {} to counts", from, to);
+        });
+
+    invalidateAll();
+  }
+
+  /**
+   * Increments the counts changed, once per count however many requests changed it. The counts
+   * are incremented in key order, so concurrent transactions lock their rows in the same order.
+   *
+   * @param deltas the deltas of the counts
+   */
+  private void apply(Deltas deltas) {
+    deltas.forEach(
+        (key, delta) -> {
+          if (delta != 0)
+            repository.increment(
+                key.getProfileId(), key.getDirection(), key.getType(), key.getStatus(), delta);
+        });
+
+    deltas.keySet().stream()
+        .map(RequestCount.Key::getProfileId)
+        .distinct()
+        .forEach(this::invalidate);
+  }
+
+  private void invalidate(Integer profileId) {
+    cache.invalidate(profileId);
+    cacheInvalidator.publish(CACHE_NAME, String.valueOf(profileId));
+
+    if (TransactionSynchronizationManager.isSynchronizationActive())
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              cache.invalidate(profileId);
+            }
+          });
+  }
+
+  private void invalidateAll() {
+    cache.invalidateAll();
+    cacheInvalidator.publish(CACHE_NAME, null);
+
+    if (TransactionSynchronizationManager.isSynchronizationActive())
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              cache.invalidateAll();
+            }
+          });
+  }
+
+  /** The deltas of the counts changed by requests, by count in key order. */
+  private static class Deltas extends TreeMap<RequestCount.Key, Long> {
+
+    Deltas() {
+      super(
+          Comparator.comparing(RequestCount.Key::getProfileId)
+              .thenComparing(RequestCount.Key::getDirection)
+              .thenComparing(RequestCount.Key::getType)
+              .thenComparing(RequestCount.Key::getStatus));
+    }
+
+    /**
+     * Adds a delta to the from and the to counts of a request.
+     *
+     * @param request the request
+     * @param status the status counted
+     * @param delta the delta
+     * @return the deltas
+     */
+    Deltas add(Request request, String status, long delta) {
+      merge(
+          new RequestCount.Key(
+              request.getFromProfileId(), RequestCount.DIRECTION_FROM, request.getType(), status),
+          delta,
+          Long::sum);
+      merge(
+          new RequestCount.Key(
+              request.getToProfileId(), RequestCount.DIRECTION_TO, request.getType(), status),
+          delta,
+          Long::sum);
+
+      return this;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.aestus.api.request.gateway;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.request.model.RequestForFunding;
+
+/** Provides access to the request module from the other modules. */
+public interface RequestGateway {
+
+  /**
+   * Gets a request for funding, including the profile of the user that raised it, by {@code id}.
+   *
+   * @param id the id of the request for funding
+   * @return the request for funding
+   * @throws GatewayException if the request for funding cannot be retrieved
+   */
+  RequestForFunding getRequestForFunding(int id) throws GatewayException;
+
+  /**
+   * Updates a request status.
+   *
+   * @param id the request id
+   * @param status the request status
+   * @throws GatewayException if the status cannot be updated
+   */
+  void updateRequestStatus(int id, String status) throws GatewayException;
+}
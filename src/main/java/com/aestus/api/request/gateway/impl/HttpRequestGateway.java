@@ -0,0 +1,42 @@
+package com.aestus.api.request.gateway.impl;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.common.gateway.HttpGateway;
+import com.aestus.api.common.model.ResponseMessage;
+import com.aestus.api.request.gateway.RequestGateway;
+import com.aestus.api.request.model.RequestForFunding;
+import com.aestus.api.request.model.swagger.ResponseMessageWithRequestForFunding;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+/** The http implementation of the request gateway, for split deployments. */
+@Component
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "http")
+public class HttpRequestGateway extends HttpGateway implements RequestGateway {
+
+  @Value("${com.aestus.request.get.id.url}")
+  private final String urlRequestGetId = null;
+
+  @Value("${com.aestus.request.update.status.url}")
+  private final String urlRequestUpdateStatus = null;
+
+  public RequestForFunding getRequestForFunding(int id) throws GatewayException {
+    return exchange(
+            String.format(urlRequestGetId, id, true, false),
+            HttpMethod.GET,
+            null,
+            ResponseMessageWithRequestForFunding.class)
+        .getData();
+  }
+
+  public void updateRequestStatus(int id, String status) throws GatewayException {
+    exchange(
+        String.format(urlRequestUpdateStatus, id, status),
+        HttpMethod.PATCH,
+        null,
+        ResponseMessage.class);
+  }
+}
@@ -0,0 +1,43 @@
+package com.aestus.api.request.gateway.impl;
+
+import com.aestus.api.common.exception.EntityNotFoundException;
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.profile.service.ProfileService;
+import com.aestus.api.request.gateway.RequestGateway;
+import com.aestus.api.request.model.RequestForFunding;
+import com.aestus.api.request.service.RequestService;
+
+import lombok.AllArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** The in-process implementation of the request gateway, calls the request service directly. */
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "local", matchIfMissing = true)
+public class LocalRequestGateway implements RequestGateway {
+
+  private final RequestService requestService;
+  private final ProfileService profileService;
+
+  public RequestForFunding getRequestForFunding(int id) throws GatewayException {
+    try {
+      RequestForFunding rff = new RequestForFunding(requestService.getRequestById(id));
+
+      rff.setFromUser(profileService.getProfileById(rff.getFromProfileId()).orElse(null));
+
+      return rff;
+    } catch (EntityNotFoundException ex) {
+      throw new GatewayException(ex);
+    }
+  }
+
+  public void updateRequestStatus(int id, String status) throws GatewayException {
+    try {
+      requestService.updateRequestStatus(id, status);
+    } catch (EntityNotFoundException ex) {
+      throw new GatewayException(ex);
+    }
+  }
+}
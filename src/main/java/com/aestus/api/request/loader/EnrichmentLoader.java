@@ -0,0 +1,163 @@
+package com.aestus.api.request.loader;
+
+import com.aestus.api.common.exception.EntityNotFoundException;
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.contract.gateway.ContractGateway;
+import com.aestus.api.contract.model.Contract;
+import com.aestus.api.product.gateway.ProductGateway;
+import com.aestus.api.product.model.Product;
+import com.aestus.api.profile.gateway.ProfileGateway;
+import com.aestus.api.profile.model.UserProfile;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * Loads the profiles, products and contracts used to enrich the requests returned by an http
+ * request. Ids are collected with the {@code load} methods and resolved in one batch per entity
+ * type, the results are kept for the lifetime of the http request so rows that share an id are
+ * only looked up once.
+ */
+@Slf4j
+@Component
+@RequestScope
+public class EnrichmentLoader {
+
+  private final Batch<UserProfile> profiles;
+  private final Batch<Product> products;
+  private final Batch<Contract> contracts;
+
+  /**
+   * Instantiates a new enrichment loader.
+   *
+   * @param profileGateway the profile gateway
+   * @param productGateway the product gateway
+   * @param contractGateway the contract gateway
+   */
+  public EnrichmentLoader(
+      ProfileGateway profileGateway,
+      ProductGateway productGateway,
+      ContractGateway contractGateway) {
+    this.profiles = new Batch<>(UserProfile.class, profileGateway::getProfilesByIds);
+    this.products = new Batch<>(Product.class, productGateway::getProductsByIds);
+    this.contracts = new Batch<>(Contract.class, contractGateway::getContractsByRequestIds);
+  }
+
+  /**
+   * Loads the user profiles of a list of profile ids in a single batch.
+   *
+   * @param ids the profile ids
+   * @throws GatewayException if the user profiles cannot be retrieved
+   */
+  public void loadProfiles(Collection<Integer> ids) throws GatewayException {
+    profiles.load(ids);
+  }
+
+  /**
+   * Gets a user profile by {@code id}, loading it if it is not loaded yet.
+   *
+   * @param id the profile id
+   * @return the user profile
+   * @throws GatewayException if the user profile cannot be retrieved or does not exist
+   */
+  public UserProfile getProfile(int id) throws GatewayException {
+    return profiles.get(id);
+  }
+
+  /**
+   * Loads the products of a list of product ids in a single batch.
+   *
+   * @param ids the product ids
+   * @throws GatewayException if the products cannot be retrieved
+   */
+  public void loadProducts(Collection<Integer> ids) throws GatewayException {
+    products.load(ids);
+  }
+
+  /**
+   * Gets a product by {@code id}, loading it if it is not loaded yet.
+   *
+   * @param id the product id
+   * @return the product
+   * @throws GatewayException if the product cannot be retrieved or does not exist
+   */
+  public Product getProduct(int id) throws GatewayException {
+    return products.get(id);
+  }
+
+  /**
+   * Loads the contracts of a list of request for funding ids in a single batch.
+   *
+   * @param requestIds the request for funding ids
+   * @throws GatewayException if the contracts cannot be retrieved
+   */
+  public void loadContracts(Collection<Integer> requestIds) throws GatewayException {
+    contracts.load(requestIds);
+  }
+
+  /**
+   * Gets a contract by {@code requestId}, loading it if it is not loaded yet.
+   *
+   * @param requestId the request for funding id
+   * @return the contract, including its fundings
+   * @throws GatewayException if the contract cannot be retrieved or does not exist
+   */
+  public Contract getContract(int requestId) throws GatewayException {
+    return contracts.get(requestId);
+  }
+
+  /** Retrieves a map of entities keyed by id. */
+  @FunctionalInterface
+  private interface BatchFunction<T> {
+    Map<Integer, T> apply(Collection<Integer> ids) throws GatewayException;
+  }
+
+  /** The entities of one type loaded so far, ids that were not found are kept as {@code null}. */
+  private static class Batch<T> {
+
+    private final Class<T> entityClass;
+    private final BatchFunction<T> function;
+    private final Map<Integer, T> entities = new HashMap<>();
+
+    private Batch(Class<T> entityClass, BatchFunction<T> function) {
+      this.entityClass = entityClass;
+      this.function = function;
+    }
+
+    private void load(Collection<Integer> ids) throws GatewayException {
+
+      // Only look up the distinct ids that are not loaded yet
+      Set<Integer> pending = new HashSet<>();
+
+      for (Integer id : ids) if (id != null && !entities.containsKey(id)) pending.add(id);
+
+      if (pending.isEmpty()) return;
+
+      log.debug("Loading {} {}(s)", pending.size(), entityClass.getSimpleName());
+
+      Map<Integer, T> loaded = function.apply(pending);
+
+      for (Integer id : pending) entities.put(id, loaded.get(id));
+    }
+
+    private T get(int id) throws GatewayException {
+
+      load(Collections.singleton(id));
+
+      T entity = entities.get(id);
+
+      if (entity == null) throw new GatewayException(new EntityNotFoundException(entityClass, id));
+
+      return entity;
+    }
+  }
+}
@@ -14,6 +14,10 @@ import java.time.LocalDateTime;
 /**
  * The type Request. There can be different request types indicated by the {@code type} variable
  * e.g. RFP for request for proposal, PRO for proposal, RFF for request for funding
+ *
+ * <p>There is an index for each access path of the {@code RequestRepository}: by from profile, to
+ * profile, type or linked request, each followed by the type and status it is filtered on. InnoDB
+ * appends the primary key to the secondary indexes, so the results ordered by id need no sort.
  */
 @Data
 @Builder(toBuilder = true)
@@ -23,8 +27,10 @@ import java.time.LocalDateTime;
 @Table(
     name = "requests",
     indexes = {
-      @Index(name = "idx_fromProfileId_title", columnList = "fromProfileId, title"),
-      @Index(name = "idx_toProfileId_title", columnList = "toProfileId, title")
+      @Index(name = "idx_fromProfileId_type_status", columnList = "fromProfileId, type, status"),
+      @Index(name = "idx_toProfileId_type_status", columnList = "toProfileId, type, status"),
+      @Index(name = "idx_type_status", columnList = "type, status"),
+      @Index(name = "idx_requestId_type_status", columnList = "requestId, type, status")
     })
 public class Request {
 
@@ -0,0 +1,63 @@
+package com.aestus.api.request.model;
+
+import java.io.Serializable;
+
+import javax.persistence.*;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The number of requests of a profile in one direction, type and status. The counts are kept up to
+ * date by the request service, so that the badges of a profile are read without the requests.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "request_counts")
+@IdClass(RequestCount.Key.class)
+public class RequestCount {
+
+  /** The requests sent by the profile. */
+  public static final String DIRECTION_FROM = "FROM";
+
+  /** The requests received by the profile. */
+  public static final String DIRECTION_TO = "TO";
+
+  @Id
+  @Column(nullable = false)
+  private Integer profileId;
+
+  /** The direction of the requests, {@code FROM} or {@code TO} the profile. */
+  @Id
+  @Column(nullable = false, length = 4)
+  private String direction;
+
+  @Id
+  @Column(nullable = false, length = 10)
+  private String type;
+
+  @Id
+  @Column(nullable = false, length = 10)
+  private String status;
+
+  @Column(nullable = false)
+  private Long count;
+
+  /** The primary key of a count. */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+
+    private Integer profileId;
+
+    private String direction;
+
+    private String type;
+
+    private String status;
+  }
+}
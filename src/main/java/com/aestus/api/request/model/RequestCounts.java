@@ -0,0 +1,36 @@
+package com.aestus.api.request.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** The request counts of a profile, the badges of its requests. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestCounts {
+
+  private Integer profileId;
+
+  /** The counts, only the ones above zero. */
+  private List<RequestCount> counts;
+
+  /**
+   * Gets the number of requests in a direction, type and status.
+   *
+   * @param direction the direction, {@code FROM} or {@code TO} the profile
+   * @param type the request type
+   * @param status the request status
+   * @return the number of requests, 0 if there are none
+   */
+  public long getCount(String direction, String type, String status) {
+    for (RequestCount count : counts)
+      if (count.getDirection().equals(direction)
+          && count.getType().equals(type)
+          && count.getStatus().equals(status)) return count.getCount();
+
+    return 0;
+  }
+}
@@ -0,0 +1,71 @@
+package com.aestus.api.request.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The position of a request in the results of a search, in a {@link RequestSort} order. A page
+ * starts right after the cursor, so its query seeks in the index instead of skipping the rows of
+ * the previous pages.
+ */
+@Data
+@AllArgsConstructor
+public class RequestCursor {
+
+  private RequestSort sort;
+
+  /** The value of the sorted attribute. */
+  private Comparable<?> value;
+
+  private Integer id;
+
+  /**
+   * Gets the cursor right after a request.
+   *
+   * @param request the request
+   * @param sort the order of the search
+   * @return the cursor
+   */
+  public static RequestCursor of(Request request, RequestSort sort) {
+    return new RequestCursor(sort, sort.getValue(request), request.getId());
+  }
+
+  /**
+   * Encodes the cursor into an opaque url-safe string.
+   *
+   * @return the encoded cursor
+   */
+  public String encode() {
+    String value = sort.name() + "," + this.value + "," + id;
+
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a cursor returned by {@link #encode()}.
+   *
+   * @param cursor the encoded cursor
+   * @return the cursor
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  public static RequestCursor decode(String cursor) {
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int first = value.indexOf(',');
+      int last = value.lastIndexOf(',');
+      RequestSort sort = RequestSort.valueOf(value.substring(0, first));
+
+      return new RequestCursor(
+          sort,
+          sort.parseValue(value.substring(first + 1, last)),
+          Integer.parseInt(value.substring(last + 1)));
+    } catch (RuntimeException ex) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.aestus.api.request.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A page of the results of a request search, with the cursor of the next page. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestPage {
+
+  /** The requests of the page, in the order of the search. */
+  private List<Request> requests;
+
+  /** The cursor of the next page, {@code null} if this is the last page. */
+  private String nextCursor;
+}
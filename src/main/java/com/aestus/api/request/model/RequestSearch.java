@@ -0,0 +1,51 @@
+package com.aestus.api.request.model;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The criteria of a request search. A {@code null} criterion, or an empty list of statuses, does
+ * not filter, the others are all applied.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestSearch {
+
+  /** The request type, e.g. {@code RFP}. */
+  private String type;
+
+  /** The request statuses, any of them. */
+  private Collection<String> statuses;
+
+  private Integer fromProfileId;
+
+  private Integer toProfileId;
+
+  /** A profile id matching either the from or the to profile id. */
+  private Integer profileId;
+
+  /** The id of the linked request. */
+  private Integer requestId;
+
+  /** The lower bound of the cost, inclusive. */
+  private Long minCost;
+
+  /** The upper bound of the cost, inclusive. */
+  private Long maxCost;
+
+  /** The lower bound of the created timestamps, inclusive. */
+  private LocalDateTime from;
+
+  /** The upper bound of the created timestamps, exclusive. */
+  private LocalDateTime to;
+
+  /** The order of the results. */
+  @Builder.Default private RequestSort sort = RequestSort.ID_ASC;
+}
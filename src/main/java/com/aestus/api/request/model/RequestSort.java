@@ -0,0 +1,67 @@
+package com.aestus.api.request.model;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * The orders of a request search. Each order is on one attribute then on {@code id} in the same
+ * direction, so that it is total and a page can start right after the last request of the previous
+ * one.
+ */
+public enum RequestSort {
+  ID_ASC("id", true, Request::getId, Integer::valueOf),
+  CREATED_ASC("createdTimestamp", true, Request::getCreatedTimestamp, LocalDateTime::parse),
+  CREATED_DESC("createdTimestamp", false, Request::getCreatedTimestamp, LocalDateTime::parse),
+  COST_ASC("cost", true, Request::getCost, Long::valueOf),
+  COST_DESC("cost", false, Request::getCost, Long::valueOf);
+
+  private final String attribute;
+  private final boolean ascending;
+  private final Function<Request, Comparable<?>> getter;
+  private final Function<String, Comparable<?>> parser;
+
+  RequestSort(
+      String attribute,
+      boolean ascending,
+      Function<Request, Comparable<?>> getter,
+      Function<String, Comparable<?>> parser) {
+    this.attribute = attribute;
+    this.ascending = ascending;
+    this.getter = getter;
+    this.parser = parser;
+  }
+
+  /**
+   * Gets the attribute sorted on before {@code id}.
+   *
+   * @return the attribute name
+   */
+  public String getAttribute() {
+    return attribute;
+  }
+
+  public boolean isAscending() {
+    return ascending;
+  }
+
+  /**
+   * Gets the value of the sorted attribute of a request.
+   *
+   * @param request the request
+   * @return the value
+   */
+  public Comparable<?> getValue(Request request) {
+    return getter.apply(request);
+  }
+
+  /**
+   * Parses a value of the sorted attribute.
+   *
+   * @param value the value, as formatted by {@code toString}
+   * @return the value
+   * @throws RuntimeException if the value is malformed
+   */
+  public Comparable<?> parseValue(String value) {
+    return parser.apply(value);
+  }
+}
@@ -0,0 +1,20 @@
+package com.aestus.api.request.model.swagger;
+
+import com.aestus.api.common.model.ResponseMessage;
+import com.aestus.api.request.model.RequestCounts;
+
+public class ResponseMessageWithRequestCounts extends ResponseMessage {
+  @Override
+  public RequestCounts getData() {
+    return (RequestCounts) super.getData();
+  }
+
+  /**
+   * Sets data payload.
+   *
+   * @param counts the request counts
+   */
+  public void setData(RequestCounts counts) {
+    super.setData(counts);
+  }
+}
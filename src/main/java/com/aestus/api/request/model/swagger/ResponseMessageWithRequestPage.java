@@ -0,0 +1,30 @@
+package com.aestus.api.request.model.swagger;
+
+import com.aestus.api.common.model.ResponseMessage;
+
+import com.aestus.api.request.model.RequestPage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * An extended ResponseMessage with a page of Requests as the payload. Used for schema
+ * documentation in Swagger.
+ */
+@Data
+@AllArgsConstructor
+public class ResponseMessageWithRequestPage extends ResponseMessage {
+  @Override
+  public RequestPage getData() {
+    return (RequestPage) super.getData();
+  }
+
+  /**
+   * Sets data payload.
+   *
+   * @param page the page of requests
+   */
+  public void setData(RequestPage page) {
+    super.setData(page);
+  }
+}
@@ -0,0 +1,93 @@
+package com.aestus.api.request.repository;
+
+import com.aestus.api.request.model.RequestCount;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The RequestCountRepository extends the {@code CrudRepository} for basic CRUD operations on a RDBMS
+ * via Hibernate, and adds the increments of the counts.
+ */
+public interface RequestCountRepository extends CrudRepository<RequestCount, RequestCount.Key> {
+
+  /**
+   * Finds the counts of a profile, with a range read of the primary key.
+   *
+   * @param profileId the profile id
+   * @return the counts above zero
+   */
+  @Query("SELECT c FROM RequestCount c WHERE c.profileId = :profileId AND c.count > 0")
+  List<RequestCount> findByProfileId(@Param("profileId") Integer profileId);
+
+  /**
+   * Adds a delta to a count, creating the count if there is none. The read and the write are a
+   * single statement on the locked row, so concurrent increments are not lost.
+   *
+   * @param profileId the profile id
+   * @param direction the direction, {@code FROM} or {@code TO} the profile
+   * @param type the request type
+   * @param status the request status
+   * @param delta the number of requests added, negative if removed
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "INSERT INTO request_counts (profile_id, direction, type, status, count)"
+              + " VALUES (:profileId, :direction, :type, :status, :delta)"
+              + " ON DUPLICATE KEY UPDATE count = count + :delta",
+      nativeQuery = true)
+  void increment(
+      @Param("profileId") Integer profileId,
+      @Param("direction") String direction,
+      @Param("type") String type,
+      @Param("status") String status,
+      @Param("delta") long delta);
+
+  /** Deletes all counts, with a single statement. */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM RequestCount c")
+  void deleteAllCounts();
+
+  /**
+   * Recounts the requests of every profile in one direction from the requests table, replacing the
+   * counts found.
+   *
+   * @return the number of rows affected
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "INSERT INTO request_counts (profile_id, direction, type, status, count)"
+              + " SELECT from_profile_id, '"
+              + RequestCount.DIRECTION_FROM
+              + "', type, status, COUNT(*) FROM requests GROUP BY from_profile_id, type, status"
+              + " ON DUPLICATE KEY UPDATE count = VALUES(count)",
+      nativeQuery = true)
+  int recountFrom();
+
+  /**
+   * Recounts the requests received by every profile, see {@link #recountFrom()}.
+   *
+   * @return the number of rows affected
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "INSERT INTO request_counts (profile_id, direction, type, status, count)"
+              + " SELECT to_profile_id, '"
+              + RequestCount.DIRECTION_TO
+              + "', type, status, COUNT(*) FROM requests GROUP BY to_profile_id, type, status"
+              + " ON DUPLICATE KEY UPDATE count = VALUES(count)",
+      nativeQuery = true)
+  int recountTo();
+}
@@ -1,118 +1,160 @@
 package com.aestus.api.request.repository;
 
 import com.aestus.api.request.model.Request;
+import com.aestus.api.request.model.RequestForFunding;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * The RequestRepository extends the {@code CrudRepository} for basic CRUD operations on a RDBMS via
- * Hibernate.
+ * Hibernate, and the {@code RequestSearchRepository} for searches on any combination of criteria.
  */
-public interface RequestRepository extends CrudRepository<Request, Integer> {
+public interface RequestRepository
+    extends CrudRepository<Request, Integer>, RequestSearchRepository {
 
-  /**
-   * Find requests by {@code toProfileId}.
-   *
-   * @param profileId the from profile id
-   * @return list of requests
-   */
-  List<Request> findByFromProfileId(Integer profileId);
+  List<Request> findByRequestIdIn(Collection<Integer> requestIds);
 
   /**
-   * Find requests by {@code fromProfileId} and {@code type}.
+   * Find the requests of a {@code type} linked to the proposals from {@code fromProfileId} in
+   * {@code proposalStatus}, as request for fundings. The proposals are joined to their requests in
+   * one query.
    *
-   * @param profileId the from profile id
-   * @param type the type of request
-   * @return list of requests
+   * @param fromProfileId the profile id of the solution provider
+   * @param proposalType the type of the proposals
+   * @param proposalStatus the status of the proposals
+   * @param type the type of the requests linked to the proposals
+   * @return list of request for fundings
    */
-  List<Request> findByFromProfileIdAndType(Integer profileId, String type);
+  @Query(
+      "SELECT new com.aestus.api.request.model.RequestForFunding(f)"
+          + " FROM Request p, Request f WHERE f.requestId = p.id"
+          + " AND p.fromProfileId = :fromProfileId AND p.type = :proposalType"
+          + " AND p.status = :proposalStatus AND f.type = :type ORDER BY f.id")
+  List<RequestForFunding> findRequestForFundingsByProposal(
+      @Param("fromProfileId") Integer fromProfileId,
+      @Param("proposalType") String proposalType,
+      @Param("proposalStatus") String proposalStatus,
+      @Param("type") String type);
 
   /**
-   * Find requests by {@code fromProfileId}, {@code type} and {@code status}.
+   * Find the requests of a {@code type} in one of {@code statuses} linked to the proposals from
+   * {@code fromProfileId} in {@code proposalStatus}, as request for fundings.
    *
-   * @param profileId the from profile id
-   * @param type the type of request
-   * @param status the status of the request
-   * @return list of requests
+   * @param fromProfileId the profile id of the solution provider
+   * @param proposalType the type of the proposals
+   * @param proposalStatus the status of the proposals
+   * @param type the type of the requests linked to the proposals
+   * @param statuses the statuses of the requests linked to the proposals, must not be empty
+   * @return list of request for fundings
    */
-  List<Request> findByFromProfileIdAndTypeAndStatus(Integer profileId, String type, String status);
+  @Query(
+      "SELECT new com.aestus.api.request.model.RequestForFunding(f)"
+          + " FROM Request p, Request f WHERE f.requestId = p.id"
+          + " AND p.fromProfileId = :fromProfileId AND p.type = :proposalType"
+          + " AND p.status = :proposalStatus AND f.type = :type AND f.status IN :statuses"
+          + " ORDER BY f.id")
+  List<RequestForFunding> findRequestForFundingsByProposalAndStatusIn(
+      @Param("fromProfileId") Integer fromProfileId,
+      @Param("proposalType") String proposalType,
+      @Param("proposalStatus") String proposalStatus,
+      @Param("type") String type,
+      @Param("statuses") Collection<String> statuses);
 
   /**
-   * Find requests by {@code toProfileId}.
-   *
-   * @param profileId the to profile id
-   * @return list of requests
-   */
-  List<Request> findByToProfileId(Integer profileId);
-
-  /**
-   * Find requests by {@code toProfileId} and {@code type}.
-   *
-   * @param profileId the to profile id
-   * @param type the request type
-   * @return list of requests
-   */
-  List<Request> findByToProfileIdAndType(Integer profileId, String type);
-
-  /**
-   * Find requests by {@code toProfileId}, {@code type} and {@code status}.
+   * Update the status of the request identified by {@code id}.
    *
-   * @param profileId the to profile id
-   * @param type the request type
-   * @param status the status of the request
-   * @return list of requests
+   * @param id the request id
+   * @param status the status to be updated to
    */
-  List<Request> findByToProfileIdAndTypeAndStatus(Integer profileId, String type, String status);
+  @Modifying
+  @Transactional
+  @Query("UPDATE FROM Request r SET r.status = :status WHERE r.id = :id")
+  void updateStatus(Integer id, String status);
 
   /**
-   * Find requests by {@code fromProfileId} and {@code toProfileId}.
+   * Update the status of the request identified by {@code id}, only if it is still in the {@code
+   * expectedStatus}. The check and the update are a single statement on the locked row.
    *
-   * @param profileId the profile id used to match the from and to profile id
-   * @return list of requests
+   * @param id the request id
+   * @param expectedStatus the status the request must be in
+   * @param status the status to be updated to
+   * @return 1 if the request is updated, 0 if it is not found or not in the expected status
    */
-  @Query("SELECT r FROM Request r WHERE r.fromProfileId = :profileId OR r.toProfileId = :profileId")
-  List<Request> findByProfileId(Integer profileId);
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      "UPDATE FROM Request r SET r.status = :status"
+          + " WHERE r.id = :id AND r.status = :expectedStatus")
+  int updateStatusIfStatus(
+      @Param("id") Integer id,
+      @Param("expectedStatus") String expectedStatus,
+      @Param("status") String status);
 
   /**
-   * Find requests by {@code type}.
+   * Update the status of the requests linked to {@code requestId}, except the request identified
+   * by {@code id}.
    *
-   * @param type the request type
-   * @return list of requests
+   * @param requestId the linked request id
+   * @param id the id of the request left unchanged
+   * @param status the status to be updated to
+   * @return the number of requests updated
    */
-  List<Request> findByType(String type);
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      "UPDATE FROM Request r SET r.status = :status"
+          + " WHERE r.requestId = :requestId AND r.id <> :id")
+  int updateStatusByRequestIdAndIdNot(
+      @Param("requestId") Integer requestId,
+      @Param("id") Integer id,
+      @Param("status") String status);
 
   /**
-   * Find requests by {@code type} and {@code status}.
+   * Find the ids of the requests linked to {@code requestId}, except the request identified by
+   * {@code id}, and lock their rows until the end of the transaction. Being a locking read, it sees
+   * the latest committed rows, the same ones a following update with the same condition changes.
    *
-   * @param type the request type
-   * @param status the status of the request
-   * @return list of requests
+   * @param requestId the linked request id
+   * @param id the id of the request left out
+   * @return the request ids, ascending
    */
-  List<Request> findByTypeAndStatus(String type, String status);
+  @Query(
+      value =
+          "SELECT id FROM requests WHERE request_id = :requestId AND id <> :id"
+              + " ORDER BY id FOR UPDATE",
+      nativeQuery = true)
+  List<Integer> findIdsByRequestIdAndIdNotForUpdate(
+      @Param("requestId") Integer requestId, @Param("id") Integer id);
 
   /**
-   * Find requests by {@code requestId}.
+   * Find a request and lock its row until the end of the transaction.
    *
-   * @param requestId the linked request id
-   * @return list of requests
+   * @param id the request id
+   * @return the request if found
    */
-  List<Request> findByRequestId(Integer requestId);
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT r FROM Request r WHERE r.id = :id")
+  Optional<Request> findByIdForUpdate(@Param("id") Integer id);
 
   /**
-   * Update the status of the request identified by {@code id}.
+   * Find the requests sent or received by a profile and lock their rows until the end of the
+   * transaction.
    *
-   * @param id the request id
-   * @param status the status to be updated to
+   * @param profileId the profile id
+   * @return the requests found
    */
-  @Modifying
-  @Transactional
-  @Query("UPDATE FROM Request r SET r.status = :status WHERE r.id = :id")
-  void updateStatus(Integer id, String status);
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT r FROM Request r WHERE r.fromProfileId = :profileId OR r.toProfileId = :profileId")
+  List<Request> findByProfileIdForUpdate(@Param("profileId") Integer profileId);
 
   /**
    * Update the repayment of the request identified by {@code id}.
@@ -0,0 +1,25 @@
+package com.aestus.api.request.repository;
+
+import com.aestus.api.request.model.Request;
+import com.aestus.api.request.model.RequestSort;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Searches of requests on any combination of criteria, which the derived queries of the {@code
+ * CrudRepository} would need a method for each.
+ */
+public interface RequestSearchRepository {
+
+  /**
+   * Finds the requests matching a specification, with one statement.
+   *
+   * @param specification the specification
+   * @param sort the order of the requests
+   * @param limit the maximum number of requests, 0 for all of them
+   * @return the requests, in order
+   */
+  List<Request> search(Specification<Request> specification, RequestSort sort, int limit);
+}
@@ -0,0 +1,94 @@
+package com.aestus.api.request.repository;
+
+import com.aestus.api.request.model.Request;
+import com.aestus.api.request.model.RequestCursor;
+import com.aestus.api.request.model.RequestSearch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * The specifications of request searches. Each criterion of a {@link RequestSearch} is a predicate
+ * on a column of {@code requests}, all of them are combined into the {@code WHERE} clause of one
+ * statement.
+ */
+public final class RequestSpecifications {
+
+  private RequestSpecifications() {}
+
+  /**
+   * Gets the specification of the criteria of a search.
+   *
+   * @param search the search
+   * @return the specification, matching every request if there is no criterion
+   */
+  public static Specification<Request> of(RequestSearch search) {
+    return (root, query, builder) -> {
+      List<Predicate> predicates = new ArrayList<>();
+
+      if (search.getType() != null)
+        predicates.add(builder.equal(root.get("type"), search.getType()));
+      if (search.getStatuses() != null && !search.getStatuses().isEmpty())
+        predicates.add(root.get("status").in(search.getStatuses()));
+      if (search.getFromProfileId() != null)
+        predicates.add(builder.equal(root.get("fromProfileId"), search.getFromProfileId()));
+      if (search.getToProfileId() != null)
+        predicates.add(builder.equal(root.get("toProfileId"), search.getToProfileId()));
+      if (search.getProfileId() != null)
+        predicates.add(
+            builder.or(
+                builder.equal(root.get("fromProfileId"), search.getProfileId()),
+                builder.equal(root.get("toProfileId"), search.getProfileId())));
+      if (search.getRequestId() != null)
+        predicates.add(builder.equal(root.get("requestId"), search.getRequestId()));
+      if (search.getMinCost() != null)
+        predicates.add(builder.greaterThanOrEqualTo(root.get("cost"), search.getMinCost()));
+      if (search.getMaxCost() != null)
+        predicates.add(builder.lessThanOrEqualTo(root.get("cost"), search.getMaxCost()));
+      if (search.getFrom() != null)
+        predicates.add(
+            builder.greaterThanOrEqualTo(root.get("createdTimestamp"), search.getFrom()));
+      if (search.getTo() != null)
+        predicates.add(builder.lessThan(root.get("createdTimestamp"), search.getTo()));
+
+      return builder.and(predicates.toArray(new Predicate[0]));
+    };
+  }
+
+  /**
+   * Gets the specification of the requests after a cursor, in the order of its sort: a greater
+   * value of the sorted attribute, or the same value and a greater id, less if descending.
+   *
+   * @param cursor the cursor, {@code null} for the first page
+   * @return the specification, matching every request if there is no cursor
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public static Specification<Request> after(RequestCursor cursor) {
+    return (root, query, builder) -> {
+      if (cursor == null) return builder.and();
+
+      boolean ascending = cursor.getSort().isAscending();
+      Expression<Integer> id = root.get("id");
+      Predicate afterId =
+          ascending
+              ? builder.greaterThan(id, cursor.getId())
+              : builder.lessThan(id, cursor.getId());
+
+      if (cursor.getSort().getAttribute().equals("id")) return afterId;
+
+      Expression<Comparable> attribute = root.get(cursor.getSort().getAttribute());
+      Comparable value = cursor.getValue();
+
+      return builder.or(
+          ascending
+              ? builder.greaterThan(attribute, value)
+              : builder.lessThan(attribute, value),
+          builder.and(builder.equal(attribute, value), afterId));
+    };
+  }
+}
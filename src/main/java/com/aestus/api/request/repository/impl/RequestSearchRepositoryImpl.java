@@ -0,0 +1,56 @@
+package com.aestus.api.request.repository.impl;
+
+import com.aestus.api.request.model.Request;
+import com.aestus.api.request.model.RequestSort;
+import com.aestus.api.request.repository.RequestSearchRepository;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import lombok.AllArgsConstructor;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * The JPA criteria implementation of the request searches. The specification, the order and the
+ * limit are compiled into a single {@code SELECT ... WHERE ... ORDER BY ... LIMIT}, without the
+ * count query of a {@code Page}.
+ */
+@AllArgsConstructor
+public class RequestSearchRepositoryImpl implements RequestSearchRepository {
+
+  private final EntityManager entityManager;
+
+  public List<Request> search(Specification<Request> specification, RequestSort sort, int limit) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Request> query = builder.createQuery(Request.class);
+    Root<Request> root = query.from(Request.class);
+    Predicate predicate = specification.toPredicate(root, query, builder);
+
+    if (predicate != null) query.where(predicate);
+
+    Order id = sort.isAscending() ? builder.asc(root.get("id")) : builder.desc(root.get("id"));
+
+    // The id breaks the ties of the sorted attribute, in the same direction
+    if (sort.getAttribute().equals("id")) query.orderBy(id);
+    else
+      query.orderBy(
+          sort.isAscending()
+              ? builder.asc(root.get(sort.getAttribute()))
+              : builder.desc(root.get(sort.getAttribute())),
+          id);
+
+    TypedQuery<Request> typedQuery = entityManager.createQuery(query);
+
+    if (limit > 0) typedQuery.setMaxResults(limit);
+
+    return typedQuery.getResultList();
+  }
+}
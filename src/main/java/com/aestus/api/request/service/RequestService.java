@@ -5,6 +5,7 @@ import com.aestus.api.common.exception.EntityNotFoundException;
 import com.aestus.api.request.exception.InvalidRequestTypeException;
 import com.aestus.api.request.exception.RequestException;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -20,6 +21,25 @@ public interface RequestService {
    */
   Iterable<Request> getAllRequests();
 
+  /**
+   * Finds all the requests matching the criteria of a search, with one query.
+   *
+   * @param search the search
+   * @return the requests, in the order of the search
+   */
+  List<Request> findRequests(RequestSearch search);
+
+  /**
+   * Finds a page of the requests matching the criteria of a search, with one query.
+   *
+   * @param search the search
+   * @param cursor the cursor returned with the previous page, {@code null} for the first page
+   * @param limit the maximum number of requests
+   * @return the page of requests, in the order of the search
+   * @throws IllegalArgumentException if the cursor is of another order than the search
+   */
+  RequestPage searchRequests(RequestSearch search, RequestCursor cursor, int limit);
+
   /**
    * Gets requests by the {@code fromProfileId}.
    *
@@ -109,6 +129,22 @@ public interface RequestService {
    */
   Iterable<Request> getRequestsByRequestId(int requestId);
 
+  /**
+   * Gets requests by a list of {@code requestIds}.
+   *
+   * @param requestIds the related request ids
+   * @return the requests
+   */
+  Iterable<Request> getRequestsByRequestIds(Collection<Integer> requestIds);
+
+  /**
+   * Gets requests by a list of ids.
+   *
+   * @param ids the request ids
+   * @return the requests found, requests that do not exist are left out
+   */
+  Iterable<Request> getRequestsByIds(Iterable<Integer> ids);
+
   /**
    * Gets request for proposals by {@code fromProfileId}.
    *
@@ -177,14 +213,13 @@ public interface RequestService {
 
   /**
    * Gets the request for fundings from the proposals of provider {@code providerId} which has
-   * requested for funds.
+   * requested for funds, with a single query.
    *
    * @param providerId the solution provider id
+   * @param statuses the statuses of the request for fundings, all of them if empty
    * @return the request for fundings
-   * @throws InvalidRequestTypeException the type is not a request for funding
    */
-  Iterable<RequestForFunding> getRequestForFundingsFor(int providerId)
-      throws InvalidRequestTypeException;
+  List<RequestForFunding> getRequestForFundingsFor(int providerId, Collection<String> statuses);
 
   /**
    * Gets request for payments by {@code fromProfileId}.
@@ -202,6 +237,15 @@ public interface RequestService {
    */
   Iterable<RequestForPayment> getRequestForPaymentsTo(int toProfileId);
 
+  /**
+   * Gets the request counts of a profile, by direction, type and status. The counts are read from
+   * memory, or with one primary key range read.
+   *
+   * @param profileId the profile id
+   * @return the request counts
+   */
+  RequestCounts getRequestCounts(int profileId);
+
   /**
    * Creates a request.
    *
@@ -238,7 +282,10 @@ public interface RequestService {
   void updateRequestRepayment(Integer id, Long repayment) throws EntityNotFoundException;
 
   /**
-   * Accept a proposal from solution provider.
+   * Accept a proposal from solution provider. The proposal is accepted, the other proposals for the
+   * same request for proposal are rejected and the request for proposal is closed in one
+   * transaction, with a constant number of statements however many proposals there are. Of 2
+   * concurrent acceptances for the same request for proposal, only the first one succeeds.
    *
    * @param proposalId the proposal id
    * @return the list of proposal ids that were rejected as a result of the acceptance
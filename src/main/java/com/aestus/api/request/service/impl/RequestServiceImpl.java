@@ -3,80 +3,126 @@ package com.aestus.api.request.service.impl;
 import com.aestus.api.request.exception.*;
 import com.aestus.api.request.model.*;
 import com.aestus.api.common.exception.EntityNotFoundException;
+import com.aestus.api.request.counter.RequestCounter;
 import com.aestus.api.request.repository.RequestRepository;
+import com.aestus.api.request.repository.RequestSpecifications;
 import com.aestus.api.request.service.RequestService;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.aestus.api.common.util.QueryUtils.findAllInChunks;
 
 /**
  * The implementation of the Request service. This implementation uses a {@code CrudRepository} for
- * persistence to a RDBMS via Hibernate.
+ * persistence to a RDBMS via Hibernate. The request counts of the profiles are updated in the
+ * transactions that create, update and delete the requests.
  */
 @Slf4j
 @Service
 @AllArgsConstructor
 public class RequestServiceImpl implements RequestService {
   private final RequestRepository requestRepository;
+  private final RequestCounter requestCounter;
 
   public Iterable<Request> getAllRequests() {
     return requestRepository.findAll();
   }
 
+  public List<Request> findRequests(RequestSearch search) {
+    return requestRepository.search(RequestSpecifications.of(search), search.getSort(), 0);
+  }
+
+  public RequestPage searchRequests(RequestSearch search, RequestCursor cursor, int limit) {
+
+    if (cursor != null && cursor.getSort() != search.getSort())
+      throw new IllegalArgumentException("Cursor not of sort " + search.getSort());
+
+    List<Request> rows =
+        requestRepository.search(
+            RequestSpecifications.of(search).and(RequestSpecifications.after(cursor)),
+            search.getSort(),
+            limit + 1);
+
+    // An extra row means there is a next page
+    if (rows.size() <= limit) return new RequestPage(rows, null);
+
+    List<Request> requests = new ArrayList<>(rows.subList(0, limit));
+
+    return new RequestPage(
+        requests, RequestCursor.of(requests.get(limit - 1), search.getSort()).encode());
+  }
+
   public Iterable<Request> getRequestsByFromProfileId(int profileId) {
-    return requestRepository.findByFromProfileId(profileId);
+    return findRequests(RequestSearch.builder().fromProfileId(profileId).build());
   }
 
   public Iterable<Request> getRequestsByFromProfileIdAndType(int profileId, String type) {
-    return requestRepository.findByFromProfileIdAndType(profileId, type);
+    return findRequests(RequestSearch.builder().fromProfileId(profileId).type(type).build());
   }
 
   public Iterable<Request> getRequestsByFromProfileIdAndTypeAndStatus(
       int profileId, String type, String status) {
-    return requestRepository.findByFromProfileIdAndTypeAndStatus(profileId, type, status);
+    return findRequests(
+        RequestSearch.builder()
+            .fromProfileId(profileId)
+            .type(type)
+            .statuses(List.of(status))
+            .build());
   }
 
   public Iterable<Request> getRequestsByToProfileId(int profileId) {
-    return requestRepository.findByToProfileId(profileId);
+    return findRequests(RequestSearch.builder().toProfileId(profileId).build());
   }
 
   public Iterable<Request> getRequestsByToProfileIdAndType(int profileId, String type) {
-    return requestRepository.findByToProfileIdAndType(profileId, type);
+    return findRequests(RequestSearch.builder().toProfileId(profileId).type(type).build());
   }
 
   public Iterable<Request> getRequestsByToProfileIdAndTypeAndStatus(
       int profileId, String type, String status) {
-    return requestRepository.findByToProfileIdAndTypeAndStatus(profileId, type, status);
+    return findRequests(
+        RequestSearch.builder()
+            .toProfileId(profileId)
+            .type(type)
+            .statuses(List.of(status))
+            .build());
   }
 
   public Iterable<Request> getRequestsByProfileId(int profileId) {
-    return requestRepository.findByProfileId(profileId);
+    return findRequests(RequestSearch.builder().profileId(profileId).build());
   }
 
   public Iterable<Request> getRequestsByType(String type) {
-    return requestRepository.findByType(type);
+    return findRequests(RequestSearch.builder().type(type).build());
   }
 
   public Iterable<Request> getRequestsByTypeAndStatus(String type, String status) {
-    return requestRepository.findByTypeAndStatus(type, status);
+    return findRequests(RequestSearch.builder().type(type).statuses(List.of(status)).build());
   }
 
   public Iterable<Request> getRequestsByRequestId(int requestId) {
-    return requestRepository.findByRequestId(requestId);
+    return findRequests(RequestSearch.builder().requestId(requestId).build());
+  }
+
+  public Iterable<Request> getRequestsByRequestIds(Collection<Integer> requestIds) {
+    return findAllInChunks(requestIds, requestRepository::findByRequestIdIn);
+  }
+
+  public Iterable<Request> getRequestsByIds(Iterable<Integer> ids) {
+    return findAllInChunks(ids, requestRepository::findAllById);
   }
 
   public Iterable<RequestForProposal> getRequestForProposalsFrom(int profileId) {
-    Iterable<Request> requests =
-        requestRepository.findByFromProfileIdAndType(profileId, Request.TYPE_RFP);
+    Iterable<Request> requests = getRequestsByFromProfileIdAndType(profileId, Request.TYPE_RFP);
 
     ArrayList<RequestForProposal> rfps = new ArrayList<RequestForProposal>();
 
@@ -86,8 +132,7 @@ public class RequestServiceImpl implements RequestService {
   }
 
   public Iterable<RequestForProposal> getRequestForProposalsTo(int profileId) {
-    Iterable<Request> requests =
-        requestRepository.findByToProfileIdAndType(profileId, Request.TYPE_RFP);
+    Iterable<Request> requests = getRequestsByToProfileIdAndType(profileId, Request.TYPE_RFP);
 
     ArrayList<RequestForProposal> rfps = new ArrayList<RequestForProposal>();
 
@@ -98,20 +143,23 @@ public class RequestServiceImpl implements RequestService {
 
   public Iterable<Proposal> getProposals(int requestForProposalId)
       throws InvalidRequestTypeException, EntityNotFoundException {
-    Iterable<Request> requests = requestRepository.findByRequestId(requestForProposalId);
+    Iterable<Request> requests = getRequestsByRequestId(requestForProposalId);
 
     ArrayList<Proposal> proposals = new ArrayList<Proposal>();
 
     for (Request request : requests) {
-      // Convert generic requests to proposals
-      Proposal proposal = getProposal(request.getId());
-
-      proposals.add(proposal);
+      // Convert generic requests to proposals, they are loaded already
+      if (request.isPRO()) proposals.add(new Proposal(request));
+      else throw new InvalidRequestTypeException(request.getType());
     }
 
     return proposals;
   }
 
+  public RequestCounts getRequestCounts(int profileId) {
+    return requestCounter.getCounts(profileId);
+  }
+
   public Request getRequestById(int id) throws EntityNotFoundException {
 
     Optional<Request> optRequest = requestRepository.findById(id);
@@ -153,33 +201,20 @@ public class RequestServiceImpl implements RequestService {
     } else throw new InvalidRequestTypeException(request.getType());
   }
 
-  public Iterable<RequestForFunding> getRequestForFundingsFor(int providerId)
-      throws InvalidRequestTypeException {
-
-    Iterable<Request> proposals =
-        getRequestsByFromProfileIdAndTypeAndStatus(
-            providerId, Request.TYPE_PRO, Request.STATUS_FUNDING_REQUESTED);
-
-    ArrayList<RequestForFunding> rffs = new ArrayList<RequestForFunding>();
-
-    for (Request proposal : proposals) {
-      Iterator<Request> requests = getRequestsByRequestId(proposal.getId()).iterator();
+  public List<RequestForFunding> getRequestForFundingsFor(
+      int providerId, Collection<String> statuses) {
 
-      if (requests.hasNext()) {
-        Request request = requests.next();
+    if (statuses.isEmpty())
+      return requestRepository.findRequestForFundingsByProposal(
+          providerId, Request.TYPE_PRO, Request.STATUS_FUNDING_REQUESTED, Request.TYPE_RFF);
 
-        if (request.isRFF()) rffs.add(new RequestForFunding(request));
-        else throw new InvalidRequestTypeException(request.getType());
-      }
-    }
-
-    return rffs;
+    return requestRepository.findRequestForFundingsByProposalAndStatusIn(
+        providerId, Request.TYPE_PRO, Request.STATUS_FUNDING_REQUESTED, Request.TYPE_RFF, statuses);
   }
 
   public Iterable<RequestForPayment> getRequestForPaymentsFrom(int fromProfileId) {
 
-    Iterable<Request> requests =
-        requestRepository.findByFromProfileIdAndType(fromProfileId, Request.TYPE_RPY);
+    Iterable<Request> requests = getRequestsByFromProfileIdAndType(fromProfileId, Request.TYPE_RPY);
 
     ArrayList<RequestForPayment> rpys = new ArrayList<RequestForPayment>();
 
@@ -190,8 +225,7 @@ public class RequestServiceImpl implements RequestService {
 
   public Iterable<RequestForPayment> getRequestForPaymentsTo(int toProfileId) {
 
-    Iterable<Request> requests =
-        requestRepository.findByToProfileIdAndType(toProfileId, Request.TYPE_RPY);
+    Iterable<Request> requests = getRequestsByToProfileIdAndType(toProfileId, Request.TYPE_RPY);
 
     ArrayList<RequestForPayment> rpys = new ArrayList<RequestForPayment>();
 
@@ -200,22 +234,37 @@ public class RequestServiceImpl implements RequestService {
     return rpys;
   }
 
+  @Transactional
   public Request createRequest(Request request) {
-    return requestRepository.save(request);
+
+    Request created = requestRepository.save(request);
+
+    requestCounter.added(created);
+
+    return created;
   }
 
+  @Transactional(rollbackFor = EntityNotFoundException.class)
   public Request updateRequest(Request request) throws EntityNotFoundException {
 
-    getRequestById(request.getId());
+    // A copy, the managed request is overwritten by the save
+    Request before = getRequestByIdForUpdate(request.getId()).toBuilder().build();
+
+    Request updated = requestRepository.save(request);
 
-    return requestRepository.save(request);
+    requestCounter.changed(before, updated);
+
+    return updated;
   }
 
+  @Transactional(rollbackFor = EntityNotFoundException.class)
   public void updateRequestStatus(Integer id, String status) throws EntityNotFoundException {
 
-    getRequestById(id);
+    Request request = getRequestByIdForUpdate(id);
 
     requestRepository.updateStatus(id, status);
+
+    requestCounter.changed(List.of(request), status);
   }
 
   public void updateRequestRepayment(Integer id, Long repayment) throws EntityNotFoundException {
@@ -225,6 +274,7 @@ public class RequestServiceImpl implements RequestService {
     requestRepository.updateRepayment(id, repayment);
   }
 
+  @Transactional(rollbackFor = {EntityNotFoundException.class, RequestException.class})
   public List<Integer> acceptProposal(Integer proposalId)
       throws EntityNotFoundException, RequestException {
 
@@ -232,60 +282,101 @@ public class RequestServiceImpl implements RequestService {
     Request proposal = getRequestById(proposalId);
 
     // Check if request type is a proposal aka RFA
-    if (proposal.isPRO()) {
+    if (!proposal.isPRO()) throw new InvalidRequestTypeException(proposal.getType());
 
-      // Check if proposal is still open status
-      if (proposal.isOpen()) {
+    // Check if proposal is still open status
+    if (!proposal.isOpen()) throw new InvalidRequestStatusException(proposal.getStatus());
 
-        // Check proposal is linked to a request for proposal
-        if (proposal.getRequestId() != null) {
+    // Check proposal is linked to a request for proposal
+    if (proposal.getRequestId() == null)
+      throw new InvalidRequestIdException(proposal.getRequestId());
 
-          updateRequestStatus(proposalId, Request.STATUS_ACCEPTED);
+    int rfpId = proposal.getRequestId();
 
-          // Retrieve the id of the request for proposal
-          int rfpId = proposal.getRequestId();
+    // Concurrent acceptances of the proposals of the same RFP queue on its row
+    Request rfp =
+        requestRepository
+            .findByIdForUpdate(rfpId)
+            .orElseThrow(() -> new EntityNotFoundException(Request.class, rfpId));
 
-          // Accepting a proposal will reject all other proposals for the same RFP
-          Iterable<Request> proposals = getRequestsByRequestId(rfpId);
+    // Only one proposal wins, the others were rejected by the acceptance before this one
+    int accepted =
+        requestRepository.updateStatusIfStatus(
+            proposalId, Request.STATUS_OPEN, Request.STATUS_ACCEPTED);
 
-          // Get ids of the other proposals
-          List<Integer> otherProposalIds =
-              StreamSupport.stream(proposals.spliterator(), false)
-                  .map(Request::getId)
-                  .collect(Collectors.toList());
+    if (accepted == 0)
+      throw new InvalidRequestStatusException(
+          requestRepository
+              .findByIdForUpdate(proposalId)
+              .map(Request::getStatus)
+              .orElseThrow(() -> new EntityNotFoundException(Request.class, proposalId)));
 
-          otherProposalIds.remove(proposalId);
+    // Accepting a proposal will reject all other proposals for the same RFP
+    List<Integer> otherProposalIds =
+        requestRepository.findIdsByRequestIdAndIdNotForUpdate(rfpId, proposalId);
 
-          // Reject other proposals
-          for (Integer id : otherProposalIds) updateRequestStatus(id, Request.STATUS_REJECTED);
+    // Their statuses before the rejection, for the request counts
+    List<Request> otherProposals =
+        findAllInChunks(otherProposalIds, requestRepository::findAllById);
 
-          // Update request for proposal to accepted
-          updateRequestStatus(rfpId, Request.STATUS_CLOSED);
+    requestRepository.updateStatusByRequestIdAndIdNot(rfpId, proposalId, Request.STATUS_REJECTED);
 
-          return otherProposalIds;
-        } else throw new InvalidRequestIdException(proposal.getRequestId());
-      } else throw new InvalidRequestStatusException(proposal.getStatus());
-    } else throw new InvalidRequestTypeException(proposal.getType());
+    // Update request for proposal to closed
+    requestRepository.updateStatus(rfpId, Request.STATUS_CLOSED);
+
+    requestCounter.changed(List.of(proposal), Request.STATUS_ACCEPTED);
+    requestCounter.changed(otherProposals, Request.STATUS_REJECTED);
+    requestCounter.changed(List.of(rfp), Request.STATUS_CLOSED);
+
+    return otherProposalIds;
   }
 
+  @Transactional(rollbackFor = EntityNotFoundException.class)
   public void deleteRequestById(int id) throws EntityNotFoundException {
-    getRequestById(id);
+    Request request = getRequestByIdForUpdate(id);
     requestRepository.deleteById(id);
+    requestCounter.removed(List.of(request));
   }
 
+  @Transactional
   public List<Request> deleteRequestsByFromProfileId(int profileId) {
-    return requestRepository.deleteByFromProfileId(profileId);
+    List<Request> deleted = requestRepository.deleteByFromProfileId(profileId);
+    requestCounter.removed(deleted);
+    return deleted;
   }
 
+  @Transactional
   public List<Request> deleteRequestsByToProfileId(int profileId) {
-    return requestRepository.deleteByToProfileId(profileId);
+    List<Request> deleted = requestRepository.deleteByToProfileId(profileId);
+    requestCounter.removed(deleted);
+    return deleted;
   }
 
+  @Transactional
   public void deleteRequestsByProfileId(int profileId) {
+    // The requests are read and locked first, the counts of the other profiles are decremented too
+    List<Request> requests = requestRepository.findByProfileIdForUpdate(profileId);
     requestRepository.deleteByProfileId(profileId);
+    requestCounter.removed(requests);
   }
 
+  @Transactional
   public void deleteAllRequests() {
     requestRepository.deleteAll();
+    requestCounter.clear();
+  }
+
+  /**
+   * Gets a request and locks its row until the end of the transaction, so that the request counts
+   * are moved from the status it is in when it is updated.
+   *
+   * @param id the request id
+   * @return the request
+   * @throws EntityNotFoundException the request with {@code id} is not found
+   */
+  private Request getRequestByIdForUpdate(int id) throws EntityNotFoundException {
+    return requestRepository
+        .findByIdForUpdate(id)
+        .orElseThrow(() -> new EntityNotFoundException(Request.class, id));
   }
 }
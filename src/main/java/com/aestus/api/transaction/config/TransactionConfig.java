@@ -0,0 +1,34 @@
+package com.aestus.api.transaction.config;
+
+import com.aestus.api.transaction.repository.TransactionRepository;
+import com.aestus.api.transaction.writer.TransactionWriter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The transaction configuration. The write-behind queue is closed before the repository, so the
+ * records queued are written on shutdown.
+ */
+@Configuration
+public class TransactionConfig {
+
+  @Value("${com.aestus.transaction.writer.capacity}")
+  private final Integer capacity = 0;
+
+  @Value("${com.aestus.transaction.writer.batch-size}")
+  private final Integer batchSize = 0;
+
+  @Value("${com.aestus.transaction.writer.enqueue-timeout-ms}")
+  private final Long enqueueTimeoutMs = 0L;
+
+  @Value("${com.aestus.transaction.writer.shutdown-timeout-ms}")
+  private final Long shutdownTimeoutMs = 0L;
+
+  @Bean(initMethod = "start", destroyMethod = "close")
+  public TransactionWriter transactionWriter(TransactionRepository transactionRepository) {
+    return new TransactionWriter(
+        transactionRepository, capacity, batchSize, enqueueTimeoutMs, shutdownTimeoutMs);
+  }
+}
@@ -1,15 +1,20 @@
 package com.aestus.api.transaction.controller;
 
 import com.aestus.api.blockchain.model.swagger.ResponseMessageWithBalance;
+import com.aestus.api.common.model.AestusPrincipal;
 import com.aestus.api.common.model.ResponseMessage;
-import com.aestus.api.profile.model.UserProfile;
-import com.aestus.api.profile.model.swagger.ResponseMessageWithUserProfile;
+import com.aestus.api.transaction.export.TransactionExportFormat;
+import com.aestus.api.transaction.export.TransactionExporter;
 import com.aestus.api.transaction.model.Transaction;
+import com.aestus.api.transaction.model.TransactionCursor;
+import com.aestus.api.transaction.model.TransactionPage;
 
 import com.aestus.api.transaction.model.swagger.ResponseMessageWithTransaction;
+import com.aestus.api.transaction.model.swagger.ResponseMessageWithTransactionPage;
 import com.aestus.api.transaction.model.swagger.ResponseMessageWithTransactions;
 import com.aestus.api.transaction.service.TransactionService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
@@ -18,22 +23,35 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static com.aestus.api.common.controller.CommonController.getBadRequestResponse;
 import static com.aestus.api.common.controller.CommonController.getHttpHeaders;
@@ -44,15 +62,19 @@ import static com.aestus.api.common.controller.CommonController.getHttpHeaders;
 @RequestMapping("api/v1/transaction")
 @Validated
 public class TransactionController {
+
+  /** The default and maximum number of transactions of a page of wallet history. */
+  private static final String DEFAULT_PAGE_SIZE = "50";
+
+  private static final int MAX_PAGE_SIZE = 500;
+
   @Autowired private TransactionService transactionService;
   @Autowired RestTemplate restTemplate;
+  @Autowired ObjectMapper objectMapper;
 
   @Value("${com.aestus.base.url}")
   private final String urlBase = null;
 
-  @Value("${com.aestus.profile.get.token.url}")
-  private final String urlProfileGetByToken = null;
-
   @Value("${com.aestus.blockchain.get.wallet.balance.url}")
   private final String urlBlockchainGetWalletBalance = null;
 
@@ -221,6 +243,130 @@ public class TransactionController {
     }
   }
 
+  /**
+   * Creates transaction entries in one batch via a list of {@code Transaction} objects in the
+   * request body.
+   *
+   * @param transactions the transaction entries
+   * @param request the http request
+   * @return the {@code ResponseMessage} containing the transaction entries created with the
+   *     auto-generated {@code id}, in the same order
+   */
+  @PostMapping(value = "/batch", consumes = "application/json", produces = "application/json")
+  @PreAuthorize(
+      "hasAuthority('U') or hasAuthority('S') or hasAuthority('D') or hasAuthority('I') or hasAuthority('A')")
+  @Operation(
+      summary = "Creates transaction entries in one batch via a json array of transactions",
+      tags = {"Transaction"},
+      requestBody =
+          @io.swagger.v3.oas.annotations.parameters.RequestBody(
+              required = true,
+              description =
+                  "Requires a json array of transactions, the <code>id</code> fields (if specified) will be ignored"),
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Returns the transactions (with the auto-generated <code>id</code>) in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessageWithTransactions.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description =
+                "Unable to create the transactions due to validation reasons.  Refer to schema of Transaction for details.",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessage.class))),
+        @ApiResponse(
+            responseCode = "403",
+            description = "Unauthorized request",
+            content = @Content),
+      })
+  public ResponseEntity<ResponseMessage> createBatch(
+      @RequestBody List<@Valid Transaction> transactions, HttpServletRequest request) {
+
+    String uri = request.getRequestURI();
+
+    List<Transaction> created = transactionService.createTransactions(transactions);
+
+    ResponseMessage msg = new ResponseMessage(HttpStatus.OK.value(), created, uri);
+
+    return ResponseEntity.ok(msg);
+  }
+
+  /**
+   * Gets the queue depth and flush statistics of the transaction write-behind queue.
+   *
+   * @param request the http request
+   * @return the {@code ResponseMessage} containing the statistics
+   */
+  @GetMapping("/writer/stats")
+  @PreAuthorize("hasAuthority('A')")
+  @Operation(
+      summary = "Retrieve the statistics of the transaction write-behind queue",
+      tags = {"Transaction"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Returns the queue depth and the batch insert latencies in the <code>data</code> field",
+            content =
+                @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ResponseMessage.class))),
+        @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
+      })
+  public ResponseEntity<ResponseMessage> getWriterStats(HttpServletRequest request) {
+
+    ResponseMessage msg =
+        new ResponseMessage(
+            HttpStatus.OK.value(), transactionService.getWriterStats(), request.getRequestURI());
+
+    return ResponseEntity.ok(msg);
+  }
+
+  /**
+   * Gets a page of transactions starting after a cursor.
+   *
+   * @param query the query of the page, given the decoded cursor
+   * @param cursor the encoded cursor, {@code null} for the first page
+   * @param request the http request
+   * @return the page of transactions, BAD REQUEST if the cursor is malformed
+   */
+  protected ResponseEntity<ResponseMessage> getPage(
+      Function<TransactionCursor, TransactionPage> query,
+      String cursor,
+      HttpServletRequest request) {
+
+    ResponseMessage msg;
+
+    try {
+
+      TransactionPage page = query.apply(cursor == null ? null : TransactionCursor.decode(cursor));
+
+      msg = new ResponseMessage(HttpStatus.OK.value(), page, request.getRequestURI());
+
+      return ResponseEntity.ok(msg);
+    } catch (IllegalArgumentException ex) {
+
+      msg = new ResponseMessage(HttpStatus.BAD_REQUEST, ex, request.getRequestURI());
+
+      return ResponseEntity.badRequest().body(msg);
+    } catch (RuntimeException ex) {
+
+      log.error(ex.getMessage());
+
+      msg =
+          new ResponseMessage(
+              HttpStatus.INTERNAL_SERVER_ERROR.value(), ex.getMessage(), request.getRequestURI());
+
+      return ResponseEntity.internalServerError().body(msg);
+    }
+  }
+
   /**
    * Gets wallet balance by calling the blockchain api.
    *
@@ -498,8 +644,12 @@ public class TransactionController {
    * Gets transactions by receiver wallet Id.
    *
    * @param walletId the receiver wallet id
+   * @param from the lower bound of the created timestamps, inclusive
+   * @param to the upper bound of the created timestamps, exclusive
+   * @param cursor the {@code nextCursor} of the previous page, none for the first page
+   * @param limit the maximum number of transactions of the page
    * @param request the http request
-   * @return transactions by receiver wallet Id
+   * @return a page of transactions by receiver wallet Id, newest first
    */
   @GetMapping("/receiver/{walletId}")
   @PreAuthorize(
@@ -514,7 +664,7 @@ public class TransactionController {
             content = {
               @Content(
                   mediaType = "application/json",
-                  schema = @Schema(implementation = ResponseMessageWithTransactions.class),
+                  schema = @Schema(implementation = ResponseMessageWithTransactionPage.class),
                   examples =
                       @ExampleObject(
                           externalValue =
@@ -524,7 +674,8 @@ public class TransactionController {
                                   + "  \"timestamp\": \"2022-06-05T18:16:03.8964823\",\n"
                                   + "  \"status\": 200,\n"
                                   + "  \"message\": \"\",\n"
-                                  + "  \"data\": [\n"
+                                  + "  \"data\": {\n"
+                                  + "  \"transactions\": [\n"
                                   + "    {\n"
                                   + "      \"id\": 9,\n"
                                   + "      \"receiverWalletId\": \"aabbccddee\",\n"
@@ -550,39 +701,41 @@ public class TransactionController {
                                   + "      \"hash\": \"333333\"\n"
                                   + "    }\n"
                                   + "  ],\n"
+                                  + "  \"nextCursor\": null\n"
+                                  + "  },\n"
                                   + "  \"path\": \"/api/v1/transaction/receiver/aabbccddee\"\n"
                                   + "}"))
             }),
         @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
       })
   public ResponseEntity<ResponseMessage> getByReceiverWalletId(
-      @PathVariable String walletId, HttpServletRequest request) {
-    ResponseMessage msg;
-
-    try {
-
-      Iterable<Transaction> transactions =
-          transactionService.getTransactionsByReceiverWalletId(walletId);
-
-      msg = new ResponseMessage(HttpStatus.OK.value(), transactions, request.getRequestURI());
-
-      return ResponseEntity.ok(msg);
-    } catch (RuntimeException ex) {
-
-      log.error(ex.getMessage());
-
-      msg = new ResponseMessage(HttpStatus.OK.value(), ex.getMessage(), request.getRequestURI());
+      @PathVariable String walletId,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime to,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+      HttpServletRequest request) {
 
-      return ResponseEntity.internalServerError().body(msg);
-    }
+    return getPage(
+        position ->
+            transactionService.getTransactionsByReceiverWalletId(
+                walletId, from, to, position, limit),
+        cursor,
+        request);
   }
 
   /**
    * Gets transactions by sender wallet Id.
    *
    * @param walletId the sender wallet id
+   * @param from the lower bound of the created timestamps, inclusive
+   * @param to the upper bound of the created timestamps, exclusive
+   * @param cursor the {@code nextCursor} of the previous page, none for the first page
+   * @param limit the maximum number of transactions of the page
    * @param request the http request
-   * @return transactions by sender wallet Id
+   * @return a page of transactions by sender wallet Id, newest first
    */
   @GetMapping("/sender/{walletId}")
   @PreAuthorize(
@@ -593,11 +746,12 @@ public class TransactionController {
       responses = {
         @ApiResponse(
             responseCode = "200",
-            description = "Returns transactions in the <code>data</code> field",
+            description =
+                "Returns a page of transactions and the <code>nextCursor</code> in the <code>data</code> field",
             content = {
               @Content(
                   mediaType = "application/json",
-                  schema = @Schema(implementation = ResponseMessageWithTransactions.class),
+                  schema = @Schema(implementation = ResponseMessageWithTransactionPage.class),
                   examples =
                       @ExampleObject(
                           externalValue =
@@ -607,7 +761,8 @@ public class TransactionController {
                                   + "  \"timestamp\": \"2022-06-05T18:42:10.4509743\",\n"
                                   + "  \"status\": 200,\n"
                                   + "  \"message\": \"\",\n"
-                                  + "  \"data\": [\n"
+                                  + "  \"data\": {\n"
+                                  + "  \"transactions\": [\n"
                                   + "    {\n"
                                   + "      \"id\": 9,\n"
                                   + "      \"receiverWalletId\": \"eeefffggghhh\",\n"
@@ -633,39 +788,41 @@ public class TransactionController {
                                   + "      \"hash\": \"2222\"\n"
                                   + "    }\n"
                                   + "  ],\n"
+                                  + "  \"nextCursor\": null\n"
+                                  + "  },\n"
                                   + "  \"path\": \"/api/v1/transaction/sender/ironmanwallet\"\n"
                                   + "}"))
             }),
         @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
       })
   public ResponseEntity<ResponseMessage> getBySenderWalletId(
-      @PathVariable String walletId, HttpServletRequest request) {
-    ResponseMessage msg;
-
-    try {
-
-      Iterable<Transaction> transactions =
-          transactionService.getTransactionsBySenderWalletId(walletId);
-
-      msg = new ResponseMessage(HttpStatus.OK.value(), transactions, request.getRequestURI());
-
-      return ResponseEntity.ok(msg);
-    } catch (RuntimeException ex) {
-
-      log.error(ex.getMessage());
-
-      msg = new ResponseMessage(HttpStatus.OK.value(), ex.getMessage(), request.getRequestURI());
+      @PathVariable String walletId,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime to,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+      HttpServletRequest request) {
 
-      return ResponseEntity.internalServerError().body(msg);
-    }
+    return getPage(
+        position ->
+            transactionService.getTransactionsBySenderWalletId(
+                walletId, from, to, position, limit),
+        cursor,
+        request);
   }
 
   /**
    * Gets sending and receiving transactions by wallet Id.
    *
    * @param walletId the wallet id
+   * @param from the lower bound of the created timestamps, inclusive
+   * @param to the upper bound of the created timestamps, exclusive
+   * @param cursor the {@code nextCursor} of the previous page, none for the first page
+   * @param limit the maximum number of transactions of the page
    * @param request the http request
-   * @return sending and receiving transactions by wallet Id
+   * @return a page of sending and receiving transactions by wallet Id, newest first
    */
   @GetMapping("/walletId/{walletId}")
   @PreAuthorize(
@@ -676,11 +833,12 @@ public class TransactionController {
       responses = {
         @ApiResponse(
             responseCode = "200",
-            description = "Returns transactions in the <code>data</code> field",
+            description =
+                "Returns a page of transactions and the <code>nextCursor</code> in the <code>data</code> field",
             content = {
               @Content(
                   mediaType = "application/json",
-                  schema = @Schema(implementation = ResponseMessageWithTransactions.class),
+                  schema = @Schema(implementation = ResponseMessageWithTransactionPage.class),
                   examples =
                       @ExampleObject(
                           externalValue =
@@ -690,28 +848,33 @@ public class TransactionController {
         @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
       })
   public ResponseEntity<ResponseMessage> getByWalletId(
-      @PathVariable String walletId, HttpServletRequest request) {
-    ResponseMessage msg;
-
-    try {
-
-      Iterable<Transaction> transactions = transactionService.getTransactionsByWalletId(walletId);
-
-      msg =
-          new ResponseMessage(
-              HttpStatus.OK.value(), transactions.iterator(), request.getRequestURI());
-
-      return ResponseEntity.ok(msg);
-    } catch (RuntimeException ex) {
-
-      log.error(ex.getMessage());
-
-      msg = new ResponseMessage(HttpStatus.OK.value(), ex.getMessage(), request.getRequestURI());
+      @PathVariable String walletId,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime to,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+      HttpServletRequest request) {
 
-      return ResponseEntity.internalServerError().body(msg);
-    }
+    return getPage(
+        position ->
+            transactionService.getTransactionsByWalletId(walletId, from, to, position, limit),
+        cursor,
+        request);
   }
 
+  /**
+   * Gets sending and receiving transactions of the user profile associated with the jwt token.
+   *
+   * @param from the lower bound of the created timestamps, inclusive
+   * @param to the upper bound of the created timestamps, exclusive
+   * @param cursor the {@code nextCursor} of the previous page, none for the first page
+   * @param limit the maximum number of transactions of the page
+   * @param principal the principal of the jwt token
+   * @param request the http request
+   * @return a page of sending and receiving transactions, newest first
+   */
   @GetMapping("/token")
   @PreAuthorize(
       "hasAuthority('U') or hasAuthority('S') or hasAuthority('D') or hasAuthority('I') or hasAuthority('A')")
@@ -721,11 +884,12 @@ public class TransactionController {
       responses = {
         @ApiResponse(
             responseCode = "200",
-            description = "Returns transactions in the <code>data</code> field",
+            description =
+                "Returns a page of transactions and the <code>nextCursor</code> in the <code>data</code> field",
             content = {
               @Content(
                   mediaType = "application/json",
-                  schema = @Schema(implementation = ResponseMessageWithTransactions.class),
+                  schema = @Schema(implementation = ResponseMessageWithTransactionPage.class),
                   examples =
                       @ExampleObject(
                           externalValue =
@@ -734,26 +898,17 @@ public class TransactionController {
             }),
         @ApiResponse(responseCode = "403", description = "Unauthorized request", content = @Content)
       })
-  public ResponseEntity<ResponseMessage> getByToken(HttpServletRequest request) {
-
-    // Duplicate authorization headers from request
-    HttpEntity entity = new HttpEntity<String>(getHttpHeaders(request));
-
-    // Retrieve user profile from token
-    ResponseEntity<ResponseMessageWithUserProfile> response =
-        restTemplate.exchange(
-            urlBase + urlProfileGetByToken,
-            HttpMethod.GET,
-            entity,
-            ResponseMessageWithUserProfile.class);
-
-    ResponseMessage msg = response.getBody();
-
-    if (msg.isOk()) {
-      UserProfile profile = (UserProfile) msg.getData();
+  public ResponseEntity<ResponseMessage> getByToken(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime to,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+      AestusPrincipal principal,
+      HttpServletRequest request) {
 
-      return getByWalletId(profile.getWalletId(), request);
-    } else return ResponseEntity.internalServerError().body(msg);
+    return getByWalletId(principal.getWalletId(), from, to, cursor, limit, request);
   }
 
   /**
@@ -804,6 +959,70 @@ public class TransactionController {
     }
   }
 
+  /**
+   * Exports transactions created in a range, optionally of a wallet id. The transactions are read
+   * from a database cursor and written to the response as they are read, instead of being loaded
+   * in a {@code ResponseMessage}, so an export of any size streams in constant memory.
+   *
+   * <p>A caller exports the transactions of its own wallet, only an administrator exports those of
+   * another wallet or of every wallet.
+   *
+   * @param walletId the wallet id of the sending and receiving transactions, all if none
+   *     (administrators only)
+   * @param from the lower bound of the created timestamps, inclusive
+   * @param to the upper bound of the created timestamps, exclusive
+   * @param format the export format
+   * @return the export, written as the response is sent
+   */
+  @GetMapping("/export")
+  @PreAuthorize(
+      "hasAuthority('A') or ((hasAuthority('U') or hasAuthority('S') or hasAuthority('D') or hasAuthority('I'))"
+          + " and #walletId != null and #walletId == principal.walletId)")
+  @Operation(
+      summary = "Export transactions as NDJSON or CSV",
+      tags = {"Transaction"},
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description =
+                "Streams the transactions, oldest first for a wallet id, by id otherwise",
+            content = {
+              @Content(mediaType = "application/x-ndjson"),
+              @Content(mediaType = "text/csv")
+            }),
+        @ApiResponse(responseCode = "400", description = "Invalid parameters", content = @Content),
+        @ApiResponse(
+            responseCode = "403",
+            description = "Unauthorized request, or a wallet id other than the caller's",
+            content = @Content)
+      })
+  public ResponseEntity<StreamingResponseBody> export(
+      @RequestParam(required = false) String walletId,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime to,
+      @RequestParam(defaultValue = "NDJSON") TransactionExportFormat format) {
+
+    StreamingResponseBody body =
+        outputStream -> {
+          Writer writer =
+              new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+          TransactionExporter exporter = new TransactionExporter(format, writer, objectMapper);
+
+          transactionService.exportTransactions(walletId, from, to, exporter::write);
+
+          writer.flush();
+        };
+
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(format.getContentType()))
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=transactions." + format.getExtension())
+        .body(body);
+  }
+
   /**
    * Removes a transaction by {@code id}.
    *
@@ -0,0 +1,27 @@
+package com.aestus.api.transaction.export;
+
+/** The formats of a transaction export. */
+public enum TransactionExportFormat {
+
+  /** One json transaction per line. */
+  NDJSON("application/x-ndjson", "ndjson"),
+
+  /** Comma separated values, with a header line. */
+  CSV("text/csv", "csv");
+
+  private final String contentType;
+  private final String extension;
+
+  TransactionExportFormat(String contentType, String extension) {
+    this.contentType = contentType;
+    this.extension = extension;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public String getExtension() {
+    return extension;
+  }
+}
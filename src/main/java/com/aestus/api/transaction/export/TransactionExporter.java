@@ -0,0 +1,82 @@
+package com.aestus.api.transaction.export;
+
+import com.aestus.api.transaction.model.Transaction;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes transactions one at a time in an export format, nothing is buffered beyond the writer so
+ * that an export of any size streams in constant memory.
+ */
+public class TransactionExporter {
+
+  private static final String CSV_HEADER =
+      "id,type,senderWalletId,senderAmount,senderBalance,"
+          + "receiverWalletId,receiverAmount,receiverBalance,createdTimestamp,hash";
+
+  private final TransactionExportFormat format;
+  private final Writer writer;
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Creates an exporter, the header of the format is written first.
+   *
+   * @param format the export format
+   * @param writer the writer of the export
+   * @param objectMapper the json mapper of the transactions
+   * @throws IOException if the header cannot be written
+   */
+  public TransactionExporter(
+      TransactionExportFormat format, Writer writer, ObjectMapper objectMapper)
+      throws IOException {
+    this.format = format;
+    this.writer = writer;
+    this.objectMapper = objectMapper;
+
+    if (format == TransactionExportFormat.CSV) writer.write(CSV_HEADER + "\n");
+  }
+
+  /**
+   * Writes a transaction.
+   *
+   * @param transaction the transaction
+   * @throws UncheckedIOException if the transaction cannot be written, e.g. the client is gone
+   */
+  public void write(Transaction transaction) {
+    try {
+      if (format == TransactionExportFormat.NDJSON)
+        writer.write(objectMapper.writeValueAsString(transaction));
+      else
+        writer.write(
+            String.join(
+                ",",
+                String.valueOf(transaction.getId()),
+                csv(transaction.getType()),
+                csv(transaction.getSenderWalletId()),
+                String.valueOf(transaction.getSenderAmount()),
+                String.valueOf(transaction.getSenderBalance()),
+                csv(transaction.getReceiverWalletId()),
+                String.valueOf(transaction.getReceiverAmount()),
+                String.valueOf(transaction.getReceiverBalance()),
+                String.valueOf(transaction.getCreatedTimestamp()),
+                csv(transaction.getHash())));
+
+      writer.write('\n');
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /** Quotes a value if it contains a separator, a quote or a line break. */
+  private static String csv(String value) {
+    if (value == null) return "";
+
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+}
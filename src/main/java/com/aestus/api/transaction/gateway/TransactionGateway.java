@@ -0,0 +1,37 @@
+package com.aestus.api.transaction.gateway;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.transaction.model.Transaction;
+
+import java.util.List;
+
+/** Provides access to the transaction module from the other modules. */
+public interface TransactionGateway {
+
+  /**
+   * Creates a transaction record.
+   *
+   * @param transaction the transaction
+   * @return the transaction created with the auto-generated {@code id}
+   * @throws GatewayException if the transaction cannot be created
+   */
+  Transaction createTransaction(Transaction transaction) throws GatewayException;
+
+  /**
+   * Submits a transaction record to be written behind, without waiting for the database. The
+   * {@code id} of the transaction is not generated yet when this returns.
+   *
+   * @param transaction the transaction
+   * @throws GatewayException if the transaction cannot be submitted
+   */
+  void submitTransaction(Transaction transaction) throws GatewayException;
+
+  /**
+   * Creates transaction records in one batch, the ledger transactions already recorded are skipped.
+   *
+   * @param transactions the transactions
+   * @return the transactions in the same order, those created with the auto-generated {@code id}
+   * @throws GatewayException if the transactions cannot be created
+   */
+  List<Transaction> createTransactions(List<Transaction> transactions) throws GatewayException;
+}
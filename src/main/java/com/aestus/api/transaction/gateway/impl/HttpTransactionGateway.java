@@ -0,0 +1,56 @@
+package com.aestus.api.transaction.gateway.impl;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.common.gateway.HttpGateway;
+import com.aestus.api.transaction.gateway.TransactionGateway;
+import com.aestus.api.transaction.model.Transaction;
+import com.aestus.api.transaction.model.swagger.ResponseMessageWithTransaction;
+import com.aestus.api.transaction.model.swagger.ResponseMessageWithTransactions;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+/** The http implementation of the transaction gateway, for split deployments. */
+@Component
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "http")
+public class HttpTransactionGateway extends HttpGateway implements TransactionGateway {
+
+  @Value("${com.aestus.transaction.create.url}")
+  private final String urlTransactionCreate = null;
+
+  @Value("${com.aestus.transaction.create.batch.url}")
+  private final String urlTransactionCreateBatch = null;
+
+  public Transaction createTransaction(Transaction transaction) throws GatewayException {
+    return exchange(
+            urlTransactionCreate,
+            HttpMethod.POST,
+            transaction,
+            ResponseMessageWithTransaction.class)
+        .getData();
+  }
+
+  /**
+   * Creates the transaction synchronously, the remote call needs the headers of the current http
+   * request, which a background writer would not have.
+   */
+  public void submitTransaction(Transaction transaction) throws GatewayException {
+    createTransaction(transaction);
+  }
+
+  public List<Transaction> createTransactions(List<Transaction> transactions)
+      throws GatewayException {
+    return Arrays.asList(
+        exchange(
+                urlTransactionCreateBatch,
+                HttpMethod.POST,
+                transactions,
+                ResponseMessageWithTransactions.class)
+            .getData());
+  }
+}
@@ -0,0 +1,43 @@
+package com.aestus.api.transaction.gateway.impl;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.transaction.gateway.TransactionGateway;
+import com.aestus.api.transaction.model.Transaction;
+import com.aestus.api.transaction.service.TransactionService;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * The in-process implementation of the transaction gateway, calls the transaction service
+ * directly. Submitted transactions go through the write-behind queue.
+ */
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(name = "com.aestus.gateway.mode", havingValue = "local", matchIfMissing = true)
+public class LocalTransactionGateway implements TransactionGateway {
+
+  private final TransactionService transactionService;
+
+  public Transaction createTransaction(Transaction transaction) {
+    return transactionService.createTransaction(transaction);
+  }
+
+  public void submitTransaction(Transaction transaction) throws GatewayException {
+    try {
+      if (!transactionService.submitTransaction(transaction))
+        throw new GatewayException("Transaction queue is full or closed");
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new GatewayException(ex);
+    }
+  }
+
+  public List<Transaction> createTransactions(List<Transaction> transactions) {
+    return transactionService.createTransactions(transactions);
+  }
+}
@@ -24,10 +24,11 @@ import lombok.NoArgsConstructor;
     indexes = {
       @Index(
           name = "idx_senderWalletId_createdTimestamp",
-          columnList = "senderWalletId, createdTimestamp DESC"),
+          columnList = "senderWalletId, createdTimestamp DESC, id DESC"),
       @Index(
           name = "idx_receiverWalletId_createdTimestamp",
-          columnList = "receiverWalletId, createdTimestamp DESC"),
+          columnList = "receiverWalletId, createdTimestamp DESC, id DESC"),
+      @Index(name = "idx_journalId_lsn_leg", columnList = "journalId, lsn, leg", unique = true),
     })
 public class Transaction {
 
@@ -80,6 +81,20 @@ public class Transaction {
   @Column(nullable = false)
   private String hash;
 
+  /** The id of the ledger journal of the transfer, null if not from the ledger. */
+  @Size(max = 36, message = "journalId must contain at most 36 characters")
+  @Column(length = 36)
+  private String journalId;
+
+  /**
+   * The lsn of the ledger journal record of the transfer, unique within its journal, null if not
+   * from the ledger.
+   */
+  private Long lsn;
+
+  /** The index of the transfer in its ledger journal record, null if not from the ledger. */
+  private Integer leg;
+
   /**
    * Instantiates a new Transaction.
    *
@@ -0,0 +1,66 @@
+package com.aestus.api.transaction.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The position of a transaction in the history of a wallet, ordered by descending {@code
+ * createdTimestamp} then {@code id}. A page starts right after the cursor, so its query seeks in
+ * the index instead of skipping the rows of the previous pages.
+ */
+@Data
+@AllArgsConstructor
+public class TransactionCursor {
+
+  private LocalDateTime createdTimestamp;
+
+  private Long id;
+
+  /**
+   * Gets the cursor right after a transaction.
+   *
+   * @param transaction the transaction
+   * @return the cursor
+   */
+  public static TransactionCursor of(Transaction transaction) {
+    return new TransactionCursor(transaction.getCreatedTimestamp(), transaction.getId());
+  }
+
+  /**
+   * Encodes the cursor into an opaque url-safe string.
+   *
+   * @return the encoded cursor
+   */
+  public String encode() {
+    String value = createdTimestamp + "," + id;
+
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a cursor returned by {@link #encode()}.
+   *
+   * @param cursor the encoded cursor
+   * @return the cursor
+   * @throws IllegalArgumentException if the cursor is malformed
+   */
+  public static TransactionCursor decode(String cursor) {
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int comma = value.indexOf(',');
+
+      return new TransactionCursor(
+          LocalDateTime.parse(value.substring(0, comma)),
+          Long.parseLong(value.substring(comma + 1)));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException ex) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.aestus.api.transaction.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A page of transactions, newest first, with the cursor of the next page. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPage {
+
+  /** The transactions of the page, by descending {@code createdTimestamp} then {@code id}. */
+  private List<Transaction> transactions;
+
+  /** The cursor of the next page, {@code null} if this is the last page. */
+  private String nextCursor;
+}
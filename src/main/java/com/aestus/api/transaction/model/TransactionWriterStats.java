@@ -0,0 +1,39 @@
+package com.aestus.api.transaction.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** The queue depth and flush statistics of the transaction write-behind queue. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionWriterStats {
+
+  /** The number of records queued, not written yet. */
+  private int depth;
+
+  /** The maximum number of records queued. */
+  private int capacity;
+
+  /** The number of records enqueued since startup. */
+  private long enqueued;
+
+  /** The number of records written since startup. */
+  private long written;
+
+  /** The number of records dropped because they could not be written before the close. */
+  private long dropped;
+
+  /** The number of batch inserts since startup. */
+  private long flushes;
+
+  /** The duration of the last batch insert in microseconds. */
+  private long lastFlushMicros;
+
+  /** The average duration of a batch insert in microseconds. */
+  private long averageFlushMicros;
+
+  /** The maximum duration of a batch insert in microseconds. */
+  private long maxFlushMicros;
+}
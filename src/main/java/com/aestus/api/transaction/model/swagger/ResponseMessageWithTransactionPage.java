@@ -0,0 +1,29 @@
+package com.aestus.api.transaction.model.swagger;
+
+import com.aestus.api.common.model.ResponseMessage;
+import com.aestus.api.transaction.model.TransactionPage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * An extended ResponseMessage with a page of Transactions as the payload. Used for schema
+ * documentation in Swagger.
+ */
+@Data
+@AllArgsConstructor
+public class ResponseMessageWithTransactionPage extends ResponseMessage {
+    @Override
+    public TransactionPage getData() {
+        return (TransactionPage) super.getData();
+    }
+
+    /**
+     * Sets data payload.
+     *
+     * @param page the page of transactions
+     */
+    public void setData(TransactionPage page) {
+        super.setData(page);
+    }
+}
@@ -0,0 +1,20 @@
+package com.aestus.api.transaction.repository;
+
+import com.aestus.api.transaction.model.Transaction;
+
+import java.util.List;
+
+/**
+ * Batch operations on transactions that the {@code CrudRepository} cannot do efficiently. The
+ * transaction ids are generated by the database, which disables the insert batching of Hibernate.
+ */
+public interface TransactionBatchRepository {
+
+  /**
+   * Inserts transactions with a single batched statement.
+   *
+   * @param transactions the transactions, their {@code id} is set from the generated keys
+   * @return the transactions inserted, in the same order
+   */
+  List<Transaction> insertAll(List<Transaction> transactions);
+}
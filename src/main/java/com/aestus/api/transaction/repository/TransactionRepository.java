@@ -2,34 +2,171 @@ package com.aestus.api.transaction.repository;
 
 import com.aestus.api.transaction.model.Transaction;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * The TransactionRepository extends the {@code CrudRepository} for basic CRUD operations on a RDBMS via
- * Hibernate.
+ * Hibernate, and the {@code TransactionBatchRepository} for batch inserts.
+ *
+ * <p>The history of a wallet is read in pages ordered by descending {@code createdTimestamp} then
+ * {@code id}, the order of the sender and receiver indexes. A page seeks right before a cursor
+ * {@code (beforeTimestamp, beforeId)} and reads at most {@code limit} index entries, however long
+ * the history is.
  */
-public interface TransactionRepository extends CrudRepository<Transaction, Long> {
+public interface TransactionRepository
+    extends CrudRepository<Transaction, Long>, TransactionBatchRepository {
+
+    /** The fetch size that makes the MySQL driver stream the rows instead of loading them all. */
+    String STREAMING_FETCH_SIZE = "" + Integer.MIN_VALUE;
 
     /**
-     * Find all transactions from a receiver wallet id.
+     * Find a page of transactions to a receiver wallet id.
      *
      * @param receiverWalletId the receiver wallet id
-     * @return the list of transactions by receiver wallet id
+     * @param from the lower bound of the created timestamps, inclusive
+     * @param beforeTimestamp the created timestamp of the cursor
+     * @param beforeId the id of the cursor, the page starts after the cursor
+     * @param pageable the page size
+     * @return the transactions, newest first
      */
-    List<Transaction> findByReceiverWalletId(String receiverWalletId);
+    @Query(
+        "SELECT t FROM Transaction t WHERE t.receiverWalletId = :walletId"
+            + " AND t.createdTimestamp >= :from AND t.createdTimestamp <= :beforeTimestamp"
+            + " AND (t.createdTimestamp < :beforeTimestamp OR t.id < :beforeId)"
+            + " ORDER BY t.createdTimestamp DESC, t.id DESC")
+    List<Transaction> findPageByReceiverWalletId(
+        @Param("walletId") String receiverWalletId,
+        @Param("from") LocalDateTime from,
+        @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+        @Param("beforeId") long beforeId,
+        Pageable pageable);
 
     /**
-     * Find all transactions from a sender wallet id.
+     * Find a page of transactions from a sender wallet id.
      *
      * @param senderWalletId the sender wallet id
-     * @return the list of transactions by sender wallet id
+     * @param from the lower bound of the created timestamps, inclusive
+     * @param beforeTimestamp the created timestamp of the cursor
+     * @param beforeId the id of the cursor, the page starts after the cursor
+     * @param pageable the page size
+     * @return the transactions, newest first
+     */
+    @Query(
+        "SELECT t FROM Transaction t WHERE t.senderWalletId = :walletId"
+            + " AND t.createdTimestamp >= :from AND t.createdTimestamp <= :beforeTimestamp"
+            + " AND (t.createdTimestamp < :beforeTimestamp OR t.id < :beforeId)"
+            + " ORDER BY t.createdTimestamp DESC, t.id DESC")
+    List<Transaction> findPageBySenderWalletId(
+        @Param("walletId") String senderWalletId,
+        @Param("from") LocalDateTime from,
+        @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+        @Param("beforeId") long beforeId,
+        Pageable pageable);
+
+    /**
+     * Find a page of sending and receiving transactions of a wallet id. Each side is read from its
+     * own index in order, then the 2 ordered scans are merged, instead of an {@code OR} that cannot
+     * use either index. A transaction from the wallet to itself is only read on the sender side.
+     *
+     * @param walletId the wallet id
+     * @param from the lower bound of the created timestamps, inclusive
+     * @param beforeTimestamp the created timestamp of the cursor
+     * @param beforeId the id of the cursor, the page starts after the cursor
+     * @param limit the page size
+     * @return the transactions, newest first
+     */
+    @Query(
+        value =
+            "(SELECT * FROM transactions WHERE sender_wallet_id = :walletId"
+                + " AND created_timestamp >= :from AND created_timestamp <= :beforeTimestamp"
+                + " AND (created_timestamp < :beforeTimestamp OR id < :beforeId)"
+                + " ORDER BY created_timestamp DESC, id DESC LIMIT :limit)"
+                + " UNION ALL"
+                + " (SELECT * FROM transactions WHERE receiver_wallet_id = :walletId"
+                + " AND sender_wallet_id <> :walletId"
+                + " AND created_timestamp >= :from AND created_timestamp <= :beforeTimestamp"
+                + " AND (created_timestamp < :beforeTimestamp OR id < :beforeId)"
+                + " ORDER BY created_timestamp DESC, id DESC LIMIT :limit)"
+                + " ORDER BY created_timestamp DESC, id DESC LIMIT :limit",
+        nativeQuery = true)
+    List<Transaction> findPageByWalletId(
+        @Param("walletId") String walletId,
+        @Param("from") LocalDateTime from,
+        @Param("beforeTimestamp") LocalDateTime beforeTimestamp,
+        @Param("beforeId") long beforeId,
+        @Param("limit") int limit);
+
+    /**
+     * Streams the transactions created in a range, by ascending {@code id}. The rows are read from
+     * a forward-only cursor, the caller must be in a transaction and close the stream.
+     *
+     * @param from the lower bound of the created timestamps, inclusive
+     * @param to the upper bound of the created timestamps, exclusive
+     * @return the stream of transactions
      */
-    List<Transaction> findBySenderWalletId(String senderWalletId);
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE),
+        @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query(
+        "SELECT t FROM Transaction t WHERE t.createdTimestamp >= :from AND t.createdTimestamp < :to"
+            + " ORDER BY t.id")
+    Stream<Transaction> streamAll(
+        @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
-    @Query("SELECT t FROM Transaction t WHERE t.senderWalletId = :walletId OR t.receiverWalletId = :walletId")
-    List<Transaction> findByWalletId(@Param("walletId") String walletId);
+    /**
+     * Streams the sending and receiving transactions of a wallet id created in a range, oldest
+     * first. The rows are read from a forward-only cursor, the caller must be in a transaction and
+     * close the stream.
+     *
+     * @param walletId the wallet id
+     * @param from the lower bound of the created timestamps, inclusive
+     * @param to the upper bound of the created timestamps, exclusive
+     * @return the stream of transactions
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE),
+        @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query(
+        value =
+            "(SELECT * FROM transactions WHERE sender_wallet_id = :walletId"
+                + " AND created_timestamp >= :from AND created_timestamp < :to)"
+                + " UNION ALL"
+                + " (SELECT * FROM transactions WHERE receiver_wallet_id = :walletId"
+                + " AND sender_wallet_id <> :walletId"
+                + " AND created_timestamp >= :from AND created_timestamp < :to)"
+                + " ORDER BY created_timestamp, id",
+        nativeQuery = true)
+    Stream<Transaction> streamByWalletId(
+        @Param("walletId") String walletId,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to);
+
+    /**
+     * Find the ledger journal lsns of the transactions of a journal in a range of lsns.
+     *
+     * @param journalId the id of the ledger journal
+     * @param from the lower bound of the lsns, inclusive
+     * @param to the upper bound of the lsns, inclusive
+     * @return the lsns found
+     */
+    @Query(
+        "SELECT DISTINCT t.lsn FROM Transaction t"
+            + " WHERE t.journalId = :journalId AND t.lsn BETWEEN :from AND :to")
+    List<Long> findLsnsBetween(
+        @Param("journalId") String journalId, @Param("from") long from, @Param("to") long to);
 }
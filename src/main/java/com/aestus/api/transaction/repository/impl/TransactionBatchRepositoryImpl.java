@@ -0,0 +1,70 @@
+package com.aestus.api.transaction.repository.impl;
+
+import com.aestus.api.transaction.model.Transaction;
+import com.aestus.api.transaction.repository.TransactionBatchRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The JDBC implementation of the transaction batch operations. The rows are sent as one JDBC batch,
+ * which the MySQL driver rewrites into a multi-row insert with {@code rewriteBatchedStatements}.
+ */
+@AllArgsConstructor
+public class TransactionBatchRepositoryImpl implements TransactionBatchRepository {
+
+  private static final String INSERT =
+      "INSERT INTO transactions (type, sender_wallet_id, sender_amount, sender_balance,"
+          + " receiver_wallet_id, receiver_amount, receiver_balance, created_timestamp, hash,"
+          + " journal_id, lsn, leg)"
+          + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Transactional
+  public List<Transaction> insertAll(List<Transaction> transactions) {
+    if (transactions.isEmpty()) return transactions;
+
+    return jdbcTemplate.execute(
+        (ConnectionCallback<List<Transaction>>)
+            connection -> {
+              try (PreparedStatement statement =
+                  connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+
+                for (Transaction transaction : transactions) {
+                  statement.setString(1, transaction.getType());
+                  statement.setString(2, transaction.getSenderWalletId());
+                  statement.setLong(3, transaction.getSenderAmount());
+                  statement.setLong(4, transaction.getSenderBalance());
+                  statement.setString(5, transaction.getReceiverWalletId());
+                  statement.setLong(6, transaction.getReceiverAmount());
+                  statement.setLong(7, transaction.getReceiverBalance());
+                  statement.setObject(8, transaction.getCreatedTimestamp());
+                  statement.setString(9, transaction.getHash());
+                  statement.setString(10, transaction.getJournalId());
+                  statement.setObject(11, transaction.getLsn());
+                  statement.setObject(12, transaction.getLeg());
+                  statement.addBatch();
+                }
+
+                statement.executeBatch();
+
+                // The generated keys are returned in the order of the rows
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                  for (int i = 0; i < transactions.size() && keys.next(); i++)
+                    transactions.get(i).setId(keys.getLong(1));
+                }
+              }
+
+              return transactions;
+            });
+  }
+}
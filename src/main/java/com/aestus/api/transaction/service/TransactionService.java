@@ -1,8 +1,14 @@
 package com.aestus.api.transaction.service;
 
 import com.aestus.api.transaction.model.Transaction;
+import com.aestus.api.transaction.model.TransactionCursor;
+import com.aestus.api.transaction.model.TransactionPage;
+import com.aestus.api.transaction.model.TransactionWriterStats;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * The TransactionService interface provides access to application functionality and features for
@@ -18,28 +24,55 @@ public interface TransactionService {
   Iterable<Transaction> getAllTransactions();
 
   /**
-   * Gets transactions by receiver wallet id.
+   * Gets a page of transactions by receiver wallet id, newest first.
    *
    * @param walletId the receiver wallet id
-   * @return the list of transactions
+   * @param from the lower bound of the created timestamps, inclusive, {@code null} if none
+   * @param to the upper bound of the created timestamps, exclusive, {@code null} if none
+   * @param cursor the cursor returned with the previous page, {@code null} for the first page
+   * @param limit the maximum number of transactions
+   * @return the page of transactions
    */
-  Iterable<Transaction> getTransactionsByReceiverWalletId(String walletId);
+  TransactionPage getTransactionsByReceiverWalletId(
+      String walletId, LocalDateTime from, LocalDateTime to, TransactionCursor cursor, int limit);
 
   /**
-   * Gets transactions by sender wallet id.
+   * Gets a page of transactions by sender wallet id, newest first.
    *
    * @param walletId the sender wallet id
-   * @return the list of transactions
+   * @param from the lower bound of the created timestamps, inclusive, {@code null} if none
+   * @param to the upper bound of the created timestamps, exclusive, {@code null} if none
+   * @param cursor the cursor returned with the previous page, {@code null} for the first page
+   * @param limit the maximum number of transactions
+   * @return the page of transactions
    */
-  Iterable<Transaction> getTransactionsBySenderWalletId(String walletId);
+  TransactionPage getTransactionsBySenderWalletId(
+      String walletId, LocalDateTime from, LocalDateTime to, TransactionCursor cursor, int limit);
 
   /**
-   * Gets all (sending and receiving) transactions by wallet id.
+   * Gets a page of all (sending and receiving) transactions by wallet id, newest first.
    *
    * @param walletId the wallet id
-   * @return the list of sending and receiving transactions
+   * @param from the lower bound of the created timestamps, inclusive, {@code null} if none
+   * @param to the upper bound of the created timestamps, exclusive, {@code null} if none
+   * @param cursor the cursor returned with the previous page, {@code null} for the first page
+   * @param limit the maximum number of transactions
+   * @return the page of sending and receiving transactions
    */
-  Iterable<Transaction> getTransactionsByWalletId(String walletId);
+  TransactionPage getTransactionsByWalletId(
+      String walletId, LocalDateTime from, LocalDateTime to, TransactionCursor cursor, int limit);
+
+  /**
+   * Exports the transactions created in a range, read in a single pass from a forward-only cursor
+   * and handed to a consumer one at a time, so that any number of them can be exported.
+   *
+   * @param walletId the wallet id of the sending or receiving transactions, all if {@code null}
+   * @param from the lower bound of the created timestamps, inclusive, or {@code null}
+   * @param to the upper bound of the created timestamps, exclusive, or {@code null}
+   * @param consumer the consumer of the transactions
+   */
+  void exportTransactions(
+      String walletId, LocalDateTime from, LocalDateTime to, Consumer<Transaction> consumer);
 
   /**
    * Gets transaction by id.
@@ -57,6 +90,33 @@ public interface TransactionService {
    */
   Transaction createTransaction(Transaction transaction);
 
+  /**
+   * Creates transactions in a single batch insert. The ledger transactions whose journal lsn is
+   * already recorded are skipped, so that a batch retried after a failure is created once.
+   *
+   * @param transactions the transactions
+   * @return the transactions in the same order, with generated ids except for those skipped
+   */
+  List<Transaction> createTransactions(List<Transaction> transactions);
+
+  /**
+   * Submits a transaction to the write-behind queue, it is inserted later with the other
+   * transactions queued meanwhile. Blocks while the queue is full.
+   *
+   * @param transaction the transaction
+   * @return {@code true} if the transaction is queued, {@code false} if the queue stayed full or is
+   *     closed
+   * @throws InterruptedException if the thread is interrupted while waiting for room in the queue
+   */
+  boolean submitTransaction(Transaction transaction) throws InterruptedException;
+
+  /**
+   * Gets the queue depth and flush statistics of the write-behind queue.
+   *
+   * @return the statistics
+   */
+  TransactionWriterStats getWriterStats();
+
   /**
    * Updates the transaction.
    *
@@ -1,39 +1,113 @@
 package com.aestus.api.transaction.service.impl;
 
 import com.aestus.api.transaction.model.Transaction;
+import com.aestus.api.transaction.model.TransactionCursor;
+import com.aestus.api.transaction.model.TransactionPage;
+import com.aestus.api.transaction.model.TransactionWriterStats;
 import com.aestus.api.transaction.repository.TransactionRepository;
 import com.aestus.api.transaction.service.TransactionService;
+import com.aestus.api.transaction.writer.TransactionWriter;
 
-import com.google.common.collect.Iterables;
 import lombok.AllArgsConstructor;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
 
 /**
  * The implementation of the Transaction service. This implementation uses a {@code CrudRepository}
- * for persistence to a RDBMS via Hibernate.
+ * for persistence to a RDBMS via Hibernate, and a write-behind queue for submitted transactions.
  */
 @Service
 @AllArgsConstructor
 public class TransactionServiceImpl implements TransactionService {
+
+  /** The range of the DATETIME columns. */
+  private static final LocalDateTime MIN_TIMESTAMP = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+  private static final LocalDateTime MAX_TIMESTAMP = LocalDateTime.of(9999, 12, 31, 0, 0);
+
   private final TransactionRepository transactionRepository;
+  private final TransactionWriter transactionWriter;
+  private final EntityManager entityManager;
 
   public Iterable<Transaction> getAllTransactions() {
     return transactionRepository.findAll();
   }
 
-  public Iterable<Transaction> getTransactionsByReceiverWalletId(String walletId) {
-    return transactionRepository.findByReceiverWalletId(walletId);
+  public TransactionPage getTransactionsByReceiverWalletId(
+      String walletId, LocalDateTime from, LocalDateTime to, TransactionCursor cursor, int limit) {
+
+    TransactionCursor before = before(to, cursor);
+
+    return toPage(
+        transactionRepository.findPageByReceiverWalletId(
+            walletId,
+            from(from),
+            before.getCreatedTimestamp(),
+            before.getId(),
+            PageRequest.of(0, limit + 1)),
+        limit);
+  }
+
+  public TransactionPage getTransactionsBySenderWalletId(
+      String walletId, LocalDateTime from, LocalDateTime to, TransactionCursor cursor, int limit) {
+
+    TransactionCursor before = before(to, cursor);
+
+    return toPage(
+        transactionRepository.findPageBySenderWalletId(
+            walletId,
+            from(from),
+            before.getCreatedTimestamp(),
+            before.getId(),
+            PageRequest.of(0, limit + 1)),
+        limit);
   }
 
-  public Iterable<Transaction> getTransactionsBySenderWalletId(String walletId) {
-    return transactionRepository.findBySenderWalletId(walletId);
+  public TransactionPage getTransactionsByWalletId(
+      String walletId, LocalDateTime from, LocalDateTime to, TransactionCursor cursor, int limit) {
+
+    TransactionCursor before = before(to, cursor);
+
+    return toPage(
+        transactionRepository.findPageByWalletId(
+            walletId, from(from), before.getCreatedTimestamp(), before.getId(), limit + 1),
+        limit);
   }
 
-  public Iterable<Transaction> getTransactionsByWalletId(String walletId) {
-    return transactionRepository.findByWalletId(walletId);
+  @Transactional(readOnly = true)
+  public void exportTransactions(
+      String walletId, LocalDateTime from, LocalDateTime to, Consumer<Transaction> consumer) {
+
+    LocalDateTime until = to == null ? MAX_TIMESTAMP : to;
+
+    try (Stream<Transaction> transactions =
+        walletId == null
+            ? transactionRepository.streamAll(from(from), until)
+            : transactionRepository.streamByWalletId(walletId, from(from), until)) {
+
+      transactions.forEach(
+          transaction -> {
+            consumer.accept(transaction);
+            // Nothing is kept in the persistence context, however many rows are read
+            entityManager.detach(transaction);
+          });
+    }
   }
 
   public Optional<Transaction> getTransactionById(long id) {
@@ -44,6 +118,49 @@ public class TransactionServiceImpl implements TransactionService {
     return transactionRepository.save(transaction);
   }
 
+  @Transactional
+  public List<Transaction> createTransactions(List<Transaction> transactions) {
+    // The lsns are unique within a ledger journal only
+    Map<String, LongSummaryStatistics> lsns = new HashMap<>();
+
+    for (Transaction transaction : transactions)
+      if (isJournaled(transaction))
+        lsns.computeIfAbsent(transaction.getJournalId(), journalId -> new LongSummaryStatistics())
+            .accept(transaction.getLsn());
+
+    if (lsns.isEmpty()) return transactionRepository.insertAll(transactions);
+
+    // The ledger records retried after a failure are created once
+    Map<String, Set<Long>> created = new HashMap<>();
+
+    lsns.forEach(
+        (journalId, range) ->
+            created.put(
+                journalId,
+                new HashSet<>(
+                    transactionRepository.findLsnsBetween(
+                        journalId, range.getMin(), range.getMax()))));
+
+    List<Transaction> missing = new ArrayList<>(transactions.size());
+
+    for (Transaction transaction : transactions)
+      if (!isJournaled(transaction)
+          || !created.get(transaction.getJournalId()).contains(transaction.getLsn()))
+        missing.add(transaction);
+
+    transactionRepository.insertAll(missing);
+
+    return transactions;
+  }
+
+  public boolean submitTransaction(Transaction transaction) throws InterruptedException {
+    return transactionWriter.enqueue(transaction);
+  }
+
+  public TransactionWriterStats getWriterStats() {
+    return transactionWriter.getStats();
+  }
+
   public Transaction updateTransaction(Transaction transaction) {
     return transactionRepository.save(transaction);
   }
@@ -55,4 +172,31 @@ public class TransactionServiceImpl implements TransactionService {
   public void deleteAllTransactions() {
     transactionRepository.deleteAll();
   }
+
+  /** Checks if a transaction is the record of a ledger transfer, identified by its journal. */
+  private static boolean isJournaled(Transaction transaction) {
+    return transaction.getJournalId() != null && transaction.getLsn() != null;
+  }
+
+  private static LocalDateTime from(LocalDateTime from) {
+    return from == null ? MIN_TIMESTAMP : from;
+  }
+
+  /** Gets the position a page starts after, the cursor or else the upper bound of the range. */
+  private static TransactionCursor before(LocalDateTime to, TransactionCursor cursor) {
+    if (cursor != null) return cursor;
+
+    // No id is below 0, so only the timestamps before the bound are selected
+    return new TransactionCursor(to == null ? MAX_TIMESTAMP : to, 0L);
+  }
+
+  /** Makes a page out of up to {@code limit + 1} rows, an extra row means there is a next page. */
+  private static TransactionPage toPage(List<Transaction> rows, int limit) {
+    if (rows.size() <= limit) return new TransactionPage(rows, null);
+
+    List<Transaction> transactions = new ArrayList<>(rows.subList(0, limit));
+
+    return new TransactionPage(
+        transactions, TransactionCursor.of(transactions.get(limit - 1)).encode());
+  }
 }
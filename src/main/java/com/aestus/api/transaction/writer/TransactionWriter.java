@@ -0,0 +1,196 @@
+package com.aestus.api.transaction.writer;
+
+import com.aestus.api.transaction.model.Transaction;
+import com.aestus.api.transaction.model.TransactionWriterStats;
+import com.aestus.api.transaction.repository.TransactionBatchRepository;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A write-behind queue of transaction records. Callers enqueue the records into a bounded ring
+ * buffer and return without waiting for the database, a writer thread drains the buffer and inserts
+ * everything queued in the meantime with one batch insert and one commit (group commit).
+ *
+ * <p>When the buffer is full, {@link #enqueue(Transaction)} blocks the caller until the writer
+ * catches up, up to a timeout. On {@link #close()} the records still queued are written before the
+ * writer stops. A batch that cannot be written is retried with a growing delay until it is, the
+ * records queued meanwhile wait behind it; a batch is only given up on, and logged, once the writer
+ * is closed.
+ */
+@Slf4j
+public class TransactionWriter implements Closeable {
+
+  private static final long RETRY_DELAY_MS = 1000;
+  private static final long MAX_RETRY_DELAY_MS = 30000;
+
+  private final TransactionBatchRepository repository;
+  private final BlockingQueue<Transaction> queue;
+  private final int batchSize;
+  private final long enqueueTimeoutMs;
+  private final long shutdownTimeoutMs;
+
+  private final LongAdder enqueued = new LongAdder();
+  private final LongAdder written = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final AtomicLong flushes = new AtomicLong();
+  private final AtomicLong flushNanos = new AtomicLong();
+  private final AtomicLong lastFlushNanos = new AtomicLong();
+  private final AtomicLong maxFlushNanos = new AtomicLong();
+
+  private volatile boolean closed;
+
+  private Thread writer;
+
+  /**
+   * Creates a writer, call {@link #start()} before enqueuing.
+   *
+   * @param repository the repository the batches are inserted with
+   * @param capacity the maximum number of records queued
+   * @param batchSize the maximum number of records per batch insert
+   * @param enqueueTimeoutMs the maximum time a caller waits for room in a full queue
+   * @param shutdownTimeoutMs the maximum time {@link #close()} waits for the queue to be written
+   */
+  public TransactionWriter(
+      TransactionBatchRepository repository,
+      int capacity,
+      int batchSize,
+      long enqueueTimeoutMs,
+      long shutdownTimeoutMs) {
+    this.repository = repository;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.batchSize = batchSize;
+    this.enqueueTimeoutMs = enqueueTimeoutMs;
+    this.shutdownTimeoutMs = shutdownTimeoutMs;
+  }
+
+  /** Starts the writer thread. */
+  public void start() {
+    writer = new Thread(this::writeLoop, "transaction-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Enqueues a transaction record, blocking while the queue is full.
+   *
+   * @param transaction the transaction
+   * @return {@code true} if the record is queued, {@code false} if the queue stayed full for the
+   *     timeout or the writer is closed
+   * @throws InterruptedException if the thread is interrupted while waiting for room
+   */
+  public boolean enqueue(Transaction transaction) throws InterruptedException {
+    if (closed) return false;
+
+    if (!queue.offer(transaction, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+      log.warn("Transaction queue full for {} ms, {} records queued", enqueueTimeoutMs, queue.size());
+      return false;
+    }
+
+    enqueued.increment();
+
+    return true;
+  }
+
+  /**
+   * Gets the queue depth and the flush statistics.
+   *
+   * @return the statistics
+   */
+  public TransactionWriterStats getStats() {
+    long count = flushes.get();
+
+    return new TransactionWriterStats(
+        queue.size(),
+        queue.size() + queue.remainingCapacity(),
+        enqueued.sum(),
+        written.sum(),
+        dropped.sum(),
+        count,
+        TimeUnit.NANOSECONDS.toMicros(lastFlushNanos.get()),
+        count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(flushNanos.get() / count),
+        TimeUnit.NANOSECONDS.toMicros(maxFlushNanos.get()));
+  }
+
+  /** Stops accepting records and waits until the records queued are written. */
+  public void close() {
+    closed = true;
+
+    if (writer == null) return;
+
+    try {
+      writer.join(shutdownTimeoutMs);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+
+    if (!queue.isEmpty())
+      log.error("Transaction writer stopped with {} records not written", queue.size());
+  }
+
+  private void writeLoop() {
+    List<Transaction> batch = new ArrayList<>(batchSize);
+
+    while (!closed || !queue.isEmpty()) {
+      try {
+        Transaction first = queue.poll(100, TimeUnit.MILLISECONDS);
+
+        if (first == null) continue;
+
+        // Everything queued while the previous batch was written goes into this one
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+
+        flush(batch);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void flush(List<Transaction> batch) throws InterruptedException {
+    long delay = RETRY_DELAY_MS;
+
+    for (int attempt = 1; ; attempt++) {
+      long start = System.nanoTime();
+
+      try {
+        repository.insertAll(batch);
+      } catch (RuntimeException ex) {
+        if (!closed) {
+          log.warn("Cannot write {} transactions, attempt {}", batch.size(), attempt, ex);
+          Thread.sleep(delay);
+          delay = Math.min(delay * 2, MAX_RETRY_DELAY_MS);
+          continue;
+        }
+
+        log.error("Dropping {} transactions on close after {} attempts", batch.size(), attempt, ex);
+        for (Transaction transaction : batch) log.error("Dropped transaction {}", transaction);
+
+        dropped.add(batch.size());
+        return;
+      }
+
+      long elapsed = System.nanoTime() - start;
+
+      written.add(batch.size());
+      flushes.incrementAndGet();
+      flushNanos.addAndGet(elapsed);
+      lastFlushNanos.set(elapsed);
+      maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+
+      return;
+    }
+  }
+}
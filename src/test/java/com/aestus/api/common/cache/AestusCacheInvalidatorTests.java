@@ -0,0 +1,214 @@
+package com.aestus.api.common.cache;
+
+import com.aestus.api.common.model.CacheInvalidation;
+import com.aestus.api.common.repository.CacheInvalidationRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Pageable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reads the invalidations of the other nodes as they are committed, out of sequence, after a gap
+ * timeout and never, and checks that each one is applied once, including those committed after
+ * their sequence number was skipped, without flushing the caches.
+ */
+class AestusCacheInvalidatorTests {
+  private static final String NODE = "node-a";
+  private static final String OTHER_NODE = "node-b";
+  private static final String CACHE_NAME = "profile";
+  private static final int BATCH_SIZE = 2;
+  private static final long HOUR_MS = 3_600_000L;
+
+  private CacheInvalidationRepository repository;
+  private CacheInvalidator.Listener listener;
+
+  /** The invalidations committed, by sequence number. */
+  private final Map<Long, CacheInvalidation> committed = new ConcurrentSkipListMap<>();
+
+  @BeforeEach
+  public void initBeforeEachTest() {
+    repository = mock(CacheInvalidationRepository.class);
+    listener = mock(CacheInvalidator.Listener.class);
+
+    when(repository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+        .thenAnswer(
+            invocation -> {
+              long after = invocation.getArgument(0);
+              Pageable pageable = invocation.getArgument(1);
+
+              return committed.values().stream()
+                  .filter(invalidation -> invalidation.getId() > after)
+                  .limit(pageable.getPageSize())
+                  .collect(Collectors.toList());
+            });
+
+    when(repository.findByIdIn(anyCollection()))
+        .thenAnswer(
+            invocation -> {
+              Collection<Long> ids = invocation.getArgument(0);
+
+              assertThat(ids.size()).isLessThanOrEqualTo(BATCH_SIZE);
+
+              return ids.stream()
+                  .map(committed::get)
+                  .filter(invalidation -> invalidation != null)
+                  .collect(Collectors.toList());
+            });
+  }
+
+  @Test
+  public void givenInvalidationsInSequence_whenPoll_thenAppliesThoseOfTheOtherNodes() {
+    CacheInvalidator invalidator = invalidator(HOUR_MS, HOUR_MS);
+
+    commit(1, OTHER_NODE);
+    commit(2, NODE);
+    commit(3, OTHER_NODE);
+    commit(4, OTHER_NODE);
+    commit(5, OTHER_NODE);
+
+    // Read in batches until the last one
+    assertThat(invalidator.poll()).isEqualTo(4);
+    assertThat(invalidator.poll()).isEqualTo(0);
+
+    verify(listener, never()).invalidate("2", committed.get(2L).getCreatedTimestamp());
+    assertThat(invalidator.getStats().getSequence()).isEqualTo(5);
+    assertThat(invalidator.getStats().getApplied()).isEqualTo(4);
+  }
+
+  @Test
+  public void givenGapFilledBeforeTimeout_whenPoll_thenAppliesEachOnceInTheEnd() {
+    CacheInvalidator invalidator = invalidator(HOUR_MS, HOUR_MS);
+
+    // 2 is not committed yet, 3 is read after the gap and kept pending
+    commit(1, OTHER_NODE);
+    commit(3, OTHER_NODE);
+
+    assertThat(invalidator.poll()).isEqualTo(2);
+    assertThat(invalidator.getStats().getSequence()).isEqualTo(1);
+    assertThat(invalidator.getStats().getPending()).isEqualTo(1);
+
+    // 3 is read again while the gap is waited for, it is not applied twice
+    assertThat(invalidator.poll()).isEqualTo(0);
+
+    commit(2, OTHER_NODE);
+
+    assertThat(invalidator.poll()).isEqualTo(1);
+    assertThat(invalidator.getStats().getSequence()).isEqualTo(3);
+    assertThat(invalidator.getStats().getPending()).isEqualTo(0);
+    assertThat(invalidator.getStats().getSkipped()).isEqualTo(0);
+    verify(repository, never()).findByIdIn(anyCollection());
+  }
+
+  @Test
+  public void givenGapCommittedAfterTimeout_whenPoll_thenAppliesItLateWithoutFlush() {
+    CacheInvalidator invalidator = invalidator(0, HOUR_MS);
+
+    // 2 and 4 are given up on at once, 5 is not held back
+    commit(1, OTHER_NODE);
+    commit(3, OTHER_NODE);
+    commit(5, OTHER_NODE);
+
+    assertThat(invalidator.poll()).isEqualTo(3);
+    assertThat(invalidator.getStats().getSequence()).isEqualTo(5);
+    assertThat(invalidator.getStats().getSkipped()).isEqualTo(2);
+    assertThat(invalidator.getStats().getSkippedPending()).isEqualTo(2);
+
+    // The long transaction of 4 commits, 2 was rolled back
+    commit(4, OTHER_NODE);
+
+    assertThat(invalidator.poll()).isEqualTo(1);
+    verify(listener).invalidate("4", committed.get(4L).getCreatedTimestamp());
+    assertThat(invalidator.getStats().getSkippedPending()).isEqualTo(1);
+    assertThat(invalidator.getStats().getLate()).isEqualTo(1);
+
+    assertThat(invalidator.poll()).isEqualTo(0);
+    verify(listener, never()).flush();
+    assertThat(invalidator.getStats().getFlushes()).isEqualTo(0);
+  }
+
+  @Test
+  public void givenManyGapsCommittedAfterTimeout_whenPoll_thenReadsThemInBatches() {
+    CacheInvalidator invalidator = invalidator(0, HOUR_MS);
+
+    commit(6, OTHER_NODE);
+    invalidator.poll();
+
+    assertThat(invalidator.getStats().getSkippedPending()).isEqualTo(5);
+
+    for (long id = 1; id <= 5; id++) commit(id, id == 3 ? NODE : OTHER_NODE);
+
+    // Applied once each, this node's own invalidation is only read
+    assertThat(invalidator.poll()).isEqualTo(4);
+    assertThat(invalidator.poll()).isEqualTo(0);
+    assertThat(invalidator.getStats().getSkippedPending()).isEqualTo(0);
+    assertThat(invalidator.getStats().getLate()).isEqualTo(5);
+  }
+
+  @Test
+  public void givenGapNeverCommitted_whenRetentionExpires_thenGivesUpOnIt() throws Exception {
+    CacheInvalidator invalidator = invalidator(0, 1);
+
+    commit(2, OTHER_NODE);
+    invalidator.poll();
+
+    assertThat(invalidator.getStats().getSkippedPending()).isEqualTo(1);
+
+    Thread.sleep(5);
+    invalidator.poll();
+
+    assertThat(invalidator.getStats().getSkippedPending()).isEqualTo(0);
+    verify(listener, never()).flush();
+  }
+
+  @Test
+  public void givenReadsFailingPastTheLagBound_whenPoll_thenFlushes() throws Exception {
+    CacheInvalidator invalidator = invalidator(HOUR_MS, HOUR_MS, 1);
+
+    doThrow(new QueryTimeoutException("timeout"))
+        .when(repository)
+        .findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class));
+
+    Thread.sleep(5);
+
+    assertThat(invalidator.poll()).isEqualTo(0);
+    verify(listener).flush();
+  }
+
+  private CacheInvalidator invalidator(long gapTimeoutMs, long retentionMs) {
+    return invalidator(gapTimeoutMs, retentionMs, HOUR_MS);
+  }
+
+  private CacheInvalidator invalidator(long gapTimeoutMs, long retentionMs, long maxLagMs) {
+    CacheInvalidator invalidator =
+        new CacheInvalidator(repository, NODE, BATCH_SIZE, gapTimeoutMs, maxLagMs, retentionMs);
+
+    invalidator.register(CACHE_NAME, listener);
+    invalidator.start();
+
+    return invalidator;
+  }
+
+  private void commit(long id, String node) {
+    committed.put(
+        id,
+        new CacheInvalidation(id, CACHE_NAME, String.valueOf(id), node, LocalDateTime.now()));
+  }
+}
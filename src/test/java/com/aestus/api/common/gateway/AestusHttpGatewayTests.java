@@ -0,0 +1,59 @@
+package com.aestus.api.common.gateway;
+
+import com.aestus.api.common.util.JWTUtils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Gets the headers of the calls to the other modules, from a thread serving an http request and
+ * from a worker, and checks that the worker calls are authenticated with the service token.
+ */
+class AestusHttpGatewayTests {
+  private HttpGateway gateway;
+
+  @BeforeEach
+  public void initBeforeEachTest() {
+    gateway = new HttpGateway() {};
+    gateway.jwtUtils = mock(JWTUtils.class);
+
+    when(gateway.jwtUtils.getServiceToken()).thenReturn("service-token");
+  }
+
+  @AfterEach
+  public void resetRequestAttributes() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  public void givenRequestThread_whenGetHeaders_thenDuplicatesRequestHeaders() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+
+    request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer user-token");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+    assertThat(gateway.getHeaders().getFirst(HttpHeaders.AUTHORIZATION))
+        .isEqualTo("Bearer user-token");
+    verify(gateway.jwtUtils, never()).getServiceToken();
+  }
+
+  @Test
+  public void givenWorkerThread_whenGetHeaders_thenUsesServiceToken() {
+    HttpHeaders headers = gateway.getHeaders();
+
+    assertThat(headers.getFirst(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer service-token");
+    assertThat(headers.getContentType()).hasToString("application/json");
+  }
+}
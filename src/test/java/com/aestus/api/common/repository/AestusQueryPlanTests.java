@@ -0,0 +1,575 @@
+package com.aestus.api.common.repository;
+
+import com.aestus.api.attachment.repository.AttachmentRepository;
+import com.aestus.api.contract.repository.ContractRepository;
+import com.aestus.api.funding.repository.FundingBatchRepository;
+import com.aestus.api.funding.repository.FundingRepository;
+import com.aestus.api.request.model.Request;
+import com.aestus.api.request.model.RequestCount;
+import com.aestus.api.request.model.RequestSearch;
+import com.aestus.api.request.model.RequestSort;
+import com.aestus.api.request.repository.RequestCountRepository;
+import com.aestus.api.request.repository.RequestRepository;
+import com.aestus.api.request.repository.RequestSearchRepository;
+import com.aestus.api.request.repository.RequestSpecifications;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plan regression tests of the request, request count, contract, funding, attachment and cache
+ * invalidation repositories. Each repository query is invoked below in a transaction rolled back
+ * afterwards. The statements it runs are recorded from the data source with their parameters and
+ * run through {@code EXPLAIN} on the test database. A statement scanning a whole table, or a
+ * repository method that is not invoked, fails the tests.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(AestusQueryPlanTests.StatementRecorder.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AestusQueryPlanTests {
+
+  private static final int PROFILES = 50;
+  private static final int REQUESTS = 2000;
+  private static final int CONTRACTS = 200;
+  private static final int FUNDINGS = 2000;
+  private static final int ATTACHMENTS = 500;
+  private static final int INVALIDATIONS = 500;
+
+  private static final String[] TYPES = {"RFP", "PRO", "RFF", "RPY"};
+  private static final String[] STATUSES = {"O", "C", "ACC", "FR", "REJ"};
+  private static final String[] CONTRACT_STATUSES = {"NF", "PF", "FF", "FTP", "RP", "FD"};
+
+  /**
+   * The request count queries that read or delete every row by design. They only run when the
+   * counts are rebuilt, never on a request.
+   */
+  private static final Set<String> FULL_SCANS =
+      Set.of("deleteAllCounts", "recountFrom", "recountTo");
+
+  /** The statements recorded while {@link #recording} is set. */
+  private static final List<RecordedStatement> STATEMENTS =
+      Collections.synchronizedList(new ArrayList<>());
+
+  private static volatile boolean recording;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private EntityManager entityManager;
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Autowired private RequestRepository requestRepository;
+  @Autowired private RequestCountRepository requestCountRepository;
+  @Autowired private ContractRepository contractRepository;
+  @Autowired private FundingRepository fundingRepository;
+  @Autowired private AttachmentRepository attachmentRepository;
+  @Autowired private CacheInvalidationRepository cacheInvalidationRepository;
+
+  @BeforeAll
+  public void seed() {
+    LocalDateTime now = LocalDateTime.now();
+    List<Object[]> requests = new ArrayList<>();
+    List<Object[]> counts = new ArrayList<>();
+    List<Object[]> contracts = new ArrayList<>();
+    List<Object[]> fundings = new ArrayList<>();
+    List<Object[]> attachments = new ArrayList<>();
+    List<Object[]> invalidations = new ArrayList<>();
+
+    for (int i = 0; i < REQUESTS; i++)
+      requests.add(
+          new Object[] {
+            i % PROFILES + 1,
+            (i * 7) % PROFILES + 1,
+            i > 0 ? i : null,
+            "Request " + i,
+            TYPES[i % TYPES.length],
+            STATUSES[(i / TYPES.length) % STATUSES.length],
+            100L + i,
+            now
+          });
+
+    for (int profileId = 1; profileId <= PROFILES; profileId++)
+      for (String direction : List.of(RequestCount.DIRECTION_FROM, RequestCount.DIRECTION_TO))
+        for (String type : TYPES)
+          for (String status : STATUSES)
+            counts.add(new Object[] {profileId, direction, type, status, 1L});
+
+    for (int i = 0; i < CONTRACTS; i++)
+      contracts.add(
+          new Object[] {
+            i + 1,
+            String.format("ContractWallet%010d", i + 1),
+            1000L,
+            1100L,
+            CONTRACT_STATUSES[i % CONTRACT_STATUSES.length],
+            0L,
+            now
+          });
+
+    for (int i = 0; i < FUNDINGS; i++)
+      fundings.add(
+          new Object[] {i % CONTRACTS + 1, i % PROFILES + 1, "FIC", 100L, 110L, 0L, now});
+
+    for (int i = 0; i < ATTACHMENTS; i++)
+      attachments.add(
+          new Object[] {"file" + i, "text/plain", "File " + i, new byte[1], "RFP", i + 1, now});
+
+    for (int i = 0; i < INVALIDATIONS; i++)
+      invalidations.add(new Object[] {"profile", String.valueOf(i % PROFILES + 1), "node", now});
+
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO requests (from_profile_id, to_profile_id, request_id, title, type, status,"
+            + " cost, created_timestamp) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+        requests);
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO request_counts (profile_id, direction, type, status, count)"
+            + " VALUES (?, ?, ?, ?, ?)",
+        counts);
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO contracts (request_id, wallet_id, target_amount, repayment_amount, status,"
+            + " raised_amount, created_timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)",
+        contracts);
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO fundings (contract_id, profile_id, status, funding_amount, repayment_amount,"
+            + " disbursed_amount, created_timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)",
+        fundings);
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO attachments (file_name, file_type, file_desc, data, document_type,"
+            + " document_id, created_timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)",
+        attachments);
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO cache_invalidations (cache_name, cache_key, node, created_timestamp)"
+            + " VALUES (?, ?, ?, ?)",
+        invalidations);
+
+    // The plans depend on the index statistics, which are refreshed in the background otherwise
+    jdbcTemplate.execute(
+        "ANALYZE TABLE requests, request_counts, contracts, fundings, attachments,"
+            + " cache_invalidations");
+  }
+
+  @AfterAll
+  public void clean() {
+    jdbcTemplate.execute("DELETE FROM cache_invalidations");
+    jdbcTemplate.execute("DELETE FROM attachments");
+    jdbcTemplate.execute("DELETE FROM fundings");
+    jdbcTemplate.execute("DELETE FROM contracts");
+    jdbcTemplate.execute("DELETE FROM request_counts");
+    jdbcTemplate.execute("DELETE FROM requests");
+  }
+
+  @Test
+  public void given_RequestRepository_when_ListQueries_then_EveryQueryIsInvoked() {
+    assertThat(requestQueries().keySet())
+        .containsExactlyInAnyOrderElementsOf(getQueryMethodNames(RequestRepository.class));
+    assertThat(getQueryMethodNames(RequestSearchRepository.class)).containsExactly("search");
+  }
+
+  @Test
+  public void given_RequestCountRepository_when_ListQueries_then_EveryQueryIsInvoked() {
+    assertThat(requestCountQueries().keySet())
+        .containsExactlyInAnyOrderElementsOf(getQueryMethodNames(RequestCountRepository.class));
+  }
+
+  @Test
+  public void given_ContractRepository_when_ListQueries_then_EveryQueryIsInvoked() {
+    assertThat(contractQueries().keySet())
+        .containsExactlyInAnyOrderElementsOf(getQueryMethodNames(ContractRepository.class));
+  }
+
+  @Test
+  public void given_FundingRepository_when_ListQueries_then_EveryQueryIsInvoked() {
+    Set<String> names = getQueryMethodNames(FundingRepository.class);
+
+    names.removeAll(getQueryMethodNames(FundingBatchRepository.class));
+
+    assertThat(fundingQueries().keySet()).containsExactlyInAnyOrderElementsOf(names);
+  }
+
+  @Test
+  public void given_AttachmentRepository_when_ListQueries_then_EveryQueryIsInvoked() {
+    assertThat(attachmentQueries().keySet())
+        .containsExactlyInAnyOrderElementsOf(getQueryMethodNames(AttachmentRepository.class));
+  }
+
+  @Test
+  public void given_CacheInvalidationRepository_when_ListQueries_then_EveryQueryIsInvoked() {
+    assertThat(cacheInvalidationQueries().keySet())
+        .containsExactlyInAnyOrderElementsOf(
+            getQueryMethodNames(CacheInvalidationRepository.class));
+  }
+
+  @Test
+  public void given_RequestQueries_when_Explain_then_NoFullScan() {
+    requestQueries().forEach(this::assertNoFullScan);
+  }
+
+  @Test
+  public void given_RequestSearches_when_Explain_then_NoFullScan() {
+    requestSearches().forEach(this::assertNoFullScan);
+  }
+
+  @Test
+  public void given_RequestCountQueries_when_Explain_then_NoFullScan() {
+    requestCountQueries()
+        .forEach(
+            (name, query) -> {
+              if (FULL_SCANS.contains(name))
+                assertThat(record(query)).as("Statements of %s", name).isNotEmpty();
+              else assertNoFullScan(name, query);
+            });
+  }
+
+  @Test
+  public void given_ContractQueries_when_Explain_then_NoFullScan() {
+    contractQueries().forEach(this::assertNoFullScan);
+  }
+
+  @Test
+  public void given_FundingQueries_when_Explain_then_NoFullScan() {
+    fundingQueries().forEach(this::assertNoFullScan);
+  }
+
+  @Test
+  public void given_AttachmentQueries_when_Explain_then_NoFullScan() {
+    attachmentQueries().forEach(this::assertNoFullScan);
+  }
+
+  @Test
+  public void given_CacheInvalidationQueries_when_Explain_then_NoFullScan() {
+    cacheInvalidationQueries().forEach(this::assertNoFullScan);
+  }
+
+  /** The request queries, invoked with the arguments the request service passes. */
+  private Map<String, Runnable> requestQueries() {
+    Map<String, Runnable> queries = new LinkedHashMap<>();
+
+    queries.put("findByRequestIdIn", () -> requestRepository.findByRequestIdIn(List.of(1, 2, 3)));
+    queries.put(
+        "findRequestForFundingsByProposal",
+        () ->
+            requestRepository.findRequestForFundingsByProposal(
+                1, Request.TYPE_PRO, Request.STATUS_FUNDING_REQUESTED, Request.TYPE_RFF));
+    queries.put(
+        "findRequestForFundingsByProposalAndStatusIn",
+        () ->
+            requestRepository.findRequestForFundingsByProposalAndStatusIn(
+                1,
+                Request.TYPE_PRO,
+                Request.STATUS_FUNDING_REQUESTED,
+                Request.TYPE_RFF,
+                List.of(Request.STATUS_OPEN, Request.STATUS_FUNDING_REQUESTED)));
+    queries.put("updateStatus", () -> requestRepository.updateStatus(1, Request.STATUS_CLOSED));
+    queries.put(
+        "updateStatusIfStatus",
+        () ->
+            requestRepository.updateStatusIfStatus(1, Request.STATUS_OPEN, Request.STATUS_CLOSED));
+    queries.put(
+        "updateStatusByRequestIdAndIdNot",
+        () -> requestRepository.updateStatusByRequestIdAndIdNot(1, 2, "REJ"));
+    queries.put(
+        "findIdsByRequestIdAndIdNotForUpdate",
+        () -> requestRepository.findIdsByRequestIdAndIdNotForUpdate(1, 2));
+    queries.put("findByIdForUpdate", () -> requestRepository.findByIdForUpdate(1));
+    queries.put("updateRepayment", () -> requestRepository.updateRepayment(1, 10L));
+    queries.put("deleteByFromProfileId", () -> requestRepository.deleteByFromProfileId(1));
+    queries.put("deleteByToProfileId", () -> requestRepository.deleteByToProfileId(1));
+    queries.put("deleteByProfileId", () -> requestRepository.deleteByProfileId(1));
+
+    return queries;
+  }
+
+  /** The searches run by the request service, by search criteria. */
+  private Map<String, Runnable> requestSearches() {
+    Map<String, RequestSearch> searches = new LinkedHashMap<>();
+
+    searches.put("fromProfileId", RequestSearch.builder().fromProfileId(1).build());
+    searches.put(
+        "fromProfileId, type", RequestSearch.builder().fromProfileId(1).type("RFP").build());
+    searches.put(
+        "fromProfileId, type, statuses",
+        RequestSearch.builder()
+            .fromProfileId(1)
+            .type("PRO")
+            .statuses(List.of("O", "ACC"))
+            .build());
+    searches.put("toProfileId", RequestSearch.builder().toProfileId(1).build());
+    searches.put(
+        "toProfileId, type", RequestSearch.builder().toProfileId(1).type("PRO").build());
+    searches.put(
+        "toProfileId, type, statuses",
+        RequestSearch.builder().toProfileId(1).type("PRO").statuses(List.of("O")).build());
+    searches.put("profileId", RequestSearch.builder().profileId(1).build());
+    searches.put(
+        "type, statuses", RequestSearch.builder().type("RFF").statuses(List.of("FR")).build());
+    searches.put("requestId", RequestSearch.builder().requestId(1).build());
+
+    Map<String, Runnable> queries = new LinkedHashMap<>();
+
+    searches.forEach(
+        (name, search) ->
+            queries.put(
+                name,
+                () ->
+                    requestRepository.search(
+                        RequestSpecifications.of(search), search.getSort(), 0)));
+
+    return queries;
+  }
+
+  private Map<String, Runnable> requestCountQueries() {
+    Map<String, Runnable> queries = new LinkedHashMap<>();
+
+    queries.put("findByProfileId", () -> requestCountRepository.findByProfileId(1));
+    queries.put(
+        "increment",
+        () -> requestCountRepository.increment(1, RequestCount.DIRECTION_FROM, "RFP", "O", 1));
+    queries.put("deleteAllCounts", () -> requestCountRepository.deleteAllCounts());
+    queries.put("recountFrom", () -> requestCountRepository.recountFrom());
+    queries.put("recountTo", () -> requestCountRepository.recountTo());
+
+    return queries;
+  }
+
+  private Map<String, Runnable> contractQueries() {
+    Map<String, Runnable> queries = new LinkedHashMap<>();
+
+    queries.put("updateStatus", () -> contractRepository.updateStatus(1, "FD"));
+    queries.put("fund", () -> contractRepository.fund(1, 10L));
+    queries.put("findByIdForUpdate", () -> contractRepository.findByIdForUpdate(1));
+    queries.put("findIdsByStatus", () -> contractRepository.findIdsByStatus("RP"));
+    queries.put("findPortfolioPositions", () -> contractRepository.findPortfolioPositions(1));
+    queries.put("findByRequestId", () -> contractRepository.findByRequestId(1));
+    queries.put(
+        "findByRequestIdIn", () -> contractRepository.findByRequestIdIn(List.of(1, 2, 3)));
+
+    return queries;
+  }
+
+  private Map<String, Runnable> fundingQueries() {
+    Map<String, Runnable> queries = new LinkedHashMap<>();
+
+    queries.put("updateStatus", () -> fundingRepository.updateStatus(1, "FD"));
+    queries.put("updateDisbursedAmount", () -> fundingRepository.updateDisbursedAmount(1, 10L));
+    queries.put("disburse", () -> fundingRepository.disburse(List.of(1, 2, 3)));
+    queries.put(
+        "markDisbursing", () -> fundingRepository.markDisbursing(List.of(1, 2, 3), "batch-1"));
+    queries.put("findByContractId", () -> fundingRepository.findByContractId(1));
+    queries.put(
+        "findByContractIdIn", () -> fundingRepository.findByContractIdIn(List.of(1, 2, 3)));
+    queries.put("findByProfileId", () -> fundingRepository.findByProfileId(1));
+
+    return queries;
+  }
+
+  private Map<String, Runnable> attachmentQueries() {
+    Map<String, Runnable> queries = new LinkedHashMap<>();
+
+    queries.put("findByDocumentId", () -> attachmentRepository.findByDocumentId(1));
+    queries.put("deleteByDocumentId", () -> attachmentRepository.deleteByDocumentId(1));
+
+    return queries;
+  }
+
+  private Map<String, Runnable> cacheInvalidationQueries() {
+    Map<String, Runnable> queries = new LinkedHashMap<>();
+
+    queries.put(
+        "findByIdGreaterThanOrderByIdAsc",
+        () ->
+            cacheInvalidationRepository.findByIdGreaterThanOrderByIdAsc(
+                400L, PageRequest.of(0, 1000)));
+    queries.put("findMaxId", () -> cacheInvalidationRepository.findMaxId());
+    queries.put(
+        "deleteByCreatedTimestampBefore",
+        () ->
+            cacheInvalidationRepository.deleteByCreatedTimestampBefore(
+                LocalDateTime.now().minusHours(1)));
+
+    return queries;
+  }
+
+  /**
+   * Asserts that every table in the plans of the statements a query runs is read through an index.
+   * An {@code INSERT} of values reads no table, so it has no plan to check.
+   *
+   * @param name the name of the query
+   * @param query the invocation of the query
+   */
+  private void assertNoFullScan(String name, Runnable query) {
+    List<RecordedStatement> statements = record(query);
+
+    assertThat(statements).as("Statements of %s", name).isNotEmpty();
+
+    for (RecordedStatement statement : statements) {
+      String sql = statement.sql.trim().toLowerCase(Locale.ROOT);
+
+      if (sql.startsWith("insert") && !sql.contains("select")) continue;
+
+      List<Map<String, Object>> plan =
+          jdbcTemplate.queryForList("EXPLAIN " + statement.sql, statement.parameters.toArray());
+
+      log.info("Plan of {}, {}: {}", name, statement.sql, plan);
+
+      for (Map<String, Object> row : plan) {
+        if (row.get("table") == null) continue;
+
+        assertThat(row.get("type"))
+            .as("Access type of %s in %s: %s", row.get("table"), name, statement.sql)
+            .isNotEqualTo("ALL")
+            .isNotEqualTo("index");
+        assertThat(row.get("key"))
+            .as("Index of %s in %s: %s", row.get("table"), name, statement.sql)
+            .isNotNull();
+      }
+    }
+  }
+
+  /**
+   * Invokes a query in a transaction that is rolled back afterwards, so the rows it changes stay as
+   * seeded. The persistence context is flushed before the rollback, because the derived delete
+   * queries only run their deletes on flush.
+   *
+   * @param query the invocation of the query
+   * @return the statements run, in order
+   */
+  private List<RecordedStatement> record(Runnable query) {
+    return new TransactionTemplate(transactionManager)
+        .execute(
+            status -> {
+              status.setRollbackOnly();
+              STATEMENTS.clear();
+              recording = true;
+
+              try {
+                query.run();
+                entityManager.flush();
+              } finally {
+                recording = false;
+              }
+
+              return new ArrayList<>(STATEMENTS);
+            });
+  }
+
+  /**
+   * Gets the names of the query methods declared by a repository, excluding the ones inherited
+   * from the {@code CrudRepository}.
+   *
+   * @param repository the repository interface
+   * @return the method names
+   */
+  private static Set<String> getQueryMethodNames(Class<?> repository) {
+    return Arrays.stream(repository.getDeclaredMethods())
+        .filter(method -> !method.isDefault() && !method.isSynthetic())
+        .map(Method::getName)
+        .collect(Collectors.toCollection(HashSet::new));
+  }
+
+  /** A statement run through the data source, with the parameters it was run with. */
+  private static class RecordedStatement {
+
+    private final String sql;
+    private final List<Object> parameters;
+
+    private RecordedStatement(String sql, Collection<Object> parameters) {
+      this.sql = sql;
+      this.parameters = new ArrayList<>(parameters);
+    }
+  }
+
+  /**
+   * Wraps the data source, so the prepared statements run while {@link #recording} is set are
+   * recorded with the sql sent to the database and the parameters bound to it.
+   */
+  static class StatementRecorder implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+      return bean instanceof DataSource ? wrap(DataSource.class, bean, null) : bean;
+    }
+
+    /**
+     * Wraps a data source, a connection or a prepared statement.
+     *
+     * @param type the interface wrapped
+     * @param target the object wrapped
+     * @param sql the sql of a prepared statement, {@code null} otherwise
+     * @return the wrapper, closeable if the target is, so that the pool is still closed
+     */
+    private static Object wrap(Class<?> type, Object target, String sql) {
+      Map<Integer, Object> parameters = new TreeMap<>();
+      Class<?>[] types =
+          target instanceof Closeable
+              ? new Class<?>[] {type, Closeable.class}
+              : new Class<?>[] {type};
+
+      return Proxy.newProxyInstance(
+          AestusQueryPlanTests.class.getClassLoader(),
+          types,
+          (proxy, method, args) -> {
+            String name = method.getName();
+
+            if (sql != null) {
+              if (name.startsWith("set")
+                  && args != null
+                  && args.length >= 2
+                  && args[0] instanceof Integer)
+                parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+              else if (name.equals("clearParameters")) parameters.clear();
+              else if (recording && (name.startsWith("execute") || name.equals("addBatch")))
+                STATEMENTS.add(new RecordedStatement(sql, parameters.values()));
+            }
+
+            Object result;
+
+            try {
+              result = method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+              throw ex.getCause();
+            }
+
+            if (result instanceof Connection && name.equals("getConnection"))
+              return wrap(Connection.class, result, null);
+            if (result instanceof PreparedStatement && name.equals("prepareStatement"))
+              return wrap(PreparedStatement.class, result, (String) args[0]);
+
+            return result;
+          });
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package com.aestus.api.common.util;
+
+import com.aestus.api.common.cache.CacheInvalidator;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Revokes the tokens of a profile and all tokens, on this node and from the invalidations of the
+ * other nodes, and checks that only the tokens issued before a revocation are rejected, to the
+ * millisecond.
+ */
+class AestusJWTUtilsTests {
+  private static final int PROFILE_ID = 1;
+  private static final int OTHER_PROFILE_ID = 2;
+  private static final String USERNAME = "brucewayne";
+  private static final String OTHER_USERNAME = "dianaprince";
+  private static final List<GrantedAuthority> AUTHORITIES = AuthorityUtils.createAuthorityList("I");
+
+  private CacheInvalidator cacheInvalidator;
+  private CacheInvalidator.Listener listener;
+  private JWTUtils jwtUtils;
+
+  @BeforeEach
+  public void initBeforeEachTest() {
+    cacheInvalidator = mock(CacheInvalidator.class);
+    jwtUtils = new JWTUtils();
+
+    ReflectionTestUtils.setField(jwtUtils, "SIGNING_KEY", "justiceLEAGUEofAMERICA");
+    ReflectionTestUtils.setField(jwtUtils, "EXPIRE_IN", 60_000L);
+    ReflectionTestUtils.setField(jwtUtils, "CACHE_SIZE", 100L);
+    ReflectionTestUtils.setField(jwtUtils, "cacheInvalidator", cacheInvalidator);
+
+    jwtUtils.init();
+
+    ArgumentCaptor<CacheInvalidator.Listener> captor =
+        ArgumentCaptor.forClass(CacheInvalidator.Listener.class);
+
+    verify(cacheInvalidator).register(eq(JWTUtils.REVOCATIONS_CACHE_NAME), captor.capture());
+    listener = captor.getValue();
+  }
+
+  @Test
+  public void givenTokenIssuedBeforeRevocation_whenVerify_thenRejects() {
+    String token = token(PROFILE_ID, USERNAME);
+    String other = token(OTHER_PROFILE_ID, OTHER_USERNAME);
+
+    // Verified once, the claims are cached
+    jwtUtils.verifyToken(token);
+    awaitNextMillisecond();
+
+    jwtUtils.revokeTokens(PROFILE_ID, USERNAME);
+
+    assertThrows(JwtException.class, () -> jwtUtils.verifyToken(token));
+    assertThat(jwtUtils.getProfileId(jwtUtils.verifyToken(other))).isEqualTo(OTHER_PROFILE_ID);
+
+    verify(cacheInvalidator).publish(JWTUtils.REVOCATIONS_CACHE_NAME, "profileId:" + PROFILE_ID);
+    verify(cacheInvalidator).publish(JWTUtils.REVOCATIONS_CACHE_NAME, "username:" + USERNAME);
+  }
+
+  @Test
+  public void givenTokenIssuedUnderFormerUsername_whenVerify_thenRejects() {
+    String token = token(null, USERNAME);
+
+    awaitNextMillisecond();
+    jwtUtils.revokeTokens(null, USERNAME);
+
+    assertThrows(JwtException.class, () -> jwtUtils.verifyToken(token));
+  }
+
+  @Test
+  public void givenLoginAgainInTheSecondOfTheRevocation_whenVerify_thenAccepts() {
+    String token = token(PROFILE_ID, USERNAME);
+
+    awaitNextMillisecond();
+
+    // Early enough in a second for the revocation and the login to share it
+    while (System.currentTimeMillis() % 1000 > 500) Thread.onSpinWait();
+
+    long revokedAt = System.currentTimeMillis();
+
+    jwtUtils.revokeTokens(PROFILE_ID, USERNAME);
+
+    Claims claims = jwtUtils.verifyToken(token(PROFILE_ID, USERNAME));
+
+    assertThat(claims.getIssuedAt().getTime() / 1000).isEqualTo(revokedAt / 1000);
+    assertThat(jwtUtils.getUsername(claims)).isEqualTo(USERNAME);
+    assertThrows(JwtException.class, () -> jwtUtils.verifyToken(token));
+  }
+
+  @Test
+  public void givenAllTokensRevoked_whenVerify_thenRejectsOnlyEarlierTokens() {
+    String token = token(PROFILE_ID, USERNAME);
+    String serviceToken = jwtUtils.getServiceToken();
+
+    awaitNextMillisecond();
+    jwtUtils.revokeAllTokens();
+
+    verify(cacheInvalidator).publish(JWTUtils.REVOCATIONS_CACHE_NAME, null);
+    assertThrows(JwtException.class, () -> jwtUtils.verifyToken(token));
+    assertThrows(JwtException.class, () -> jwtUtils.verifyToken(serviceToken));
+
+    // The service token is issued again after the revocation
+    assertThat(jwtUtils.getServiceToken()).isNotEqualTo(serviceToken);
+    assertThat(jwtUtils.isServiceToken(jwtUtils.verifyToken(jwtUtils.getServiceToken()))).isTrue();
+    assertThat(jwtUtils.verifyToken(token(PROFILE_ID, USERNAME))).isNotNull();
+  }
+
+  @Test
+  public void givenRevocationOfAnotherNode_whenVerify_thenRejectsTokensIssuedBefore() {
+    String before = token(PROFILE_ID, USERNAME);
+
+    jwtUtils.verifyToken(before);
+    awaitNextMillisecond();
+
+    LocalDateTime revokedAt = LocalDateTime.now();
+
+    awaitNextMillisecond();
+
+    String after = token(PROFILE_ID, USERNAME);
+
+    // Received after the login on this node, applied as of the time of the revocation
+    listener.invalidate("profileId:" + PROFILE_ID, revokedAt);
+
+    assertThrows(JwtException.class, () -> jwtUtils.verifyToken(before));
+    assertThat(jwtUtils.verifyToken(after)).isNotNull();
+    assertThat(jwtUtils.verifyToken(token(OTHER_PROFILE_ID, OTHER_USERNAME))).isNotNull();
+  }
+
+  @Test
+  public void givenRevocationOfAllTokensOfAnotherNode_whenVerify_thenRejectsTokensIssuedBefore() {
+    String before = token(PROFILE_ID, USERNAME);
+
+    awaitNextMillisecond();
+
+    long revokedAt = System.currentTimeMillis();
+
+    awaitNextMillisecond();
+
+    String after = token(OTHER_PROFILE_ID, OTHER_USERNAME);
+
+    listener.invalidate(
+        null, LocalDateTime.ofInstant(Instant.ofEpochMilli(revokedAt), ZoneId.systemDefault()));
+
+    assertThrows(JwtException.class, () -> jwtUtils.verifyToken(before));
+    assertThat(jwtUtils.verifyToken(after)).isNotNull();
+  }
+
+  @Test
+  public void givenServiceToken_whenVerify_thenHasAdminAuthorityAndNoProfile() {
+    Claims claims = jwtUtils.verifyToken(jwtUtils.getServiceToken());
+
+    assertThat(jwtUtils.isServiceToken(claims)).isTrue();
+    assertThat(jwtUtils.getUsername(claims)).isEqualTo(JWTUtils.SERVICE_USERNAME);
+    assertThat(jwtUtils.getUserType(claims)).isEqualTo("A");
+    assertThat(jwtUtils.getProfileId(claims)).isNull();
+
+    // A profile token is not a service token, whatever its username
+    assertThat(jwtUtils.isServiceToken(jwtUtils.verifyToken(token(3, JWTUtils.SERVICE_USERNAME))))
+        .isFalse();
+  }
+
+  private String token(Integer profileId, String username) {
+    return jwtUtils.generateToken(profileId, username, null, AUTHORITIES);
+  }
+
+  /** Waits until the clock has moved past the millisecond of the tokens issued so far. */
+  private static void awaitNextMillisecond() {
+    long now = System.currentTimeMillis();
+
+    while (System.currentTimeMillis() == now) Thread.onSpinWait();
+  }
+}
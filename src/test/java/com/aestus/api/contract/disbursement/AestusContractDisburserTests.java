@@ -0,0 +1,254 @@
+package com.aestus.api.contract.disbursement;
+
+import com.aestus.api.common.exception.GatewayException;
+import com.aestus.api.contract.exception.TransferFundsException;
+import com.aestus.api.contract.model.Contract;
+import com.aestus.api.contract.service.ContractService;
+import com.aestus.api.funding.gateway.FundingGateway;
+import com.aestus.api.funding.model.Funding;
+import com.aestus.api.ledger.exception.LedgerException;
+import com.aestus.api.ledger.gateway.LedgerGateway;
+import com.aestus.api.ledger.model.Ledger;
+import com.aestus.api.ledger.model.TransferLeg;
+import com.aestus.api.profile.gateway.ProfileGateway;
+import com.aestus.api.profile.model.UserProfile;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Resumes disbursements stopped between their steps, against an in-memory ledger, and checks that
+ * every investor is paid exactly once.
+ */
+class AestusContractDisburserTests {
+  private static final int CONTRACT_ID = 7;
+  private static final String CONTRACT_WALLET_ID = "ContractWallet0000000007";
+  private static final long REPAYMENT = 110L;
+  private static final int FUNDINGS = 5;
+  private static final int CHUNK_SIZE = 2;
+
+  private Ledger ledger;
+  private FakeLedgerGateway ledgerGateway;
+  private FakeFundingGateway fundingGateway;
+  private ContractService contractService;
+  private ContractDisburser disburser;
+
+  @BeforeEach
+  public void initBeforeEachTest() throws Exception {
+    ledger = new Ledger();
+    ledger.open(CONTRACT_WALLET_ID, FUNDINGS * REPAYMENT);
+
+    Map<Integer, UserProfile> profiles = new HashMap<>();
+
+    fundingGateway = new FakeFundingGateway();
+
+    for (int id = 1; id <= FUNDINGS; id++) {
+      String walletId = investorWalletId(id);
+
+      ledger.open(walletId, 0);
+
+      UserProfile profile = new UserProfile();
+      profile.setId(100 + id);
+      profile.setWalletId(walletId);
+      profiles.put(profile.getId(), profile);
+
+      Funding funding = new Funding(CONTRACT_ID, profile.getId(), 100L, REPAYMENT);
+      funding.setId(id);
+      fundingGateway.fundings.put(id, funding);
+    }
+
+    ProfileGateway profileGateway = mock(ProfileGateway.class);
+    when(profileGateway.getProfilesByIds(anyCollection())).thenReturn(profiles);
+
+    Contract contract = new Contract();
+    contract.setId(CONTRACT_ID);
+    contract.setWalletId(CONTRACT_WALLET_ID);
+    contract.setStatus(Contract.STATUS_FUNDS_REPAID);
+
+    contractService = mock(ContractService.class);
+    when(contractService.getContractById(anyInt()))
+        .thenAnswer(invocation -> contract.toBuilder().build());
+
+    ledgerGateway = new FakeLedgerGateway(ledger);
+    disburser =
+        new ContractDisburser(
+            contractService, fundingGateway, profileGateway, ledgerGateway, CHUNK_SIZE);
+  }
+
+  @Test
+  public void givenRepaidContract_whenDisburse_thenPaysEveryFundingOnce() throws Exception {
+    Contract contract = disburser.disburse(CONTRACT_ID);
+
+    assertThat(contract.getStatus()).isEqualTo(Contract.STATUS_FUNDS_DISBURSED);
+    assertThat(ledgerGateway.batches).hasSize(3);
+    assertPaidOnce();
+    verify(contractService).updateContractStatus(CONTRACT_ID, Contract.STATUS_FUNDS_DISBURSED);
+  }
+
+  @Test
+  public void givenStopAfterTransfer_whenResume_thenDoesNotTransferAgain() throws Exception {
+    // The second chunk is transferred, then the run stops before its fundings are disbursed
+    fundingGateway.failDisburseAt = 2;
+
+    assertThrows(TransferFundsException.class, () -> disburser.disburse(CONTRACT_ID));
+
+    assertThat(fundingGateway.fundings.get(3).getStatus())
+        .isEqualTo(Funding.STATUS_FUNDS_DISBURSING);
+    assertThat(ledger.getBalance(investorWalletId(3))).isEqualTo(REPAYMENT);
+
+    disburser.disburse(CONTRACT_ID);
+
+    // The marked chunk is sent again with its batch id, and the ledger applies it once
+    assertThat(ledgerGateway.batches.get("contract-7-funding-3")).isEqualTo(2);
+    assertPaidOnce();
+  }
+
+  @Test
+  public void givenStopBeforeTransfer_whenResume_thenTransfersMarkedChunk() throws Exception {
+    // The second chunk is marked, then the run stops before its batch is transferred
+    ledgerGateway.failTransferAt = 2;
+
+    assertThrows(TransferFundsException.class, () -> disburser.disburse(CONTRACT_ID));
+
+    assertThat(fundingGateway.fundings.get(4).getStatus())
+        .isEqualTo(Funding.STATUS_FUNDS_DISBURSING);
+    assertThat(ledger.getBalance(investorWalletId(4))).isEqualTo(0L);
+
+    disburser.disburse(CONTRACT_ID);
+
+    assertPaidOnce();
+  }
+
+  @Test
+  public void givenFundingsDisbursed_whenResume_thenSkipsThem() throws Exception {
+    fundingGateway.failDisburseAt = 3;
+
+    assertThrows(TransferFundsException.class, () -> disburser.disburse(CONTRACT_ID));
+
+    disburser.disburse(CONTRACT_ID);
+
+    // The first 2 chunks are not sent again, the last one is resumed
+    assertThat(ledgerGateway.batches.get("contract-7-funding-1")).isEqualTo(1);
+    assertThat(ledgerGateway.batches.get("contract-7-funding-3")).isEqualTo(1);
+    assertThat(ledgerGateway.batches.get("contract-7-funding-5")).isEqualTo(2);
+    assertPaidOnce();
+    verify(contractService, times(1))
+        .updateContractStatus(CONTRACT_ID, Contract.STATUS_FUNDS_DISBURSED);
+  }
+
+  private void assertPaidOnce() {
+    for (int id = 1; id <= FUNDINGS; id++) {
+      assertThat(ledger.getBalance(investorWalletId(id))).isEqualTo(REPAYMENT);
+      assertThat(fundingGateway.fundings.get(id).getStatus())
+          .isEqualTo(Funding.STATUS_FUNDS_DISBURSED);
+    }
+
+    assertThat(ledger.getBalance(CONTRACT_WALLET_ID)).isEqualTo(0L);
+  }
+
+  private static String investorWalletId(int fundingId) {
+    return String.format("InvestorWallet%010d", fundingId);
+  }
+
+  /** The ledger gateway over an in-memory ledger, counting the batches sent by id. */
+  private static class FakeLedgerGateway implements LedgerGateway {
+    private final Ledger ledger;
+    private final Map<String, Integer> batches = new HashMap<>();
+    private int calls;
+    private int failTransferAt;
+
+    private FakeLedgerGateway(Ledger ledger) {
+      this.ledger = ledger;
+    }
+
+    public void transfer(String fromWalletId, String toWalletId, long amount) {
+      throw new UnsupportedOperationException();
+    }
+
+    public void transfer(String batchId, List<TransferLeg> legs) throws GatewayException {
+      if (++calls == failTransferAt) throw new GatewayException("Ledger unavailable");
+
+      batches.merge(batchId, 1, Integer::sum);
+
+      try {
+        ledger.transfer(batchId, legs);
+      } catch (LedgerException ex) {
+        throw new GatewayException(ex);
+      }
+    }
+  }
+
+  /** The funding gateway over a map, the fundings read are copies as if read from the database. */
+  private static class FakeFundingGateway implements FundingGateway {
+    private final Map<Integer, Funding> fundings = new TreeMap<>();
+    private int calls;
+    private int failDisburseAt;
+
+    public List<Funding> getFundingsByContractId(int contractId) {
+      return fundings.values().stream()
+          .map(funding -> funding.toBuilder().build())
+          .collect(Collectors.toList());
+    }
+
+    public Map<Integer, List<Funding>> getFundingsByContractIds(Collection<Integer> contractIds) {
+      throw new UnsupportedOperationException();
+    }
+
+    public List<Funding> getFundingsByProfileId(int profileId) {
+      throw new UnsupportedOperationException();
+    }
+
+    public Funding createFunding(Funding funding) {
+      throw new UnsupportedOperationException();
+    }
+
+    public List<Funding> createFundings(List<Funding> fundings) {
+      throw new UnsupportedOperationException();
+    }
+
+    public void markFundingsDisbursing(List<Integer> ids, String batchId)
+        throws GatewayException {
+      for (Integer id : ids)
+        if (!fundings.get(id).getStatus().equals(Funding.STATUS_FUNDS_IN_CONTRACT))
+          throw new GatewayException("Funding not in contract, id=" + id);
+
+      for (Integer id : ids) {
+        fundings.get(id).setStatus(Funding.STATUS_FUNDS_DISBURSING);
+        fundings.get(id).setDisbursementBatchId(batchId);
+      }
+    }
+
+    public void disburseFundings(List<Integer> ids) throws GatewayException {
+      if (++calls == failDisburseAt) throw new GatewayException("Funding unavailable");
+
+      List<Funding> disbursed = new ArrayList<>();
+
+      for (Integer id : ids) {
+        if (fundings.get(id).getStatus().equals(Funding.STATUS_FUNDS_DISBURSED))
+          throw new GatewayException("Funding disbursed already, id=" + id);
+
+        disbursed.add(fundings.get(id));
+      }
+
+      disbursed.forEach(Funding::disburse);
+    }
+  }
+}
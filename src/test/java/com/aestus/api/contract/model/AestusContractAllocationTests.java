@@ -0,0 +1,55 @@
+package com.aestus.api.contract.model;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Allocates the outstanding amount of a contract to batches of funding orders. */
+class AestusContractAllocationTests {
+
+  @Test
+  public void givenOrdersThatFit_whenAllocate_thenAllocatesThemInFull() {
+    assertThat(Contract.allocate(100, new long[] {10, 20, 30})).containsExactly(10, 20, 30);
+    assertThat(Contract.allocate(60, new long[] {10, 20, 30})).containsExactly(10, 20, 30);
+  }
+
+  @Test
+  public void givenOversubscription_whenAllocate_thenRejectsTheOrdersThatNoLongerFit() {
+    assertThat(Contract.allocate(100, new long[] {30, 30, 30, 30})).containsExactly(30, 30, 30, 0);
+    assertThat(Contract.allocate(90, new long[] {100, 50})).containsExactly(0, 50);
+
+    // A later order that fits what is left is still allocated
+    assertThat(Contract.allocate(50, new long[] {40, 20, 10})).containsExactly(40, 0, 10);
+  }
+
+  @Test
+  public void givenNothingOutstanding_whenAllocate_thenAllocatesNothing() {
+    assertThat(Contract.allocate(0, new long[] {10, 20})).containsExactly(0, 0);
+    assertThat(Contract.allocate(-5, new long[] {10, 20})).containsExactly(0, 0);
+    assertThat(Contract.allocate(50, new long[0])).isEmpty();
+  }
+
+  @Test
+  public void givenRandomOrders_whenAllocate_thenAllocatesAsIfFundedOneByOne() {
+    Random random = new Random(42);
+
+    for (int run = 0; run < 1000; run++) {
+      long[] amounts = new long[1 + random.nextInt(20)];
+
+      for (int i = 0; i < amounts.length; i++) amounts[i] = 1 + random.nextInt(1000);
+
+      long outstanding = random.nextInt(10_000);
+      long[] allocated = Contract.allocate(outstanding, amounts);
+
+      // Each order is funded directly against what the earlier ones left, or rejected
+      for (int i = 0; i < amounts.length; i++) {
+        long expected = amounts[i] <= outstanding ? amounts[i] : 0;
+
+        assertThat(allocated[i]).isEqualTo(expected);
+        outstanding -= expected;
+      }
+    }
+  }
+}
@@ -0,0 +1,236 @@
+package com.aestus.api.contract.sequencer;
+
+import com.aestus.api.contract.exception.ContractException;
+import com.aestus.api.contract.exception.FundingAllocationException;
+import com.aestus.api.contract.model.FundingOrder;
+import com.aestus.api.contract.model.FundingSequencerStats;
+import com.aestus.api.contract.service.ContractService;
+import com.aestus.api.funding.model.Funding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Funds a contract through the sequencer, uncontended then while a funding is being committed, and
+ * checks that the fundings arriving meanwhile are handed over to a worker in batches and the
+ * contract goes back to direct mode.
+ */
+class AestusFundingSequencerTests {
+  private static final int CONTRACT_ID = 7;
+  private static final int CAPACITY = 4;
+  private static final int MAX_BATCH_SIZE = 2;
+  private static final long TIMEOUT_MS = 5000;
+
+  private ContractService contractService;
+  private FundingSequencer sequencer;
+
+  /** Released to let the direct funding being committed complete. */
+  private CountDownLatch release;
+
+  /** Counted down once the direct funding is being committed. */
+  private CountDownLatch committing;
+
+  private final List<List<FundingOrder>> batches = new ArrayList<>();
+
+  @BeforeEach
+  public void initBeforeEachTest() throws Exception {
+    release = new CountDownLatch(0);
+    committing = new CountDownLatch(1);
+    contractService = mock(ContractService.class);
+
+    when(contractService.fundContract(anyInt(), anyInt(), anyLong()))
+        .thenAnswer(
+            invocation -> {
+              committing.countDown();
+              release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+              return funding(invocation.getArgument(1), invocation.getArgument(2));
+            });
+
+    // An order of nothing is allocated nothing
+    when(contractService.fundContract(anyInt(), anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<FundingOrder> orders = invocation.getArgument(1);
+
+              synchronized (batches) {
+                batches.add(new ArrayList<>(orders));
+              }
+
+              List<Funding> fundings = new ArrayList<>();
+
+              for (int i = 0; i < orders.size(); i++)
+                fundings.add(
+                    orders.get(i).getAmount() == 0
+                        ? null
+                        : funding(orders.get(i).getProfileId(), orders.get(i).getAmount()));
+
+              return fundings;
+            });
+
+    sequencer = new FundingSequencer(contractService, CAPACITY, MAX_BATCH_SIZE, 100, 1, TIMEOUT_MS);
+    sequencer.start();
+  }
+
+  @AfterEach
+  public void closeSequencer() {
+    release.countDown();
+    sequencer.close();
+  }
+
+  @Test
+  public void givenUncontendedContract_whenFund_thenCommitsDirectly() throws Exception {
+    Funding funding = sequencer.fund(CONTRACT_ID, 1, 100);
+
+    assertThat(funding.getProfileId()).isEqualTo(1);
+    assertThat(funding.getFundingAmount()).isEqualTo(100L);
+    verify(contractService, never()).fundContract(anyInt(), anyList());
+    assertThat(stats().getDirect()).isEqualTo(1);
+    assertThat(stats().getBatched()).isEqualTo(0);
+  }
+
+  @Test
+  public void givenFundingInFlight_whenFund_thenHandsQueuedFundingsToWorkerInBatches()
+      throws Exception {
+    CompletableFuture<Funding> direct = fundWhileBlocked();
+
+    List<CompletableFuture<Funding>> queued = new ArrayList<>();
+
+    for (int profileId = 2; profileId <= 4; profileId++)
+      queued.add(sequencer.submit(CONTRACT_ID, profileId, 10L * profileId));
+
+    assertThat(stats().getDepth()).isEqualTo(3);
+    assertThat(queued).noneMatch(CompletableFuture::isDone);
+
+    release.countDown();
+
+    assertThat(direct.get(TIMEOUT_MS, TimeUnit.MILLISECONDS).getProfileId()).isEqualTo(1);
+
+    for (int i = 0; i < queued.size(); i++)
+      assertThat(queued.get(i).get(TIMEOUT_MS, TimeUnit.MILLISECONDS).getProfileId())
+          .isEqualTo(i + 2);
+
+    // Drained in arrival order, at most MAX_BATCH_SIZE at a time
+    synchronized (batches) {
+      assertThat(batches.stream().map(this::profileIds).collect(Collectors.toList()))
+          .containsExactly(List.of(2, 3), List.of(4));
+    }
+
+    // The statistics of a batch are recorded right after its futures are completed
+    awaitBatches(2);
+
+    FundingSequencerStats stats = stats();
+
+    assertThat(stats.getDepth()).isEqualTo(0);
+    assertThat(stats.getDirect()).isEqualTo(1);
+    assertThat(stats.getBatched()).isEqualTo(3);
+    assertThat(stats.getBatches()).isEqualTo(2);
+    assertThat(stats.getMaxBatchSize()).isEqualTo(2);
+
+    // The worker releases the contract after its last batch, the next funding is direct again
+    long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+
+    while (stats().getDirect() == 1) {
+      assertThat(System.currentTimeMillis()).isLessThan(deadline);
+      sequencer.fund(CONTRACT_ID, 5, 50);
+    }
+  }
+
+  @Test
+  public void givenOrderAllocatedNothing_whenBatched_thenFailsOnlyThatOrder() throws Exception {
+    CompletableFuture<Funding> direct = fundWhileBlocked();
+    CompletableFuture<Funding> allocated = sequencer.submit(CONTRACT_ID, 2, 20);
+    CompletableFuture<Funding> unallocated = sequencer.submit(CONTRACT_ID, 3, 0);
+
+    release.countDown();
+    direct.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+    assertThat(allocated.get(TIMEOUT_MS, TimeUnit.MILLISECONDS).getFundingAmount())
+        .isEqualTo(20L);
+
+    ExecutionException ex =
+        assertThrows(
+            ExecutionException.class,
+            () -> unallocated.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+    assertThat(ex.getCause()).isInstanceOf(FundingAllocationException.class);
+  }
+
+  @Test
+  public void givenFullQueue_whenFund_thenRejects() throws Exception {
+    CompletableFuture<Funding> direct = fundWhileBlocked();
+
+    for (int profileId = 2; profileId < 2 + CAPACITY; profileId++)
+      sequencer.submit(CONTRACT_ID, profileId, 10);
+
+    ContractException ex =
+        assertThrows(ContractException.class, () -> sequencer.fund(CONTRACT_ID, 99, 10));
+
+    assertThat(ex.getMessage()).contains("Too many fundings queued");
+
+    release.countDown();
+    direct.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void givenClosedSequencer_whenFund_thenRejects() {
+    sequencer.close();
+
+    assertThrows(ContractException.class, () -> sequencer.fund(CONTRACT_ID, 1, 10));
+  }
+
+  /** Funds the contract from another thread and waits until the funding is being committed. */
+  private CompletableFuture<Funding> fundWhileBlocked() throws InterruptedException {
+    release = new CountDownLatch(1);
+
+    CompletableFuture<Funding> direct =
+        CompletableFuture.supplyAsync(() -> sequencer.submit(CONTRACT_ID, 1, 10).join());
+
+    assertThat(committing.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+
+    return direct;
+  }
+
+  private void awaitBatches(int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+
+    while (stats().getBatches() < count) {
+      assertThat(System.currentTimeMillis()).isLessThan(deadline);
+      Thread.sleep(1);
+    }
+  }
+
+  private FundingSequencerStats stats() {
+    return sequencer.getStats().stream()
+        .filter(stats -> stats.getContractId() == CONTRACT_ID)
+        .findFirst()
+        .orElseThrow();
+  }
+
+  private List<Integer> profileIds(List<FundingOrder> orders) {
+    return orders.stream().map(FundingOrder::getProfileId).collect(Collectors.toList());
+  }
+
+  private static Funding funding(int profileId, long amount) {
+    return new Funding(CONTRACT_ID, profileId, amount, amount);
+  }
+}
@@ -0,0 +1,172 @@
+package com.aestus.api.ledger;
+
+import com.aestus.api.common.util.Base58Utils;
+import com.aestus.api.ledger.exception.InvalidBalanceException;
+import com.aestus.api.ledger.exception.LedgerException;
+import com.aestus.api.ledger.model.Ledger;
+import com.aestus.api.ledger.model.TransferLeg;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Transfers between a few wallets shared by all threads, in both directions, one by one and in
+ * batches, while snapshots of all entries are taken. Checks that the transfers complete, so that
+ * no lock order deadlocks, that every snapshot holds the same total, and that each wallet ends
+ * with its initial balance plus the amounts it received less the amounts it sent.
+ */
+class AestusLedgerConcurrencyTests {
+  private static final int THREADS = 8;
+  private static final int WALLETS = 6;
+  private static final int ITERATIONS = 20_000;
+  private static final long INITIAL_BALANCE = 1_000_000_000L;
+  private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+  private Ledger ledger;
+  private String[] walletIds;
+  private ExecutorService executor;
+
+  @BeforeEach
+  public void initBeforeEachTest() {
+    ledger = new Ledger();
+    walletIds = new String[WALLETS];
+
+    Random random = new Random(42);
+    byte[] key = new byte[32];
+
+    for (int i = 0; i < WALLETS; i++) {
+      random.nextBytes(key);
+      walletIds[i] = Base58Utils.encode(key);
+      ledger.open(walletIds[i], INITIAL_BALANCE);
+    }
+
+    executor = Executors.newFixedThreadPool(THREADS + 1);
+  }
+
+  @AfterEach
+  public void shutdownExecutor() throws InterruptedException {
+    executor.shutdownNow();
+    executor.awaitTermination(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void givenSharedWallets_whenTransferConcurrently_thenKeepsTotalAndBalances() {
+    long total = total(ledger.getEntries());
+
+    // The net amount received by each wallet, by the transfers applied
+    AtomicLongArray received = new AtomicLongArray(WALLETS);
+    AtomicBoolean running = new AtomicBoolean(true);
+    CountDownLatch start = new CountDownLatch(1);
+
+    assertTimeoutPreemptively(
+        TIMEOUT,
+        () -> {
+          List<Future<?>> transferring = new ArrayList<>();
+
+          for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+
+            transferring.add(
+                executor.submit(
+                    () -> {
+                      start.await();
+                      transfer(new Random(seed), received);
+
+                      return null;
+                    }));
+          }
+
+          // Every snapshot is taken between transfers, so it holds the initial total
+          Future<Integer> snapshots =
+              executor.submit(
+                  () -> {
+                    int count = 0;
+
+                    start.await();
+
+                    while (running.get()) {
+                      assertThat(total(ledger.getEntries())).isEqualTo(total);
+                      count++;
+                    }
+
+                    return count;
+                  });
+
+          start.countDown();
+
+          for (Future<?> future : transferring) future.get();
+
+          running.set(false);
+
+          assertThat(snapshots.get()).isPositive();
+        });
+
+    Map<String, Long> entries = ledger.getEntries();
+
+    assertThat(total(entries)).isEqualTo(total);
+
+    for (int i = 0; i < WALLETS; i++)
+      assertThat(entries.get(walletIds[i]))
+          .as(walletIds[i])
+          .isEqualTo(INITIAL_BALANCE + received.get(i));
+  }
+
+  /** Transfers between random pairs of the wallets, and batches over 3 wallets in random order. */
+  private void transfer(Random random, AtomicLongArray received) throws LedgerException {
+    for (int i = 0; i < ITERATIONS; i++) {
+      int from = random.nextInt(WALLETS);
+      int to = (from + 1 + random.nextInt(WALLETS - 1)) % WALLETS;
+      long amount = 1 + random.nextInt(100);
+
+      if (i % 4 != 0) {
+        ledger.transfer(walletIds[from], walletIds[to], amount);
+        received.addAndGet(from, -amount);
+        received.addAndGet(to, amount);
+        continue;
+      }
+
+      // A cycle through a third wallet, locked in another order than its legs
+      int via = (to + 1 + random.nextInt(WALLETS - 2)) % WALLETS;
+
+      if (via == from) via = (via + 1) % WALLETS;
+
+      List<TransferLeg> legs =
+          List.of(
+              new TransferLeg(walletIds[from], walletIds[to], amount),
+              new TransferLeg(walletIds[to], walletIds[via], amount * 2),
+              new TransferLeg(walletIds[via], walletIds[from], amount));
+
+      try {
+        ledger.transfer(legs);
+      } catch (InvalidBalanceException ex) {
+        // Overdrawn, nothing was transferred
+        continue;
+      }
+
+      // The sender of the batch is paid back, the receiver passes on twice what it got
+      received.addAndGet(to, -amount);
+      received.addAndGet(via, amount);
+    }
+  }
+
+  private static long total(Map<String, Long> entries) {
+    return entries.values().stream().mapToLong(Long::longValue).sum();
+  }
+}
@@ -0,0 +1,125 @@
+package com.aestus.api.ledger;
+
+import com.aestus.api.common.util.Base58Utils;
+import com.aestus.api.ledger.exception.LedgerException;
+import com.aestus.api.ledger.model.Ledger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention benchmark of the ledger. Measures the transfer throughput for an increasing number of
+ * threads, when each thread moves tokens between its own wallets (disjoint) and when all threads
+ * share the same few wallets (hot). With disjoint wallets the throughput should scale with the
+ * number of cores, with hot wallets it is bounded by the hot stripes. Also checks that the sum of
+ * all balances is preserved. The wallet ids are random 32-byte base58 addresses, so that they are
+ * interned by the open-addressing table of the wallet index like real ones.
+ *
+ * <p>Run with {@code java -cp <test classpath> com.aestus.api.ledger.LedgerContentionBenchmark
+ * [seconds] [walletsPerThread]}.
+ */
+public class LedgerContentionBenchmark {
+
+  private static final long INITIAL_BALANCE = 1_000_000_000L;
+
+  public static void main(String[] args) throws Exception {
+    int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+    int walletsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+    int cores = Runtime.getRuntime().availableProcessors();
+
+    System.out.printf(
+        "cores=%d, seconds=%d, walletsPerThread=%d%n", cores, seconds, walletsPerThread);
+    System.out.printf("%-10s %8s %16s%n", "scenario", "threads", "transfers/s");
+
+    for (int threads = 1; threads <= Math.max(2, cores * 2); threads *= 2) {
+      run("disjoint", threads, walletsPerThread, seconds);
+      run("hot", threads, walletsPerThread, seconds);
+    }
+  }
+
+  private static void run(String scenario, int threads, int walletsPerThread, int seconds)
+      throws InterruptedException {
+
+    boolean hot = scenario.equals("hot");
+    Random random = new Random(42);
+    Ledger ledger = new Ledger();
+    List<String[]> wallets = new ArrayList<>();
+
+    // The hot wallets are shared by all threads
+    String[] shared = walletIds(random, 2);
+
+    for (int t = 0; t < threads; t++) {
+      String[] own = hot ? shared : walletIds(random, walletsPerThread);
+
+      for (String walletId : own) ledger.open(walletId, INITIAL_BALANCE);
+
+      wallets.add(own);
+    }
+
+    long expectedTotal = total(ledger);
+
+    LongAdder transfers = new LongAdder();
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(threads);
+    long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+    for (int t = 0; t < threads; t++) {
+      String[] own = wallets.get(t);
+
+      new Thread(
+              () -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+
+                try {
+                  start.await();
+
+                  while (System.nanoTime() < deadline) {
+                    for (int i = 0; i < 1000; i++) {
+                      int from = random.nextInt(own.length);
+                      int to = (from + 1 + random.nextInt(own.length - 1)) % own.length;
+
+                      ledger.transfer(own[from], own[to], 1 + random.nextInt(100));
+                    }
+                    count += 1000;
+                  }
+                } catch (InterruptedException | LedgerException ex) {
+                  throw new IllegalStateException(ex);
+                } finally {
+                  transfers.add(count);
+                  done.countDown();
+                }
+              })
+          .start();
+    }
+
+    start.countDown();
+    done.await();
+
+    if (total(ledger) != expectedTotal)
+      throw new IllegalStateException(
+          String.format("Lost update, total %d != %d", total(ledger), expectedTotal));
+
+    System.out.printf("%-10s %8d %,16d%n", scenario, threads, transfers.sum() / seconds);
+  }
+
+  private static String[] walletIds(Random random, int count) {
+    String[] walletIds = new String[count];
+    byte[] key = new byte[32];
+
+    for (int i = 0; i < count; i++) {
+      random.nextBytes(key);
+      walletIds[i] = Base58Utils.encode(key);
+    }
+
+    return walletIds;
+  }
+
+  private static long total(Ledger ledger) {
+    return ledger.getEntries().values().stream().mapToLong(Long::longValue).sum();
+  }
+}
@@ -0,0 +1,91 @@
+package com.aestus.api.ledger;
+
+import com.aestus.api.common.util.Base58Utils;
+import com.aestus.api.ledger.model.Ledger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Memory benchmark of the ledger. Opens a number of accounts with random 32-byte wallet addresses
+ * and measures the retained heap per account, compared to a {@code HashMap<String, Long>} holding
+ * the same balances. The heap is measured after a full gc, so run it with a fixed heap large enough
+ * for the baseline, e.g. {@code -Xms4g -Xmx4g} for 10M accounts.
+ *
+ * <p>Run with {@code java -cp <test classpath> com.aestus.api.ledger.LedgerMemoryBenchmark
+ * [accounts...]}, the default is 1M then 10M accounts.
+ */
+public class LedgerMemoryBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int[] sizes = args.length > 0 ? new int[args.length] : new int[] {1_000_000, 10_000_000};
+
+    for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+
+    System.out.printf("%-10s %12s %12s %12s%n", "store", "accounts", "MB", "bytes/acct");
+
+    for (int size : sizes) {
+      run("hashmap", size);
+      run("ledger", size);
+    }
+  }
+
+  private static void run(String store, int size) {
+    long before = usedHeap();
+
+    // The wallet ids are generated inside, so that only what the store retains is measured
+    Object retained = store.equals("ledger") ? ledger(walletIds(size)) : hashMap(walletIds(size));
+    long used = usedHeap() - before;
+
+    if (store.equals("ledger") && ((Ledger) retained).size() < size)
+      throw new IllegalStateException("Accounts lost");
+
+    System.out.printf(
+        "%-10s %,12d %,12d %12d%n", store, size, used / (1024 * 1024), used / Math.max(1, size));
+  }
+
+  private static Ledger ledger(String[] walletIds) {
+    Ledger ledger = new Ledger();
+
+    for (int i = 0; i < walletIds.length; i++) {
+      ledger.open(walletIds[i], i);
+      // The ids are dropped as they would be after a request, the map keeps them, the ledger not
+      walletIds[i] = null;
+    }
+
+    return ledger;
+  }
+
+  private static Map<String, Long> hashMap(String[] walletIds) {
+    Map<String, Long> balances = new HashMap<>();
+
+    for (int i = 0; i < walletIds.length; i++) {
+      balances.put(walletIds[i], (long) i);
+      walletIds[i] = null;
+    }
+
+    return balances;
+  }
+
+  private static String[] walletIds(int size) {
+    Random random = new Random(42);
+    String[] walletIds = new String[size];
+    byte[] key = new byte[32];
+
+    for (int i = 0; i < size; i++) {
+      random.nextBytes(key);
+      walletIds[i] = Base58Utils.encode(key);
+    }
+
+    return walletIds;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+
+    for (int i = 0; i < 3; i++) System.gc();
+
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
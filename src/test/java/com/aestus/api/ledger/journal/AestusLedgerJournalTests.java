@@ -0,0 +1,360 @@
+package com.aestus.api.ledger.journal;
+
+import com.aestus.api.ledger.model.Ledger;
+import com.aestus.api.ledger.model.TransferLeg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Writes the ledger journal, stops it as a crash would, and checks what is replayed: the records
+ * forced, without the torn or corrupted ones, on top of the latest snapshot.
+ */
+class AestusLedgerJournalTests {
+  private static final int SEGMENT_SIZE = 1024;
+  private static final long FLUSH_INTERVAL_MS = 1;
+  private static final long RETAINED_LSN = 10;
+
+  private static final String WALLET_A = "4zFraRa6gbst1RKjua9qT2VwEHEwH1Eqm3WJcKYuH5se";
+  private static final String WALLET_B = "GAyCywe7wYQ49XA92BrDBVvj2CMKeEGMmGjseQR3yFua";
+  private static final String WALLET_UNKNOWN = "9xQeWvG816bUx9EPjHmaT23yvVM2ZWbrrpZb9PusVFin";
+
+  @TempDir Path dir;
+
+  private final List<LedgerJournal> journals = new ArrayList<>();
+
+  @AfterEach
+  public void closeJournals() {
+    journals.forEach(LedgerJournal::close);
+  }
+
+  @Test
+  public void givenDurableRecords_whenCrashAndReplay_thenReplaysThemInOrder() throws Exception {
+    LedgerJournal journal = open();
+
+    assertThat(journal.replay(new Replayed())).isFalse();
+
+    journal.append(LedgerJournal.OPEN, 1000L, List.of(open(WALLET_A, 500)));
+    journal.append(LedgerJournal.OPEN, 1001L, List.of(open(WALLET_B, 0)));
+    long lsn =
+        journal.append(
+            LedgerJournal.TRANSFER,
+            1002L,
+            List.of(new LedgerJournal.Leg(WALLET_A, WALLET_B, 200, 300, 200)));
+
+    journal.awaitDurable(lsn);
+
+    // Not closed: the next journal reads what the crashed one left
+    Replayed replayed = new Replayed();
+
+    assertThat(open().replay(replayed)).isTrue();
+    assertThat(replayed.lsns()).containsExactly(1L, 2L, 3L);
+
+    LedgerJournal.Record transfer = replayed.records.get(2);
+
+    assertThat(transfer.getType()).isEqualTo(LedgerJournal.TRANSFER);
+    assertThat(transfer.getTimestamp()).isEqualTo(1002L);
+    assertThat(transfer.getBatchId()).isNull();
+    assertThat(transfer.getLegs())
+        .containsExactly(new LedgerJournal.Leg(WALLET_A, WALLET_B, 200, 300, 200));
+  }
+
+  @Test
+  public void givenLedger_whenCrashAndRecover_thenRecoversBalancesAndBatches() throws Exception {
+    Ledger ledger = Ledger.recover(open(), Ledger.DEFAULT_BATCH_RETENTION_MS);
+    List<TransferLeg> legs = List.of(new TransferLeg(WALLET_A, WALLET_B, 1000));
+
+    ledger.transfer(WALLET_A, WALLET_B, 250);
+    ledger.awaitDurable(ledger.transfer("batch-1", legs).get(0).getLsn());
+
+    Ledger recovered = Ledger.recover(open(), Ledger.DEFAULT_BATCH_RETENTION_MS);
+
+    assertThat(recovered.getEntries()).isEqualTo(ledger.getEntries());
+    assertThat(recovered.getBalance(WALLET_B)).isEqualTo(1250L);
+
+    // The batch is known from the journal, sending it again transfers nothing
+    assertThat(recovered.transfer("batch-1", legs)).isEmpty();
+    assertThat(recovered.getBalance(WALLET_B)).isEqualTo(1250L);
+  }
+
+  @Test
+  public void givenJournal_whenReopen_thenKeepsItsIdAndANewDirectoryGetsAnother(
+      @TempDir Path other) throws Exception {
+    LedgerJournal journal = open();
+
+    writeTransfers(journal, 3);
+
+    String id = journal.getId();
+
+    assertThat(id).isNotBlank();
+    assertThat(open().getId()).isEqualTo(id);
+
+    // The lsns of another journal start over at 1, its id tells its records apart
+    LedgerJournal reset = LedgerJournal.open(other, SEGMENT_SIZE, FLUSH_INTERVAL_MS);
+
+    journals.add(reset);
+
+    assertThat(writeTransfers(reset, 3)).isEqualTo(3L);
+    assertThat(reset.getId()).isNotBlank().isNotEqualTo(id);
+  }
+
+  @Test
+  public void givenTornTail_whenReplay_thenDiscardsItAndAppendsAfterTheLastValid()
+      throws Exception {
+    writeTransfers(open(), 4);
+    closeJournals();
+
+    // A crash in the middle of the last record leaves its second half unwritten
+    corruptLastRecord(
+        (buffer, start, length) -> {
+          for (int i = start + length / 2; i < start + length; i++) buffer.put(i, (byte) 0);
+        });
+
+    LedgerJournal journal = open();
+    Replayed replayed = new Replayed();
+
+    journal.replay(replayed);
+
+    assertThat(replayed.lsns()).containsExactly(1L, 2L, 3L);
+    assertThat(journal.append(LedgerJournal.OPEN, 2000L, List.of(open(WALLET_UNKNOWN, 1))))
+        .isEqualTo(4L);
+
+    journal.close();
+
+    Replayed again = new Replayed();
+
+    open().replay(again);
+
+    assertThat(again.lsns()).containsExactly(1L, 2L, 3L, 4L);
+    assertThat(again.records.get(3).getLegs().get(0).getFromWalletId()).isEqualTo(WALLET_UNKNOWN);
+  }
+
+  @Test
+  public void givenBadCrcTail_whenReplay_thenDiscardsIt() throws Exception {
+    writeTransfers(open(), 4);
+    closeJournals();
+
+    // One bit flipped in the amount of the last leg
+    corruptLastRecord(
+        (buffer, start, length) -> buffer.put(start + 30, (byte) (buffer.get(start + 30) ^ 1)));
+
+    Replayed replayed = new Replayed();
+
+    open().replay(replayed);
+
+    assertThat(replayed.lsns()).containsExactly(1L, 2L, 3L);
+    assertThat(replayed.accounts).isEmpty();
+  }
+
+  @Test
+  public void givenSnapshot_whenWritten_thenDeletesCoveredSegmentsAndReplaysFromIt()
+      throws Exception {
+    LedgerJournal journal = open();
+    long lsn = writeTransfers(journal, 40);
+
+    assertThat(segments()).hasSizeGreaterThan(3);
+
+    journal.writeSnapshot(
+        snapshot(Map.of(WALLET_A, 960L, WALLET_B, 40L), List.of(batch("batch-1", lsn)), lsn),
+        lsn,
+        lsn);
+
+    // Only the segment the next records are appended to is left
+    assertThat(segments()).hasSize(1);
+    assertThat(snapshots()).hasSize(1);
+
+    long after = journal.append(LedgerJournal.OPEN, 3000L, List.of(open(WALLET_UNKNOWN, 7)));
+
+    journal.awaitDurable(after);
+    journal.close();
+
+    Replayed replayed = new Replayed();
+
+    assertThat(open().replay(replayed)).isTrue();
+    assertThat(replayed.accounts).containsOnly(Map.entry(WALLET_A, 960L), Map.entry(WALLET_B, 40L));
+    assertThat(replayed.batches).containsOnly(Map.entry("batch-1", lsn));
+    assertThat(replayed.lsns()).containsExactly(after);
+  }
+
+  @Test
+  public void givenRetainedLsn_whenSnapshotWritten_thenKeepsRecordsAfterItReadable()
+      throws Exception {
+    LedgerJournal journal = open();
+    long lsn = writeTransfers(journal, 40);
+    int before = segments().size();
+
+    journal.writeSnapshot(
+        snapshot(Map.of(WALLET_A, 960L, WALLET_B, 40L), List.of(), lsn), lsn, RETAINED_LSN);
+
+    // The segment holding the record after the retained lsn is kept, and the ones after it
+    assertThat(segments().size()).isBetween(2, before - 1);
+
+    List<LedgerJournal.Record> records = journal.read(RETAINED_LSN, 100);
+
+    assertThat(records.stream().map(LedgerJournal.Record::getLsn))
+        .containsExactlyElementsOf(
+            Stream.iterate(RETAINED_LSN + 1, next -> next + 1)
+                .limit(lsn - RETAINED_LSN)
+                .collect(Collectors.toList()));
+
+    // Nothing is forced after the last record
+    assertThat(journal.read(lsn, 100)).isEmpty();
+  }
+
+  @Test
+  public void givenTransferToUnknownWallet_whenRecover_thenFails() throws Exception {
+    LedgerJournal journal = open();
+
+    journal.replay(new Replayed());
+    journal.append(LedgerJournal.OPEN, 1000L, List.of(open(WALLET_A, 500)));
+    journal.awaitDurable(
+        journal.append(
+            LedgerJournal.TRANSFER,
+            1001L,
+            List.of(new LedgerJournal.Leg(WALLET_A, WALLET_UNKNOWN, 100, 400, 100))));
+    journal.close();
+
+    IOException ex =
+        assertThrows(
+            IOException.class,
+            () -> Ledger.recover(open(), Ledger.DEFAULT_BATCH_RETENTION_MS));
+
+    assertThat(ex.getMessage()).contains(WALLET_UNKNOWN);
+  }
+
+  private LedgerJournal open() throws IOException {
+    LedgerJournal journal = LedgerJournal.open(dir, SEGMENT_SIZE, FLUSH_INTERVAL_MS);
+
+    journals.add(journal);
+
+    return journal;
+  }
+
+  /** Opens 2 accounts then writes transfers between them, returns the lsn of the last one. */
+  private static long writeTransfers(LedgerJournal journal, int count) throws Exception {
+    journal.replay(new Replayed());
+    journal.append(LedgerJournal.OPEN, 1000L, List.of(open(WALLET_A, 1000)));
+
+    long lsn = journal.append(LedgerJournal.OPEN, 1000L, List.of(open(WALLET_B, 0)));
+
+    for (int i = 1; i <= count - 2; i++)
+      lsn =
+          journal.append(
+              LedgerJournal.TRANSFER,
+              1000L + i,
+              List.of(new LedgerJournal.Leg(WALLET_A, WALLET_B, 1, 1000 - i, i)));
+
+    journal.awaitDurable(lsn);
+
+    return lsn;
+  }
+
+  private static LedgerJournal.Leg open(String walletId, long balance) {
+    return new LedgerJournal.Leg(walletId, null, balance, balance, 0);
+  }
+
+  private static LedgerJournal.Record batch(String batchId, long lsn) {
+    return new LedgerJournal.Record(LedgerJournal.TRANSFERS, lsn, 1000L, batchId, List.of());
+  }
+
+  private static LedgerJournal.SnapshotSource snapshot(
+      Map<String, Long> accounts, List<LedgerJournal.Record> batches, long lsn) {
+    return new LedgerJournal.SnapshotSource() {
+      public void writeTo(LedgerJournal.SnapshotWriter writer) throws IOException {
+        for (Map.Entry<String, Long> account : accounts.entrySet())
+          writer.account(account.getKey(), account.getValue());
+      }
+
+      public List<LedgerJournal.Record> getBatches() {
+        return batches;
+      }
+    };
+  }
+
+  /** Changes the bytes of the last record of the last segment, in place. */
+  private void corruptLastRecord(Corruption corruption) throws IOException {
+    List<Path> segments = segments();
+
+    try (FileChannel channel =
+        FileChannel.open(
+            segments.get(segments.size() - 1), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+      int start = -1;
+      int length = 0;
+
+      // Each record starts with its length then its crc, a zero length ends the segment
+      for (int position = 0;
+          position + Integer.BYTES * 2 < buffer.capacity() && buffer.getInt(position) > 0;
+          position += Integer.BYTES * 2 + buffer.getInt(position)) {
+        start = position + Integer.BYTES * 2;
+        length = buffer.getInt(position);
+      }
+
+      corruption.apply(buffer, start, length);
+      buffer.force();
+    }
+  }
+
+  private List<Path> segments() throws IOException {
+    return list("journal-");
+  }
+
+  private List<Path> snapshots() throws IOException {
+    return list("snapshot-");
+  }
+
+  private List<Path> list(String prefix) throws IOException {
+    try (Stream<Path> paths = Files.list(dir)) {
+      return paths
+          .filter(path -> path.getFileName().toString().startsWith(prefix))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  /** Changes the body of a record, from {@code start} for {@code length} bytes. */
+  private interface Corruption {
+    void apply(ByteBuffer buffer, int start, int length);
+  }
+
+  /** The state replayed from a journal. */
+  private static class Replayed implements LedgerJournal.Visitor {
+    final Map<String, Long> accounts = new HashMap<>();
+    final Map<String, Long> batches = new HashMap<>();
+    final List<LedgerJournal.Record> records = new ArrayList<>();
+
+    public void account(String walletId, long balance) {
+      accounts.put(walletId, balance);
+    }
+
+    public void record(LedgerJournal.Record record) {
+      records.add(record);
+    }
+
+    public void batch(String batchId, long lsn, long timestamp) {
+      batches.put(batchId, lsn);
+    }
+
+    List<Long> lsns() {
+      return records.stream().map(LedgerJournal.Record::getLsn).collect(Collectors.toList());
+    }
+  }
+}
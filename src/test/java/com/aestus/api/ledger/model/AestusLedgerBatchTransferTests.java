@@ -0,0 +1,149 @@
+package com.aestus.api.ledger.model;
+
+import com.aestus.api.ledger.exception.InvalidAmountException;
+import com.aestus.api.ledger.exception.InvalidBalanceException;
+import com.aestus.api.ledger.exception.LedgerException;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Transfers batches of legs: applied in order against the balances left by the earlier legs, all
+ * or nothing, and once for a batch id.
+ */
+class AestusLedgerBatchTransferTests {
+  private static final String WALLET_A = "BatchWallet0000000001";
+  private static final String WALLET_B = "BatchWallet0000000002";
+  private static final String WALLET_C = "BatchWallet0000000003";
+  private static final String WALLET_UNKNOWN = "BatchWallet0000000004";
+
+  private Ledger ledger;
+
+  @BeforeEach
+  public void initBeforeEachTest() {
+    ledger = new Ledger();
+    ledger.open(WALLET_A, 100);
+    ledger.open(WALLET_B, 0);
+    ledger.open(WALLET_C, 0);
+  }
+
+  @Test
+  public void givenChainedLegs_whenTransfer_thenAppliesThemInOrder() throws LedgerException {
+    // B spends what it receives in the same batch
+    List<Transfer> transfers =
+        ledger.transfer(
+            List.of(
+                new TransferLeg(WALLET_A, WALLET_B, 60L),
+                new TransferLeg(WALLET_B, WALLET_C, 50L),
+                new TransferLeg(WALLET_A, WALLET_C, 40L)));
+
+    assertThat(transfers).hasSize(3);
+    assertThat(transfers.get(0).getFromBalance()).isEqualTo(40);
+    assertThat(transfers.get(0).getToBalance()).isEqualTo(60);
+    assertThat(transfers.get(1).getFromBalance()).isEqualTo(10);
+    assertThat(transfers.get(1).getToBalance()).isEqualTo(50);
+    assertThat(transfers.get(2).getFromBalance()).isEqualTo(0);
+    assertThat(transfers.get(2).getToBalance()).isEqualTo(90);
+    assertThat(transfers).extracting(Transfer::getLeg).containsExactly(0, 1, 2);
+
+    assertBalances(0, 10, 90);
+  }
+
+  @Test
+  public void givenOverdrawingLeg_whenTransfer_thenTransfersNothing() {
+    // The last leg overdraws B, which only holds what the first leg sent it
+    InvalidBalanceException ex =
+        assertThrows(
+            InvalidBalanceException.class,
+            () ->
+                ledger.transfer(
+                    List.of(
+                        new TransferLeg(WALLET_A, WALLET_B, 30L),
+                        new TransferLeg(WALLET_A, WALLET_C, 30L),
+                        new TransferLeg(WALLET_B, WALLET_C, 31L))));
+
+    assertThat(ex.getMessage()).contains(WALLET_B);
+    assertBalances(100, 0, 0);
+
+    // A sender cannot overdraw across legs either
+    assertThrows(
+        InvalidBalanceException.class,
+        () ->
+            ledger.transfer(
+                List.of(
+                    new TransferLeg(WALLET_A, WALLET_B, 60L),
+                    new TransferLeg(WALLET_A, WALLET_C, 60L))));
+
+    assertBalances(100, 0, 0);
+  }
+
+  @Test
+  public void givenInvalidLeg_whenTransfer_thenTransfersNothing() {
+    assertThrows(
+        InvalidAmountException.class,
+        () ->
+            ledger.transfer(
+                List.of(
+                    new TransferLeg(WALLET_A, WALLET_B, 10L),
+                    new TransferLeg(WALLET_A, WALLET_C, 0L))));
+
+    InvalidBalanceException ex =
+        assertThrows(
+            InvalidBalanceException.class,
+            () ->
+                ledger.transfer(
+                    List.of(
+                        new TransferLeg(WALLET_A, WALLET_B, 10L),
+                        new TransferLeg(WALLET_A, WALLET_UNKNOWN, 10L))));
+
+    assertThat(ex.getMessage()).contains(WALLET_UNKNOWN);
+    assertBalances(100, 0, 0);
+    assertThat(ledger.getBalance(WALLET_UNKNOWN)).isNull();
+  }
+
+  @Test
+  public void givenAppliedBatchId_whenTransferAgain_thenTransfersNothing() throws LedgerException {
+    List<TransferLeg> legs =
+        List.of(new TransferLeg(WALLET_A, WALLET_B, 10L), new TransferLeg(WALLET_A, WALLET_C, 20L));
+
+    assertThat(ledger.transfer("batch-1", legs)).hasSize(2);
+    assertBalances(70, 10, 20);
+
+    assertThat(ledger.transfer("batch-1", legs)).isEmpty();
+    assertThat(ledger.transfer("batch-1", List.of(new TransferLeg(WALLET_A, WALLET_B, 70L))))
+        .isEmpty();
+    assertBalances(70, 10, 20);
+
+    // Without an id, or with another one, the same legs are transferred again
+    assertThat(ledger.transfer(legs)).hasSize(2);
+    assertThat(ledger.transfer("batch-2", legs)).hasSize(2);
+    assertBalances(10, 30, 60);
+  }
+
+  @Test
+  public void givenRejectedBatchId_whenTransferAgain_thenAppliesIt() throws LedgerException {
+    List<TransferLeg> legs = List.of(new TransferLeg(WALLET_B, WALLET_C, 50L));
+
+    // A batch rejected is not recorded, it can be sent again once it is valid
+    assertThrows(InvalidBalanceException.class, () -> ledger.transfer("batch-1", legs));
+
+    ledger.transfer(WALLET_A, WALLET_B, 50);
+
+    assertThat(ledger.transfer("batch-1", legs)).hasSize(1);
+    assertBalances(50, 0, 50);
+  }
+
+  private void assertBalances(long a, long b, long c) {
+    Map<String, Long> entries = ledger.getEntries();
+
+    assertThat(entries.get(WALLET_A)).isEqualTo(a);
+    assertThat(entries.get(WALLET_B)).isEqualTo(b);
+    assertThat(entries.get(WALLET_C)).isEqualTo(c);
+  }
+}
@@ -0,0 +1,137 @@
+package com.aestus.api.ledger.model;
+
+import com.aestus.api.common.util.Base58Utils;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Interns wallet ids: 32-byte base58 addresses through the open-addressing table, past the growth
+ * of the table and of the key chunks, and ids that do not decode to a canonical address through
+ * the map of other ids.
+ */
+class AestusWalletIndexTests {
+  private static final int KEY_BYTES = 32;
+
+  private WalletIndex walletIndex;
+  private Random random;
+
+  @BeforeEach
+  public void initBeforeEachTest() {
+    walletIndex = new WalletIndex();
+    random = new Random(42);
+  }
+
+  @Test
+  public void givenAddresses_whenIntern_thenAssignsDenseIndicesOnce() {
+    String[] walletIds = walletIds(100);
+
+    for (int i = 0; i < walletIds.length; i++)
+      assertThat(walletIndex.intern(walletIds[i])).isEqualTo(i);
+
+    for (int i = 0; i < walletIds.length; i++) {
+      assertThat(walletIndex.intern(walletIds[i])).isEqualTo(i);
+      assertThat(walletIndex.indexOf(walletIds[i])).isEqualTo(i);
+      assertThat(walletIndex.walletIdOf(i)).isEqualTo(walletIds[i]);
+    }
+
+    assertThat(walletIndex.size()).isEqualTo(walletIds.length);
+    assertThat(walletIndex.indexOf(walletIds(1)[0])).isEqualTo(-1);
+  }
+
+  @Test
+  public void givenMoreAddressesThanAChunk_whenIntern_thenGrowsTableAndChunks() {
+    // The table is resized at half a chunk, and a second chunk of keys is added past a chunk
+    String[] walletIds = walletIds(WalletIndex.CHUNK_SIZE + WalletIndex.CHUNK_SIZE / 2);
+
+    // Other ids are interleaved, they are not in the table and are skipped by its resizes
+    for (int i = 0; i < walletIds.length; i++) {
+      walletIndex.intern(walletIds[i]);
+
+      if (i % 10_000 == 0) walletIndex.intern("other" + i);
+    }
+
+    int others = walletIds.length / 10_000 + 1;
+
+    assertThat(walletIndex.size()).isEqualTo(walletIds.length + others);
+
+    for (String walletId : walletIds)
+      assertThat(walletIndex.walletIdOf(walletIndex.indexOf(walletId))).isEqualTo(walletId);
+
+    for (int i = 0; i < walletIds.length; i += 10_000)
+      assertThat(walletIndex.walletIdOf(walletIndex.indexOf("other" + i)))
+          .isEqualTo("other" + i);
+  }
+
+  @Test
+  public void givenKeysWithLeadingZeros_whenIntern_thenRoundTrips() {
+    byte[] key = new byte[KEY_BYTES];
+
+    // All zeros is 32 leading 1s, then keys with fewer and fewer leading zero bytes
+    for (int zeros = KEY_BYTES; zeros >= 0; zeros--) {
+      random.nextBytes(key);
+
+      for (int i = 0; i < zeros; i++) key[i] = 0;
+      if (zeros < KEY_BYTES) key[zeros] = (byte) (1 + random.nextInt(255));
+
+      String walletId = Base58Utils.encode(key);
+
+      assertThat(Base58Utils.decode(walletId, KEY_BYTES)).isEqualTo(key);
+      assertThat(walletIndex.walletIdOf(walletIndex.intern(walletId))).isEqualTo(walletId);
+    }
+  }
+
+  @Test
+  public void givenNonCanonicalIds_whenIntern_thenKeepsThemApartFromTheAddress() {
+    byte[] key = new byte[KEY_BYTES];
+
+    random.nextBytes(key);
+    key[0] = 0;
+    key[1] = 7;
+
+    String walletId = Base58Utils.encode(key);
+
+    assertThat(walletId).startsWith("1").doesNotStartWith("11");
+
+    String[] nonCanonical = {
+      "1" + walletId, // An extra leading zero byte, 33 bytes
+      walletId.substring(1), // A missing leading zero byte, 31 bytes
+      walletId.substring(0, 5) + "0" + walletId.substring(6), // Not in the alphabet
+      walletId.substring(0, 5) + "\u00e9" + walletId.substring(6),
+      "",
+      "0x12340001"
+    };
+
+    int index = walletIndex.intern(walletId);
+
+    for (String id : nonCanonical) {
+      assertThat(Base58Utils.decode(id, KEY_BYTES)).as(id).isNull();
+
+      int other = walletIndex.intern(id);
+
+      assertThat(other).as(id).isNotEqualTo(index);
+      assertThat(walletIndex.intern(id)).as(id).isEqualTo(other);
+      assertThat(walletIndex.indexOf(id)).as(id).isEqualTo(other);
+      assertThat(walletIndex.walletIdOf(other)).isEqualTo(id);
+    }
+
+    assertThat(walletIndex.indexOf(walletId)).isEqualTo(index);
+    assertThat(walletIndex.size()).isEqualTo(nonCanonical.length + 1);
+  }
+
+  private String[] walletIds(int count) {
+    String[] walletIds = new String[count];
+    byte[] key = new byte[KEY_BYTES];
+
+    for (int i = 0; i < count; i++) {
+      random.nextBytes(key);
+      walletIds[i] = Base58Utils.encode(key);
+    }
+
+    return walletIds;
+  }
+}
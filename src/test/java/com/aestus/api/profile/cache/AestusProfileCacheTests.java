@@ -0,0 +1,221 @@
+package com.aestus.api.profile.cache;
+
+import com.aestus.api.common.cache.CacheInvalidator;
+import com.aestus.api.profile.AestusProfileMicroserviceTestUtil;
+import com.aestus.api.profile.model.ProfileCacheStats;
+import com.aestus.api.profile.model.UserProfile;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Reads profiles through the cache around invalidations: made while a profile is loaded, within a
+ * transaction and received from the other nodes, and checks that no profile older than the last
+ * invalidation stays cached.
+ */
+class AestusProfileCacheTests {
+  private static final int ID = 1;
+  private static final int CACHE_SIZE = 10;
+
+  private CacheInvalidator cacheInvalidator;
+  private CacheInvalidator.Listener listener;
+  private ProfileCache profileCache;
+
+  private UserProfile profile;
+
+  /** The number of profiles loaded from the "database". */
+  private AtomicInteger loads;
+
+  @BeforeEach
+  public void initBeforeEachTest() {
+    cacheInvalidator = mock(CacheInvalidator.class);
+    profileCache = new ProfileCache(cacheInvalidator, CACHE_SIZE);
+
+    ArgumentCaptor<CacheInvalidator.Listener> captor =
+        ArgumentCaptor.forClass(CacheInvalidator.Listener.class);
+
+    verify(cacheInvalidator).register(eq(ProfileCache.CACHE_NAME), captor.capture());
+    listener = captor.getValue();
+
+    profile = AestusProfileMicroserviceTestUtil.getProfiles()[0];
+    profile.setId(ID);
+    loads = new AtomicInteger();
+  }
+
+  @AfterEach
+  public void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive())
+      TransactionSynchronizationManager.clearSynchronization();
+  }
+
+  @Test
+  public void givenCachedProfile_whenGetById_thenServesCopyWithoutLoading() {
+    assertThat(profileCache.getById(ID, loader())).contains(profile);
+
+    UserProfile cached = profileCache.getById(ID, loader()).orElseThrow();
+
+    assertThat(loads).hasValue(1);
+    assertThat(cached).isEqualTo(profile).isNotSameAs(profile);
+
+    // A change to a copy is not a change to the cached profile
+    cached.setWalletId("0x99990001");
+
+    assertThat(profileCache.getById(ID, loader())).contains(profile);
+    assertThat(stats(ProfileCache.VIEW_ID).getHitCount()).isEqualTo(2);
+    assertThat(stats(ProfileCache.VIEW_ID).getMissCount()).isEqualTo(1);
+    assertThat(stats(ProfileCache.VIEW_ID).getSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void givenInvalidationWhileLoading_whenGetById_thenDoesNotCacheLoadedProfile() {
+    // The profile is changed and invalidated after it was read, before it is cached
+    Supplier<Optional<UserProfile>> loader =
+        () -> {
+          Optional<UserProfile> loaded = loader().get();
+
+          profileCache.invalidate(ID);
+
+          return loaded;
+        };
+
+    assertThat(profileCache.getById(ID, loader)).contains(profile);
+    assertThat(stats(ProfileCache.VIEW_ID).getSize()).isEqualTo(0);
+
+    profileCache.getById(ID, loader());
+
+    assertThat(loads).hasValue(2);
+    assertThat(stats(ProfileCache.VIEW_ID).getSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void givenRemoteInvalidationWhileLoading_whenGetById_thenDoesNotCacheLoadedProfile() {
+    Supplier<Optional<UserProfile>> loader =
+        () -> {
+          Optional<UserProfile> loaded = loader().get();
+
+          listener.invalidate(String.valueOf(ID), LocalDateTime.now());
+
+          return loaded;
+        };
+
+    profileCache.getById(ID, loader);
+
+    assertThat(stats(ProfileCache.VIEW_ID).getSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void givenInvalidationInTransaction_whenCompleted_thenEvictsProfileCachedMeanwhile() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    profileCache.getById(ID, loader());
+    profileCache.invalidate(ID);
+
+    verify(cacheInvalidator).publish(ProfileCache.CACHE_NAME, String.valueOf(ID));
+
+    // Read again before the commit, e.g. by another request, and cached
+    profileCache.getById(ID, loader());
+
+    assertThat(loads).hasValue(2);
+    assertThat(stats(ProfileCache.VIEW_ID).getSize()).isEqualTo(1);
+
+    complete(TransactionSynchronization.STATUS_COMMITTED);
+
+    assertThat(stats(ProfileCache.VIEW_ID).getSize()).isEqualTo(0);
+
+    profileCache.getById(ID, loader());
+
+    assertThat(loads).hasValue(3);
+  }
+
+  @Test
+  public void givenInvalidateAllInTransaction_whenRolledBack_thenEvictsAllViews() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    profileCache.invalidateAll();
+
+    verify(cacheInvalidator).publish(ProfileCache.CACHE_NAME, null);
+
+    profileCache.getByUsername(profile.getUsername(), loader());
+    profileCache.getByEmail(profile.getEmail(), loader());
+
+    complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    for (String view :
+        List.of(ProfileCache.VIEW_ID, ProfileCache.VIEW_USERNAME, ProfileCache.VIEW_EMAIL))
+      assertThat(stats(view).getSize()).as(view).isEqualTo(0);
+  }
+
+  @Test
+  public void givenUsernameChanged_whenGetByFormerUsername_thenLoadsAgain() {
+    String username = profile.getUsername();
+
+    profileCache.getByUsername(username, loader());
+
+    assertThat(profileCache.getByUsername(username, loader())).contains(profile);
+    assertThat(loads).hasValue(1);
+
+    // The username view still maps the former username to the id, the profile no longer matches
+    profile.setUsername("clarkkent");
+    profileCache.invalidate(ID);
+    profileCache.getById(ID, loader());
+
+    assertThat(profileCache.getByUsername(username, Optional::empty)).isEmpty();
+    assertThat(profileCache.getByUsername("clarkkent", loader())).contains(profile);
+    assertThat(loads).hasValue(2);
+    assertThat(stats(ProfileCache.VIEW_USERNAME).getHitCount()).isEqualTo(2);
+    assertThat(stats(ProfileCache.VIEW_USERNAME).getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void givenFlush_whenGetById_thenLoadsAgain() {
+    profileCache.getById(ID, loader());
+
+    listener.flush();
+
+    profileCache.getById(ID, loader());
+
+    assertThat(loads).hasValue(2);
+  }
+
+  /** Loads a copy of the profile, as the repository would. */
+  private Supplier<Optional<UserProfile>> loader() {
+    return () -> {
+      loads.incrementAndGet();
+
+      return Optional.of(profile.toBuilder().build());
+    };
+  }
+
+  private void complete(int status) {
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+
+    TransactionSynchronizationManager.clearSynchronization();
+
+    for (TransactionSynchronization synchronization : synchronizations)
+      synchronization.afterCompletion(status);
+  }
+
+  private ProfileCacheStats stats(String view) {
+    return profileCache.getStats().stream()
+        .filter(stats -> stats.getView().equals(view))
+        .findFirst()
+        .orElseThrow();
+  }
+}
@@ -0,0 +1,127 @@
+package com.aestus.api.transaction.repository;
+
+import com.aestus.api.transaction.model.Transaction;
+import com.aestus.api.transaction.service.TransactionService;
+import com.aestus.api.transaction.service.impl.TransactionServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Creates the transaction records of ledger transfers, sent again after a failure and from
+ * journals whose lsns overlap, e.g. a journal reset or another node, and checks that each record
+ * is created once and none is skipped.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class AestusTransactionJournalTests {
+
+  private static final String JOURNAL_A = "0b5c8f1e-6a55-4c1b-9d1e-1f4c2b7e9a01";
+  private static final String JOURNAL_B = "7d2e4a90-3c1f-4e8b-a6d5-52b9c0e8f302";
+
+  private static final String WALLET = "JournalWallet00000001";
+  private static final String OTHER = "JournalWallet00000002";
+
+  @Autowired private TransactionRepository transactionRepository;
+
+  @Autowired private EntityManager entityManager;
+
+  private TransactionService transactionService;
+
+  @BeforeEach
+  public void initBeforeEachTest() {
+    transactionService = new TransactionServiceImpl(transactionRepository, null, entityManager);
+  }
+
+  @Test
+  public void givenRetriedRecords_whenCreateTransactions_thenCreatesEachOnce() {
+    transactionService.createTransactions(records(JOURNAL_A, 1, 3));
+
+    // The first records were created, the batch is sent again with the next ones
+    transactionService.createTransactions(records(JOURNAL_A, 1, 5));
+
+    assertThat(keys()).containsExactlyInAnyOrderElementsOf(keys(records(JOURNAL_A, 1, 5)));
+  }
+
+  @Test
+  public void givenOverlappingLsnsOfAnotherJournal_whenCreateTransactions_thenCreatesThem() {
+    transactionService.createTransactions(records(JOURNAL_A, 1, 3));
+    transactionService.createTransactions(records(JOURNAL_B, 1, 3));
+
+    List<Transaction> expected = new ArrayList<>(records(JOURNAL_A, 1, 3));
+
+    expected.addAll(records(JOURNAL_B, 1, 3));
+
+    assertThat(keys()).containsExactlyInAnyOrderElementsOf(keys(expected));
+  }
+
+  @Test
+  public void givenRecordsWithoutJournal_whenCreateTransactions_thenCreatesAll() {
+    List<Transaction> transactions = records(JOURNAL_A, 1, 2);
+
+    transactions.add(new Transaction("T", WALLET, -1L, 0L, OTHER, 1L, 1L));
+    transactions.add(new Transaction("T", OTHER, -1L, 0L, WALLET, 1L, 1L));
+
+    transactionService.createTransactions(transactions);
+    transactionService.createTransactions(transactions.subList(0, 2));
+
+    assertThat(transactionRepository.count()).isEqualTo(4);
+  }
+
+  /** The records of the journal records {@code from} to {@code to}, of 2 legs each. */
+  private static List<Transaction> records(String journalId, long from, long to) {
+    List<Transaction> transactions = new ArrayList<>();
+
+    for (long lsn = from; lsn <= to; lsn++)
+      for (int leg = 0; leg < 2; leg++) {
+        Transaction transaction = new Transaction("T", WALLET, -1L, 0L, OTHER, 1L, 1L);
+
+        transaction.setCreatedTimestamp(LocalDateTime.of(2026, 1, 1, 0, 0).plusSeconds(lsn));
+        transaction.setJournalId(journalId);
+        transaction.setLsn(lsn);
+        transaction.setLeg(leg);
+        transaction.setHash();
+
+        transactions.add(transaction);
+      }
+
+    return transactions;
+  }
+
+  private List<String> keys() {
+    entityManager.clear();
+
+    return keys(
+        StreamSupport.stream(transactionRepository.findAll().spliterator(), false)
+            .collect(Collectors.toList()));
+  }
+
+  private static List<String> keys(List<Transaction> transactions) {
+    return transactions.stream()
+        .map(AestusTransactionJournalTests::key)
+        .collect(Collectors.toList());
+  }
+
+  private static String key(Transaction transaction) {
+    return transaction.getJournalId() + ":" + transaction.getLsn() + ":" + transaction.getLeg();
+  }
+}
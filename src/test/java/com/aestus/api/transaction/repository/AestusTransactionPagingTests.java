@@ -0,0 +1,227 @@
+package com.aestus.api.transaction.repository;
+
+import com.aestus.api.transaction.model.Transaction;
+import com.aestus.api.transaction.model.TransactionCursor;
+import com.aestus.api.transaction.model.TransactionPage;
+import com.aestus.api.transaction.service.TransactionService;
+import com.aestus.api.transaction.service.impl.TransactionServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Walks the transaction history of a wallet page by page, across transactions created in the same
+ * second, at the range bounds and at the end of the history, and checks that every transaction is
+ * read once in order.
+ */
+@ExtendWith(SpringExtension.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class AestusTransactionPagingTests {
+
+  private static final String WALLET = "PagedWallet0000000001";
+  private static final String OTHER = "OtherWallet0000000002";
+  private static final String THIRD = "ThirdWallet0000000003";
+
+  /** Whole seconds, the precision of the DATETIME columns. */
+  private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+  private static final Comparator<Transaction> NEWEST_FIRST =
+      Comparator.comparing(Transaction::getCreatedTimestamp)
+          .thenComparing(Transaction::getId)
+          .reversed();
+
+  private static final Predicate<Transaction> SENT =
+      transaction -> transaction.getSenderWalletId().equals(WALLET);
+
+  private static final Predicate<Transaction> RECEIVED =
+      transaction -> transaction.getReceiverWalletId().equals(WALLET);
+
+  @Autowired private TransactionRepository transactionRepository;
+
+  @Autowired private EntityManager entityManager;
+
+  private TransactionService transactionService;
+  private List<Transaction> transactions;
+
+  @BeforeEach
+  public void initBeforeEachTest() {
+    transactionService = new TransactionServiceImpl(transactionRepository, null, entityManager);
+    transactions = new ArrayList<>();
+
+    save(WALLET, OTHER, 0);
+    save(WALLET, WALLET, 3);
+    save(OTHER, WALLET, 5);
+
+    // A run of transactions in the same second, on both sides, longer than a page
+    for (int i = 0; i < 5; i++) save(WALLET, OTHER, 10);
+
+    save(OTHER, WALLET, 10);
+    save(THIRD, WALLET, 10);
+    save(OTHER, THIRD, 10);
+    save(WALLET, THIRD, 20);
+
+    entityManager.flush();
+    entityManager.clear();
+  }
+
+  @Test
+  public void givenTiedTimestamps_whenWalkWalletPages_thenReadsEachTransactionOnce() {
+    for (int limit = 1; limit <= 4; limit++)
+      assertThat(
+              ids(
+                  walk(
+                      (cursor, size) ->
+                          transactionService.getTransactionsByWalletId(
+                              WALLET, null, null, cursor, size),
+                      limit)))
+          .as("limit %d", limit)
+          .containsExactlyElementsOf(expected(SENT.or(RECEIVED)));
+  }
+
+  @Test
+  public void givenTiedTimestamps_whenWalkSenderAndReceiverPages_thenReadsEachTransactionOnce() {
+    List<Transaction> sent =
+        walk(
+            (cursor, size) ->
+                transactionService.getTransactionsBySenderWalletId(
+                    WALLET, null, null, cursor, size),
+            2);
+    List<Transaction> received =
+        walk(
+            (cursor, size) ->
+                transactionService.getTransactionsByReceiverWalletId(
+                    WALLET, null, null, cursor, size),
+            2);
+
+    assertThat(ids(sent)).containsExactlyElementsOf(expected(SENT));
+    assertThat(ids(received)).containsExactlyElementsOf(expected(RECEIVED));
+  }
+
+  @Test
+  public void givenExactlyLimitLeft_whenGetPage_thenHasNoNextCursor() {
+    int count = expected(SENT).size();
+
+    TransactionPage full =
+        transactionService.getTransactionsBySenderWalletId(WALLET, null, null, null, count);
+    TransactionPage partial =
+        transactionService.getTransactionsBySenderWalletId(WALLET, null, null, null, count - 1);
+
+    assertThat(full.getTransactions()).hasSize(count);
+    assertThat(full.getNextCursor()).isNull();
+
+    // The cursor of a page is its last transaction, the next page holds the one left
+    assertThat(partial.getNextCursor())
+        .isEqualTo(TransactionCursor.of(partial.getTransactions().get(count - 2)).encode());
+
+    TransactionPage last =
+        transactionService.getTransactionsBySenderWalletId(
+            WALLET, null, null, TransactionCursor.decode(partial.getNextCursor()), count - 1);
+
+    assertThat(last.getTransactions()).hasSize(1);
+    assertThat(last.getNextCursor()).isNull();
+  }
+
+  @Test
+  public void givenRange_whenWalkWalletPages_thenIncludesFromAndExcludesTo() {
+    LocalDateTime from = T0.plusSeconds(5);
+    LocalDateTime to = T0.plusSeconds(20);
+
+    assertThat(
+            ids(
+                walk(
+                    (cursor, size) ->
+                        transactionService.getTransactionsByWalletId(
+                            WALLET, from, to, cursor, size),
+                    2)))
+        .containsExactlyElementsOf(
+            expected(
+                SENT.or(RECEIVED)
+                    .and(transaction -> !transaction.getCreatedTimestamp().isBefore(from))
+                    .and(transaction -> transaction.getCreatedTimestamp().isBefore(to))));
+  }
+
+  @Test
+  public void givenNoHistory_whenGetPage_thenIsEmptyWithoutNextCursor() {
+    TransactionPage page =
+        transactionService.getTransactionsByWalletId("EmptyWallet0000000004", null, null, null, 2);
+
+    assertThat(page.getTransactions()).isEmpty();
+    assertThat(page.getNextCursor()).isNull();
+  }
+
+  @Test
+  public void givenCursor_whenEncodeAndDecode_thenRoundTrips() {
+    TransactionCursor cursor = new TransactionCursor(T0.plusSeconds(10), 42L);
+
+    assertThat(TransactionCursor.decode(cursor.encode())).isEqualTo(cursor);
+    assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("not a cursor"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> TransactionCursor.decode(cursor.encode().substring(1)));
+  }
+
+  private void save(String senderWalletId, String receiverWalletId, int second) {
+    Transaction transaction =
+        new Transaction("T", senderWalletId, -1L, 0L, receiverWalletId, 1L, 1L);
+
+    transaction.setCreatedTimestamp(T0.plusSeconds(second));
+    transaction.setHash();
+
+    transactions.add(transactionRepository.save(transaction));
+  }
+
+  /** Reads a history from the first page to the last one. */
+  private static List<Transaction> walk(Pager pager, int limit) {
+    List<Transaction> read = new ArrayList<>();
+    TransactionCursor cursor = null;
+
+    do {
+      TransactionPage page = pager.page(cursor, limit);
+
+      assertThat(page.getTransactions()).hasSizeLessThanOrEqualTo(limit);
+
+      read.addAll(page.getTransactions());
+      cursor = page.getNextCursor() == null ? null : TransactionCursor.decode(page.getNextCursor());
+    } while (cursor != null);
+
+    return read;
+  }
+
+  private List<Long> expected(Predicate<Transaction> predicate) {
+    return transactions.stream()
+        .filter(predicate)
+        .sorted(NEWEST_FIRST)
+        .map(Transaction::getId)
+        .collect(Collectors.toList());
+  }
+
+  private static List<Long> ids(List<Transaction> transactions) {
+    return transactions.stream().map(Transaction::getId).collect(Collectors.toList());
+  }
+
+  /** Gets a page of a history. */
+  private interface Pager {
+    TransactionPage page(TransactionCursor cursor, int limit);
+  }
+}